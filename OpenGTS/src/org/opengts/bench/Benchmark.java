@@ -0,0 +1,261 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Minimal micro-benchmark harness (warm-up, calibrated timed iterations,
+//  baseline comparison)
+// ----------------------------------------------------------------------------
+package org.opengts.bench;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+
+import org.opengts.util.*;
+
+/**
+*** A single micro-benchmark.<br>
+*** Subclasses implement <code>run(int ops)</code>, which must perform the measured
+*** operation 'ops' times and return a value derived from the results (to prevent the
+*** JIT from eliminating the measured code).
+**/
+
+public abstract class Benchmark
+{
+
+    // ------------------------------------------------------------------------
+
+    /* result sink (prevents dead-code elimination of returned checksums) */
+    private static volatile long    Sink            = 0L;
+
+    // ------------------------------------------------------------------------
+
+    private String  name    = null;
+
+    /**
+    *** Constructor
+    *** @param name  The benchmark name (used as the baseline key)
+    **/
+    public Benchmark(String name)
+    {
+        this.name = StringTools.trim(name);
+    }
+
+    /**
+    *** Gets the benchmark name
+    **/
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+    *** Returns true if the results are stable enough to be compared against a baseline
+    *** (false for benchmarks dominated by socket/file I/O)
+    **/
+    public boolean isComparable()
+    {
+        return true;
+    }
+
+    /**
+    *** Called once prior to warm-up
+    **/
+    public void setUp()
+        throws Throwable
+    {
+        // override
+    }
+
+    /**
+    *** Performs the measured operation 'ops' times
+    *** @param ops  The number of operations to perform
+    *** @return A checksum derived from the operation results
+    **/
+    public abstract long run(int ops)
+        throws Throwable;
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Benchmark result
+    **/
+    public static class Result
+    {
+        private String  name        = null;
+        private double  nsPerOp     = 0.0;
+        private double  minNsPerOp  = 0.0;
+        private double  maxNsPerOp  = 0.0;
+        private int     opsPerIter  = 0;
+        private String  error       = null;
+        public Result(String name, double ns, double min, double max, int ops) {
+            this.name       = name;
+            this.nsPerOp    = ns;
+            this.minNsPerOp = min;
+            this.maxNsPerOp = max;
+            this.opsPerIter = ops;
+        }
+        public Result(String name, Throwable th) {
+            this.name       = name;
+            this.error      = (th != null)? th.toString() : "error";
+        }
+        public String getName() {
+            return this.name;
+        }
+        public boolean isError() {
+            return (this.error != null);
+        }
+        public String getError() {
+            return this.error;
+        }
+        public double getNanosPerOp() {
+            return this.nsPerOp;
+        }
+        public String toString() {
+            if (this.isError()) {
+                return StringTools.padRight(this.name,' ',36) + " ERROR: " + this.error;
+            }
+            return StringTools.padRight(this.name,' ',36) + " " +
+                StringTools.padLeft(StringTools.format(this.nsPerOp,"0.0"),' ',12) + " ns/op" +
+                "  [min " + StringTools.format(this.minNsPerOp,"0.0") +
+                ", max " + StringTools.format(this.maxNsPerOp,"0.0") +
+                ", " + this.opsPerIter + " ops/iter]";
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Runs the specified benchmark.<br>
+    *** The number of operations per iteration is first calibrated so that each iteration
+    *** takes approximately 'iterMS' milliseconds.  The returned time is the median of
+    *** the measured iterations.
+    *** @param b          The benchmark to run
+    *** @param warmIters  The number of (unmeasured) warm-up iterations
+    *** @param iters      The number of measured iterations
+    *** @param iterMS     The target duration of each iteration
+    *** @return The benchmark result
+    **/
+    public static Result measure(Benchmark b, int warmIters, int iters, long iterMS)
+    {
+        String name = b.getName();
+        try {
+            b.setUp();
+
+            /* calibrate */
+            long targetNS = Math.max(iterMS,1L) * 1000000L;
+            int ops = 1;
+            for (;;) {
+                long startNS = System.nanoTime();
+                Sink += b.run(ops);
+                long deltaNS = System.nanoTime() - startNS;
+                if ((deltaNS >= (targetNS / 4L)) || (ops >= (Integer.MAX_VALUE / 2))) {
+                    double scale = (double)targetNS / (double)Math.max(deltaNS,1L);
+                    ops = (int)Math.max(1L, Math.min((long)Integer.MAX_VALUE, (long)(ops * scale)));
+                    break;
+                }
+                ops *= 2;
+            }
+
+            /* warm-up */
+            for (int i = 0; i < warmIters; i++) {
+                Sink += b.run(ops);
+            }
+
+            /* measure */
+            double ns[] = new double[Math.max(iters,1)];
+            for (int i = 0; i < ns.length; i++) {
+                long startNS = System.nanoTime();
+                Sink += b.run(ops);
+                ns[i] = (double)(System.nanoTime() - startNS) / (double)ops;
+            }
+            Arrays.sort(ns);
+            double median = ((ns.length & 1) == 1)?
+                ns[ns.length / 2] : ((ns[(ns.length / 2) - 1] + ns[ns.length / 2]) / 2.0);
+            return new Result(name, median, ns[0], ns[ns.length - 1], ops);
+
+        } catch (Throwable th) {
+            return new Result(name, th);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Loads a baseline file ("name=nsPerOp" per line)
+    *** @param file  The baseline file
+    *** @return The baseline map (empty if the file does not exist)
+    **/
+    public static Map<String,Double> loadBaseline(File file)
+    {
+        Map<String,Double> baseline = new TreeMap<String,Double>();
+        if ((file != null) && file.isFile()) {
+            Properties props = new Properties();
+            FileInputStream fis = null;
+            try {
+                fis = new FileInputStream(file);
+                props.load(fis);
+                for (String key : props.stringPropertyNames()) {
+                    double ns = StringTools.parseDouble(props.getProperty(key),-1.0);
+                    if (ns > 0.0) {
+                        baseline.put(key, new Double(ns));
+                    }
+                }
+            } catch (IOException ioe) {
+                Print.logError("Unable to read baseline: " + file + " [" + ioe + "]");
+            } finally {
+                if (fis != null) { try { fis.close(); } catch (Throwable th) {/*ignore*/} }
+            }
+        }
+        return baseline;
+    }
+
+    /**
+    *** Saves the specified results as a baseline file
+    *** @param file     The baseline file
+    *** @param results  The benchmark results
+    *** @return True if the baseline was saved
+    **/
+    public static boolean saveBaseline(File file, java.util.List<Result> results)
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append("# OpenGTS micro-benchmark baseline (median ns/op)\n");
+        sb.append("# Java ").append(System.getProperty("java.version"));
+        sb.append(", ").append(System.getProperty("os.name"));
+        sb.append(", ").append(Runtime.getRuntime().availableProcessors()).append(" cpu\n");
+        for (Result r : results) {
+            if (!r.isError()) {
+                sb.append(r.getName()).append("=").append(StringTools.format(r.getNanosPerOp(),"0.0")).append("\n");
+            }
+        }
+        try {
+            File dir = file.getParentFile();
+            if ((dir != null) && !dir.isDirectory()) {
+                dir.mkdirs();
+            }
+            FileTools.writeFile(sb.toString().getBytes(), file);
+            return true;
+        } catch (IOException ioe) {
+            Print.logError("Unable to write baseline: " + file + " [" + ioe + "]");
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,582 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Micro-benchmarks for core hot paths (packet framing/parsing, geometry,
+//  SQL generation, date formatting, string parsing, JSON)
+// ----------------------------------------------------------------------------
+// Usage:
+//   ant bench                         (compare against "bench/baseline.properties", report only)
+//   ant bench -Dbench.failOnRegression=true  (fail on regressions)
+//   ant bench.baseline                (re-create "bench/baseline.properties")
+// Options:
+//   -filter=<substr>                  Run only benchmarks containing <substr>
+//   -iter=<count>                     Number of measured iterations [default 7]
+//   -warm=<count>                     Number of warm-up iterations [default 3]
+//   -ms=<millis>                      Target duration of each iteration [default 200]
+//   -baseline=<file>                  Baseline file to compare against
+//   -save=<file>                      Save results as a new baseline file
+//   -tolerance=<fraction>             Allowed regression before reporting [default 0.25]
+//   -failOnRegression=true            Exit with an error status if regressions are found
+//                                     (I/O benchmarks are never compared)
+//   -parsers=true                     Include DCS 'getHandlePacket' parsers (requires a
+//                                     configured database, device lookups will not match)
+// ----------------------------------------------------------------------------
+package org.opengts.bench;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.atomic.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+import org.opengts.db.*;
+import org.opengts.db.tables.*;
+
+public class CoreBenchmarks
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final String ARG_FILTER[]    = new String[] { "filter"   , "f"    };
+    private static final String ARG_ITER[]      = new String[] { "iter"     , "i"    };
+    private static final String ARG_WARM[]      = new String[] { "warm"     , "w"    };
+    private static final String ARG_MS[]        = new String[] { "ms"                };
+    private static final String ARG_BASELINE[]  = new String[] { "baseline" , "b"    };
+    private static final String ARG_SAVE[]      = new String[] { "save"              };
+    private static final String ARG_TOLERANCE[] = new String[] { "tolerance", "tol"  };
+    private static final String ARG_FAIL[]      = new String[] { "failOnRegression", "fail" };
+    private static final String ARG_PARSERS[]   = new String[] { "parsers"           };
+
+    // ------------------------------------------------------------------------
+    // sample data
+
+    private static final String GPRMC           = "$GPRMC,025423.494,A,3709.0642,N,14207.8315,W,0.094824,108.52,200505,,*17";
+    private static final String GPGGA           = "$GPGGA,025425.494,3709.0743,N,14207.8321,W,1,06,1.2,29.3,M,-24.8,M,,0000*58";
+
+    private static final String PKT_TK10X       = "imei:123451042191239,tracker,1107090553,9735551234,F,215314.000,A,4103.7641,N,14244.9450,W,0.08,;";
+    private static final String PKT_TEMPLATE    = "/123456789012345/" + GPRMC;
+    private static final String PKT_TAIP        = ">RPV15714+3739438-1420384601512612;ID=1234;*7F<";
+    private static final String PKT_SIPGEAR     = "1107090553,9735551234,GPRMC,215314.000,A,4103.7641,N,14244.9450,W,0.08,0.0,090711,,,A*6F,F,,imei:123451042191239,05,123.4,F:3.85V,0,139,2689,310,410,61A5,DE1F";
+    private static final String PKT_LANTRIX     = ">RGP190805211932-3457215-058493640000000FFBF0300;ID=8247;#2122;*54<";
+    private static final String PKT_ICARE       = "%355510004002126,$GPRMC,162037.512,A,2731.1236,N,14250.0146,W,0.00,0.01,160507,003.1,W,A,4615551493,L18d";
+    private static final String PKT_ASPICORE[]  = new String[] {
+        "IMEI 123456789012345",
+        "$GPRMC,144858.159,A,4009.0358,N,14253.3223,W,0.00,006.40,191104,,*14",
+        "*DE6279AE"
+    };
+
+    /**
+    *** Creates a sample Astra Telematics protocol "K" packet (header, one zero-filled report, CRC)
+    **/
+    private static byte[] _astraPacketK()
+    {
+        int rptLen = 40;
+        int pktLen = 1 + 2 + 7 + rptLen + 2;
+        Payload p = new Payload(pktLen);
+        p.writeUInt('K', 1);
+        p.writeUInt(pktLen, 2);
+        p.writeULong(35123456L, 4);   // IMEI TAC
+        p.writeUInt(7890123, 3);      // IMEI MSN
+        p.writeZeroFill(rptLen);
+        byte pkt[] = p.getBytes();
+        // -- CRC-16 (reflected 0xA001, initial 0xFFFF), big-endian
+        int crc = 0xFFFF;
+        for (int i = 0; i < (pkt.length - 2); i++) {
+            crc ^= (pkt[i] & 0xFF);
+            for (int b = 0; b < 8; b++) {
+                crc = ((crc & 1) != 0)? ((crc >>> 1) ^ 0xA001) : (crc >>> 1);
+            }
+        }
+        pkt[pkt.length - 2] = (byte)((crc >> 8) & 0xFF);
+        pkt[pkt.length - 1] = (byte)( crc       & 0xFF);
+        return pkt;
+    }
+
+    // ------------------------------------------------------------------------
+    // DCS packet handlers
+
+    /**
+    *** Simulated TCP session (no socket)
+    **/
+    private static class BenchSessionInfo
+        implements ServerSocketThread.SessionInfo
+    {
+        private long startMS = System.currentTimeMillis();
+        public Thread      getSessionThread()      { return Thread.currentThread(); }
+        public long        getSessionStartTimeMS() { return this.startMS; }
+        public long        getSessionStartTime()   { return this.startMS / 1000L; }
+        public long        getSessionReceiveTime() { return DateTime.getCurrentTimeSec(); }
+        public int         getLocalPort()          { return 31000; }
+        public boolean     isTCP()                 { return true; }
+        public boolean     isUDP()                 { return false; }
+        public boolean     isInputStream()         { return false; }
+        public void        forceCloseTCPSession()  { }
+        public int         getAvailableBytes()     { return 0; }
+        public InetAddress getInetAddress()        { return InetAddress.getLoopbackAddress(); }
+        public int         getRemotePort()         { return 40000; }
+        public boolean     tcpWrite(byte data[])   { return true; }
+        public boolean     udpWrite(byte data[])   { return false; }
+        public long        getReadByteCount()      { return 0L; }
+        public long        getWriteByteCount()     { return 0L; }
+    }
+
+    /**
+    *** Benchmarks a DCS packet handler.<br>
+    *** When 'parse' is false, only the packet framing ('getActualPacketLength') is measured,
+    *** otherwise the full 'getHandlePacket' parse is measured (which includes the Device lookup).
+    **/
+    private static class HandlerBenchmark
+        extends Benchmark
+    {
+        private Class<? extends ClientPacketHandler> handlerClass = null;
+        private boolean isText  = true;
+        private boolean parse   = false;
+        private byte    pkts[][] = null;
+        private ClientPacketHandler cph = null;
+        public HandlerBenchmark(String dcs, Class<? extends ClientPacketHandler> hc,
+            boolean isText, boolean parse, byte... pkt) {
+            this(dcs, hc, isText, parse, new byte[][] { pkt });
+        }
+        public HandlerBenchmark(String dcs, Class<? extends ClientPacketHandler> hc,
+            boolean isText, boolean parse, byte pkts[][]) {
+            super((parse? "dcs.parse." : "dcs.framing.") + dcs);
+            this.handlerClass = hc;
+            this.isText       = isText;
+            this.parse        = parse;
+            this.pkts         = pkts;
+        }
+        public void setUp() throws Throwable {
+            this.cph = this.handlerClass.newInstance();
+            this.cph.setSessionInfo(new BenchSessionInfo());
+            this.cph.sessionStarted(InetAddress.getLoopbackAddress(), true/*TCP*/, this.isText);
+        }
+        public long run(int ops) throws Throwable {
+            long sum = 0L;
+            for (int i = 0; i < ops; i++) {
+                for (byte pkt[] : this.pkts) {
+                    sum += this.cph.getActualPacketLength(pkt, pkt.length);
+                    if (this.parse) {
+                        byte rtn[] = this.cph.getHandlePacket(pkt);
+                        sum += (rtn != null)? rtn.length : 0;
+                    }
+                }
+            }
+            return sum;
+        }
+    }
+
+    /**
+    *** Adds the DCS packet handler benchmarks
+    **/
+    private static void _addHandlerBenchmarks(java.util.List<Benchmark> list, boolean parse)
+    {
+        byte aspicore[][] = new byte[PKT_ASPICORE.length][];
+        for (int i = 0; i < aspicore.length; i++) { aspicore[i] = PKT_ASPICORE[i].getBytes(); }
+        list.add(new HandlerBenchmark("tk10x"   , org.opengts.servers.tk10x.TrackClientPacketHandler.class   , false, parse, PKT_TK10X.getBytes()));
+        list.add(new HandlerBenchmark("template", org.opengts.servers.template.TrackClientPacketHandler.class, true , parse, PKT_TEMPLATE.getBytes()));
+        list.add(new HandlerBenchmark("taip"    , org.opengts.servers.taip.TrackClientPacketHandler.class    , true , parse, PKT_TAIP.getBytes()));
+        list.add(new HandlerBenchmark("sipgear" , org.opengts.servers.sipgear.TrackClientPacketHandler.class , true , parse, PKT_SIPGEAR.getBytes()));
+        list.add(new HandlerBenchmark("astra"   , org.opengts.servers.astra.TrackClientPacketHandler.class   , false, parse, _astraPacketK()));
+        list.add(new HandlerBenchmark("lantrix" , org.opengts.servers.lantrix.TrackClientPacketHandler.class , true , parse, PKT_LANTRIX.getBytes()));
+        list.add(new HandlerBenchmark("icare"   , org.opengts.servers.icare.TrackClientPacketHandler.class   , true , parse, PKT_ICARE.getBytes()));
+        list.add(new HandlerBenchmark("aspicore", org.opengts.servers.aspicore.TrackClientPacketHandler.class, true , parse, aspicore));
+    }
+
+    // ------------------------------------------------------------------------
+    // ServerSocketThread framing (loopback TCP)
+
+    private static final AtomicLong FramedPacketCount = new AtomicLong(0L);
+
+    /**
+    *** Counts received packets (no parsing, no response)
+    **/
+    public static class FramingClientPacketHandler
+        extends AbstractClientPacketHandler
+    {
+        public FramingClientPacketHandler() {
+            super();
+        }
+        public void sessionStarted(InetAddress inetAddr, boolean isTCP, boolean isText) {
+            super.sessionStarted(inetAddr, isTCP, isText);
+            super.clearTerminateSession(); // keep session open
+        }
+        public byte[] getHandlePacket(byte pkt[]) {
+            FramedPacketCount.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+    *** Measures the ServerSocketThread line framing throughput over a loopback TCP connection
+    **/
+    private static class SocketFramingBenchmark
+        extends Benchmark
+    {
+        private ServerSocketThread sst    = null;
+        private Socket             client = null;
+        private OutputStream       output = null;
+        private byte               line[] = null;
+        public SocketFramingBenchmark() {
+            super("sst.framing.tcpLine");
+            this.line = (PKT_TK10X + "\n").getBytes();
+        }
+        public boolean isComparable() {
+            return false; // loopback socket round-trip
+        }
+        public void setUp() throws Throwable {
+            this.sst = new ServerSocketThread(new ServerSocket(0, 50, InetAddress.getLoopbackAddress()));
+            this.sst.setTextPackets(true);
+            this.sst.setLineTerminatorChar(new int[] { '\n' });
+            this.sst.setMaximumPacketLength(600);
+            this.sst.setMinimumPacketLength(1);
+            this.sst.setIdleTimeout(DateTime.MinuteSeconds(10) * 1000L);
+            this.sst.setPacketTimeout(DateTime.MinuteSeconds(10) * 1000L);
+            this.sst.setSessionTimeout(DateTime.HourSeconds(24) * 1000L);
+            this.sst.setClientPacketHandlerClass(FramingClientPacketHandler.class);
+            this.sst.start();
+            this.client = new Socket(InetAddress.getLoopbackAddress(), this.sst.getLocalPort());
+            this.client.setTcpNoDelay(true);
+            this.output = new BufferedOutputStream(this.client.getOutputStream(), 64 * 1024);
+        }
+        public long run(int ops) throws Throwable {
+            long target = FramedPacketCount.get() + ops;
+            for (int i = 0; i < ops; i++) {
+                this.output.write(this.line);
+            }
+            this.output.flush();
+            long timeoutMS = System.currentTimeMillis() + 60000L;
+            while (FramedPacketCount.get() < target) {
+                if (System.currentTimeMillis() > timeoutMS) {
+                    throw new IOException("Timeout waiting for framed packets");
+                }
+                Thread.yield();
+            }
+            return target;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // utility benchmarks
+
+    /**
+    *** Adds the utility (non-DCS) benchmarks
+    **/
+    private static void _addUtilityBenchmarks(java.util.List<Benchmark> list)
+    {
+
+        /* NMEA-0183 */
+        list.add(new Benchmark("nmea0183.parse.gprmc") {
+            public long run(int ops) {
+                long sum = 0L;
+                for (int i = 0; i < ops; i++) {
+                    Nmea0183 n = new Nmea0183(GPRMC);
+                    sum += (long)n.getLatitude();
+                }
+                return sum;
+            }
+        });
+        list.add(new Benchmark("nmea0183.parse.gprmc+gpgga") {
+            public long run(int ops) {
+                long sum = 0L;
+                String rcds[] = new String[] { GPRMC, GPGGA };
+                for (int i = 0; i < ops; i++) {
+                    Nmea0183 n = new Nmea0183(rcds, true);
+                    sum += (long)n.getLongitude();
+                }
+                return sum;
+            }
+        });
+
+        /* GeoPoint */
+        list.add(new Benchmark("geopoint.metersToPoint") {
+            private GeoPoint gp[] = null;
+            public void setUp() {
+                Random r = new Random(1L);
+                this.gp = new GeoPoint[256];
+                for (int i = 0; i < this.gp.length; i++) {
+                    this.gp[i] = new GeoPoint(37.0 + r.nextDouble(), -142.0 + r.nextDouble());
+                }
+            }
+            public long run(int ops) {
+                double sum = 0.0;
+                for (int i = 0; i < ops; i++) {
+                    sum += this.gp[i & 0xFF].metersToPoint(this.gp[(i + 1) & 0xFF]);
+                }
+                return (long)sum;
+            }
+        });
+
+        /* GeoPolygon */
+        list.add(new Benchmark("geopolygon.containsPoint.12v") {
+            private GeoPolygon poly = null;
+            private GeoPoint   gp[] = null;
+            public void setUp() {
+                GeoPoint v[] = new GeoPoint[12];
+                for (int i = 0; i < v.length; i++) {
+                    double a = (2.0 * Math.PI * i) / v.length;
+                    double r = ((i & 1) == 0)? 0.010 : 0.006; // star shaped
+                    v[i] = new GeoPoint(37.0 + (r * Math.sin(a)), -142.0 + (r * Math.cos(a)));
+                }
+                this.poly = new GeoPolygon(v);
+                Random rand = new Random(1L);
+                this.gp = new GeoPoint[256];
+                for (int i = 0; i < this.gp.length; i++) {
+                    this.gp[i] = new GeoPoint(37.0 + ((rand.nextDouble() - 0.5) * 0.025), -142.0 + ((rand.nextDouble() - 0.5) * 0.025));
+                }
+            }
+            public long run(int ops) {
+                long sum = 0L;
+                for (int i = 0; i < ops; i++) {
+                    if (this.poly.containsPoint(this.gp[i & 0xFF])) { sum++; }
+                }
+                return sum;
+            }
+        });
+
+        /* DateTime */
+        list.add(new Benchmark("datetime.format") {
+            private TimeZone tz = null;
+            public void setUp() {
+                this.tz = DateTime.getTimeZone("US/Pacific");
+            }
+            public long run(int ops) {
+                long sum = 0L;
+                long t = 1400000000L;
+                for (int i = 0; i < ops; i++) {
+                    DateTime dt = new DateTime(t + i, this.tz);
+                    sum += dt.format("yyyy/MM/dd HH:mm:ss zzz").length();
+                }
+                return sum;
+            }
+        });
+
+        /* StringTools */
+        list.add(new Benchmark("stringtools.parseNumbers") {
+            private String s[] = new String[] { "12345", "-987.654", "0x1F2E", "true", "4103.7641", "  42  " };
+            public long run(int ops) {
+                long sum = 0L;
+                for (int i = 0; i < ops; i++) {
+                    sum += StringTools.parseInt(s[0], 0);
+                    sum += (long)StringTools.parseDouble(s[1], 0.0);
+                    sum += StringTools.parseHex(s[2], 0);
+                    sum += StringTools.parseBoolean(s[3], false)? 1 : 0;
+                    sum += (long)StringTools.parseDouble(s[4], 0.0);
+                    sum += StringTools.parseLong(s[5], 0L);
+                }
+                return sum;
+            }
+        });
+        list.add(new Benchmark("stringtools.parseStringArray") {
+            public long run(int ops) {
+                long sum = 0L;
+                for (int i = 0; i < ops; i++) {
+                    sum += StringTools.parseStringArray(PKT_SIPGEAR, ',').length;
+                }
+                return sum;
+            }
+        });
+
+        /* JSON */
+        list.add(new Benchmark("json.serialize") {
+            private JSON._Object obj = null;
+            public void setUp() {
+                JSON._Array events = new JSON._Array();
+                for (int i = 0; i < 10; i++) {
+                    JSON._Object ev = new JSON._Object();
+                    ev.addKeyValue("device"   , "truck-" + i);
+                    ev.addKeyValue("timestamp", 1400000000L + i);
+                    ev.addKeyValue("latitude" , 37.1234 + (i / 1000.0));
+                    ev.addKeyValue("longitude", -142.5678 - (i / 1000.0));
+                    ev.addKeyValue("address"  , "123 \"Main\" St, Anytown");
+                    ev.addKeyValue("valid"    , true);
+                    events.addValue(ev);
+                }
+                this.obj = new JSON._Object();
+                this.obj.addKeyValue("account", "demo");
+                this.obj.addKeyValue("events" , events);
+            }
+            public long run(int ops) {
+                long sum = 0L;
+                for (int i = 0; i < ops; i++) {
+                    sum += this.obj.toString(false).length();
+                }
+                return sum;
+            }
+        });
+        list.add(new Benchmark("json.parse") {
+            private String json = null;
+            public void setUp() {
+                JSON._Object obj = new JSON._Object();
+                JSON._Array  a   = new JSON._Array();
+                for (int i = 0; i < 10; i++) {
+                    JSON._Object ev = new JSON._Object();
+                    ev.addKeyValue("device"   , "truck-" + i);
+                    ev.addKeyValue("timestamp", 1400000000L + i);
+                    ev.addKeyValue("latitude" , 37.1234 + (i / 1000.0));
+                    a.addValue(ev);
+                }
+                obj.addKeyValue("events", a);
+                this.json = obj.toString(false);
+            }
+            public long run(int ops) throws Throwable {
+                long sum = 0L;
+                for (int i = 0; i < ops; i++) {
+                    sum += new JSON(this.json).getObject().getKeyValueCount();
+                }
+                return sum;
+            }
+        });
+
+    }
+
+    // ------------------------------------------------------------------------
+    // DB record benchmarks (no database access)
+
+    /**
+    *** Adds the DBRecord/SQL generation benchmarks
+    **/
+    private static void _addRecordBenchmarks(java.util.List<Benchmark> list)
+    {
+
+        /* DBFieldValues set/get */
+        list.add(new Benchmark("dbfieldvalues.setGet") {
+            private DBFieldValues fv = null;
+            public void setUp() {
+                EventData.Key key = new EventData.Key("demo", "truck", 1400000000L, StatusCodes.STATUS_LOCATION);
+                this.fv = key.getFieldValues();
+            }
+            public long run(int ops) {
+                long sum = 0L;
+                for (int i = 0; i < ops; i++) {
+                    this.fv.setFieldValue(EventData.FLD_latitude , 37.1234);
+                    this.fv.setFieldValue(EventData.FLD_longitude, -142.5678);
+                    this.fv.setFieldValue(EventData.FLD_speedKPH , (double)(i & 0x7F));
+                    this.fv.setFieldValue(EventData.FLD_heading  , 123.0);
+                    this.fv.setFieldValue(EventData.FLD_address  , "123 Main St");
+                    sum += (long)this.fv.getDoubleValue(EventData.FLD_speedKPH, 0.0);
+                    sum += (long)this.fv.getDoubleValue(EventData.FLD_latitude, 0.0);
+                    sum += this.fv.getFieldValueAsString(EventData.FLD_address).length();
+                }
+                return sum;
+            }
+        });
+
+        /* INSERT SQL generation */
+        list.add(new Benchmark("dbprovider.createInsertSQL.eventData") {
+            private EventData evdb = null;
+            public void setUp() {
+                EventData.Key key = new EventData.Key("demo", "truck", 1400000000L, StatusCodes.STATUS_LOCATION);
+                this.evdb = key.getDBRecord();
+                this.evdb.setGeoPoint(new GeoPoint(37.1234,-142.5678));
+                this.evdb.setSpeedKPH(88.0);
+                this.evdb.setHeading(123.0);
+                this.evdb.setAddress("123 Main St, Anytown");
+            }
+            public long run(int ops) {
+                long sum = 0L;
+                for (int i = 0; i < ops; i++) {
+                    sum += DBProvider.createInsertSQL(this.evdb, null).length();
+                }
+                return sum;
+            }
+        });
+
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Main entry point
+    **/
+    public static void main(String argv[])
+    {
+        RTConfig.setCommandLineArgs(argv);
+        boolean parsers   = RTConfig.getBoolean(ARG_PARSERS, false);
+        if (parsers) {
+            DBConfig.cmdLineInit(argv,false);  // database required for 'getHandlePacket'
+        }
+        String  filter    = RTConfig.getString(ARG_FILTER, null);
+        int     iters     = RTConfig.getInt(ARG_ITER, 7);
+        int     warm      = RTConfig.getInt(ARG_WARM, 3);
+        long    iterMS    = RTConfig.getLong(ARG_MS, 200L);
+        File    baseFile  = RTConfig.getFile(ARG_BASELINE, null);
+        File    saveFile  = RTConfig.getFile(ARG_SAVE, null);
+        double  tolerance = RTConfig.getDouble(ARG_TOLERANCE, 0.25);
+        boolean failRegr  = RTConfig.getBoolean(ARG_FAIL, false);
+
+        /* benchmarks */
+        java.util.List<Benchmark> list = new Vector<Benchmark>();
+        list.add(new SocketFramingBenchmark());
+        CoreBenchmarks._addHandlerBenchmarks(list, false);
+        if (parsers) {
+            CoreBenchmarks._addHandlerBenchmarks(list, true);
+        }
+        CoreBenchmarks._addUtilityBenchmarks(list);
+        CoreBenchmarks._addRecordBenchmarks(list);
+
+        /* run */
+        int saveLogLevel = Print.getLogLevel();
+        Map<String,Double> baseline = Benchmark.loadBaseline(baseFile);
+        java.util.List<Benchmark.Result> results = new Vector<Benchmark.Result>();
+        int regressions = 0;
+        for (Benchmark b : list) {
+            if (!StringTools.isBlank(filter) && (b.getName().indexOf(filter) < 0)) {
+                continue;
+            }
+            Print.setLogLevel(Print.LOG_ERROR); // suppress per-packet logging
+            Benchmark.Result r = Benchmark.measure(b, warm, iters, iterMS);
+            Print.setLogLevel(saveLogLevel);
+            if (b.isComparable()) {
+                results.add(r); // saved to the baseline
+            }
+            StringBuffer sb = new StringBuffer(r.toString());
+            Double base = baseline.get(r.getName());
+            if ((base != null) && !r.isError() && b.isComparable()) {
+                double ratio = r.getNanosPerOp() / base.doubleValue();
+                sb.append("  baseline=").append(StringTools.format(base.doubleValue(),"0.0"));
+                sb.append(" (").append(StringTools.format((ratio - 1.0) * 100.0,"+0.0;-0.0")).append("%)");
+                if (ratio > (1.0 + tolerance)) {
+                    sb.append("  REGRESSION");
+                    regressions++;
+                }
+            }
+            Print.sysPrintln(sb.toString());
+        }
+
+        /* save baseline */
+        if (saveFile != null) {
+            if (Benchmark.saveBaseline(saveFile, results)) {
+                Print.sysPrintln("Baseline saved: " + saveFile);
+            }
+        }
+
+        /* done */
+        if (regressions > 0) {
+            Print.sysPrintln("Regressions: " + regressions + " (tolerance " + StringTools.format(tolerance * 100.0,"0") + "%)");
+            if (failRegr) {
+                System.exit(2);
+            }
+        }
+        System.exit(0);
+    }
+
+}
@@ -0,0 +1,544 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  End-to-end ingestion load generator (simulated TCP/UDP devices sending
+//  protocol-correct packets to a DCS)
+// ----------------------------------------------------------------------------
+package org.opengts.bench;
+
+import java.lang.*;
+import java.lang.management.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.io.*;
+import java.net.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+import org.opengts.db.*;
+import org.opengts.db.tables.*;
+
+/**
+*** End-to-end ingestion load generator.<br>
+*** Simulates a number of devices which periodically send protocol-correct packets
+*** to a DCS over TCP or UDP, and reports client send-rate, events inserted per second,
+*** packet-to-commit latency, thread count, and heap use.<br>
+*** When started with "-server=true", the DCS is started within this JVM (using the
+*** currently configured DB, such as an embedded Derby or a local MySQL) so that the
+*** server-side <code>Metrics</code> (events inserted, DCS parse/insert time) can be
+*** included in the report.
+*** <pre>
+***   java ... org.opengts.bench.IngestLoadTest -dcs=template -devices=1000 -rate=10 -duration=120 -server=true
+*** </pre>
+**/
+
+public class IngestLoadTest
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final String ARG_DCS[]           = new String[] { "dcs"       , "server-id" };
+    public  static final String ARG_HOST[]          = new String[] { "host"      };
+    public  static final String ARG_PORT[]          = new String[] { "port"      };
+    public  static final String ARG_UDP[]           = new String[] { "udp"       };
+    public  static final String ARG_DEVICES[]       = new String[] { "devices"   , "n" };
+    public  static final String ARG_RATE[]          = new String[] { "rate"      }; // seconds between packets (per device)
+    public  static final String ARG_DURATION[]      = new String[] { "duration"  }; // seconds
+    public  static final String ARG_SENDERS[]       = new String[] { "senders"   };
+    public  static final String ARG_PERSISTENT[]    = new String[] { "persistent"};
+    public  static final String ARG_INTERVAL[]      = new String[] { "interval"  }; // report interval seconds
+    public  static final String ARG_ACCOUNT[]       = new String[] { "account"   };
+    public  static final String ARG_CREATE[]        = new String[] { "create"    };
+    public  static final String ARG_SERVER[]        = new String[] { "server"    }; // start DCS in-process
+
+    private static final String DCS_TEMPLATE        = "template";
+    private static final String DCS_TK10X           = "tk10x";
+
+    private static final long   MOBILE_ID_BASE      = 350000000000000L;
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Simulated device state
+    **/
+    private static class SimDevice
+    {
+        private String  deviceID    = null;
+        private String  mobileID    = null;
+        private double  latitude    = 0.0;
+        private double  longitude   = 0.0;
+        private double  heading     = 0.0;
+        private double  speedKPH    = 0.0;
+        private Socket  socket      = null;
+        public SimDevice(int ndx, Random rand) {
+            this.deviceID  = "lt" + StringTools.padLeft(String.valueOf(ndx),'0',6);
+            this.mobileID  = String.valueOf(MOBILE_ID_BASE + ndx);
+            this.latitude  =   39.0 + (rand.nextDouble() * 2.0);
+            this.longitude = -106.0 + (rand.nextDouble() * 2.0);
+            this.heading   = rand.nextDouble() * 360.0;
+        }
+        public String getDeviceID() {
+            return this.deviceID;
+        }
+        public String getMobileID() {
+            return this.mobileID;
+        }
+        public void move(Random rand, double seconds) {
+            this.speedKPH = 20.0 + (rand.nextDouble() * 80.0);
+            this.heading  = (this.heading + (rand.nextDouble() * 40.0) - 20.0 + 360.0) % 360.0;
+            double distM  = (this.speedKPH * seconds) / 3.6;
+            GeoPoint gp   = new GeoPoint(this.latitude, this.longitude).getHeadingPoint(distM, this.heading);
+            this.latitude  = gp.getLatitude();
+            this.longitude = gp.getLongitude();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* format as "ddmm.mmmm" / "dddmm.mmmm" */
+    private static String _formatNMEA(double deg, int degDigits)
+    {
+        deg = Math.abs(deg);
+        int    d = (int)deg;
+        double m = (deg - (double)d) * 60.0;
+        return StringTools.padLeft(String.valueOf(d),'0',degDigits) + StringTools.format(m,"00.0000");
+    }
+
+    /**
+    *** Returns a packet for the specified DCS and device state
+    *** @param dcs      The DCS name
+    *** @param dev      The simulated device
+    *** @param timeSec  The event time
+    *** @return The packet bytes
+    **/
+    private static byte[] _formatPacket(String dcs, SimDevice dev, long timeSec)
+    {
+        DateTime dt = new DateTime(timeSec, DateTime.GMT);
+        TimeZone tz = DateTime.GMT;
+        StringBuffer sb = new StringBuffer();
+        if (dcs.equals(DCS_TK10X)) {
+            // imei:<id>,tracker,YYMMDDhhmm,<phone>,F,hhmmss.000,A,ddmm.mmmm,N,dddmm.mmmm,W,<knots>,;
+            sb.append("imei:").append(dev.getMobileID());
+            sb.append(",tracker,").append(dt.format("yyMMddHHmm",tz));
+            sb.append(",,F,").append(dt.format("HHmmss",tz)).append(".000,A,");
+            sb.append(_formatNMEA(dev.latitude ,2)).append(",").append((dev.latitude  >= 0.0)? "N" : "S").append(",");
+            sb.append(_formatNMEA(dev.longitude,3)).append(",").append((dev.longitude >= 0.0)? "E" : "W").append(",");
+            sb.append(StringTools.format(dev.speedKPH * GeoPoint.NAUTICAL_MILES_PER_KILOMETER,"0.00")).append(",;\n");
+        } else {
+            // <MobileID>,<YYYY/MM/DD>,<HH:MM:SS>,<lat>,<lon>,<speedKPH>,<heading>,<altM>
+            sb.append(dev.getMobileID());
+            sb.append(",").append(dt.format("yyyy/MM/dd",tz));
+            sb.append(",").append(dt.format("HH:mm:ss",tz));
+            sb.append(",").append(StringTools.format(dev.latitude ,"0.00000"));
+            sb.append(",").append(StringTools.format(dev.longitude,"0.00000"));
+            sb.append(",").append(StringTools.format(dev.speedKPH ,"0.0"));
+            sb.append(",").append(StringTools.format(dev.heading  ,"0.0"));
+            sb.append(",1500\n");
+        }
+        return StringTools.getBytes(sb.toString());
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Packet sender.<br>
+    *** Each sender owns a subset of the simulated devices, and sends one packet per device
+    *** per 'rate' interval (evenly staggered across the interval).
+    **/
+    private static class Sender
+        extends Thread
+    {
+        private String              dcs         = null;
+        private InetAddress         host        = null;
+        private int                 port        = 0;
+        private boolean             udp         = false;
+        private boolean             persistent  = false;
+        private long                rateMS      = 0L;
+        private long                stopMS      = 0L;
+        private java.util.List<SimDevice> devices = new Vector<SimDevice>();
+        private Random              rand        = new Random();
+        private DatagramSocket      udpSocket   = null;
+        public Sender(int ndx, String dcs, InetAddress host, int port, boolean udp, boolean persistent, long rateMS, long stopMS) {
+            super("LoadSender_" + ndx);
+            this.setDaemon(true);
+            this.dcs        = dcs;
+            this.host       = host;
+            this.port       = port;
+            this.udp        = udp;
+            this.persistent = persistent;
+            this.rateMS     = rateMS;
+            this.stopMS     = stopMS;
+        }
+        public void addDevice(SimDevice dev) {
+            this.devices.add(dev);
+        }
+        public void run() {
+            int  count   = this.devices.size();
+            long roundMS = System.currentTimeMillis();
+            while (roundMS < this.stopMS) {
+                for (int i = 0; i < count; i++) {
+                    // -- wait until this device is due
+                    long dueMS = roundMS + ((this.rateMS * i) / count);
+                    long nowMS = System.currentTimeMillis();
+                    if (dueMS >= this.stopMS) {
+                        break;
+                    } else
+                    if (dueMS > nowMS) {
+                        try { Thread.sleep(dueMS - nowMS); } catch (InterruptedException ie) { return; }
+                    } else
+                    if ((nowMS - dueMS) > this.rateMS) {
+                        METRIC_LATE.increment(); // sender could not keep up
+                    }
+                    // -- send
+                    SimDevice dev = this.devices.get(i);
+                    dev.move(this.rand, (double)this.rateMS / 1000.0);
+                    byte pkt[] = _formatPacket(this.dcs, dev, DateTime.getCurrentTimeSec());
+                    try {
+                        this.send(dev, pkt);
+                        METRIC_SENT.increment();
+                    } catch (IOException ioe) {
+                        METRIC_ERRORS.increment();
+                        this.close(dev);
+                    }
+                }
+                roundMS += this.rateMS;
+            }
+            for (SimDevice dev : this.devices) {
+                this.close(dev);
+            }
+            if (this.udpSocket != null) {
+                this.udpSocket.close();
+            }
+        }
+        private void send(SimDevice dev, byte pkt[]) throws IOException {
+            if (this.udp) {
+                if (this.udpSocket == null) {
+                    this.udpSocket = new DatagramSocket();
+                }
+                this.udpSocket.send(new DatagramPacket(pkt, pkt.length, this.host, this.port));
+            } else
+            if (this.persistent) {
+                // -- one long-lived connection per device (reconnected if closed by the server)
+                if (dev.socket == null) {
+                    dev.socket = new Socket(this.host, this.port);
+                    dev.socket.setTcpNoDelay(true);
+                }
+                dev.socket.getOutputStream().write(pkt);
+                dev.socket.getOutputStream().flush();
+                InputStream in = dev.socket.getInputStream();
+                int avail = in.available();
+                if (avail > 0) { in.skip(avail); } // discard any server responses
+            } else {
+                // -- connect/send/close: wait for the server to close the session, which
+                // -  occurs after the packet has been parsed and the event committed.
+                long startNS = System.nanoTime();
+                Socket sock = new Socket(this.host, this.port);
+                try {
+                    sock.setTcpNoDelay(true);
+                    sock.getOutputStream().write(pkt);
+                    sock.getOutputStream().flush();
+                    sock.shutdownOutput();
+                    InputStream in = sock.getInputStream();
+                    byte buf[] = new byte[256];
+                    while (in.read(buf) >= 0) { /* discard responses */ }
+                } finally {
+                    try { sock.close(); } catch (Throwable th) {/*ignore*/}
+                }
+                METRIC_ROUNDTRIP.recordSince(startNS);
+            }
+        }
+        private void close(SimDevice dev) {
+            if (dev.socket != null) {
+                try { dev.socket.close(); } catch (Throwable th) {/*ignore*/}
+                dev.socket = null;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final Metrics.Counter   METRIC_SENT      = Metrics.getCounter("loadtest_packets_sent_total");
+    private static final Metrics.Counter   METRIC_ERRORS    = Metrics.getCounter("loadtest_send_errors_total");
+    private static final Metrics.Counter   METRIC_LATE      = Metrics.getCounter("loadtest_late_packets_total");
+    private static final Metrics.Histogram METRIC_ROUNDTRIP = Metrics.getHistogram("loadtest_roundtrip_seconds");
+
+    /* format nanoseconds as milliseconds */
+    private static String _ms(long ns)
+    {
+        return StringTools.format((double)ns / 1000000.0, "0.00") + "ms";
+    }
+
+    /* per-second rate */
+    private static String _rate(long count, long ms)
+    {
+        return StringTools.format((ms > 0L)? ((double)count * 1000.0 / (double)ms) : 0.0, "0.0") + "/s";
+    }
+
+    /**
+    *** Provisions the simulated devices (creates the Account and any missing Devices)
+    **/
+    private static boolean _provision(String acctID, String dcs, java.util.List<SimDevice> devices)
+    {
+        DCServerConfig dcsc = DCServerFactory.getServerConfig(dcs);
+        String pfx[] = (dcsc != null)? dcsc.getUniquePrefix() : null;
+        String uniqPfx = (!ListTools.isEmpty(pfx) && !pfx[0].equals("*"))? pfx[0] : "";
+        try {
+            Account account = Account.exists(acctID)?
+                Account.getAccount(acctID) :
+                Account.createNewAccount(null, acctID, acctID);
+            int created = 0;
+            for (SimDevice dev : devices) {
+                if (!Device.exists(acctID, dev.getDeviceID())) {
+                    Device.createNewDevice(account, dev.getDeviceID(), uniqPfx + dev.getMobileID());
+                    created++;
+                }
+            }
+            Print.sysPrintln("Provisioned account '" + acctID + "': " + created + " devices created, " + (devices.size() - created) + " existing");
+            return true;
+        } catch (DBException dbe) {
+            Print.logException("Unable to provision load-test devices", dbe);
+            return false;
+        }
+    }
+
+    /**
+    *** Starts the specified DCS within this JVM
+    **/
+    private static boolean _startServer(final String dcs, String argv[], InetAddress host, int port, boolean udp)
+    {
+        final String mainArgs[] = new String[argv.length + 1];
+        System.arraycopy(argv, 0, mainArgs, 0, argv.length);
+        mainArgs[argv.length] = "-start";
+        final Method main;
+        try {
+            Class<?> mainClass = Class.forName("org.opengts.servers." + dcs + ".Main");
+            main = mainClass.getMethod("main", String[].class);
+        } catch (Throwable th) {
+            Print.logError("DCS not found: " + dcs + " [" + th + "]");
+            return false;
+        }
+        Thread t = new Thread("DCS_" + dcs) {
+            public void run() {
+                try {
+                    main.invoke(null, new Object[] { mainArgs });
+                } catch (Throwable th) {
+                    Print.logException("DCS terminated: " + dcs, th);
+                }
+            }
+        };
+        t.setDaemon(true);
+        t.start();
+
+        /* wait for the listener */
+        long timeoutMS = System.currentTimeMillis() + 30000L;
+        while (System.currentTimeMillis() < timeoutMS) {
+            try { Thread.sleep(500L); } catch (InterruptedException ie) { return false; }
+            if (udp) {
+                return true; // no way to probe a UDP listener
+            }
+            Socket s = null;
+            try {
+                s = new Socket(host, port);
+                return true;
+            } catch (IOException ioe) {
+                // -- not yet listening
+            } finally {
+                if (s != null) { try { s.close(); } catch (Throwable th) {/*ignore*/} }
+            }
+        }
+        Print.logError("DCS did not start listening on port " + port);
+        return false;
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static void usage()
+    {
+        Print.logInfo("Usage:");
+        Print.logInfo("  java ... " + IngestLoadTest.class.getName() + " {options}");
+        Print.logInfo("Options:");
+        Print.logInfo("  -dcs=<name>          DCS protocol to simulate ('template', 'tk10x') [template]");
+        Print.logInfo("  -host=<host>         DCS host [127.0.0.1]");
+        Print.logInfo("  -port=<port>         DCS port [first configured DCS port]");
+        Print.logInfo("  -udp=<true|false>    Send UDP datagrams (instead of TCP) [false]");
+        Print.logInfo("  -devices=<count>     Number of simulated devices [100]");
+        Print.logInfo("  -rate=<seconds>      Seconds between packets for each device [30]");
+        Print.logInfo("  -duration=<seconds>  Test duration [60]");
+        Print.logInfo("  -senders=<count>     Number of sender threads [8]");
+        Print.logInfo("  -persistent=<bool>   Keep one TCP connection open per device [false]");
+        Print.logInfo("  -interval=<seconds>  Report interval [10]");
+        Print.logInfo("  -account=<id>        Account owning the simulated devices [loadtest]");
+        Print.logInfo("  -create=<bool>       Create the account/devices if missing [true]");
+        Print.logInfo("  -server=<bool>       Start the DCS within this JVM [false]");
+        System.exit(1);
+    }
+
+    /**
+    *** Main entry point
+    **/
+    public static void main(String argv[])
+    {
+        DBConfig.cmdLineInit(argv,true);  // main
+
+        /* arguments */
+        String  dcs        = RTConfig.getString(ARG_DCS, DCS_TEMPLATE).toLowerCase();
+        boolean udp        = RTConfig.getBoolean(ARG_UDP, false);
+        int     numDevices = Math.max(RTConfig.getInt(ARG_DEVICES, 100), 1);
+        long    rateMS     = Math.max(RTConfig.getLong(ARG_RATE, 30L) * 1000L, 100L);
+        long    durationMS = Math.max(RTConfig.getLong(ARG_DURATION, 60L), 1L) * 1000L;
+        int     numSenders = Math.max(Math.min(RTConfig.getInt(ARG_SENDERS, 8), numDevices), 1);
+        boolean persistent = RTConfig.getBoolean(ARG_PERSISTENT, false);
+        long    intervMS   = Math.max(RTConfig.getLong(ARG_INTERVAL, 10L), 1L) * 1000L;
+        String  acctID     = RTConfig.getString(ARG_ACCOUNT, "loadtest");
+        boolean server     = RTConfig.getBoolean(ARG_SERVER, false);
+        if (!dcs.equals(DCS_TEMPLATE) && !dcs.equals(DCS_TK10X)) {
+            Print.logError("Unsupported DCS: " + dcs);
+            usage();
+        }
+
+        /* host/port */
+        InetAddress host;
+        try {
+            host = InetAddress.getByName(RTConfig.getString(ARG_HOST, "127.0.0.1"));
+        } catch (UnknownHostException uhe) {
+            Print.logError("Invalid host: " + uhe);
+            usage();
+            return;
+        }
+        int port = RTConfig.getInt(ARG_PORT, 0);
+        if (port <= 0) {
+            DCServerConfig dcsc = DCServerFactory.getServerConfig(dcs);
+            int ports[] = (dcsc == null)? null : udp? dcsc.getUdpPorts() : dcsc.getTcpPorts();
+            port = !ListTools.isEmpty(ports)? ports[0] : 0;
+            if (port <= 0) {
+                Print.logError("No " + (udp?"UDP":"TCP") + " port configured for DCS: " + dcs);
+                usage();
+            }
+        }
+
+        /* simulated devices */
+        Random rand = new Random(numDevices);
+        java.util.List<SimDevice> devices = new Vector<SimDevice>();
+        for (int i = 0; i < numDevices; i++) {
+            devices.add(new SimDevice(i + 1, rand));
+        }
+        if (RTConfig.getBoolean(ARG_CREATE,true) && !_provision(acctID, dcs, devices)) {
+            System.exit(1);
+        }
+
+        /* start DCS */
+        if (server && !_startServer(dcs, argv, host, port, udp)) {
+            System.exit(1);
+        }
+        Metrics.Counter   inserted  = Metrics.getCounter("events_inserted_total");
+        Metrics.Histogram parseTime = Metrics.getHistogram("dcs_parse_seconds", "dcs", dcs, "handler", "TrackClientPacketHandler");
+        Metrics.Histogram insertTime = Metrics.getHistogram("event_insert_seconds", "stage", "total");
+
+        /* header */
+        Print.sysPrintln("Load test: dcs=" + dcs + " " + (udp?"udp":"tcp") + "://" + host.getHostAddress() + ":" + port +
+            ", devices=" + numDevices + ", rate=" + (rateMS / 1000L) + "s/device (" + _rate(numDevices,rateMS) + ")" +
+            ", duration=" + (durationMS / 1000L) + "s, senders=" + numSenders + (persistent?", persistent":""));
+
+        /* start senders */
+        long startMS = System.currentTimeMillis();
+        long stopMS  = startMS + durationMS;
+        Sender senders[] = new Sender[numSenders];
+        for (int s = 0; s < numSenders; s++) {
+            senders[s] = new Sender(s, dcs, host, port, udp, persistent, rateMS, stopMS);
+        }
+        for (int i = 0; i < numDevices; i++) {
+            senders[i % numSenders].addDevice(devices.get(i));
+        }
+        long insertedStart = inserted.getCount();
+        for (Sender s : senders) {
+            s.start();
+        }
+
+        /* report */
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Runtime      rt      = Runtime.getRuntime();
+        long lastMS = startMS, lastSent = 0L, lastInserted = insertedStart;
+        int  peakThreads = 0;
+        long peakHeap    = 0L;
+        for (;;) {
+            long nowMS = System.currentTimeMillis();
+            boolean done = (nowMS >= stopMS);
+            if (!done) {
+                try { Thread.sleep(Math.min(intervMS, stopMS - nowMS)); } catch (InterruptedException ie) { break; }
+                nowMS = System.currentTimeMillis();
+                done = (nowMS >= stopMS);
+            }
+            if (done) {
+                // -- allow in-flight packets to complete
+                for (Sender s : senders) {
+                    try { s.join(5000L); } catch (InterruptedException ie) { break; }
+                }
+                nowMS = System.currentTimeMillis();
+            }
+            long sent  = METRIC_SENT.getCount();
+            long ins   = inserted.getCount();
+            long heap  = rt.totalMemory() - rt.freeMemory();
+            int  thCnt = threads.getThreadCount();
+            peakThreads = Math.max(peakThreads, thCnt);
+            peakHeap    = Math.max(peakHeap, heap);
+            StringBuffer sb = new StringBuffer();
+            sb.append("t=").append((nowMS - startMS) / 1000L).append("s");
+            sb.append(" sent=").append(sent).append(" (").append(_rate(sent - lastSent, nowMS - lastMS)).append(")");
+            sb.append(" err=").append(METRIC_ERRORS.getCount());
+            sb.append(" late=").append(METRIC_LATE.getCount());
+            if (server) {
+                sb.append(" inserted=").append(ins - insertedStart).append(" (").append(_rate(ins - lastInserted, nowMS - lastMS)).append(")");
+                sb.append(" parse p50=").append(_ms(parseTime.getQuantile(0.50))).append(" p99=").append(_ms(parseTime.getQuantile(0.99)));
+            }
+            if (!udp && !persistent) {
+                sb.append(" rtt p50=").append(_ms(METRIC_ROUNDTRIP.getQuantile(0.50))).append(" p99=").append(_ms(METRIC_ROUNDTRIP.getQuantile(0.99)));
+            }
+            sb.append(" threads=").append(thCnt).append(" pool=").append(ThreadPool.GetTotalThreadCount());
+            sb.append(" heap=").append(heap / (1024L * 1024L)).append("/").append(rt.maxMemory() / (1024L * 1024L)).append("MB");
+            Print.sysPrintln(sb.toString());
+            lastMS = nowMS; lastSent = sent; lastInserted = ins;
+            if (done) {
+                break;
+            }
+        }
+
+        /* summary */
+        long elapsedMS = System.currentTimeMillis() - startMS;
+        long sent      = METRIC_SENT.getCount();
+        Print.sysPrintln("-------------------------------------------------------------------");
+        Print.sysPrintln("Packets sent     : " + sent + " (" + _rate(sent,elapsedMS) + "), errors=" + METRIC_ERRORS.getCount() + ", late=" + METRIC_LATE.getCount());
+        if (server) {
+            long ins = inserted.getCount() - insertedStart;
+            Print.sysPrintln("Events inserted  : " + ins + " (" + _rate(ins,elapsedMS) + ")");
+            Print.sysPrintln("Packet-to-commit : p50=" + _ms(parseTime.getQuantile(0.50)) + " p99=" + _ms(parseTime.getQuantile(0.99)) + " max=" + _ms(parseTime.getMax()));
+            Print.sysPrintln("Event insert     : p50=" + _ms(insertTime.getQuantile(0.50)) + " p99=" + _ms(insertTime.getQuantile(0.99)) + " max=" + _ms(insertTime.getMax()));
+        }
+        if (!udp && !persistent) {
+            Print.sysPrintln("Client round-trip: p50=" + _ms(METRIC_ROUNDTRIP.getQuantile(0.50)) + " p99=" + _ms(METRIC_ROUNDTRIP.getQuantile(0.99)) + " max=" + _ms(METRIC_ROUNDTRIP.getMax()));
+        }
+        Print.sysPrintln("Peak threads     : " + peakThreads);
+        Print.sysPrintln("Peak heap        : " + (peakHeap / (1024L * 1024L)) + "MB");
+        System.exit(0);
+
+    }
+
+}
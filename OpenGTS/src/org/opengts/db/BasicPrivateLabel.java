@@ -428,6 +428,7 @@ public class BasicPrivateLabel
     public  static final String PROP_SysAdminAccounts_showAutoAddDevices    = "sysAdminAccounts.showAutoAddDevices";    // true|false
     public  static final String PROP_SysAdminAccounts_showDataPushURL       = "sysAdminAccounts.showDataPushURL";       // true|false
     public  static final String PROP_SysAdminAccounts_showNotes             = "sysAdminAccounts.showNotes";             // true|false
+    public  static final String PROP_SysAdminAccounts_pageSize              = "sysAdminAccounts.pageSize";              // Long (0=all)
 
     /* SysAdminAccounts auto-login properties */
   //public  static final String PROP_SysAdminAccounts_allowAccountLogin     = "sysAdminAccounts.allowAccountLogin";     // true|false
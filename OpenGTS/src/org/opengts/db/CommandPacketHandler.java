@@ -87,6 +87,11 @@ public abstract class CommandPacketHandler
     public static final String  INTERNCMD_COMMANDS      = "%COMMANDS%";
     public static final String  INTERNCMD_STACKTRACE    = "%STACKTRACE%";
     public static final String  INTERNCMD_SESSIONS      = "%SESSIONS%";
+    public static final String  INTERNCMD_METRICS       = "%METRICS%";
+    public static final String  INTERNCMD_EVENTTRACE    = "%EVENTTRACE%";
+    public static final String  INTERNCMD_QUEUESIZE     = "%QUEUESIZE%";
+
+    public static final String  ARG_QUEUESIZE           = "queueSize";
 
     // ------------------------------------------------------------------------
 
@@ -358,6 +363,19 @@ public abstract class CommandPacketHandler
             cmdName = StringTools.trim(cmdName);
             String dcsName = this.getServerName();
             DCServerConfig dcs = DCServerFactory.getServerConfig(dcsName);
+            /* metrics */
+            if (cmdName.equalsIgnoreCase(INTERNCMD_METRICS)) {
+                return (Metrics.getText() + "\n").getBytes();
+            }
+            /* slowest-event journal */
+            if (cmdName.equalsIgnoreCase(INTERNCMD_EVENTTRACE)) {
+                return (EventTrace.getJournalText() + "\n").getBytes();
+            }
+            /* total queued ThreadPool jobs (ingest backlog) */
+            if (cmdName.equalsIgnoreCase(INTERNCMD_QUEUESIZE)) {
+                rtCmd.setInt(ARG_QUEUESIZE, ThreadPool.GetTotalQueueSize());
+                return RESULT(rtCmd, DCServerFactory.ResultCode.SUCCESS);
+            }
             /* invalid command */
             Print.logError("Invalid Internal Command: Type=" + cmdType + ", Name=" + cmdName);
             return RESULT(rtCmd, DCServerFactory.ResultCode.INVALID_COMMAND);
@@ -461,6 +461,35 @@ public class DBConfig
     **/
     public static final String PROP_Device_eventsPerSecond              = "Device.eventsPerSecond";
 
+    /**
+    *** Runtime Configuration Property<br>
+    *** Enable the slowest-event journal for sampled ingestion traces (see "EventTrace").
+    *** The per-stage ingestion metrics are recorded whether or not this is enabled.
+    *** Type: Boolean
+    **/
+    public static final String PROP_Device_eventTrace_enable            = "Device.eventTrace.enable";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Journal 1 of every N inserted events
+    *** Type: Integer
+    **/
+    public static final String PROP_Device_eventTrace_sampleRate        = "Device.eventTrace.sampleRate";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Number of slowest event traces retained in the in-memory journal
+    *** Type: Integer
+    **/
+    public static final String PROP_Device_eventTrace_journalSize       = "Device.eventTrace.journalSize";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Log a warning for traced events slower than this number of milliseconds (0 to disable)
+    *** Type: Long
+    **/
+    public static final String PROP_Device_eventTrace_slowLogMS         = "Device.eventTrace.slowLogMS";
+
     /**
     *** Runtime Configuration Property<br>
     *** Device Maintenance Descriptions
@@ -526,6 +555,99 @@ public class DBConfig
     **/
     public static final String PROP_EventData_odometerOffsetType        = "EventData.odometerOffsetType";
 
+    /**
+    *** Runtime Configuration Property<br>
+    *** EventData time-range partitioning used when the table is created (MySQL only)<br>
+    *** Must be one of: none(default), weekly, monthly
+    *** Type: String
+    **/
+    public static final String PROP_EventData_partitionInterval         = "EventData.partitionInterval";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Number of future EventData partitions to maintain
+    *** Type: Integer
+    **/
+    public static final String PROP_EventData_partitionAhead            = "EventData.partitionAhead";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Do not drop EventData partitions containing the last event of any Device
+    *** Type: Boolean
+    **/
+    public static final String PROP_EventData_partitionKeepLastEvent    = "EventData.partitionKeepLastEvent";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Maximum number of EventData records deleted per DELETE statement (0 for unlimited)
+    *** Type: Integer
+    **/
+    public static final String PROP_EventPurge_chunkSize                = "EventPurge.chunkSize";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Maximum EventData purge rate, in rows per second (0 for unlimited)
+    *** Type: Integer
+    **/
+    public static final String PROP_EventPurge_rowsPerSecond            = "EventPurge.rowsPerSecond";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Number of Devices purged concurrently
+    *** Type: Integer
+    **/
+    public static final String PROP_EventPurge_threads                  = "EventPurge.threads";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Pause purging while the MySQL replication lag exceeds this number of seconds (0 to disable)
+    *** Type: Integer
+    **/
+    public static final String PROP_EventPurge_maxReplicationLag        = "EventPurge.maxReplicationLag";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** JDBC URI of the replica checked for replication lag (blank for the first "db.replica.uri".
+    *** The lag check is off if no replica is configured)
+    *** Type: String
+    **/
+    public static final String PROP_EventPurge_replicaURI               = "EventPurge.replicaURI";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** DCS names queried for their ingest queue size (comma-separated)
+    *** Type: String
+    **/
+    public static final String PROP_EventPurge_ingestServers            = "EventPurge.ingestServers";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Pause purging while the total DCS ingest queue size exceeds this value (0 to disable)
+    *** Type: Integer
+    **/
+    public static final String PROP_EventPurge_maxIngestQueue           = "EventPurge.maxIngestQueue";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Interval between replication lag/ingest queue checks
+    *** Type: Integer (seconds)
+    **/
+    public static final String PROP_EventPurge_checkIntervalSec         = "EventPurge.checkIntervalSec";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** EventData archive directory (blank to disable the archive tier)
+    *** Type: String
+    **/
+    public static final String PROP_EventArchive_directory              = "EventArchive.directory";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Default age (in days) of EventData records moved to the archive
+    *** Type: Integer
+    **/
+    public static final String PROP_EventArchive_ageDays                = "EventArchive.ageDays";
+
     // -------
 
     /**
@@ -776,6 +898,77 @@ public class DBConfig
     **/
     public static final String PROP_UniqueXID_queryEnabled              = "UniqueXID.queryEnabled";
 
+    /**
+    *** Runtime Configuration Property<br>
+    *** True to maintain MotionSegment trip/stop records as events are inserted.<br>
+    *** Type: Boolean
+    **/
+    public static final String PROP_MotionSegment_enabled               = "MotionSegment.enabled";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** True to maintain hourly EventCount records as events are inserted/deleted.<br>
+    *** Type: Boolean
+    **/
+    public static final String PROP_EventCount_enabled                  = "EventCount.enabled";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Interval (milliseconds) between writes of buffered EventCount increments (0 to write immediately).<br>
+    *** Type: Long
+    **/
+    public static final String PROP_EventCount_flushIntervalMS          = "EventCount.flushIntervalMS";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Number of recent hours of EventCount records reconciled against the EventData table when
+    *** a Device first reports after startup (recovers buffered increments lost in a crash, 0 to disable).<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventCount_reconcileHours           = "EventCount.reconcileHours";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Index hint for EventData "validGPS" range selections (ignored if the index does not exist).<br>
+    *** Type: String
+    **/
+    public static final String PROP_EventData_indexHint_validGPS        = "EventData.indexHint.validGPS";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Index hint for EventData "statusCode" range selections (ignored if the index does not exist).<br>
+    *** Type: String
+    **/
+    public static final String PROP_EventData_indexHint_statusCode      = "EventData.indexHint.statusCode";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Index hint for EventData "creationMillis" selections (ignored if the index does not exist).<br>
+    *** Type: String
+    **/
+    public static final String PROP_EventData_indexHint_creationMillis  = "EventData.indexHint.creationMillis";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** True to enable the in-memory per-device event history used for map routes.<br>
+    *** Type: Boolean
+    **/
+    public static final String PROP_EventHistory_enabled                = "EventHistory.enabled";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** The maximum number of events retained in the in-memory history of each device.<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventHistory_capacity               = "EventHistory.capacity";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** The maximum number of devices retained in the in-memory event history.<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventHistory_maxDevices             = "EventHistory.maxDevices";
+
     // -------
     
     /**
@@ -826,7 +1019,24 @@ public class DBConfig
         new RTKey.Entry(PROP_Device_invalidSpeed_maximumKPH         , 0.0                           , "Future Date Maximm Seconds"),
         new RTKey.Entry(PROP_Device_maximumOdometerKM               , 1000000.0                     , "Maximum Odometer value"),
         new RTKey.Entry(PROP_Device_maximumRuntimeHours             , 24.0 * 365.0 * 30.0           , "Maximum Runtime hours value"),
+        new RTKey.Entry(PROP_Device_eventTrace_enable               , true                          , "Enable event ingestion tracing"),
+        new RTKey.Entry(PROP_Device_eventTrace_sampleRate           , 1                             , "Event trace sample rate (1 of N)"),
+        new RTKey.Entry(PROP_Device_eventTrace_journalSize          , 25                            , "Slowest-event journal size"),
+        new RTKey.Entry(PROP_Device_eventTrace_slowLogMS            , 0L                            , "Slow event warning threshold (ms)"),
         new RTKey.Entry(PROP_EventData_keyedCreationTime            , false                         , "Keyed 'EventData.creationTime'"),
+        new RTKey.Entry(PROP_EventData_partitionInterval            , "none"                        , "EventData partition interval"),
+        new RTKey.Entry(PROP_EventData_partitionAhead               , 3                             , "EventData future partitions"),
+        new RTKey.Entry(PROP_EventData_partitionKeepLastEvent       , true                          , "Keep partitions with Device last event"),
+        new RTKey.Entry(PROP_EventPurge_chunkSize                   , 5000                          , "EventData rows per purge DELETE"),
+        new RTKey.Entry(PROP_EventPurge_rowsPerSecond               , 0                             , "EventData purge rows/second"),
+        new RTKey.Entry(PROP_EventPurge_threads                     , 2                             , "EventData purge threads"),
+        new RTKey.Entry(PROP_EventPurge_maxReplicationLag           , 30                            , "EventData purge max replication lag"),
+        new RTKey.Entry(PROP_EventPurge_replicaURI                  , ""                            , "EventData purge replica URI"),
+        new RTKey.Entry(PROP_EventPurge_ingestServers               , ""                            , "EventData purge ingest DCS names"),
+        new RTKey.Entry(PROP_EventPurge_maxIngestQueue              , 1000                          , "EventData purge max ingest queue"),
+        new RTKey.Entry(PROP_EventPurge_checkIntervalSec            , 10                            , "EventData purge check interval"),
+        new RTKey.Entry(PROP_EventArchive_directory                 , ""                            , "EventData archive directory"),
+        new RTKey.Entry(PROP_EventArchive_ageDays                   , 90                            , "EventData archive age (days)"),
         new RTKey.Entry(PROP_Geozone_alwaysActive                   , true                          , "Geozones Always Active"),
         new RTKey.Entry(PROP_Geozone_maximumVertices                , -1                            , "Maximum Number of Geozone Vertices"),
         new RTKey.Entry(PROP_Geozone_dftRadius_pointRadius          , 3000                          , "Default Point Radius"),
@@ -850,6 +1060,16 @@ public class DBConfig
         new RTKey.Entry(PROP_EventIdentifierMapFactory_class        , null                          , "EventIdentifierMapFactory subclass"),
         new RTKey.Entry(PROP_Transport_queryEnabled                 , false                         , "Enable DB Transport query"),
         new RTKey.Entry(PROP_UniqueXID_queryEnabled                 , false                         , "Enable DB UniqueXID query"),
+        new RTKey.Entry(PROP_MotionSegment_enabled                  , true                          , "Enable MotionSegment trip/stop updates"),
+        new RTKey.Entry(PROP_EventCount_enabled                     , true                          , "Enable EventCount counter updates"),
+        new RTKey.Entry(PROP_EventCount_flushIntervalMS             , 5000L                         , "EventCount flush interval (ms)"),
+        new RTKey.Entry(PROP_EventCount_reconcileHours              , 24                            , "EventCount startup reconcile hours"),
+        new RTKey.Entry(PROP_EventData_indexHint_validGPS           , ""                            , "EventData 'validGPS' selection index hint"),
+        new RTKey.Entry(PROP_EventData_indexHint_statusCode         , ""                            , "EventData 'statusCode' selection index hint"),
+        new RTKey.Entry(PROP_EventData_indexHint_creationMillis     , ""                            , "EventData 'creationMillis' selection index hint"),
+        new RTKey.Entry(PROP_EventHistory_enabled                   , true                          , "Enable in-memory device event history"),
+        new RTKey.Entry(PROP_EventHistory_capacity                  , 1000                          , "Device event history capacity"),
+        new RTKey.Entry(PROP_EventHistory_maxDevices                , 200                           , "Device event history maximum devices"),
         new RTKey.Entry(PROP_db_defaultDeviceAuthorization          , DEFAULT_DEVICE_AUTHORIZATION  , "Default Device Authoirization"),
         new RTKey.Entry(PROP_sysAdmin_account                       , ""                            , "System Admin Account ID"),
     };
@@ -1011,7 +1231,9 @@ public class DBConfig
                 PACKAGE_TABLES_       + "DeviceUList"  ,
                 PACKAGE_TABLES_       + "Driver"       ,
                 PACKAGE_TABLES_       + "EventData"    ,
+                PACKAGE_TABLES_       + "EventCount"   ,
                 PACKAGE_TABLES_       + "Geozone"      ,
+                PACKAGE_TABLES_       + "MotionSegment",
                 PACKAGE_TABLES_       + "Resource"     ,
                 PACKAGE_TABLES_       + "Role"         ,
                 PACKAGE_TABLES_       + "RoleAcl"      ,
@@ -2060,6 +2060,20 @@ public class DCServerFactory
 
     }
     
+    /**
+    *** Send an internal command request to the command port for the specified server
+    *** @param serverName  The DCS name
+    *** @param cmdName     The internal command name (ie. "%QUEUESIZE%")
+    *** @param cmdArgs     The command arguments (may be null)
+    *** @return The command response, or null if the command could not be sent
+    **/
+    public static RTProperties sendInternalCommand(
+        String serverName,
+        String cmdName, String cmdArgs[])
+    {
+        return DCServerFactory._sendServerCommand(serverName, null, DCServerConfig.COMMAND_INTERNAL, cmdName, cmdArgs);
+    }
+
     /**
     *** Send a command request to the server command port for the specified Device
     **/
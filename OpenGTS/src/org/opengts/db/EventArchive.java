@@ -0,0 +1,845 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Compact per-device/per-month archive of cold EventData records
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+import java.util.zip.*;
+import java.util.concurrent.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** EventData archive tier.<br>
+*** Events older than an archive cutoff time are moved from the EventData table into
+*** per-Device, per-month (GMT) files "&lt;dir&gt;/&lt;account&gt;/&lt;device&gt;/&lt;yyyyMM&gt;.eva".
+*** Each file is a gzip compressed column-oriented block: the timestamp, latitude, longitude,
+*** altitude and odometer columns are delta encoded, and all remaining non-default fields
+*** are stored as string columns.  Latitude/longitude are stored with a resolution of
+*** 0.000001 degrees, and speed/heading/altitude with a resolution of 0.1.<br>
+*** The archive cutoff for each Device is stored in "&lt;dir&gt;/&lt;account&gt;/&lt;device&gt;/cutoff".
+*** <code>EventData.getRangeEvents</code>, <code>streamRangeEvents</code>, and
+*** <code>countRangeEvents</code> merge archived events for ranges prior to the cutoff.
+*** Archived events are read one month file at a time, and reads stop once the requested
+*** limit has been reached.  Deleting old events (account retention) also removes the
+*** archived events prior to the delete time.
+**/
+
+public class EventArchive
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final String     FILE_EXT                = ".eva";
+    private static final String     STAGE_EXT               = ".new";
+    private static final String     CUTOFF_FILE             = "cutoff";
+    private static final int        MAGIC                   = 0x45564131; // "EVA1"
+
+    private static final Metrics.Counter METRIC_ARCHIVED    = Metrics.getCounter("archive_events_written_total");
+    private static final Metrics.Counter METRIC_READ        = Metrics.getCounter("archive_events_read_total");
+    private static final Metrics.Counter METRIC_FILES_READ  = Metrics.getCounter("archive_files_read_total");
+    private static final Metrics.Counter METRIC_DELETED     = Metrics.getCounter("archive_events_deleted_total");
+
+    /* delta/quantized core columns (not included in the string columns) */
+    private static final Set<String> CORE_FIELDS = new HashSet<String>(Arrays.asList(new String[] {
+        EventData.FLD_accountID,
+        EventData.FLD_deviceID,
+        EventData.FLD_timestamp,
+        EventData.FLD_statusCode,
+        EventData.FLD_latitude,
+        EventData.FLD_longitude,
+        EventData.FLD_speedKPH,
+        EventData.FLD_heading,
+        EventData.FLD_altitude,
+        EventData.FLD_odometerKM,
+        EventData.FLD_address,
+    }));
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the archive directory, or null if the archive tier is disabled
+    **/
+    public static File getArchiveDirectory()
+    {
+        String dir = RTConfig.getString(DBConfig.PROP_EventArchive_directory,"");
+        return !StringTools.isBlank(dir)? new File(dir) : null;
+    }
+
+    /**
+    *** Returns true if the archive tier is enabled
+    **/
+    public static boolean isEnabled()
+    {
+        return (EventArchive.getArchiveDirectory() != null);
+    }
+
+    /* Device archive directory */
+    private static File _getDeviceDirectory(String acctID, String devID)
+    {
+        File dir = EventArchive.getArchiveDirectory();
+        if ((dir == null) || StringTools.isBlank(acctID) || StringTools.isBlank(devID)) {
+            return null;
+        }
+        return new File(new File(dir, acctID.toLowerCase()), devID.toLowerCase());
+    }
+
+    /* month file name for the specified month start time */
+    private static String _getMonthFileName(long monthStart)
+    {
+        return new DateTime(monthStart, DateTime.GMT).format("yyyyMM") + FILE_EXT;
+    }
+
+    /* start of the month (GMT) containing the specified time */
+    private static long _getMonthStart(long timeSec)
+    {
+        return new DateTime(timeSec, DateTime.GMT).getMonthStart(DateTime.GMT);
+    }
+
+    /* start of the month (GMT) for the specified month file name, or -1 if invalid */
+    private static long _getMonthStart(String fileName)
+    {
+        if ((fileName.length() < 6) || !StringTools.isNumeric(fileName.substring(0,6))) {
+            return -1L;
+        }
+        int year   = StringTools.parseInt(fileName.substring(0,4),0);
+        int month1 = StringTools.parseInt(fileName.substring(4,6),0);
+        if ((month1 < 1) || (month1 > 12)) {
+            return -1L;
+        }
+        return new DateTime(DateTime.GMT, year, month1, 1).getTimeSec();
+    }
+
+    /* start of the month (GMT) following the specified month start */
+    private static long _getNextMonthStart(long monthStart)
+    {
+        return new DateTime(monthStart, DateTime.GMT).getMonthStart(DateTime.GMT, 1);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* cached cutoff times: path ==> { lastModified, cutoff } */
+    private static final Map<String,long[]> cutoffCache = new ConcurrentHashMap<String,long[]>();
+
+    /**
+    *** Gets the archive cutoff time for the specified Device.  Events prior to this time
+    *** (exclusive) have been moved to the archive.
+    *** @return The archive cutoff time, or 0 if the Device has no archived events
+    **/
+    public static long getArchiveCutoff(String acctID, String devID)
+    {
+        File devDir = EventArchive._getDeviceDirectory(acctID, devID);
+        if (devDir == null) {
+            return 0L;
+        }
+        File   file    = new File(devDir, CUTOFF_FILE);
+        long   lastMod = file.lastModified(); // 0 if the file does not exist
+        if (lastMod <= 0L) {
+            return 0L;
+        }
+        String key     = file.getPath();
+        long   cache[] = cutoffCache.get(key);
+        if ((cache != null) && (cache[0] == lastMod)) {
+            return cache[1];
+        }
+        byte b[] = FileTools.readFile(file);
+        long cutoff = (b != null)? StringTools.parseLong(StringTools.toStringValue(b).trim(),0L) : 0L;
+        cutoffCache.put(key, new long[] { lastMod, cutoff });
+        return cutoff;
+    }
+
+    /* sets the archive cutoff time for the specified Device */
+    private static void _setArchiveCutoff(File devDir, long cutoff)
+        throws IOException
+    {
+        File tmp  = new File(devDir, CUTOFF_FILE + ".tmp");
+        File file = new File(devDir, CUTOFF_FILE);
+        if (!FileTools.writeFile(StringTools.getBytes(String.valueOf(cutoff)), tmp)) {
+            throw new IOException("Unable to write " + tmp);
+        }
+        file.delete();
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Unable to rename " + tmp + " to " + file);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Reads the archived events for the specified Device within the specified range
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @param timeStart  The starting time range (inclusive), or -1 for no start
+    *** @param timeEnd    The ending time range (inclusive), or -1 for no end
+    *** @return The archived events, in ascending timestamp order (does not return null)
+    **/
+    public static java.util.List<EventData> readEvents(String acctID, String devID, long timeStart, long timeEnd)
+        throws DBException
+    {
+        final java.util.List<EventData> list = new Vector<EventData>();
+        EventArchive.streamEvents(acctID, devID, timeStart, timeEnd, false, new DBRecordHandler<EventData>() {
+            public int handleDBRecord(EventData rcd) throws DBException {
+                list.add(rcd);
+                return DBRH_SKIP;
+            }
+        });
+        return list;
+    }
+
+    /**
+    *** Streams the archived events for the specified Device within the specified range to the
+    *** specified record handler, one month file at a time (so that no more than one month of
+    *** events is held in memory).  The record handler may return 'DBRH_STOP' to stop the
+    *** stream, in which case no further month files are read.
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @param timeStart  The starting time range (inclusive), or -1 for no start
+    *** @param timeEnd    The ending time range (inclusive), or -1 for no end
+    *** @param descending True to stream the newest events first
+    *** @param rcdHandler The record handler
+    *** @return The number of events sent to the record handler
+    **/
+    public static long streamEvents(String acctID, String devID, long timeStart, long timeEnd,
+        boolean descending, DBRecordHandler<EventData> rcdHandler)
+        throws DBException
+    {
+        long cutoff = EventArchive.getArchiveCutoff(acctID, devID);
+        if ((cutoff <= 0L) || ((timeStart >= 0L) && (timeStart >= cutoff))) {
+            return 0L;
+        }
+        File files[] = EventArchive._getMonthFiles(acctID, devID, timeStart, timeEnd);
+        long count = 0L;
+        try {
+            for (int f = 0; f < files.length; f++) {
+                File file = files[descending? (files.length - 1 - f) : f];
+                java.util.List<EventData> evList;
+                try {
+                    evList = EventArchive.readFile(file, acctID, devID);
+                } catch (IOException ioe) {
+                    throw new DBException("Reading archive " + file, ioe);
+                }
+                METRIC_FILES_READ.increment();
+                int n = evList.size();
+                for (int i = 0; i < n; i++) {
+                    EventData ev = evList.get(descending? (n - 1 - i) : i);
+                    long ts = ev.getTimestamp();
+                    if ((timeStart >= 0L) && (ts < timeStart)) { if (descending) { break; } else { continue; } }
+                    if ((timeEnd   >= 0L) && (ts > timeEnd  )) { if (descending) { continue; } else { break; } }
+                    count++;
+                    if (rcdHandler.handleDBRecord(ev) == DBRecordHandler.DBRH_STOP) {
+                        return count;
+                    }
+                }
+            }
+            return count;
+        } finally {
+            METRIC_READ.add(count);
+        }
+    }
+
+    /* month files for the specified Device overlapping the specified range, in ascending order */
+    private static File[] _getMonthFiles(String acctID, String devID, long timeStart, long timeEnd)
+    {
+        File devDir = EventArchive._getDeviceDirectory(acctID, devID);
+        File files[] = (devDir != null)? devDir.listFiles(new FileFilter() {
+            public boolean accept(File f) {
+                return f.isFile() && f.getName().endsWith(FILE_EXT);
+            }
+        }) : null;
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files); // "yyyyMM" ascending
+        String firstName = (timeStart >= 0L)? EventArchive._getMonthFileName(EventArchive._getMonthStart(timeStart)) : null;
+        String lastName  = (timeEnd   >= 0L)? EventArchive._getMonthFileName(EventArchive._getMonthStart(timeEnd  )) : null;
+        java.util.List<File> list = new Vector<File>();
+        for (File f : files) {
+            String name = f.getName();
+            if ((firstName != null) && (name.compareTo(firstName) < 0)) { continue; }
+            if ((lastName  != null) && (name.compareTo(lastName ) > 0)) { break; }
+            list.add(f);
+        }
+        return list.toArray(new File[list.size()]);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Deletes the archived events for the specified Device prior to the specified time.
+    *** Month files which end before the delete time are removed, and the month file which
+    *** contains the delete time is rewritten with its remaining events.  The caller is 
+    *** responsible for adjusting the delete time to the Account retention (see
+    *** <code>EventData.getDeleteOldEventsTime</code>).
+    *** @param acctID      The Account ID
+    *** @param devID       The Device ID
+    *** @param oldTimeSec  The time before which (exclusive) archived events are deleted
+    *** @return The number of archived events deleted
+    **/
+    public static long deleteEventsBefore(String acctID, String devID, long oldTimeSec)
+        throws DBException
+    {
+        if ((oldTimeSec <= 0L) || (EventArchive.getArchiveCutoff(acctID, devID) <= 0L)) {
+            return 0L;
+        }
+        long count = 0L;
+        for (File file : EventArchive._getMonthFiles(acctID, devID, -1L, oldTimeSec - 1L)) {
+            long ms = EventArchive._getMonthStart(file.getName());
+            if (ms < 0L) {
+                continue; // not a month file
+            }
+            try {
+                if (EventArchive._getNextMonthStart(ms) <= oldTimeSec) {
+                    // -- entire month is prior to the delete time
+                    count += EventArchive._readEventCount(file);
+                    if (!file.delete()) {
+                        throw new IOException("Unable to delete " + file);
+                    }
+                } else {
+                    // -- month contains the delete time, keep the remaining events
+                    java.util.List<EventData> evList = EventArchive.readFile(file, acctID, devID);
+                    java.util.List<EventData> keep   = new Vector<EventData>();
+                    for (EventData ev : evList) {
+                        if (ev.getTimestamp() >= oldTimeSec) {
+                            keep.add(ev);
+                        }
+                    }
+                    if (keep.size() < evList.size()) {
+                        count += evList.size() - keep.size();
+                        if (keep.isEmpty()) {
+                            if (!file.delete()) {
+                                throw new IOException("Unable to delete " + file);
+                            }
+                        } else {
+                            EventArchive.writeFile(file, keep);
+                        }
+                    }
+                }
+            } catch (IOException ioe) {
+                throw new DBException("Deleting archived events " + file, ioe);
+            }
+        }
+        if (count > 0L) {
+            METRIC_DELETED.add(count);
+        }
+        return count;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // archive file format
+
+    /* write an unsigned variable-length long */
+    private static void _writeVarLong(DataOutputStream out, long v)
+        throws IOException
+    {
+        while ((v & ~0x7FL) != 0L) {
+            out.writeByte((int)((v & 0x7FL) | 0x80L));
+            v >>>= 7;
+        }
+        out.writeByte((int)v);
+    }
+
+    /* write a signed (zig-zag encoded) variable-length long */
+    private static void _writeSignedLong(DataOutputStream out, long v)
+        throws IOException
+    {
+        EventArchive._writeVarLong(out, (v << 1) ^ (v >> 63));
+    }
+
+    /* write a String, or a repeat of the previous String */
+    private static void _writeString(DataOutputStream out, String s, String prev)
+        throws IOException
+    {
+        if (s.equals(prev)) {
+            EventArchive._writeVarLong(out, 0L);
+        } else {
+            byte b[] = s.getBytes("UTF-8");
+            EventArchive._writeVarLong(out, b.length + 1L);
+            out.write(b);
+        }
+    }
+
+    /* read an unsigned variable-length long */
+    private static long _readVarLong(DataInputStream in)
+        throws IOException
+    {
+        long v = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Invalid variable-length value");
+    }
+
+    /* read a signed (zig-zag encoded) variable-length long */
+    private static long _readSignedLong(DataInputStream in)
+        throws IOException
+    {
+        long v = EventArchive._readVarLong(in);
+        return (v >>> 1) ^ -(v & 1L);
+    }
+
+    /* read a String, or a repeat of the previous String */
+    private static String _readString(DataInputStream in, String prev)
+        throws IOException
+    {
+        long len = EventArchive._readVarLong(in);
+        if (len == 0L) {
+            return prev;
+        }
+        byte b[] = new byte[(int)(len - 1L)];
+        in.readFully(b);
+        return new String(b, "UTF-8");
+    }
+
+    /* String representation of a non-default field value ("" for the default value) */
+    private static String _getStringValue(DBField fld, Object val)
+    {
+        if ((val == null) || val.equals(fld.getDefaultValue())) {
+            return "";
+        } else
+        if (val instanceof byte[]) {
+            byte b[] = (byte[])val;
+            return (b.length > 0)? ("0x" + StringTools.toHexString(b)) : "";
+        } else {
+            return val.toString();
+        }
+    }
+
+    /**
+    *** Writes the specified events (ascending timestamp order) to the specified archive file
+    **/
+    public static void writeFile(File file, java.util.List<EventData> evList)
+        throws IOException
+    {
+        int n = evList.size();
+        DBFactory<EventData> fact = EventData.getFactory();
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp), 64 * 1024)));
+            out.writeInt(MAGIC);
+            EventArchive._writeVarLong(out, n);
+
+            /* core columns */
+            long prev = 0L;
+            for (EventData ev : evList) { long v = ev.getTimestamp(); EventArchive._writeSignedLong(out, v - prev); prev = v; }
+            for (EventData ev : evList) { EventArchive._writeVarLong(out, ev.getStatusCode()); }
+            prev = 0L;
+            for (EventData ev : evList) { long v = Math.round(ev.getLatitude()  * 1000000.0); EventArchive._writeSignedLong(out, v - prev); prev = v; }
+            prev = 0L;
+            for (EventData ev : evList) { long v = Math.round(ev.getLongitude() * 1000000.0); EventArchive._writeSignedLong(out, v - prev); prev = v; }
+            for (EventData ev : evList) { EventArchive._writeSignedLong(out, Math.round(ev.getSpeedKPH() * 10.0)); }
+            for (EventData ev : evList) { EventArchive._writeSignedLong(out, Math.round(ev.getHeading()  * 10.0)); }
+            prev = 0L;
+            for (EventData ev : evList) { long v = Math.round(ev.getAltitude() * 10.0); EventArchive._writeSignedLong(out, v - prev); prev = v; }
+            prev = 0L;
+            for (EventData ev : evList) { long v = Math.round(ev.getOdometerKM() * 1000.0); EventArchive._writeSignedLong(out, v - prev); prev = v; }
+            String prevS = "";
+            for (EventData ev : evList) { String s = StringTools.trim(ev.getAddress()); EventArchive._writeString(out, s, prevS); prevS = s; }
+
+            /* non-default remaining columns */
+            java.util.List<DBField> extFlds = new Vector<DBField>();
+            for (DBField fld : fact.getFields()) {
+                if (CORE_FIELDS.contains(fld.getName())) {
+                    continue;
+                }
+                for (EventData ev : evList) {
+                    if (!EventArchive._getStringValue(fld, ev.getFieldValue(fld.getName())).equals("")) {
+                        extFlds.add(fld);
+                        break;
+                    }
+                }
+            }
+            EventArchive._writeVarLong(out, extFlds.size());
+            for (DBField fld : extFlds) {
+                out.writeUTF(fld.getName());
+                prevS = "";
+                for (EventData ev : evList) {
+                    String s = EventArchive._getStringValue(fld, ev.getFieldValue(fld.getName()));
+                    EventArchive._writeString(out, s, prevS);
+                    prevS = s;
+                }
+            }
+
+        } finally {
+            if (out != null) { out.close(); }
+        }
+        file.delete();
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Unable to rename " + tmp + " to " + file);
+        }
+    }
+
+    /* reads the number of events in the specified archive file (header only) */
+    private static long _readEventCount(File file)
+        throws IOException
+    {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Invalid archive file: " + file);
+            }
+            return EventArchive._readVarLong(in);
+        } finally {
+            if (in != null) { try { in.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+    }
+
+    /**
+    *** Reads the events in the specified archive file
+    *** @return The events, in ascending timestamp order
+    **/
+    public static java.util.List<EventData> readFile(File file, String acctID, String devID)
+        throws IOException
+    {
+        DBFactory<EventData> fact = EventData.getFactory();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), 64 * 1024)));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Invalid archive file: " + file);
+            }
+            int n = (int)EventArchive._readVarLong(in);
+
+            /* core columns */
+            long ts[]  = new long[n];
+            long sc[]  = new long[n];
+            long lat[] = new long[n];
+            long lon[] = new long[n];
+            long spd[] = new long[n];
+            long hdg[] = new long[n];
+            long alt[] = new long[n];
+            long odo[] = new long[n];
+            long prev = 0L;
+            for (int i = 0; i < n; i++) { prev += EventArchive._readSignedLong(in); ts[i]  = prev; }
+            for (int i = 0; i < n; i++) { sc[i] = EventArchive._readVarLong(in); }
+            prev = 0L;
+            for (int i = 0; i < n; i++) { prev += EventArchive._readSignedLong(in); lat[i] = prev; }
+            prev = 0L;
+            for (int i = 0; i < n; i++) { prev += EventArchive._readSignedLong(in); lon[i] = prev; }
+            for (int i = 0; i < n; i++) { spd[i] = EventArchive._readSignedLong(in); }
+            for (int i = 0; i < n; i++) { hdg[i] = EventArchive._readSignedLong(in); }
+            prev = 0L;
+            for (int i = 0; i < n; i++) { prev += EventArchive._readSignedLong(in); alt[i] = prev; }
+            prev = 0L;
+            for (int i = 0; i < n; i++) { prev += EventArchive._readSignedLong(in); odo[i] = prev; }
+            java.util.List<EventData> evList = new Vector<EventData>(n);
+            String addr = "";
+            for (int i = 0; i < n; i++) {
+                addr = EventArchive._readString(in, addr);
+                EventData ev = new EventData.Key(acctID, devID, ts[i], (int)sc[i]).getDBRecord();
+                ev.setLatitude( (double)lat[i] / 1000000.0);
+                ev.setLongitude((double)lon[i] / 1000000.0);
+                ev.setSpeedKPH( (double)spd[i] / 10.0);
+                ev.setHeading(  (double)hdg[i] / 10.0);
+                ev.setAltitude( (double)alt[i] / 10.0);
+                ev.setOdometerKM((double)odo[i] / 1000.0);
+                if (!addr.equals("")) {
+                    ev.setAddress(addr);
+                }
+                evList.add(ev);
+            }
+
+            /* remaining columns */
+            int extCount = (int)EventArchive._readVarLong(in);
+            for (int c = 0; c < extCount; c++) {
+                String  name = in.readUTF();
+                DBField fld  = fact.getField(name); // null if the column has since been removed
+                String  s    = "";
+                for (int i = 0; i < n; i++) {
+                    s = EventArchive._readString(in, s);
+                    if ((fld != null) && !s.equals("")) {
+                        evList.get(i).setFieldValue(name, fld.parseStringValue(s));
+                    }
+                }
+            }
+            for (EventData ev : evList) {
+                ev.clearChanged();
+            }
+            return evList;
+
+        } finally {
+            if (in != null) { try { in.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // archive tool
+
+    /* merges events into archived events (ordered by timestamp, an event with the same key replaces the archived event) */
+    private static java.util.List<EventData> _mergeEvents(java.util.List<EventData> archList, java.util.List<EventData> evList)
+    {
+        Map<String,EventData> evMap = new TreeMap<String,EventData>();
+        for (EventData ev : archList) {
+            evMap.put(EventArchive._getMergeKey(ev), ev);
+        }
+        for (EventData ev : evList) {
+            evMap.put(EventArchive._getMergeKey(ev), ev);
+        }
+        return new Vector<EventData>(evMap.values());
+    }
+
+    /* returns a key which sorts by timestamp/statusCode */
+    private static String _getMergeKey(EventData ev)
+    {
+        return StringTools.format(ev.getTimestamp(),"0000000000") + "/" + StringTools.format(ev.getStatusCode(),"00000");
+    }
+
+    /**
+    *** Moves the events prior to the specified time (rounded down to the start of the month,
+    *** GMT) for the specified Device into the archive.  The last event of the Device is never
+    *** archived.  Events inserted prior to the previous cutoff are merged into the existing
+    *** month files.  No events are deleted if the number of archived events does not match
+    *** the number of events in the EventData table prior to the new cutoff.
+    *** @param acctID      The Account ID
+    *** @param devID       The Device ID
+    *** @param beforeSec   Events prior to this time may be archived
+    *** @param deleteChunk The number of events deleted from the EventData table per statement
+    *** @return The number of events archived
+    **/
+    public static long archiveDevice(String acctID, String devID, long beforeSec, long deleteChunk)
+        throws DBException, IOException
+    {
+        File devDir = EventArchive._getDeviceDirectory(acctID, devID);
+        if (devDir == null) {
+            throw new DBException("EventData archive is not enabled");
+        }
+
+        /* new cutoff */
+        EventData last[] = EventData.getRangeEvents(
+            acctID, devID,
+            -1L, -1L,
+            null/*statusCodes*/,
+            false/*validGPS*/,
+            EventData.LimitType.LAST, 1L, true/*ascending*/,
+            null/*addtnlSelect*/);
+        if (ListTools.isEmpty(last)) {
+            return 0L;
+        }
+        long oldCutoff = EventArchive.getArchiveCutoff(acctID, devID);
+        long cutoff    = EventArchive._getMonthStart(Math.min(beforeSec, last[0].getTimestamp()));
+        if (cutoff <= oldCutoff) {
+            return 0L;
+        }
+
+        /* first unarchived event (includes events backfilled prior to the old cutoff) */
+        EventData first[] = EventData.getTableRangeEvents(acctID, devID, -1L, cutoff - 1L, 1L);
+        if (ListTools.isEmpty(first)) {
+            return 0L;
+        }
+        if (!devDir.isDirectory() && !devDir.mkdirs()) {
+            throw new IOException("Unable to create directory: " + devDir);
+        }
+        long expect = EventCount.countEventsExact(acctID, devID, -1L, cutoff - 1L);
+
+        /* stage month files */
+        // -- months prior to the old cutoff are merged with the existing month file (events
+        // -  inserted after the month was archived), later months are written as-is.
+        java.util.List<File> staged = new Vector<File>();
+        long count = 0L;
+        try {
+            for (long ms = EventArchive._getMonthStart(first[0].getTimestamp()); ms < cutoff;) {
+                long me = EventArchive._getNextMonthStart(ms);
+                EventData ev[] = EventData.getTableRangeEvents(acctID, devID, ms, me - 1L, -1L);
+                if (!ListTools.isEmpty(ev)) {
+                    File file = new File(devDir, EventArchive._getMonthFileName(ms));
+                    java.util.List<EventData> evList = Arrays.asList(ev);
+                    if ((ms < oldCutoff) && file.isFile()) {
+                        evList = EventArchive._mergeEvents(EventArchive.readFile(file, acctID, devID), evList);
+                    }
+                    File stage = new File(file.getPath() + STAGE_EXT);
+                    staged.add(stage);
+                    EventArchive.writeFile(stage, evList);
+                    count += ev.length;
+                }
+                ms = me;
+            }
+
+            /* refuse to delete events which were not archived */
+            long actual = EventCount.countEventsExact(acctID, devID, -1L, cutoff - 1L);
+            if ((count != expect) || (count != actual)) {
+                throw new DBException("Archived/table count mismatch: " + acctID + "/" + devID + 
+                    " archived=" + count + " table=" + expect + "/" + actual + " (nothing deleted)");
+            }
+
+            /* install month files */
+            for (File stage : staged) {
+                String path = stage.getPath();
+                File file = new File(path.substring(0, path.length() - STAGE_EXT.length()));
+                file.delete();
+                if (!stage.renameTo(file)) {
+                    throw new IOException("Unable to rename " + stage + " to " + file);
+                }
+            }
+            staged.clear();
+
+        } finally {
+            for (File stage : staged) {
+                stage.delete();
+            }
+        }
+
+        /* publish cutoff, then remove archived events from EventData */
+        EventArchive._setArchiveCutoff(devDir, cutoff);
+        long deleted = 0L;
+        for (;;) {
+            long n = EventData.deleteOldEventsChunk(acctID, devID, cutoff, deleteChunk);
+            deleted += Math.max(n,0L);
+            if ((n <= 0L) || (deleteChunk <= 0L) || (n < deleteChunk)) {
+                break;
+            }
+        }
+        if (deleted != count) {
+            // -- events were inserted prior to the new cutoff while archiving, and have been
+            // -  deleted without being archived
+            Print.logError("Archived/deleted count mismatch: " + acctID + "/" + devID + " " + count + "/" + deleted);
+        }
+        METRIC_ARCHIVED.add(count);
+        return count;
+
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final String ARG_ACCOUNT[]       = new String[] { "account"   , "acct"  , "a" };
+    private static final String ARG_DEVICE[]        = new String[] { "device"    , "dev"   , "d" };
+    private static final String ARG_BEFORE[]        = new String[] { "before"    , "date"        };
+    private static final String ARG_CHUNK[]         = new String[] { "chunk"     , "chunkSize"   };
+    private static final String ARG_CONFIRM[]       = new String[] { "confirm"                   };
+
+    private static void usage()
+    {
+        Print.sysPrintln("Usage:");
+        Print.sysPrintln("  java ... " + EventArchive.class.getName() + " {options}");
+        Print.sysPrintln("Options:");
+        Print.sysPrintln("  -account=<id>[,<id>]    Account IDs, or 'all'");
+        Print.sysPrintln("  -device=<id>            Device ID (default all Devices)");
+        Print.sysPrintln("  -before=<date>          Archive events before date ('yyyy/mm/dd', or '-<days>d')");
+        Print.sysPrintln("  -chunk=<rows>           Rows per DELETE statement");
+        Print.sysPrintln("  -confirm                Confirm archive");
+        System.exit(1);
+    }
+
+    /**
+    *** Main entry point
+    **/
+    public static void main(String argv[])
+    {
+        DBConfig.cmdLineInit(argv,true);  // main
+        String acctArg = RTConfig.getString(ARG_ACCOUNT, "");
+        String devArg  = RTConfig.getString(ARG_DEVICE , "");
+        String before  = RTConfig.getString(ARG_BEFORE , "");
+
+        /* archive enabled? */
+        if (!EventArchive.isEnabled()) {
+            Print.sysPrintln("ERROR: '" + DBConfig.PROP_EventArchive_directory + "' not defined");
+            usage();
+        }
+
+        /* accounts */
+        if (StringTools.isBlank(acctArg)) {
+            Print.sysPrintln("ERROR: Missing '-account'");
+            usage();
+        }
+        Collection<String> acctIDs = null;
+        try {
+            acctIDs = acctArg.equalsIgnoreCase("all")?
+                Account.getAllAccounts() :
+                ListTools.toList(StringTools.parseStringArray(acctArg,','));
+        } catch (DBException dbe) {
+            Print.logException("Unable to read Accounts", dbe);
+            System.exit(99);
+        }
+
+        /* archive time */
+        long beforeSec = 0L;
+        try {
+            if (StringTools.isBlank(before)) {
+                long days = RTConfig.getLong(DBConfig.PROP_EventArchive_ageDays, 90L);
+                beforeSec = (days > 0L)? DateTime.getCurrentTimeSec() - DateTime.DaySeconds(days) : 0L;
+            } else
+            if (before.startsWith("-") && StringTools.endsWithIgnoreCase(before,"d")) {
+                long days = StringTools.parseLong(before.substring(1,before.length()-1),0L);
+                beforeSec = (days > 0L)? DateTime.getCurrentTimeSec() - DateTime.DaySeconds(days) : 0L;
+            } else {
+                beforeSec = DateTime.parseArgumentDate(before, DateTime.GMT, false).getTimeSec();
+            }
+        } catch (DateTime.DateParseException dpe) {
+            Print.sysPrintln("ERROR: Invalid '-before' date: " + before);
+            usage();
+        }
+        if (beforeSec <= 0L) {
+            Print.sysPrintln("ERROR: Missing/invalid '-before' date");
+            usage();
+        } else
+        if (!RTConfig.getBoolean(ARG_CONFIRM,false)) {
+            Print.sysPrintln("ERROR: Missing '-confirm'");
+            usage();
+        }
+
+        /* archive */
+        long chunk = RTConfig.getLong(ARG_CHUNK, RTConfig.getLong(DBConfig.PROP_EventPurge_chunkSize,5000L));
+        long total = 0L;
+        int  errors = 0;
+        Print.logInfo("Archiving events before " + new DateTime(EventArchive._getMonthStart(beforeSec), DateTime.GMT));
+        for (String acctID : acctIDs) {
+            try {
+                Collection<String> devIDs = !StringTools.isBlank(devArg)?
+                    ListTools.toList(new String[] { devArg }) :
+                    Device.getDeviceIDsForAccount(acctID, null, true);
+                for (String devID : devIDs) {
+                    try {
+                        long count = EventArchive.archiveDevice(acctID, devID, beforeSec, chunk);
+                        if (count > 0L) {
+                            Print.logInfo("  " + acctID + "/" + devID + ": " + count + " events archived");
+                        }
+                        total += count;
+                    } catch (IOException ioe) {
+                        errors++;
+                        Print.logException("Archiving " + acctID + "/" + devID, ioe);
+                    } catch (DBException dbe) {
+                        errors++;
+                        Print.logException("Archiving " + acctID + "/" + devID, dbe);
+                    }
+                }
+            } catch (DBException dbe) {
+                errors++;
+                Print.logException("Reading Devices for Account " + acctID, dbe);
+            }
+        }
+        Print.logInfo("Archived " + total + " events" + ((errors > 0)? (", " + errors + " errors") : ""));
+        System.exit((errors > 0)? 2 : 0);
+
+    }
+
+}
@@ -0,0 +1,468 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  In-memory columnar history of recent events for active devices.  Each
+//  device history is a fixed-size ring of primitive arrays (timestamp,
+//  latitude/longitude, speed, heading, status code, odometer) which allows
+//  map routes and replays to be rendered without reading or building
+//  EventData records.
+//  - A device history is created on the first query for that device, and is
+//    then appended from "Device._insertEventData" (when in the same JVM).
+//  - Events inserted by another process are read incrementally on the next
+//    query, based on the Device "lastEventTimestamp".
+//  - Queries for ranges not covered by the history return null, in which case
+//    the caller should read the events from the DB.
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.tables.*;
+
+public class EventHistory
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final int    DFT_CAPACITY            = 1000;
+    public  static final int    DFT_MAX_DEVICES         = 200;
+
+    /**
+    *** Returns true if the event history cache is enabled
+    **/
+    public static boolean IsEnabled()
+    {
+        return RTConfig.getBoolean(DBConfig.PROP_EventHistory_enabled, true);
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static EventHistory instance = null;
+
+    /**
+    *** Gets the EventHistory singleton instance
+    **/
+    public static EventHistory getInstance()
+    {
+        if (EventHistory.instance == null) {
+            synchronized (EventHistory.class) {
+                if (EventHistory.instance == null) {
+                    int cap = RTConfig.getInt(DBConfig.PROP_EventHistory_capacity  , DFT_CAPACITY);
+                    int max = RTConfig.getInt(DBConfig.PROP_EventHistory_maxDevices, DFT_MAX_DEVICES);
+                    EventHistory.instance = new EventHistory(cap, max);
+                }
+            }
+        }
+        return EventHistory.instance;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Immutable snapshot of a selected range of device events
+    **/
+    public static class Track
+    {
+        private String accountID    = null;
+        private String deviceID     = null;
+        private int    size         = 0;
+        private long   timestamp[]  = null;
+        private double latitude[]   = null;
+        private double longitude[]  = null;
+        private float  speedKPH[]   = null;
+        private float  heading[]    = null;
+        private int    statusCode[] = null;
+        private double odometerKM[] = null;
+        private Track(String acctID, String devID, int size) {
+            this.accountID  = acctID;
+            this.deviceID   = devID;
+            this.size       = 0;
+            this.timestamp  = new long[size];
+            this.latitude   = new double[size];
+            this.longitude  = new double[size];
+            this.speedKPH   = new float[size];
+            this.heading    = new float[size];
+            this.statusCode = new int[size];
+            this.odometerKM = new double[size];
+        }
+        private void _reverse() {
+            for (int i = 0, j = this.size - 1; i < j; i++, j--) {
+                long   ts = this.timestamp[i];  this.timestamp[i]  = this.timestamp[j];  this.timestamp[j]  = ts;
+                double la = this.latitude[i];   this.latitude[i]   = this.latitude[j];   this.latitude[j]   = la;
+                double lo = this.longitude[i];  this.longitude[i]  = this.longitude[j];  this.longitude[j]  = lo;
+                float  sp = this.speedKPH[i];   this.speedKPH[i]   = this.speedKPH[j];   this.speedKPH[j]   = sp;
+                float  hd = this.heading[i];    this.heading[i]    = this.heading[j];    this.heading[j]    = hd;
+                int    sc = this.statusCode[i]; this.statusCode[i] = this.statusCode[j]; this.statusCode[j] = sc;
+                double od = this.odometerKM[i]; this.odometerKM[i] = this.odometerKM[j]; this.odometerKM[j] = od;
+            }
+        }
+        public String getAccountID() {
+            return this.accountID;
+        }
+        public String getDeviceID() {
+            return this.deviceID;
+        }
+        public int size() {
+            return this.size;
+        }
+        public long getTimestamp(int ndx) {
+            return this.timestamp[ndx];
+        }
+        public double getLatitude(int ndx) {
+            return this.latitude[ndx];
+        }
+        public double getLongitude(int ndx) {
+            return this.longitude[ndx];
+        }
+        public boolean isValidGeoPoint(int ndx) {
+            return GeoPoint.isValid(this.latitude[ndx], this.longitude[ndx]);
+        }
+        public double getSpeedKPH(int ndx) {
+            return this.speedKPH[ndx];
+        }
+        public double getHeading(int ndx) {
+            return this.heading[ndx];
+        }
+        public int getStatusCode(int ndx) {
+            return this.statusCode[ndx];
+        }
+        public double getOdometerKM(int ndx) {
+            return this.odometerKM[ndx];
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Per-device ring of recent events, in ascending timestamp order
+    **/
+    private static class Ring
+    {
+        private String accountID    = null;
+        private String deviceID     = null;
+        private int    capacity     = 0;
+        private int    count        = 0;
+        private int    head         = 0;        // next write position
+        private long   timestamp[]  = null;
+        private double latitude[]   = null;
+        private double longitude[]  = null;
+        private float  speedKPH[]   = null;
+        private float  heading[]    = null;
+        private int    statusCode[] = null;
+        private double odometerKM[] = null;
+        private long   coverTime    = Long.MAX_VALUE; // all events at/after this time are present
+        private long   lastTime     = 0L;
+        public Ring(String acctID, String devID, int capacity) {
+            this.accountID  = acctID;
+            this.deviceID   = devID;
+            this.capacity   = capacity;
+            this.timestamp  = new long[capacity];
+            this.latitude   = new double[capacity];
+            this.longitude  = new double[capacity];
+            this.speedKPH   = new float[capacity];
+            this.heading    = new float[capacity];
+            this.statusCode = new int[capacity];
+            this.odometerKM = new double[capacity];
+        }
+        private int _index(int n) {
+            // -- index of the n'th oldest entry
+            int ndx = this.head - this.count + n;
+            return (ndx < 0)? (ndx + this.capacity) : ndx;
+        }
+        public void clear() {
+            this.count     = 0;
+            this.head      = 0;
+            this.coverTime = Long.MAX_VALUE;
+            this.lastTime  = 0L;
+        }
+        public boolean contains(long ts, int sc) {
+            for (int n = this.count - 1; n >= 0; n--) {
+                int ndx = this._index(n);
+                if (this.timestamp[ndx] < ts) {
+                    break;
+                } else
+                if ((this.timestamp[ndx] == ts) && (this.statusCode[ndx] == sc)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        public void append(EventData ev) {
+            long ts = ev.getTimestamp();
+            if (ts < this.lastTime) {
+                // -- out of order, ranges including this time are no longer complete
+                if (this.coverTime <= ts) {
+                    this.coverTime = ts + 1L;
+                }
+                return;
+            } else
+            if ((ts == this.lastTime) && this.contains(ts,ev.getStatusCode())) {
+                // -- already present (re-inserted event)
+                return;
+            }
+            if (this.count == this.capacity) {
+                // -- evict oldest entry
+                long oldTS = this.timestamp[this.head];
+                if (this.coverTime <= oldTS) {
+                    this.coverTime = oldTS + 1L;
+                }
+                this.count--;
+            }
+            int ndx = this.head;
+            this.timestamp[ndx]  = ts;
+            this.latitude[ndx]   = ev.getLatitude();
+            this.longitude[ndx]  = ev.getLongitude();
+            this.speedKPH[ndx]   = (float)ev.getSpeedKPH();
+            this.heading[ndx]    = (float)ev.getHeading();
+            this.statusCode[ndx] = ev.getStatusCode();
+            this.odometerKM[ndx] = ev.getOdometerKM();
+            this.head            = (ndx + 1) % this.capacity;
+            this.count++;
+            this.lastTime        = ts;
+        }
+        public boolean covers(long startTime) {
+            return (this.coverTime != Long.MAX_VALUE) && (startTime >= this.coverTime);
+        }
+        public Track select(long startTime, long endTime, boolean validGPS, EventData.LimitType limitType, long limit) {
+            // -- find first/last matching entries
+            int first = 0;
+            while ((first < this.count) && (this.timestamp[this._index(first)] < startTime)) { first++; }
+            int last = this.count - 1;
+            while ((last >= first) && (endTime > 0L) && (this.timestamp[this._index(last)] > endTime)) { last--; }
+            int avail = last - first + 1;
+            if (avail < 0) { avail = 0; }
+            int max = ((limit > 0L) && (limit < avail))? (int)limit : avail;
+            Track t = new Track(this.accountID, this.deviceID, max);
+            if (max <= 0) {
+                return t;
+            }
+            if (limitType == EventData.LimitType.LAST) {
+                // -- collect backwards, then reverse into ascending order
+                int n = last;
+                for (; (n >= first) && (t.size < max); n--) {
+                    this._copy(this._index(n), t, validGPS);
+                }
+                t._reverse();
+            } else {
+                for (int n = first; (n <= last) && (t.size < max); n++) {
+                    this._copy(this._index(n), t, validGPS);
+                }
+            }
+            return t;
+        }
+        private void _copy(int ndx, Track t, boolean validGPS) {
+            if (validGPS && !GeoPoint.isValid(this.latitude[ndx],this.longitude[ndx])) {
+                return;
+            }
+            int i = t.size++;
+            t.timestamp[i]  = this.timestamp[ndx];
+            t.latitude[i]   = this.latitude[ndx];
+            t.longitude[i]  = this.longitude[ndx];
+            t.speedKPH[i]   = this.speedKPH[ndx];
+            t.heading[i]    = this.heading[ndx];
+            t.statusCode[i] = this.statusCode[ndx];
+            t.odometerKM[i] = this.odometerKM[ndx];
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private int                 capacity    = DFT_CAPACITY;
+    private int                 maxDevices  = DFT_MAX_DEVICES;
+    private Map<String,Ring>    ringMap     = null;
+
+    /**
+    *** Constructor
+    *** @param capacity    The maximum number of events retained per device
+    *** @param maxDevices  The maximum number of devices retained (least recently used are discarded)
+    **/
+    public EventHistory(int capacity, int maxDevices)
+    {
+        this.capacity   = (capacity   > 0)? capacity   : DFT_CAPACITY;
+        this.maxDevices = (maxDevices > 0)? maxDevices : DFT_MAX_DEVICES;
+        final int maxDev = this.maxDevices;
+        this.ringMap = new LinkedHashMap<String,Ring>(16, 0.75F, true) {
+            protected boolean removeEldestEntry(Map.Entry<String,Ring> eldest) {
+                return (this.size() > maxDev);
+            }
+        };
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static String _key(String acctID, String devID)
+    {
+        return acctID + "/" + devID;
+    }
+
+    private Ring _getRing(String acctID, String devID, boolean create)
+    {
+        String key = EventHistory._key(acctID, devID);
+        synchronized (this.ringMap) {
+            Ring ring = this.ringMap.get(key);
+            if ((ring == null) && create) {
+                ring = new Ring(acctID, devID, this.capacity);
+                this.ringMap.put(key, ring);
+            }
+            return ring;
+        }
+    }
+
+    /**
+    *** Removes the history for the specified device
+    **/
+    public void clear(String acctID, String devID)
+    {
+        synchronized (this.ringMap) {
+            this.ringMap.remove(EventHistory._key(acctID, devID));
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Appends a newly inserted event to the device history, if the device history
+    *** is currently active.  Called after the EventData record has been saved.
+    *** @param ev  The inserted EventData record
+    **/
+    public void appendEvent(EventData ev)
+    {
+        if (ev == null) {
+            return;
+        }
+        Ring ring = this._getRing(ev.getAccountID(), ev.getDeviceID(), false);
+        if (ring != null) {
+            synchronized (ring) {
+                ring.append(ev);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the selected range of events for the specified Device from the device history.
+    *** Events inserted since the last query (ie. by another process) are read from the DB
+    *** before selecting the range.
+    *** @param device     The Device
+    *** @param startTime  The range start time (<=0 for no start time)
+    *** @param endTime    The range end time (<=0 for no end time)
+    *** @param validGPS   True to include only events with a valid GPS location
+    *** @param limitType  FIRST/LAST limit type
+    *** @param limit      The maximum number of events to return (<=0 for no limit)
+    *** @return The selected Track, or null if the history does not cover the requested range
+    **/
+    public Track getTrack(Device device,
+        long startTime, long endTime,
+        boolean validGPS, EventData.LimitType limitType, long limit)
+        throws DBException
+    {
+        if (device == null) {
+            return null;
+        }
+        String acctID = device.getAccountID();
+        String devID  = device.getDeviceID();
+        Ring   ring   = this._getRing(acctID, devID, true);
+        if (limitType == null) {
+            limitType = EventData.LimitType.LAST; // same default as "EventData.getRangeEvents"
+        }
+        synchronized (ring) {
+
+            /* initial load */
+            if ((startTime > 0L)? !ring.covers(startTime) : (ring.count == 0)) {
+                ring.clear();
+                this._loadLast(ring, device, startTime);
+            } else
+            if (device.getLastEventTimestamp() > ring.lastTime) {
+                this._loadNext(ring, device);
+            }
+
+            /* all events in the range present? */
+            if (ring.covers((startTime > 0L)? startTime : 0L)) {
+                return ring.select(startTime, endTime, validGPS, limitType, limit);
+            }
+
+            /* LAST: the selected events must all be at/after the covered time */
+            // (ie. the range start, or the end time, is earlier than the oldest complete history)
+            if ((limitType == EventData.LimitType.LAST) && (limit > 0L)) {
+                Track t = ring.select(startTime, endTime, validGPS, EventData.LimitType.LAST, limit);
+                if ((t.size() >= limit) && ring.covers(t.getTimestamp(0))) {
+                    return t;
+                }
+            }
+
+            /* range not covered, read from the DB */
+            return null;
+
+        }
+    }
+
+    /**
+    *** Loads the most recent events (up to capacity) at/after the specified start time
+    **/
+    private void _loadLast(final Ring ring, Device device, long startTime)
+        throws DBException
+    {
+        long cnt = device.streamRangeEvents(
+            startTime, -1L,
+            false/*validGPS*/,
+            EventData.LimitType.LAST, ring.capacity,
+            EventData.DFT_STREAM_CHUNK_SIZE,
+            new DBRecordHandler<EventData>() {
+                public int handleDBRecord(EventData ev) throws DBException {
+                    ring.append(ev);
+                    return DBRH_SKIP;
+                }
+            });
+        if (cnt < ring.capacity) {
+            // -- all events at/after 'startTime' were read
+            ring.coverTime = (startTime > 0L)? startTime : 0L;
+        } else
+        if (ring.count > 0) {
+            // -- history filled, events in the same second as the oldest may be missing
+            ring.coverTime = ring.timestamp[ring._index(0)] + 1L;
+        }
+    }
+
+    /**
+    *** Loads the events inserted after the last event in the history
+    **/
+    private void _loadNext(final Ring ring, Device device)
+        throws DBException
+    {
+        device.streamRangeEvents(
+            ring.lastTime, -1L,
+            false/*validGPS*/,
+            EventData.LimitType.FIRST, -1L,
+            EventData.DFT_STREAM_CHUNK_SIZE,
+            new DBRecordHandler<EventData>() {
+                public int handleDBRecord(EventData ev) throws DBException {
+                    ring.append(ev);
+                    return DBRH_SKIP;
+                }
+            });
+    }
+
+}
@@ -0,0 +1,603 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Chunked, throttled, resumable purge of old EventData records
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+import java.sql.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** Background purge of old EventData records.<br>
+*** Events are deleted per Device in primary-key ordered chunks (see
+*** <code>EventData.deleteOldEventsChunk</code>), with a configurable rows/second throttle.
+*** Devices are purged concurrently by a bounded number of threads.  Purging pauses while
+*** the replication lag, or the DCS ingest queue size, exceeds its configured limit.<br>
+*** Completed Devices are appended to a checkpoint file, so that an interrupted purge may
+*** be resumed by re-running with the same checkpoint file and delete time.
+**/
+
+public class EventPurge
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final Metrics.Counter   METRIC_ROWS      = Metrics.getCounter("purge_rows_deleted_total");
+    private static final Metrics.Counter   METRIC_DEVICES   = Metrics.getCounter("purge_devices_completed_total");
+    private static final Metrics.Counter   METRIC_ERRORS    = Metrics.getCounter("purge_device_errors_total");
+    private static final Metrics.Counter   METRIC_PAUSES    = Metrics.getCounter("purge_pauses_total");
+    private static final Metrics.Gauge     METRIC_PAUSED    = Metrics.getGauge("purge_paused");
+    private static final Metrics.Gauge     METRIC_REMAINING = Metrics.getGauge("purge_devices_remaining");
+    private static final Metrics.Histogram METRIC_CHUNK     = Metrics.getHistogram("purge_chunk_seconds");
+
+    private static final String CHECKPOINT_CUTOFF           = "cutoff=";
+
+    // ------------------------------------------------------------------------
+
+    private long            oldTimeSec          = 0L;
+    private boolean         dryRun              = false;
+
+    private long            chunkSize           = 5000L;
+    private long            rowsPerSecond       = 0L;
+    private int             threadCount         = 2;
+
+    private long            maxReplicationLag   = 30L;
+    private String          replicaURI          = "";
+    private String          ingestServers[]     = null;
+    private long            maxIngestQueue      = 1000L;
+    private long            checkIntervalMS     = 10000L;
+
+    private File            checkpointFile      = null;
+    private Set<String>     checkpointDone      = new HashSet<String>();
+    private PrintWriter     checkpointOut       = null;
+
+    private AtomicLong      totalRows           = new AtomicLong(0L);
+    private AtomicLong      totalDevices        = new AtomicLong(0L);
+    private long            startTimeMS         = 0L;
+
+    private Object          pauseLock           = new Object();
+    private long            lastCheckMS         = 0L;
+    private volatile boolean lagCheckFailed     = false; // shared by the purge threads
+
+    /**
+    *** Constructor
+    *** @param oldTimeSec  The time in the past before which (exclusive) events will be deleted
+    **/
+    public EventPurge(long oldTimeSec)
+    {
+        this.oldTimeSec        = oldTimeSec;
+        this.chunkSize         = RTConfig.getLong(DBConfig.PROP_EventPurge_chunkSize, this.chunkSize);
+        this.rowsPerSecond     = RTConfig.getLong(DBConfig.PROP_EventPurge_rowsPerSecond, this.rowsPerSecond);
+        this.threadCount       = RTConfig.getInt(DBConfig.PROP_EventPurge_threads, this.threadCount);
+        this.maxReplicationLag = RTConfig.getLong(DBConfig.PROP_EventPurge_maxReplicationLag, this.maxReplicationLag);
+        this.replicaURI        = RTConfig.getString(DBConfig.PROP_EventPurge_replicaURI, this.replicaURI);
+        if (StringTools.isBlank(this.replicaURI)) {
+            // -- default to the first configured read replica
+            String rep[] = StringTools.parseStringArray(RTConfig.getString(RTKey.DB_REPLICA_URI,""),',');
+            this.replicaURI = !ListTools.isEmpty(rep)? rep[0].trim() : "";
+        }
+        this.ingestServers     = StringTools.parseStringArray(RTConfig.getString(DBConfig.PROP_EventPurge_ingestServers,""),',');
+        this.maxIngestQueue    = RTConfig.getLong(DBConfig.PROP_EventPurge_maxIngestQueue, this.maxIngestQueue);
+        this.checkIntervalMS   = RTConfig.getLong(DBConfig.PROP_EventPurge_checkIntervalSec, 10L) * 1000L;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Sets dry-run mode (events are counted, but not deleted)
+    **/
+    public void setDryRun(boolean dryRun)
+    {
+        this.dryRun = dryRun;
+    }
+
+    /**
+    *** Sets the maximum number of events deleted per statement
+    **/
+    public void setChunkSize(long chunkSize)
+    {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+    *** Sets the maximum delete rate (0 for unlimited)
+    **/
+    public void setRowsPerSecond(long rowsPerSecond)
+    {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+    *** Sets the number of Devices purged concurrently
+    **/
+    public void setThreadCount(int threadCount)
+    {
+        this.threadCount = threadCount;
+    }
+
+    /**
+    *** Sets the checkpoint file (may be null)
+    **/
+    public void setCheckpointFile(File file)
+    {
+        this.checkpointFile = file;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Loads the checkpoint file.  Devices listed in the checkpoint file are skipped,
+    *** provided that the checkpoint was written for the same delete time.  Otherwise
+    *** a new checkpoint file is started.
+    **/
+    private void _openCheckpoint()
+        throws IOException
+    {
+        if (this.checkpointFile == null) {
+            return;
+        }
+        boolean resume = false;
+        if (this.checkpointFile.isFile()) {
+            BufferedReader br = null;
+            try {
+                br = new BufferedReader(new FileReader(this.checkpointFile));
+                String line = br.readLine();
+                if ((line != null) && line.equals(CHECKPOINT_CUTOFF + this.oldTimeSec)) {
+                    resume = true;
+                    while ((line = br.readLine()) != null) {
+                        int p = line.indexOf(' ');
+                        String key = (p >= 0)? line.substring(0,p) : line;
+                        if (!StringTools.isBlank(key)) {
+                            this.checkpointDone.add(key.trim());
+                        }
+                    }
+                } else {
+                    Print.logWarn("Checkpoint delete time differs, starting new checkpoint: " + this.checkpointFile);
+                }
+            } finally {
+                if (br != null) { try { br.close(); } catch (Throwable th) {/*ignore*/} }
+            }
+        }
+        this.checkpointOut = new PrintWriter(new FileWriter(this.checkpointFile, resume), true);
+        if (resume) {
+            Print.logInfo("Resuming from checkpoint: " + this.checkpointDone.size() + " Devices already purged");
+        } else {
+            this.checkpointOut.println(CHECKPOINT_CUTOFF + this.oldTimeSec);
+        }
+    }
+
+    /**
+    *** Records a completed Device in the checkpoint file
+    **/
+    private void _checkpoint(String key, long count)
+    {
+        if (this.checkpointOut != null) {
+            synchronized (this.checkpointOut) {
+                this.checkpointOut.println(key + " " + count);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Waits while the replication lag, or DCS ingest queue size, exceeds its limit
+    **/
+    private void _waitWhileBusy()
+        throws InterruptedException
+    {
+        synchronized (this.pauseLock) {
+            boolean paused = false;
+            for (;;) {
+                long nowMS = System.currentTimeMillis();
+                if (!paused && ((nowMS - this.lastCheckMS) < this.checkIntervalMS)) {
+                    break;
+                }
+                this.lastCheckMS = nowMS;
+                String reason = this._getPauseReason();
+                if (reason == null) {
+                    if (paused) {
+                        Print.logInfo("Resuming purge");
+                        METRIC_PAUSED.set(0L);
+                    }
+                    break;
+                }
+                if (!paused) {
+                    Print.logWarn("Pausing purge: " + reason);
+                    METRIC_PAUSES.increment();
+                    METRIC_PAUSED.set(1L);
+                    paused = true;
+                }
+                Thread.sleep(Math.max(this.checkIntervalMS,1000L));
+            }
+        }
+    }
+
+    /**
+    *** Returns the reason purging should pause, or null if purging may continue
+    **/
+    private String _getPauseReason()
+    {
+
+        /* replication lag */
+        long lag = this._getReplicationLag();
+        if ((this.maxReplicationLag > 0L) && (lag > this.maxReplicationLag)) {
+            return "Replication lag " + lag + " sec";
+        }
+
+        /* DCS ingest queue */
+        if ((this.maxIngestQueue > 0L) && !ListTools.isEmpty(this.ingestServers)) {
+            long qsize = 0L;
+            for (String dcs : this.ingestServers) {
+                RTProperties resp = DCServerFactory.sendInternalCommand(dcs, CommandPacketHandler.INTERNCMD_QUEUESIZE, null);
+                if (resp != null) {
+                    qsize += resp.getLong(CommandPacketHandler.ARG_QUEUESIZE, 0L);
+                }
+            }
+            if (qsize > this.maxIngestQueue) {
+                return "Ingest queue size " + qsize;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+    *** Returns true if the replication lag is checked (a maximum lag and a replica are configured)
+    **/
+    private boolean _isLagCheckEnabled()
+    {
+        return (this.maxReplicationLag > 0L) && !StringTools.isBlank(this.replicaURI);
+    }
+
+    /**
+    *** Gets the MySQL replication lag, in seconds ("Seconds_Behind_Master"), or 0 if
+    *** unavailable.  A replica whose SQL thread is not running is reported as Long.MAX_VALUE.
+    **/
+    private long _getReplicationLag()
+    {
+        if (!this._isLagCheckEnabled() || this.lagCheckFailed) {
+            return 0L;
+        } else
+        if (DBProvider.getProvider().getID() != DBProvider.DB_MYSQL) {
+            return 0L;
+        }
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            // -- "SHOW SLAVE STATUS" must be run on the replica (it is empty on the primary)
+            dbc = DBConnection.getDBConnection(this.replicaURI, DBProvider.getDBUsername(), DBProvider.getDBPassword());
+            stmt = dbc.execute("SHOW SLAVE STATUS");
+            rs   = stmt.getResultSet();
+            if (rs.next()) {
+                String lag = rs.getString("Seconds_Behind_Master");
+                return (lag != null)? StringTools.parseLong(lag,0L) : Long.MAX_VALUE;
+            }
+            return 0L; // not a replica
+        } catch (SQLException sqe) {
+            Print.logWarn("Unable to check replication lag (disabled): " + sqe);
+            this.lagCheckFailed = true;
+            return 0L;
+        } catch (DBException dbe) {
+            Print.logWarn("Unable to check replication lag (disabled): " + dbe);
+            this.lagCheckFailed = true;
+            return 0L;
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+    }
+
+    /**
+    *** Sleeps as necessary to hold the overall delete rate to "rowsPerSecond"
+    **/
+    private void _throttle()
+        throws InterruptedException
+    {
+        if (this.rowsPerSecond > 0L) {
+            long targetMS  = (this.totalRows.get() * 1000L) / this.rowsPerSecond;
+            long elapsedMS = System.currentTimeMillis() - this.startTimeMS;
+            if (targetMS > elapsedMS) {
+                Thread.sleep(targetMS - elapsedMS);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Purges (or counts, in dry-run mode) the old events for the specified Device
+    *** @return The number of events deleted (or counted)
+    **/
+    private long _purgeDevice(Device device)
+        throws DBException, InterruptedException
+    {
+        String acctID  = device.getAccountID();
+        String devID   = device.getDeviceID();
+        long   delTime = EventData.getDeleteOldEventsTime(device, this.oldTimeSec, null);
+
+        /* dry-run */
+        if (this.dryRun) {
+            long count = EventData.countRangeEvents(
+                acctID, devID,
+                -1L, (delTime - 1L),
+                null/*statusCodes*/,
+                false/*validGPS*/,
+                EventData.LimitType.FIRST, -1L/*limit*/,
+                null/*addtnlSelect*/);
+            this.totalRows.addAndGet(Math.max(count,0L));
+            return count;
+        }
+
+        /* archived events (same retention as the EventData table) */
+        if (EventArchive.isEnabled()) {
+            EventArchive.deleteEventsBefore(acctID, devID, delTime);
+        }
+
+        /* delete chunks */
+        long deleted = 0L;
+        for (;;) {
+            this._waitWhileBusy();
+            long startNS = System.nanoTime();
+            long n = EventData.deleteOldEventsChunk(acctID, devID, delTime, this.chunkSize);
+            if (Metrics.isEnabled()) {
+                METRIC_CHUNK.recordSince(startNS);
+            }
+            if (n <= 0L) {
+                break;
+            }
+            deleted += n;
+            this.totalRows.addAndGet(n);
+            METRIC_ROWS.add(n);
+            if ((this.chunkSize <= 0L) || (n < this.chunkSize)) {
+                break;
+            }
+            this._throttle();
+        }
+        return deleted;
+
+    }
+
+    /**
+    *** Purges the old events for all Devices in the specified Accounts
+    *** @param acctIDs  The Account IDs
+    *** @return The total number of events deleted (or counted, in dry-run mode)
+    **/
+    public long purge(Collection<String> acctIDs)
+        throws DBException, IOException
+    {
+
+        /* Account/Device work list */
+        final java.util.List<String> workList = new Vector<String>();
+        for (String acctID : acctIDs) {
+            OrderedSet<String> devIDs = Device.getDeviceIDsForAccount(acctID, null, true);
+            for (String devID : devIDs) {
+                workList.add(acctID + "/" + devID);
+            }
+        }
+
+        /* skip Devices completed by a previous run */
+        this._openCheckpoint();
+        if (!this.checkpointDone.isEmpty()) {
+            workList.removeAll(this.checkpointDone);
+        }
+        Print.logInfo("Purging events before " + new DateTime(this.oldTimeSec) + " for " + workList.size() + " Devices" +
+            (this.dryRun? " (dry-run)" : ""));
+
+        /* replication lag check */
+        if (this.maxReplicationLag <= 0L) {
+            Print.logInfo("Replication lag check is off (maxReplicationLag=0)");
+        } else
+        if (StringTools.isBlank(this.replicaURI)) {
+            Print.logInfo("Replication lag check is off (no replica configured: " + 
+                DBConfig.PROP_EventPurge_replicaURI + ", " + RTKey.DB_REPLICA_URI + ")");
+        }
+
+        /* purge threads */
+        this.startTimeMS = System.currentTimeMillis();
+        final Iterator<String> workIter = workList.iterator();
+        final Map<String,Account> acctCache = new ConcurrentHashMap<String,Account>();
+        final AtomicLong remaining = new AtomicLong(workList.size());
+        METRIC_REMAINING.set(remaining.get());
+        int threads = Math.max(1, Math.min(this.threadCount, workList.size()));
+        Thread purgeThreads[] = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            purgeThreads[t] = new Thread("EventPurge_" + t) {
+                public void run() {
+                    for (;;) {
+                        String key;
+                        synchronized (workIter) {
+                            if (!workIter.hasNext()) { break; }
+                            key = workIter.next();
+                        }
+                        int    p      = key.indexOf('/');
+                        String acctID = key.substring(0,p);
+                        String devID  = key.substring(p+1);
+                        try {
+                            Account account = acctCache.get(acctID);
+                            if (account == null) {
+                                account = Account.getAccount(acctID);
+                                if (account == null) { continue; }
+                                acctCache.put(acctID, account);
+                            }
+                            Device device = Device.getDevice(account, devID);
+                            if (device == null) { continue; }
+                            long count = EventPurge.this._purgeDevice(device);
+                            if (!EventPurge.this.dryRun) {
+                                EventPurge.this._checkpoint(key, count);
+                                METRIC_DEVICES.increment();
+                            }
+                            EventPurge.this.totalDevices.incrementAndGet();
+                            if (count > 0L) {
+                                Print.logInfo("  " + key + ": " + count + (EventPurge.this.dryRun? " events to delete" : " events deleted"));
+                            }
+                        } catch (InterruptedException ie) {
+                            break;
+                        } catch (DBException dbe) {
+                            METRIC_ERRORS.increment();
+                            Print.logException("Purging " + key, dbe);
+                        } finally {
+                            METRIC_REMAINING.set(remaining.decrementAndGet());
+                        }
+                    }
+                }
+            };
+            purgeThreads[t].start();
+        }
+
+        /* wait for completion */
+        try {
+            for (int t = 0; t < threads; t++) {
+                purgeThreads[t].join();
+            }
+        } catch (InterruptedException ie) {
+            Print.logWarn("Purge interrupted");
+        } finally {
+            if (this.checkpointOut != null) {
+                this.checkpointOut.close();
+                this.checkpointOut = null;
+            }
+        }
+
+        /* done */
+        long elapsedMS = Math.max(System.currentTimeMillis() - this.startTimeMS, 1L);
+        Print.logInfo("Purge complete: " + this.totalDevices.get() + " Devices, " + this.totalRows.get() +
+            (this.dryRun? " events to delete" : " events deleted") + ", " + (elapsedMS / 1000L) + " sec (" +
+            ((this.totalRows.get() * 1000L) / elapsedMS) + " rows/sec)");
+        return this.totalRows.get();
+
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final String ARG_ACCOUNT[]       = new String[] { "account"   , "acct"  , "a" };
+    private static final String ARG_BEFORE[]        = new String[] { "before"    , "date"        };
+    private static final String ARG_DRYRUN[]        = new String[] { "dryRun"    , "count"       };
+    private static final String ARG_CHUNK[]         = new String[] { "chunk"     , "chunkSize"   };
+    private static final String ARG_RATE[]          = new String[] { "rate"      , "rowsPerSec"  };
+    private static final String ARG_THREADS[]       = new String[] { "threads"                   };
+    private static final String ARG_CHECKPOINT[]    = new String[] { "checkpoint", "ckpt"        };
+    private static final String ARG_CONFIRM[]       = new String[] { "confirm"                   };
+
+    private static void usage()
+    {
+        Print.sysPrintln("Usage:");
+        Print.sysPrintln("  java ... " + EventPurge.class.getName() + " {options}");
+        Print.sysPrintln("Options:");
+        Print.sysPrintln("  -account=<id>[,<id>]    Account IDs, or 'all'");
+        Print.sysPrintln("  -before=<date>          Delete events before date ('yyyy/mm/dd', or '-<days>d')");
+        Print.sysPrintln("  -dryRun                 Count the events to delete (no delete)");
+        Print.sysPrintln("  -chunk=<rows>           Rows per DELETE statement");
+        Print.sysPrintln("  -rate=<rows>            Maximum rows deleted per second (0 for unlimited)");
+        Print.sysPrintln("  -threads=<count>        Devices purged concurrently");
+        Print.sysPrintln("  -checkpoint=<file>      Checkpoint file (resume a previous purge)");
+        Print.sysPrintln("  -confirm                Confirm deletion");
+        System.exit(1);
+    }
+
+    /**
+    *** Main entry point
+    **/
+    public static void main(String argv[])
+    {
+        DBConfig.cmdLineInit(argv,true);  // main
+        String  acctArg = RTConfig.getString(ARG_ACCOUNT, "");
+        String  before  = RTConfig.getString(ARG_BEFORE , "");
+        boolean dryRun  = RTConfig.getBoolean(ARG_DRYRUN, false);
+
+        /* accounts */
+        if (StringTools.isBlank(acctArg)) {
+            Print.sysPrintln("ERROR: Missing '-account'");
+            usage();
+        }
+        Collection<String> acctIDs = null;
+        try {
+            acctIDs = acctArg.equalsIgnoreCase("all")?
+                Account.getAllAccounts() :
+                ListTools.toList(StringTools.parseStringArray(acctArg,','));
+        } catch (DBException dbe) {
+            Print.logException("Unable to read Accounts", dbe);
+            System.exit(99);
+        }
+
+        /* delete time */
+        long oldTimeSec = 0L;
+        try {
+            TimeZone tz = DateTime.getGMTTimeZone();
+            if (StringTools.isBlank(before)) {
+                oldTimeSec = 0L;
+            } else
+            if (before.startsWith("-") && StringTools.endsWithIgnoreCase(before,"d")) {
+                long days = StringTools.parseLong(before.substring(1,before.length()-1),0L);
+                // -- rounded to the start of day (GMT), so that a re-run on the same day resumes the checkpoint
+                oldTimeSec = (days > 0L)? new DateTime(DateTime.getCurrentTimeSec() - DateTime.DaySeconds(days), tz).getDayStart(tz) : 0L;
+            } else {
+                oldTimeSec = DateTime.parseArgumentDate(before, tz, false).getTimeSec();
+            }
+        } catch (DateTime.DateParseException dpe) {
+            Print.sysPrintln("ERROR: Invalid '-before' date: " + before);
+            usage();
+        }
+        if (oldTimeSec <= 0L) {
+            Print.sysPrintln("ERROR: Missing/invalid '-before' date");
+            usage();
+        } else
+        if (!dryRun && !RTConfig.getBoolean(ARG_CONFIRM,false)) {
+            Print.sysPrintln("ERROR: Missing '-confirm' (or use '-dryRun')");
+            usage();
+        }
+
+        /* purge */
+        EventPurge purge = new EventPurge(oldTimeSec);
+        purge.setDryRun(dryRun);
+        if (RTConfig.hasProperty(ARG_CHUNK)) {
+            purge.setChunkSize(RTConfig.getLong(ARG_CHUNK,5000L));
+        }
+        if (RTConfig.hasProperty(ARG_RATE)) {
+            purge.setRowsPerSecond(RTConfig.getLong(ARG_RATE,0L));
+        }
+        if (RTConfig.hasProperty(ARG_THREADS)) {
+            purge.setThreadCount(RTConfig.getInt(ARG_THREADS,2));
+        }
+        String ckpt = RTConfig.getString(ARG_CHECKPOINT,"");
+        if (!StringTools.isBlank(ckpt)) {
+            purge.setCheckpointFile(new File(ckpt));
+        }
+        try {
+            purge.purge(acctIDs);
+        } catch (Throwable th) {
+            Print.logException("Purge failed", th);
+            System.exit(99);
+        }
+        System.exit(0);
+
+    }
+
+}
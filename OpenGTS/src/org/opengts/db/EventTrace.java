@@ -0,0 +1,394 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Per-event ingestion stage timing, with a bounded journal of the slowest events
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.opengts.util.*;
+
+/**
+*** Per-event ingestion trace.<br>
+*** A trace is started by <code>Device.insertEventData</code>, each stage of the event
+*** insertion is timed by calling <code>mark(stage)</code>, and the trace is completed
+*** once the Device record has been updated (or when the next top-level event is inserted
+*** on the same thread, if the DCS does not update the Device record).<br>
+*** Every completed trace is exported to the "event_insert_seconds{stage=...}" metrics.
+*** Sampled traces (see "Device.eventTrace.enable" and "Device.eventTrace.sampleRate")
+*** are also offered to a bounded in-memory journal of the slowest events, which may be
+*** queried with the "%EVENTTRACE%" internal DCS command, or via "/metrics?trace=true".<br>
+*** Nested insertions (ie. events inserted from within rule checks) are traced
+*** separately, and each pending trace is only charged with the update of its own Device.
+**/
+
+public class EventTrace
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final int    STAGE_VALIDATE          = 0; // time/speed/status validation
+    public  static final int    STAGE_CELLTOWER         = 1; // geozone/cell-tower location
+    public  static final int    STAGE_GEOCODE           = 2; // geozone/reverse-geocode address
+    public  static final int    STAGE_STATE             = 3; // motion/ignition/engine/odometer state
+    public  static final int    STAGE_INSERT            = 4; // EventData.save()
+    public  static final int    STAGE_QUEUE             = 5; // background update queue
+    public  static final int    STAGE_SEGMENTS          = 6; // event history, trip/stop segments
+    public  static final int    STAGE_RULES             = 7; // checkEventRules
+    public  static final int    STAGE_FIELDS            = 8; // Device field updates
+    public  static final int    STAGE_DEVICE_UPDATE     = 9; // Device.updateChangedEventFields
+    public  static final int    STAGE_COUNT             = 10;
+
+    private static final String STAGE_NAME[]            = new String[] {
+        "validate",
+        "celltower",
+        "geocode",
+        "state",
+        "insert",
+        "queue",
+        "segments",
+        "rules",
+        "fields",
+        "device_update"
+    };
+
+    /**
+    *** Gets the name of the specified stage
+    **/
+    public static String GetStageName(int stage)
+    {
+        return ((stage >= 0) && (stage < STAGE_COUNT))? STAGE_NAME[stage] : "?";
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static final Metrics.Histogram METRIC_TOTAL     = Metrics.getHistogram("event_insert_seconds", "stage", "total");
+    private static final Metrics.Histogram METRIC_STAGE[]   = new Metrics.Histogram[STAGE_COUNT];
+    static {
+        for (int s = 0; s < STAGE_COUNT; s++) {
+            METRIC_STAGE[s] = Metrics.getHistogram("event_insert_seconds", "stage", STAGE_NAME[s]);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* maximum number of pending traces retained per thread */
+    private static final int    MAX_PENDING             = 16;
+
+    /* per-thread trace state */
+    private static class ThreadTraces
+    {
+        public Vector<EventTrace> active  = new Vector<EventTrace>(); // insertion in progress (nested stack)
+        public Vector<EventTrace> pending = new Vector<EventTrace>(); // awaiting Device update
+    }
+
+    /* trace state for the current thread */
+    private static final ThreadLocal<ThreadTraces> threadTraces = new ThreadLocal<ThreadTraces>() {
+        protected ThreadTraces initialValue() {
+            return new ThreadTraces();
+        }
+    };
+
+    /* sampling counter */
+    private static final AtomicLong sampleCounter = new AtomicLong(0L);
+
+    /**
+    *** Starts a new trace for the specified Device.<br>
+    *** If no other insertion is in progress on the current thread, any trace still awaiting
+    *** a Device update is completed first.  A trace started while another insertion is in
+    *** progress is pushed on top of it, and the outer trace is restored by 
+    *** <code>insertComplete</code>.
+    *** @param acctID  The Account ID
+    *** @param devID   The Device ID
+    *** @return The new trace, or null if metrics are disabled and this event is not sampled
+    **/
+    public static EventTrace start(String acctID, String devID)
+    {
+        ThreadTraces tt = threadTraces.get();
+
+        /* complete stale pending traces (top-level insertion only) */
+        if (tt.active.isEmpty() && !tt.pending.isEmpty()) {
+            for (EventTrace pending : tt.pending) {
+                pending._complete();
+            }
+            tt.pending.clear();
+        }
+
+        /* sampled? (the stage metrics are recorded regardless of sampling) */
+        boolean sampled = false;
+        if (RTConfig.getBoolean(DBConfig.PROP_Device_eventTrace_enable,true)) {
+            long sampleRate = RTConfig.getLong(DBConfig.PROP_Device_eventTrace_sampleRate,1L);
+            sampled = (sampleRate <= 1L) || ((sampleCounter.incrementAndGet() % sampleRate) == 0L);
+        }
+        if (!sampled && !Metrics.isEnabled()) {
+            return null;
+        }
+
+        /* new trace */
+        EventTrace trace = new EventTrace(acctID, devID, sampled);
+        tt.active.add(trace);
+        return trace;
+
+    }
+
+    /**
+    *** Records the Device update time for the most recent pending trace of the specified
+    *** Device on the current thread, and completes that trace.  Updates of Devices which
+    *** have no pending trace are not charged to event ingestion.
+    *** @param acctID   The Account ID of the updated Device
+    *** @param devID    The Device ID of the updated Device
+    *** @param startNS  The <code>System.nanoTime()</code> value at the start of the update
+    **/
+    public static void deviceUpdated(String acctID, String devID, long startNS)
+    {
+        long deltaNS = System.nanoTime() - startNS;
+        Vector<EventTrace> pendList = threadTraces.get().pending;
+        for (int i = pendList.size() - 1; i >= 0; i--) {
+            EventTrace pending = pendList.get(i);
+            if (pending.isDevice(acctID,devID)) {
+                pendList.remove(i);
+                pending.stageNS[STAGE_DEVICE_UPDATE] += deltaNS;
+                pending.totalNS += deltaNS;
+                pending._complete();
+                break;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private String  accountID   = null;
+    private String  deviceID    = null;
+    private int     statusCode  = StatusCodes.STATUS_NONE;
+    private long    timestamp   = 0L;
+    private long    startTimeMS = 0L;
+    private long    startNS     = 0L;
+    private long    lastNS      = 0L;
+    private long    stageNS[]   = new long[STAGE_COUNT];
+    private long    totalNS     = 0L;
+    private boolean sampled     = false;
+
+    /**
+    *** Constructor
+    **/
+    private EventTrace(String acctID, String devID, boolean sampled)
+    {
+        this.accountID   = acctID;
+        this.deviceID    = devID;
+        this.sampled     = sampled;
+        this.startTimeMS = System.currentTimeMillis();
+        this.startNS     = System.nanoTime();
+        this.lastNS      = this.startNS;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if this trace is for the specified Device
+    **/
+    public boolean isDevice(String acctID, String devID)
+    {
+        return StringTools.equals(this.accountID,acctID) && StringTools.equals(this.deviceID,devID);
+    }
+
+    /**
+    *** Returns true if this trace is sampled for the slowest-event journal
+    **/
+    public boolean isSampled()
+    {
+        return this.sampled;
+    }
+
+    /**
+    *** Sets the traced event status code and timestamp
+    **/
+    public void setEvent(int statusCode, long timestamp)
+    {
+        this.statusCode = statusCode;
+        this.timestamp  = timestamp;
+    }
+
+    /**
+    *** Attributes the time elapsed since the previous mark to the specified stage
+    *** @param stage  The stage (STAGE_xxxx)
+    **/
+    public void mark(int stage)
+    {
+        long nowNS = System.nanoTime();
+        this.stageNS[stage] += nowNS - this.lastNS;
+        this.lastNS = nowNS;
+    }
+
+    /**
+    *** Ends the event insertion portion of this trace, and restores any enclosing trace.<br>
+    *** If inserted, the trace remains pending on the current thread until the Device record
+    *** has been updated.
+    *** @param inserted  True if the event was inserted, false if it was ignored
+    **/
+    public void insertComplete(boolean inserted)
+    {
+        this.totalNS = System.nanoTime() - this.startNS;
+        ThreadTraces tt = threadTraces.get();
+        tt.active.remove(this);
+        if (inserted) {
+            tt.pending.add(this);
+            while (tt.pending.size() > MAX_PENDING) {
+                tt.pending.remove(0)._complete();
+            }
+        } else {
+            this._complete();
+        }
+    }
+
+    /* export to metrics and journal */
+    private void _complete()
+    {
+        if (Metrics.isEnabled()) {
+            METRIC_TOTAL.record(this.totalNS);
+            for (int s = 0; s < STAGE_COUNT; s++) {
+                if (this.stageNS[s] > 0L) {
+                    METRIC_STAGE[s].record(this.stageNS[s]);
+                }
+            }
+        }
+        if (!this.sampled) {
+            return;
+        }
+        EventTrace._addToJournal(this);
+        long slowMS = RTConfig.getLong(DBConfig.PROP_Device_eventTrace_slowLogMS,0L);
+        if ((slowMS > 0L) && (this.totalNS >= (slowMS * 1000000L))) {
+            Print.logWarn("Slow event insertion: " + this.toString());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the total traced time (nanoseconds)
+    **/
+    public long getTotalNanos()
+    {
+        return this.totalNS;
+    }
+
+    /**
+    *** Gets the time attributed to the specified stage (nanoseconds)
+    **/
+    public long getStageNanos(int stage)
+    {
+        return this.stageNS[stage];
+    }
+
+    /**
+    *** Returns a String representation of this trace
+    **/
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(StringTools.format((double)this.totalNS / 1000000.0, "0.000")).append("ms ");
+        sb.append(new DateTime(this.startTimeMS / 1000L).format("yyyy/MM/dd HH:mm:ss")).append(" ");
+        sb.append(this.accountID).append("/").append(this.deviceID);
+        sb.append(" [").append(StatusCodes.GetHex(this.statusCode)).append(" ").append(this.timestamp).append("]");
+        for (int s = 0; s < STAGE_COUNT; s++) {
+            if (this.stageNS[s] > 0L) {
+                sb.append(" ").append(STAGE_NAME[s]).append("=");
+                sb.append(StringTools.format((double)this.stageNS[s] / 1000000.0, "0.000"));
+            }
+        }
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // slowest-event journal
+
+    private static final Comparator<EventTrace> TOTAL_ORDER = new Comparator<EventTrace>() {
+        public int compare(EventTrace t1, EventTrace t2) {
+            return (t1.totalNS < t2.totalNS)? -1 : (t1.totalNS > t2.totalNS)? 1 : 0;
+        }
+    };
+
+    private static final Object                  journalLock  = new Object();
+    private static final PriorityQueue<EventTrace> journal    = new PriorityQueue<EventTrace>(32, TOTAL_ORDER); // min-heap
+    private static volatile long                 journalMinNS = 0L;
+    private static final AtomicLong              journalCount = new AtomicLong(0L);
+
+    /* offer the specified trace to the journal */
+    private static void _addToJournal(EventTrace trace)
+    {
+        journalCount.incrementAndGet();
+        if (trace.totalNS <= journalMinNS) {
+            return; // quick reject: journal is full, and this trace is not slower
+        }
+        int maxSize = RTConfig.getInt(DBConfig.PROP_Device_eventTrace_journalSize,25);
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (journalLock) {
+            journal.add(trace);
+            while (journal.size() > maxSize) {
+                journal.poll(); // remove fastest
+            }
+            journalMinNS = (journal.size() >= maxSize)? journal.peek().totalNS : 0L;
+        }
+    }
+
+    /**
+    *** Gets the journaled traces, slowest first
+    **/
+    public static java.util.List<EventTrace> getJournal()
+    {
+        java.util.List<EventTrace> list;
+        synchronized (journalLock) {
+            list = new Vector<EventTrace>(journal);
+        }
+        Collections.sort(list, Collections.reverseOrder(TOTAL_ORDER));
+        return list;
+    }
+
+    /**
+    *** Clears the journal
+    **/
+    public static void clearJournal()
+    {
+        synchronized (journalLock) {
+            journal.clear();
+            journalMinNS = 0L;
+        }
+    }
+
+    /**
+    *** Gets the journal as a String (slowest first)
+    **/
+    public static String getJournalText()
+    {
+        java.util.List<EventTrace> list = EventTrace.getJournal();
+        StringBuffer sb = new StringBuffer();
+        sb.append("Slowest events: ").append(list.size()).append(" of ").append(journalCount.get()).append(" traced\n");
+        for (EventTrace t : list) {
+            sb.append("  ").append(t.toString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+}
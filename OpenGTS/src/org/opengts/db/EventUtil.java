@@ -93,6 +93,8 @@ import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.Writer;
+import java.io.StringWriter;
 
 import org.opengts.util.*;
 import org.opengts.dbtools.*;
@@ -184,6 +186,7 @@ public class EventUtil
     public  static final int    FORMAT_JSONX        =  8;
     public  static final int    FORMAT_BML          =  9;
     public  static final int    FORMAT_AEMP         = 10;
+    public  static final int    FORMAT_ROUTE        = 11;
 
     public static int parseOutputFormat(String fmt, int dftFmt)
     {
@@ -216,6 +219,9 @@ public class EventUtil
         } else
         if (fmt.equalsIgnoreCase("aemp")) {
             return FORMAT_AEMP;
+        } else
+        if (fmt.equalsIgnoreCase("route")) {
+            return FORMAT_ROUTE;
         } else {
             return dftFmt;
         }
@@ -311,10 +317,199 @@ public class EventUtil
         }
     }
 
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // Event iteration (saved Device range events, or streamed from the DB)
+
+    /**
+    *** Formatted event output callback
+    **/
+    public interface EventHandler
+    {
+        public void handleEvent(EventData ev, int index, boolean isLast) throws IOException;
+    }
+
+    /**
+    *** Specifies a range of events to be streamed from the DB for each Device, in
+    *** place of the Device saved range events (see "Device.getSavedRangeEvents").
+    *** The 'limit' is applied per Device with the same semantics as the Events servlet
+    *** range selection: if a start time is specified, the first 'limit' events following
+    *** the start time are returned, otherwise the last 'limit' events prior to the end
+    *** time are returned.
+    **/
+    public static class StreamRange
+    {
+        private long    startTime = -1L;
+        private long    endTime   = -1L;
+        private long    limit     = 0L;
+        private boolean validGPS  = false;
+        private int     chunkSize = EventData.DFT_STREAM_CHUNK_SIZE;
+        private Set<String> selFields = null;
+        public StreamRange(long startTime, long endTime, long limit, boolean validGPS, int chunkSize) {
+            this.startTime = startTime;
+            this.endTime   = endTime;
+            this.limit     = limit;
+            this.validGPS  = validGPS;
+            this.chunkSize = (chunkSize > 0)? chunkSize : EventData.DFT_STREAM_CHUNK_SIZE;
+        }
+        public StreamRange(StreamRange other, Set<String> selFields) {
+            this(other.startTime, other.endTime, other.limit, other.validGPS, other.chunkSize);
+            this.selFields = selFields;
+        }
+        public Set<String> getSelectedFields() {
+            return this.selFields; // null for all fields
+        }
+        public long getStartTime() {
+            return this.startTime;
+        }
+        public long getEndTime() {
+            return this.endTime;
+        }
+        public long getLimit() {
+            return this.limit;
+        }
+        public boolean getValidGPS() {
+            return this.validGPS;
+        }
+        public int getChunkSize() {
+            return this.chunkSize;
+        }
+        public boolean hasEvents() {
+            // a limit of '0' returns Device information only
+            return (this.limit > 0L);
+        }
+        public EventData.LimitType getLimitType() {
+            return (this.startTime <= 0L)? EventData.LimitType.LAST : EventData.LimitType.FIRST;
+        }
+        public long streamEvents(Device dev, DBRecordHandler<EventData> rcdHandler)
+            throws DBException {
+            if ((dev == null) || !this.hasEvents()) {
+                return 0L;
+            }
+            DBReplica.beginReplicaReads(); // map data may be read from a replica
+            try {
+                return dev.streamRangeEvents(
+                    this.startTime, this.endTime,
+                    this.validGPS,
+                    this.getLimitType(), this.limit,
+                    this.chunkSize,
+                    this.selFields,
+                    rcdHandler);
+            } finally {
+                DBReplica.endReplicaReads();
+            }
+        }
+    }
+
+    /**
+    *** Returns true if the specified Device has an event list to write (which may be empty)
+    *** @param dev    The Device
+    *** @param range  The streamed event range, or null to use the Device saved range events
+    *** @return True if the Device has an event list
+    **/
+    private static boolean hasEventList(Device dev, StreamRange range)
+    {
+        if (dev == null) {
+            return false;
+        } else
+        if (range != null) {
+            return range.hasEvents();
+        } else {
+            return (dev.getSavedRangeEvents() != null);
+        }
+    }
+
+    /**
+    *** Sends each event of the specified Device which belongs to the specified Account
+    *** to the specified EventHandler.  If a StreamRange is specified, events are streamed
+    *** from the DB in chunks, and the output PrintWriter is flushed after each chunk (the
+    *** stream is stopped if the output PrintWriter indicates an error).  One event is held
+    *** back to determine the 'isLast' state.
+    *** @param pwout    The output PrintWriter (may be null)
+    *** @param account  The Account
+    *** @param dev      The Device
+    *** @param range    The streamed event range, or null to use the Device saved range events
+    *** @param evh      The EventHandler
+    *** @return The number of events sent to the EventHandler
+    **/
+    protected static long forEachEvent(final PrintWriter pwout,
+        final Account account, Device dev, StreamRange range,
+        final EventHandler evh)
+        throws IOException
+    {
+        final String accountID = account.getAccountID();
+
+        /* saved range events */
+        if (range == null) {
+            EventData evList[] = dev.getSavedRangeEvents();
+            if (ListTools.isEmpty(evList)) {
+                return 0L;
+            }
+            long cnt = 0L;
+            int lastNdx = evList.length - 1;
+            for (int e = 0; e <= lastNdx; e++) {
+                EventData ev = evList[e];
+                if (!ev.getAccountID().equals(accountID)) {
+                    // mismatched AccountID
+                    continue;
+                }
+                ev.setAccount(account); // likely redundant
+                evh.handleEvent(ev, e, (e == lastNdx));
+                cnt++;
+            }
+            return cnt;
+        }
+
+        /* stream events */
+        final int flushCount = range.getChunkSize();
+        final EventData pending[] = new EventData[] { null };
+        final AccumulatorLong index = new AccumulatorLong(0L);
+        try {
+            range.streamEvents(dev, new DBRecordHandler<EventData>() {
+                public int handleDBRecord(EventData ev) throws DBException {
+                    if (!ev.getAccountID().equals(accountID)) {
+                        // mismatched AccountID
+                        return DBRH_SKIP;
+                    }
+                    ev.setAccount(account);
+                    try {
+                        if (pending[0] != null) {
+                            evh.handleEvent(pending[0], (int)index.get(), false);
+                            index.increment();
+                            if ((index.get() % flushCount) == 0L) {
+                                if ((pwout != null) && pwout.checkError()) {
+                                    // output closed (client disconnected?)
+                                    Print.logWarn("Event output stream closed, stopping event stream");
+                                    pending[0] = null;
+                                    return DBRH_STOP;
+                                }
+                            }
+                        }
+                    } catch (IOException ioe) {
+                        throw new DBException("Event output", ioe);
+                    }
+                    pending[0] = ev;
+                    return DBRH_SKIP;
+                }
+            });
+        } catch (DBException dbe) {
+            if (dbe.getCause() instanceof IOException) {
+                throw (IOException)dbe.getCause();
+            }
+            throw new IOException("Event stream error: " + dbe.getMessage(), dbe);
+        }
+        if (pending[0] != null) {
+            evh.handleEvent(pending[0], (int)index.get(), true);
+            index.increment();
+        }
+        return index.get();
+
+    }
+
     // ------------------------------------------------------------------------
 
     /*
-    private boolean writeEvents_CSV_short(PrintWriter pwout, 
+    private boolean writeEvents_CSV_short(PrintWriter pwout,
         Account account, Collection<Device> devList,
         BasicPrivateLabel privLabel)
         throws IOException
@@ -331,7 +526,7 @@ public class EventUtil
     */
 
     private boolean writeEvents_CSV(PrintWriter pwout, 
-        Account account, Collection<Device> devList, 
+        Account account, Collection<Device> devList, StreamRange range,
         boolean allTags, TimeZone dispTmz, 
         char csvSep, boolean inclHeader, BasicPrivateLabel privLabel)
         throws IOException
@@ -388,16 +583,17 @@ public class EventUtil
 
         /* write events */
         return this.writeEvents_CSV_fields(pwout, 
-            account, devList, evFields, 
+            account, devList, range, evFields, 
             dispTmz, 
             csvSep, inclHeader, privLabel);
 
     }
 
-    private boolean writeEvents_CSV_fields(PrintWriter pwout, 
-        Account account, Collection<Device> devList, String evFields[], 
+    private boolean writeEvents_CSV_fields(final PrintWriter pwout, 
+        Account account, Collection<Device> devList, StreamRange range, 
+        final String evFields[], 
         TimeZone dispTmz, 
-        char csvSep, boolean inclHeader, BasicPrivateLabel privLabel)
+        final char csvSep, boolean inclHeader, BasicPrivateLabel privLabel)
         throws IOException
     {
         // Note: If all of the specified EventData records do not belong to the 
@@ -417,17 +613,16 @@ public class EventUtil
         }
 
         /* date/time format */
-        String dateFmt = account.getDateFormat();
-        String timeFmt = account.getTimeFormat();
+        final String dateFmt = account.getDateFormat();
+        final String timeFmt = account.getTimeFormat();
 
         /* account timezone */
         TimeZone acctTmz = account.getTimeZone(null);
-        if (dispTmz == null) {
-            dispTmz = acctTmz;
-        }
+        final TimeZone dispTZ = (dispTmz != null)? dispTmz : acctTmz;
 
         /* print events */
         if (!ListTools.isEmpty(devList)) {
+            final StringBuffer rcd = new StringBuffer(); // reused per event
             for (Device dev : devList) {
 
                 /* check account ID */
@@ -436,29 +631,15 @@ public class EventUtil
                     continue;
                 }
 
-                /* Device events */
-                EventData evList[] = dev.getSavedRangeEvents();
-                if (ListTools.isEmpty(evList)) {
-                    // no events for this device
-                    continue;
-                }
-
                 /* write events */
-                for (EventData ev : evList) {
-
-                    /* same account? */
-                    if (!ev.getAccountID().equals(accountID)) {
-                        // mismatched AccountID
-                        continue;
+                EventUtil.forEachEvent(pwout, account, dev, range, new EventHandler() {
+                    public void handleEvent(EventData ev, int index, boolean isLast) throws IOException {
+                        rcd.setLength(0);
+                        EventUtil.this.formatEventData_CSV(rcd, ev, evFields, 
+                            dispTZ, dateFmt, timeFmt, csvSep).append("\n");
+                        EventUtil.this.write(pwout, rcd.toString());
                     }
-                    ev.setAccount(account); // likely redundant
-
-                    /* write event */
-                    String rcd = this.formatEventData_CSV(ev, evFields, 
-                        dispTmz, dateFmt, timeFmt, csvSep) + "\n";
-                    this.write(pwout, rcd);
-
-                }
+                });
 
             }
         }
@@ -541,13 +722,23 @@ public class EventUtil
         TimeZone dispTmz, String dateFmt, String timeFmt, char csvSep)
     {
         StringBuffer sb = new StringBuffer();
+        this.formatEventData_CSV(sb, evdata, fields, 
+            dispTmz, dateFmt, timeFmt, csvSep);
+        return sb.toString();
+    }
+
+    private StringBuffer formatEventData_CSV(StringBuffer sb, 
+        EventData evdata, String fields[], 
+        TimeZone dispTmz, String dateFmt, String timeFmt, char csvSep)
+    {
+        int sbStart = sb.length();
         if ((evdata != null) && (fields != null)) {
             Account account = evdata.getAccount();
             Device  device  = evdata.getDevice();
             BasicPrivateLabel privLabel = account.getPrivateLabel();
             for (int i = 0; i < fields.length; i++) {
                 //if (i > 0) { sb.append(csvSep); }
-                if (sb.length() > 0) { sb.append(csvSep); }
+                if (sb.length() > sbStart) { sb.append(csvSep); }
 
                 // -- Pseudo fields here (if any)
                 if (fields[i].startsWith(DBRecord.PSEUDO_FIELD_CHAR)) {
@@ -686,7 +877,7 @@ public class EventUtil
 
             }
         }
-        return sb.toString();
+        return sb;
     }
 
     // ------------------------------------------------------------------------
@@ -899,20 +1090,19 @@ public class EventUtil
 
         /* fld[ 3] Date */
         /* fld[ 4] Time */
-        DateTime dt = null;
+        long timeMS = time * 1000L;
         if (dateFmt != null) {
-            dt = new DateTime(time,tmz);
             String dtfmt = dateFmt + csvSep + timeFmt;
-            sb.append(dt.format(dtfmt));
+            DateTime.formatTo(sb, timeMS, dtfmt, tmz, null);
         } else {
             sb.append(csvSep);
         }
         sb.append(csvSep);
 
         /* fld[ 5] TimeZone (short name) */
-        if (dt != null) {
+        if (dateFmt != null) {
             //sb.append(dt.getTimeZoneShortName());
-            sb.append(dt.format("zzz",tmz)); // PDT
+            DateTime.formatTo(sb, timeMS, "zzz", tmz, null); // PDT
         }
         sb.append(csvSep);
 
@@ -1859,7 +2049,12 @@ public class EventUtil
         char csvSep)
         throws IOException
     {
-        JSON._Object JMapData = this.getJMapData_JSON(
+        // -- stream directly to the output (no intermediate JSON tree or String)
+        StringWriter strOut = (pwout != null)? null : new StringWriter();
+        JSON.JSONWriter jw = new JSON.JSONWriter(((pwout != null)? (Writer)pwout : (Writer)strOut), false);
+        jw.beginObject();
+        jw.key(JSON_JMapData);
+        this.writeJMapData_JSON(jw,
             privLabel,
             edp, includeShapes,
             iconSelector, iconKeys,
@@ -1870,17 +2065,16 @@ public class EventUtil
             minProximityM,
             null/*actions*/,
             csvSep);
-        JSON._Object jsonObj = new JSON._Object();
-        jsonObj.addKeyValue(JSON_JMapData, JMapData);
-        String jsonStr = jsonObj.toString(false);
-        //Print.logInfo("Return JMapData request:\n"+jsonStr);
-        //response.setContentType(HTMLTools.MIME_JSON()); // HTMLTools.MIME_PLAIN());
-        this.write(pwout, jsonStr);
+        jw.endObject();
+        if (strOut != null) {
+            //response.setContentType(HTMLTools.MIME_JSON()); // HTMLTools.MIME_PLAIN());
+            this.write(pwout, strOut.toString());
+        }
         this.flush(pwout);
         return true;
     }
 
-    /* write encoded map event data to the specified PrintWriter */
+    /* return encoded map event data as a JSON object (see "writeJMapData_JSON") */
     public JSON._Object getJMapData_JSON(
         BasicPrivateLabel privLabel,
         EventDataProvider edp[],  boolean includeShapes,
@@ -1892,6 +2086,43 @@ public class EventUtil
         double minProximityM,
         Collection<String> actions,
         char csvSep)
+    {
+        try {
+            StringWriter strOut = new StringWriter();
+            this.writeJMapData_JSON(new JSON.JSONWriter(strOut, false),
+                privLabel,
+                edp, includeShapes,
+                iconSelector, iconKeys,
+                isFleet, fleetRoute, selID,
+                tmz,
+                acct, user,
+                latestTime, lastBattery, lastSignal,
+                minProximityM,
+                actions,
+                csvSep);
+            return JSON.parse_Object(strOut.toString());
+        } catch (IOException ioe) {
+            Print.logException("Unable to create JMapData", ioe);
+            return null;
+        } catch (JSON.JSONParsingException jpe) {
+            Print.logException("Unable to create JMapData", jpe);
+            return null;
+        }
+    }
+
+    /* write encoded map event data to the specified JSONWriter */
+    public void writeJMapData_JSON(JSON.JSONWriter jw,
+        BasicPrivateLabel privLabel,
+        EventDataProvider edp[],  boolean includeShapes,
+        String iconSelector, OrderedSet<String>iconKeys, 
+        boolean isFleet, boolean fleetRoute, String selID,
+        TimeZone tmz, 
+        Account acct, User user,
+        DateTime latestTime, double lastBattery, double lastSignal,
+        double minProximityM,
+        Collection<String> actions,
+        char csvSep)
+        throws IOException
     {
         // {
         //   "JMapData" : {
@@ -1971,10 +2202,10 @@ public class EventUtil
         //tmzStr = (tmz != null)? tmz.getDisplayName(true,TimeZone.SHORT) : null;
 
         /* MapData JSON object */
-        JSON._Object jMapDataObj = new JSON._Object();
+        jw.beginObject();
         
         /* isFleet */
-        jMapDataObj.addKeyValue(ATTR_isFleet, isFleet);
+        jw.keyValue(ATTR_isFleet, isFleet);
 
         /* today time */
         // "Time": {
@@ -1987,17 +2218,17 @@ public class EventUtil
         {
             DateTime today = new DateTime(tmz);
             String   todayTmzFmt = (tmzStr != null)? tmzStr : today.format("zzz",tmz);
-            JSON._Object timeObj = new JSON._Object();
-            timeObj.addKeyValue(ATTR_timestamp, today.getTimeSec());
-            timeObj.addKeyValue(ATTR_timezone , todayTmzFmt);
-            JSON._Object ymdObj = new JSON._Object();
-            ymdObj.addKeyValue(JSON_year , today.getYear(tmz));
-            ymdObj.addKeyValue(JSON_month, today.getMonth1(tmz));
-            ymdObj.addKeyValue(JSON_day  , today.getDayOfMonth(tmz));
-            timeObj.addKeyValue(JSON_YMD , ymdObj);
-            timeObj.addKeyValue(JSON_date, today.format(dateFmt,tmz));
-            timeObj.addKeyValue(JSON_time, today.format(timeFmt,tmz));
-            jMapDataObj.addKeyValue(JSON_Time,timeObj);
+            jw.key(JSON_Time).beginObject();
+            jw.keyValue(ATTR_timestamp, today.getTimeSec());
+            jw.keyValue(ATTR_timezone , todayTmzFmt);
+            jw.key(JSON_YMD).beginObject();
+            jw.keyValue(JSON_year , today.getYear(tmz));
+            jw.keyValue(JSON_month, today.getMonth1(tmz));
+            jw.keyValue(JSON_day  , today.getDayOfMonth(tmz));
+            jw.endObject();
+            jw.keyValue(JSON_date, today.format(dateFmt,tmz));
+            jw.keyValue(JSON_time, today.format(timeFmt,tmz));
+            jw.endObject();
         }
 
         /* latest event? */
@@ -2013,21 +2244,21 @@ public class EventUtil
         // },
         if (!isFleet && (latestTime != null)) {
             String lastTmzFmt = (tmzStr != null)? tmzStr : latestTime.format("zzz",tmz);
-            JSON._Object lastEventObj = new JSON._Object();
-            lastEventObj.addKeyValue(ATTR_account  , accountID);
-            lastEventObj.addKeyValue(ATTR_device   , selID);
-            lastEventObj.addKeyValue(ATTR_timestamp, latestTime.getTimeSec());
-            lastEventObj.addKeyValue(ATTR_timezone , lastTmzFmt);
-            JSON._Object ymdObj = new JSON._Object();
-            ymdObj.addKeyValue(JSON_year , latestTime.getYear(tmz));
-            ymdObj.addKeyValue(JSON_month, latestTime.getMonth1(tmz));
-            ymdObj.addKeyValue(JSON_day  , latestTime.getDayOfMonth(tmz));
-            lastEventObj.addKeyValue(JSON_YMD     , ymdObj);
-            lastEventObj.addKeyValue(JSON_date    , latestTime.format(dateFmt,tmz));
-            lastEventObj.addKeyValue(JSON_time    , latestTime.format(timeFmt,tmz));
-            lastEventObj.addKeyValue(ATTR_battery , lastBattery);
-            lastEventObj.addKeyValue(ATTR_signal  , lastSignal);
-            jMapDataObj.addKeyValue(JSON_LastEvent,lastEventObj);
+            jw.key(JSON_LastEvent).beginObject();
+            jw.keyValue(ATTR_account  , accountID);
+            jw.keyValue(ATTR_device   , selID);
+            jw.keyValue(ATTR_timestamp, latestTime.getTimeSec());
+            jw.keyValue(ATTR_timezone , lastTmzFmt);
+            jw.key(JSON_YMD).beginObject();
+            jw.keyValue(JSON_year , latestTime.getYear(tmz));
+            jw.keyValue(JSON_month, latestTime.getMonth1(tmz));
+            jw.keyValue(JSON_day  , latestTime.getDayOfMonth(tmz));
+            jw.endObject();
+            jw.keyValue(JSON_date    , latestTime.format(dateFmt,tmz));
+            jw.keyValue(JSON_time    , latestTime.format(timeFmt,tmz));
+            jw.keyValue(ATTR_battery , lastBattery);
+            jw.keyValue(ATTR_signal  , lastSignal);
+            jw.endObject();
         }
 
         /* JSON: map shapes (EXPERIMENTAL) [MapShape] */
@@ -2209,18 +2440,18 @@ public class EventUtil
 
             /* add shapes */
             if (!shapeArray.isEmpty()) {
-                jMapDataObj.addKeyValue(JSON_Shapes, shapeArray);
+                jw.key(JSON_Shapes).value(shapeArray);
             }
 
         }
 
         /* column headers */
         // "DataColumns": "Desc|Epoch|Date|Time|Tmz|Stat|Icon|Lat|Lon|#Sats|kph|Heading|Alt|Addr",
-        jMapDataObj.addKeyValue(JSON_DataColumns,"Desc|Epoch|Date|Time|Tmz|Stat|Icon|Lat|Lon|#Sats|kph|Heading|Alt|Addr");
+        jw.keyValue(JSON_DataColumns,"Desc|Epoch|Date|Time|Tmz|Stat|Icon|Lat|Lon|#Sats|kph|Heading|Alt|Addr");
 
         /* DataSets */
         {
-            JSON._Array dataSetArray = new JSON._Array();
+            jw.key(JSON_DataSets).beginArray();
             // {
             //    "type": "poi",
             //    "route": "false",
@@ -2229,8 +2460,8 @@ public class EventUtil
             //      ...
             //    ],
             // },
-            this._getMapPoi_json(
-                dataSetArray,
+            this._writeMapPoi_json(
+                jw,
                 privLabel,
                 this._getPOI(((acct != null)? acct.getAccountID() : null), privLabel), 
                 iconKeys, 
@@ -2247,8 +2478,8 @@ public class EventUtil
             //    ],
             // }
             // <DataSet type="device" id="deviceid" route="true">
-            boolean rtn = this._addDataSet_json(
-                dataSetArray,
+            this._writeDataSet_json(
+                jw,
                 privLabel,
                 edp, 
                 iconSelector, iconKeys, 
@@ -2256,8 +2487,7 @@ public class EventUtil
                 tmz, dateFmt, timeFmt, 
                 csvSep,
                 minProximityM);
-            // add key value
-            jMapDataObj.addKeyValue(JSON_DataSets,dataSetArray);
+            jw.endArray();
         }
 
         /* Actions */
@@ -2286,22 +2516,23 @@ public class EventUtil
                 }
             }
             if (!actionArray.isEmpty()) {
-                jMapDataObj.addKeyValue(JSON_Actions, actionArray);
+                jw.key(JSON_Actions).value(actionArray);
             }
         }
 
-        /* return JSON Object */
-        return jMapDataObj;
+        /* end JSON Object */
+        jw.endObject();
 
     }
 
-    /* write encoded map points-of-interest to the specified PrintWriter */
-    private boolean _getMapPoi_json(
-        JSON._Array dataSetArray,
+    /* write encoded map points-of-interest to the specified JSONWriter */
+    private boolean _writeMapPoi_json(
+        JSON.JSONWriter jw,
         BasicPrivateLabel privLabel,
         PoiProvider poip[], 
         OrderedSet<String> iconKeys, 
         char csvSep)
+        throws IOException
     {
         // {
         //    "type": "poi",
@@ -2319,12 +2550,10 @@ public class EventUtil
         }
 
         /* header */
-        JSON._Object poiObj = new JSON._Object();
-        poiObj.addKeyValue(JSON_type    , DSTYPE_poi);
-        poiObj.addKeyValue(JSON_route   , false);
-        JSON._Array pointArray = new JSON._Array();
-        poiObj.addKeyValue(JSON_Points  , pointArray);
-        dataSetArray.addValue(poiObj);
+        jw.beginObject();
+        jw.keyValue(JSON_type    , DSTYPE_poi);
+        jw.keyValue(JSON_route   , false);
+        jw.key(JSON_Points).beginArray();
 
         /* points of interest */
         for (int i = 0; i < poip.length; i++) {
@@ -2343,17 +2572,19 @@ public class EventUtil
                 null/*iconSelector*/, iconKeys, 
                 false/*isFleet*/, 1/*stoppedState*/,
                 null/*TimeZone*/, null/*dateFmt*/, null/*timeFmt*/, csvSep);
-            pointArray.addValue(rcd);
+            jw.value(rcd);
         }
 
-        /* add to DataSet */
+        /* end DataSet */
+        jw.endArray();
+        jw.endObject();
         return true;
 
     }
 
-    /* add map event dataset to the specified JSON array */
-    private boolean _addDataSet_json(
-        JSON._Array dataSetArray,
+    /* write map event datasets to the specified JSONWriter (within the "DataSets" array) */
+    private boolean _writeDataSet_json(
+        JSON.JSONWriter jw,
         BasicPrivateLabel privLabel,
         EventDataProvider edp[], 
         String iconSelector, OrderedSet<String> iconKeys, 
@@ -2362,6 +2593,7 @@ public class EventUtil
         String dateFmt, String timeFmt, 
         char csvSep,
         double minProximityM)
+        throws IOException
     {
         // {
         //    "type": "device",
@@ -2386,7 +2618,6 @@ public class EventUtil
             true;
 
         /* print events (JSON) */
-        JSON._Array pointArray = null;
         boolean  isDeviceData  = !isFleet;
         boolean  didStartSet   = false;
         GeoPoint lastGP        = null;
@@ -2406,6 +2637,8 @@ public class EventUtil
                 if (isFleet /*&& fleetRoute*/) {
                     if (didStartSet) {
                         // close previous dataset
+                        jw.endArray();
+                        jw.endObject();
                         didStartSet = false;
                     }
                     isDeviceData = true;
@@ -2529,15 +2762,13 @@ public class EventUtil
             /* start "DataSet" (if not already started) */
             if (!didStartSet) {
                 String type = isDeviceData? DSTYPE_device : DSTYPE_group; // "poi"
-                JSON._Object dataSetObj = new JSON._Object();
-                dataSetObj.addKeyValue(JSON_type      , type);
-                dataSetObj.addKeyValue(JSON_id        , selID);
-                dataSetObj.addKeyValue(JSON_route     , isDeviceData);
-                dataSetObj.addKeyValue(JSON_routeColor, routeColor);
-                dataSetObj.addKeyValue(JSON_textColor , textColor);
-                pointArray = new JSON._Array();
-                dataSetObj.addKeyValue(JSON_Points    , pointArray);
-                dataSetArray.addValue(dataSetObj);
+                jw.beginObject();
+                jw.keyValue(JSON_type      , type);
+                jw.keyValue(JSON_id        , selID);
+                jw.keyValue(JSON_route     , isDeviceData);
+                jw.keyValue(JSON_routeColor, routeColor);
+                jw.keyValue(JSON_textColor , textColor);
+                jw.key(JSON_Points).beginArray();
                 didStartSet = true;
             }
 
@@ -2568,12 +2799,14 @@ public class EventUtil
                 iconSelector, iconKeys, 
                 showFleetIcon, stoppedState,
                 tmz, dateFmt, timeFmt, csvSep);
-            pointArray.addValue(rcd);
+            jw.value(rcd); // written directly, no intermediate JSON tree
 
         } // looping through events
 
         /* Dataset footer */
         if (didStartSet) {
+            jw.endArray();
+            jw.endObject();
             didStartSet = false;
         }
 
@@ -2933,10 +3166,10 @@ public class EventUtil
         }
     }
 
-    private boolean writeEvents_XML(PrintWriter pwout, 
-        Account account, Collection<Device> devList, 
-        boolean allTags, TimeZone dispTmz,
-        BasicPrivateLabel privLabel, boolean oldFormat)
+    private boolean writeEvents_XML(final PrintWriter pwout, 
+        Account account, Collection<Device> devList, StreamRange range,
+        final boolean allTags, TimeZone dispTmz,
+        final BasicPrivateLabel privLabel, final boolean oldFormat)
         throws IOException
     {
         // This does assume that all events belong to the same "Account"
@@ -2959,7 +3192,7 @@ public class EventUtil
 
         /* list device event data */
         if (!ListTools.isEmpty(devList)) {
-            for (Device dev : devList) {
+            for (final Device dev : devList) {
                 String deviceID = dev.getDeviceID();
 
                 /* check account ID */
@@ -2969,8 +3202,14 @@ public class EventUtil
                 }
 
                 /* device events */
-                EventData evList[] = dev.getSavedRangeEvents();
-                if (ListTools.isEmpty(evList)) {
+                if (range == null) {
+                    EventData evList[] = dev.getSavedRangeEvents();
+                    if (ListTools.isEmpty(evList)) {
+                        // no events for this device
+                        continue;
+                    }
+                } else
+                if (!range.hasEvents()) {
                     // no events for this device
                     continue;
                 }
@@ -2991,23 +3230,14 @@ public class EventUtil
                 }
 
                 /* Device events */
-                for (int i = 0; i < evList.length; i++) {
-                    EventData ev = evList[i];
-    
-                    /* same account? */
-                    if (!ev.getAccountID().equals(accountID)) {
-                        // mismatched AccountID
-                        continue;
+                EventUtil.forEachEvent(pwout, account, dev, range, new EventHandler() {
+                    public void handleEvent(EventData ev, int index, boolean isLast) throws IOException {
+                        EventUtil.this.writeEvents_XML_Event(pwout, 
+                            dev, ev,
+                            2, allTags,
+                            privLabel, oldFormat);
                     }
-                    ev.setAccount(account); // redundant
-    
-                    /* write Event */
-                    this.writeEvents_XML_Event(pwout, 
-                        dev, ev,
-                        2, allTags,
-                        privLabel, oldFormat);
-    
-                }
+                });
 
                 /* Device end tag */
                 if (!oldFormat) {
@@ -3054,19 +3284,19 @@ public class EventUtil
     //    </trk>
     // </gpx>
 
-    private boolean writeEvents_GPX(PrintWriter pwout, 
-        Account account, Collection<Device> devList, 
+    private boolean writeEvents_GPX(final PrintWriter pwout, 
+        Account account, Collection<Device> devList, StreamRange range,
         BasicPrivateLabel privLabel)
         throws IOException
     {
-        String dateFmt = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+        final String dateFmt = "yyyy-MM-dd'T'HH:mm:ss'Z'";
 
         /* account required */
         if (account == null) {
             return false;
         }
         String accountID = account.getAccountID();
-        TimeZone tz = DateTime.getGMTTimeZone();
+        final TimeZone tz = DateTime.getGMTTimeZone();
 
         /* header */
         this.write(pwout, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
@@ -3094,15 +3324,14 @@ public class EventUtil
                 this.write(pwout, "  <trkseg>\n");
 
                 /* events */
-                EventData evList[] = dev.getSavedRangeEvents();
-                if (!ListTools.isEmpty(evList)) {
-                    for (EventData ev : evList) {
-                        this.write(pwout, "    <trkpt lat=\"" + ev.getLatitude() + "\" lon=\"" + ev.getLongitude() + "\">\n");
-                        this.write(pwout, "      <time>" + (new DateTime(ev.getTimestamp(),tz)).format(dateFmt) + "</time>\n");
-                        this.write(pwout, "      <ele>"+ev.getAltitude()+"</ele>\n"); // meters
-                        this.write(pwout, "    </trkpt>\n");
+                EventUtil.forEachEvent(pwout, account, dev, range, new EventHandler() {
+                    public void handleEvent(EventData ev, int index, boolean isLast) throws IOException {
+                        EventUtil.this.write(pwout, "    <trkpt lat=\"" + ev.getLatitude() + "\" lon=\"" + ev.getLongitude() + "\">\n");
+                        EventUtil.this.write(pwout, "      <time>" + (new DateTime(ev.getTimestamp(),tz)).format(dateFmt) + "</time>\n");
+                        EventUtil.this.write(pwout, "      <ele>"+ev.getAltitude()+"</ele>\n"); // meters
+                        EventUtil.this.write(pwout, "    </trkpt>\n");
                     }
-                }
+                });
         
                 /* Device end tag */
                 this.write(pwout, "  </trkseg>\n");
@@ -3177,6 +3406,23 @@ public class EventUtil
     // }
 
     private static String JSON_INDENT = "   ";
+
+    private static final String JSON_PREFIX[] = new String[8];
+    static {
+        for (int i = 0; i < JSON_PREFIX.length; i++) {
+            JSON_PREFIX[i] = StringTools.replicateString(JSON_INDENT,i);
+        }
+    }
+
+    /* return cached JSON indent prefix (avoids allocating the prefix for each event) */
+    private static String JSON_PREFIX(int indent)
+    {
+        if ((indent >= 0) && (indent < JSON_PREFIX.length)) {
+            return JSON_PREFIX[indent];
+        } else {
+            return StringTools.replicateString(JSON_INDENT,indent);
+        }
+    }
     
     public boolean writeEvents_JSON(PrintWriter pwout, 
         Account account, Collection<Device> devList, 
@@ -3184,6 +3430,18 @@ public class EventUtil
         BasicPrivateLabel privLabel)
         throws IOException
     {
+        return this.writeEvents_JSON(pwout, 
+            account, devList, null/*range*/,
+            allTags, dispTmz,
+            privLabel);
+    }
+
+    public boolean writeEvents_JSON(final PrintWriter pwout, 
+        Account account, Collection<Device> devList, StreamRange range,
+        final boolean allTags, TimeZone dispTmz,
+        final BasicPrivateLabel privLabel)
+        throws IOException
+    {
 
         /* account required */
         if (account == null) {
@@ -3225,26 +3483,14 @@ public class EventUtil
                 this.writeKeyValue_JSON(pwout,PFX3,"Device", deviceID, false);
 
                 /* event data */
-                EventData evList[] = dev.getSavedRangeEvents();
-                if (evList != null) {
+                if (EventUtil.hasEventList(dev,range)) {
                     this.writeKeyValue_JSON(pwout,PFX3,"Device_desc", deviceDesc, false);
                     this.writeKeyValue_JSON(pwout,PFX3,"EventData", "[", true);
-                    int lastEventNdx = evList.length - 1;
-                    for (int e = 0; e <= lastEventNdx; e++) {
-                        EventData ev = evList[e];
-                        boolean isLastEvent = (e == lastEventNdx);
-        
-                        /* same account? */
-                        if (!ev.getAccountID().equals(accountID)) {
-                            // mismatched AccountID
-                            continue;
+                    EventUtil.forEachEvent(pwout, account, dev, range, new EventHandler() {
+                        public void handleEvent(EventData ev, int index, boolean isLast) throws IOException {
+                            EventUtil.this.writeEvents_JSON_Event(pwout, index, ev, isLast, 4, allTags, privLabel);
                         }
-                        ev.setAccount(account); // redundant
-    
-                        /* event */
-                        this.writeEvents_JSON_Event(pwout, e, ev, isLastEvent, 4, allTags, privLabel);
-    
-                    }
+                    });
                     this.writeKeyValue_JSON(pwout,PFX3,"]", null, true);
                 } else {
                     this.writeKeyValue_JSON(pwout,PFX3,"Device_desc", deviceDesc, true);
@@ -3273,8 +3519,8 @@ public class EventUtil
         Account account = ev.getAccount();
         Device  device  = ev.getDevice();
         Locale  locale  = privLabel.getLocale(); // should be "reqState.getLocale();"
-        String  PFX1    = StringTools.replicateString(JSON_INDENT,indent);
-        String  PFX2    = StringTools.replicateString(JSON_INDENT,indent + 1);
+        String  PFX1    = JSON_PREFIX(indent);
+        String  PFX2    = JSON_PREFIX(indent + 1);
 
         /* Event tag start */
         this.writeKeyValue_JSON(pwout,PFX1,"{",null,true);
@@ -3506,28 +3752,35 @@ public class EventUtil
     private void _writeKeyValue_JSON(PrintWriter pwout, String pfx, String key, String value, boolean isLast)
         throws IOException
     {
+        // (written in pieces to avoid per-property String concatenation)
+        this.write(pwout, pfx);
         if ("{".equals(key)) {
             // start of object (ignore value, isLast)
-            this.write(pwout, pfx + "{\n");
+            this.write(pwout, "{\n");
         } else
         if ("}".equals(key)) {
             // end of object (ignore value)
             if (isLast) {
-                this.write(pwout, pfx + "}\n");
+                this.write(pwout, "}\n");
             } else {
-                this.write(pwout, pfx + "},\n");
+                this.write(pwout, "},\n");
             }
         } else
         if ("[".equals(value)) {
             // start of array (ignore value, isLast)
-            this.write(pwout, pfx + "\"" + key + "\": [\n");
+            this.write(pwout, "\"");
+            this.write(pwout, key);
+            this.write(pwout, "\": [\n");
         } else
         if ("]".equals(key)) {
             // end of array (ignore value, isLast)
-            this.write(pwout, pfx + "]\n");
+            this.write(pwout, "]\n");
         } else {
             // property definition
-            this.write(pwout, pfx + "\"" + key + "\": " + value);
+            this.write(pwout, "\"");
+            this.write(pwout, key);
+            this.write(pwout, "\": ");
+            this.write(pwout, value);
             if (isLast) {
                 this.write(pwout, "\n");
             } else {
@@ -3538,8 +3791,8 @@ public class EventUtil
 
     // ------------------------------------------------------------------------
 
-    private boolean writeEvents_BML(PrintWriter pwout, 
-        Account account, Collection<Device> devList, 
+    private boolean writeEvents_BML(final PrintWriter pwout, 
+        Account account, Collection<Device> devList, StreamRange range,
         BasicPrivateLabel privLabel)
         throws IOException
     {
@@ -3565,26 +3818,15 @@ public class EventUtil
                 }
 
                 /* events */
-                EventData evList[] = dev.getSavedRangeEvents();
-                if (!ListTools.isEmpty(evList)) {
-                    for (EventData ev : evList) {
-        
-                        /* same account? */
-                        if (!ev.getAccountID().equals(accountID)) {
-                            // mismatched AccountID
-                            continue;
-                        }
-                        ev.setAccount(account); // redundant
-
-                        /* event */
+                EventUtil.forEachEvent(pwout, account, dev, range, new EventHandler() {
+                    public void handleEvent(EventData ev, int index, boolean isLast) throws IOException {
                         pwout.write("<location lon=\""+ev.getLongitude()+"\" lat=\""+ev.getLatitude()+"\"");
                         pwout.write(" label=\""+ev.getDeviceID()+"\"");
                         pwout.write(" description=\""+ev.getAddress()+"\"");
                         // other options available as well
                         pwout.write("/>\n");
-                        
                     }
-                }
+                });
                 
             }
         }
@@ -3599,6 +3841,125 @@ public class EventUtil
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Writes a compact JSON route point
+    **/
+    private static void _writeRoutePoint_JSON(PrintWriter pwout, boolean isFirst,
+        long ts, double lat, double lon, double kph, double heading, int sc, double odomKM)
+    {
+        pwout.write(isFirst? "    [" : ",\n    [");
+        pwout.write(String.valueOf(ts));
+        pwout.write(",");
+        pwout.write(StringTools.format(lat,GeoPoint.DECIMAL_FORMAT_5));
+        pwout.write(",");
+        pwout.write(StringTools.format(lon,GeoPoint.DECIMAL_FORMAT_5));
+        pwout.write(",");
+        pwout.write(StringTools.format(kph,"0.0"));
+        pwout.write(",");
+        pwout.write(StringTools.format(heading,"0"));
+        pwout.write(",");
+        pwout.write(String.valueOf(sc));
+        pwout.write(",");
+        pwout.write(StringTools.format(odomKM,"0.0"));
+        pwout.write("]");
+    }
+
+    /* EventData fields read for route points (DB projection) */
+    private static final Set<String> ROUTE_FIELDS = ListTools.toSet(new String[] {
+        EventData.FLD_latitude,
+        EventData.FLD_longitude,
+        EventData.FLD_speedKPH,
+        EventData.FLD_heading,
+        EventData.FLD_odometerKM,
+    }, new HashSet<String>());
+
+    /**
+    *** Writes the device routes in a compact JSON format:<br>
+    *** { "Account":"acct", "Route":[ { "Device":"dev", "Points":[ [time,lat,lon,kph,heading,code,odomKM], ...] } ] }<br>
+    *** When streaming a range, the points are taken from the in-memory EventHistory if it
+    *** covers the requested range, otherwise they are read from the DB.
+    **/
+    private boolean writeEvents_ROUTE(final PrintWriter pwout, 
+        Account account, Collection<Device> devList, StreamRange range,
+        BasicPrivateLabel privLabel)
+        throws IOException
+    {
+
+        /* account required */
+        if (account == null) {
+            return false;
+        }
+        String accountID = account.getAccountID();
+
+        /* header */
+        pwout.write("{\n");
+        pwout.write("  \"Account\": \"" + StringTools.escapeJSON(accountID) + "\",\n");
+        pwout.write("  \"Route\": [\n");
+
+        /* devices */
+        if (!ListTools.isEmpty(devList)) {
+            boolean firstDev = true;
+            for (Device dev : devList) {
+
+                /* check account ID */
+                if (!dev.getAccountID().equals(accountID)) {
+                    // mismatched AccountID
+                    continue;
+                }
+                pwout.write(firstDev? "  {\n" : ",\n  {\n");
+                pwout.write("   \"Device\": \"" + StringTools.escapeJSON(dev.getDeviceID()) + "\",\n");
+                pwout.write("   \"Points\": [\n");
+                firstDev = false;
+
+                /* in-memory history */
+                EventHistory.Track track = null;
+                if ((range != null) && range.hasEvents() && EventHistory.IsEnabled()) {
+                    try {
+                        track = EventHistory.getInstance().getTrack(dev,
+                            range.getStartTime(), range.getEndTime(),
+                            range.getValidGPS(), range.getLimitType(), range.getLimit());
+                    } catch (DBException dbe) {
+                        Print.logException("Reading event history", dbe);
+                        track = null;
+                    }
+                }
+
+                /* points */
+                if (track != null) {
+                    for (int i = 0; i < track.size(); i++) {
+                        EventUtil._writeRoutePoint_JSON(pwout, (i == 0),
+                            track.getTimestamp(i), track.getLatitude(i), track.getLongitude(i),
+                            track.getSpeedKPH(i), track.getHeading(i), 
+                            track.getStatusCode(i), track.getOdometerKM(i));
+                    }
+                } else {
+                    StreamRange routeRange = (range != null)? new StreamRange(range, ROUTE_FIELDS) : null;
+                    EventUtil.forEachEvent(pwout, account, dev, routeRange, new EventHandler() {
+                        public void handleEvent(EventData ev, int index, boolean isLast) throws IOException {
+                            EventUtil._writeRoutePoint_JSON(pwout, (index == 0),
+                                ev.getTimestamp(), ev.getLatitude(), ev.getLongitude(),
+                                ev.getSpeedKPH(), ev.getHeading(),
+                                ev.getStatusCode(), ev.getOdometerKM());
+                        }
+                    });
+                }
+                pwout.write("\n   ]\n");
+                pwout.write("  }");
+
+            }
+        }
+
+        /* footer */
+        pwout.write("\n  ]\n");
+        pwout.write("}\n");
+
+        /* return success */
+        return true;
+
+    }
+
+    // ------------------------------------------------------------------------
+
     // not fully supported
     private boolean writeEvents_AEMP(PrintWriter pwout, 
         Account account, Collection<Device> devList, 
@@ -3647,38 +4008,67 @@ public class EventUtil
         int formatEnum, boolean allTags, TimeZone dispTmz, 
         BasicPrivateLabel privLabel)
         throws IOException
+    {
+        return this.writeEvents(pwout, 
+            account, devList, null/*range*/,
+            formatEnum, allTags, dispTmz,
+            privLabel);
+    }
+
+    /**
+    *** Writes the events for the specified Devices in the specified format.
+    *** @param pwout      The output PrintWriter
+    *** @param account    The Account
+    *** @param devList    The list of Devices
+    *** @param range      The range of events to stream from the DB for each Device, or
+    ***                   null to write the Device saved range events
+    *** @param formatEnum The output format
+    *** @param allTags    True to include all tags (XML/JSON/CSV)
+    *** @param dispTmz    The display TimeZone (null for the Account TimeZone)
+    *** @param privLabel  The BasicPrivateLabel
+    *** @return True if successful
+    **/
+    public boolean writeEvents(PrintWriter pwout, 
+        Account account, Collection<Device> devList, StreamRange range,
+        int formatEnum, boolean allTags, TimeZone dispTmz, 
+        BasicPrivateLabel privLabel)
+        throws IOException
     {
         if (devList != null) {
             switch (formatEnum) {
                 case FORMAT_TXT:
                 case FORMAT_CSV:
                     return this.writeEvents_CSV(pwout, 
-                        account, devList, 
+                        account, devList, range,
                         allTags, dispTmz, 
                         ',', true/*inclHeader*/, privLabel);
                 case FORMAT_KML:
                     return GoogleKML.getInstance().writeEvents(pwout, 
-                        account, devList, 
+                        account, devList, range,
                         privLabel);
                 case FORMAT_XML:
                 case FORMAT_XMLOLD:
                     return this.writeEvents_XML(pwout, 
-                        account, devList, 
+                        account, devList, range,
                         allTags, dispTmz,
                         privLabel, (formatEnum == FORMAT_XMLOLD));
                 case FORMAT_GPX:
                     return this.writeEvents_GPX(pwout, 
-                        account, devList, 
+                        account, devList, range,
                         privLabel);
                 case FORMAT_JSON:
                 case FORMAT_JSONX:
                     return this.writeEvents_JSON(pwout, 
-                        account, devList, 
+                        account, devList, range,
                         allTags, dispTmz,
                         privLabel);
                 case FORMAT_BML:
                     return this.writeEvents_BML(pwout, 
-                        account, devList, 
+                        account, devList, range,
+                        privLabel);
+                case FORMAT_ROUTE:
+                    return this.writeEvents_ROUTE(pwout, 
+                        account, devList, range,
                         privLabel);
                 case FORMAT_AEMP:
                     return this.writeEvents_AEMP(pwout, 
@@ -259,6 +259,11 @@ public class GoogleKML
         super();
     }
 
+    // ------------------------------------------------------------------------
+
+    /* maximum number of route points written per route Placemark */
+    private static final int ROUTE_SEGMENT_SIZE = 1000;
+
     // ------------------------------------------------------------------------
     
     private String _createStyle(final String name, final GooglePP icon)
@@ -488,6 +493,26 @@ public class GoogleKML
         Account account, Collection<Device> devList, 
         BasicPrivateLabel privLabel)
         throws IOException
+    {
+        return this.writeEvents(out, 
+            account, devList, null/*range*/,
+            privLabel);
+    }
+
+    /**
+    *** Write events in KML format to specified PrintWriter
+    *** @param out  The output PrintWriter
+    *** @param account The Account
+    *** @param devList The Device list
+    *** @param range   The range of events to stream from the DB for each Device, or
+    ***                null to write the Device saved range events
+    *** @param privLabel The PrivateLabel instance
+    *** @return True if successful
+    **/
+    public boolean writeEvents(final PrintWriter out, 
+        Account account, Collection<Device> devList, EventUtil.StreamRange range,
+        final BasicPrivateLabel privLabel)
+        throws IOException
     {
         // This does assume that all events belong to the same "Account"
 
@@ -499,7 +524,7 @@ public class GoogleKML
         TimeZone tz = account.getTimeZone(null);
 
         /* Localization */
-        I18N i18n = (privLabel != null)? privLabel.getI18N(GoogleKML.class) : I18N.getI18N(GoogleKML.class,null);
+        final I18N i18n = (privLabel != null)? privLabel.getI18N(GoogleKML.class) : I18N.getI18N(GoogleKML.class,null);
 
         /* header */
         out.write(XML_Header);
@@ -517,18 +542,20 @@ public class GoogleKML
         out.write(_createStyle(STYLE_SLOW_LAST    , getGooglePushpin("yellow.last")));
 
         /* last icon */
-        boolean useLastPP = false;
+        final boolean useLastPP;
         String lastPP = (privLabel != null)? privLabel.getStringProperty(PROP_GoogleKML_lastPushpinID,null) : null;
         if (!StringTools.isBlank(lastPP) && GooglePushpinMap.containsKey(lastPP)) {
             out.write(_createStyle(STYLE_LAST, getGooglePushpin(lastPP)));
             useLastPP = true;
+        } else {
+            useLastPP = false;
         }
 
         /* placemarks */
         if (!ListTools.isEmpty(devList)) {
-            java.util.List<String> routeList = new Vector<String>();
+            final java.util.List<String> routeList = new Vector<String>();
             for (Device dev : devList) {
-                String deviceID = dev.getDeviceID();
+                final String deviceID = dev.getDeviceID();
                 routeList.clear();
     
                 /* check account ID */
@@ -538,25 +565,22 @@ public class GoogleKML
                 }
     
                 /* write event placemarks */
-                EventData evList[] = dev.getSavedRangeEvents();
-                if (!ListTools.isEmpty(evList)) {
-                    for (int e = 0; e < evList.length; e++) {
-                        EventData ev = evList[e];
-                        boolean isLast = (e == (evList.length - 1));
-        
-                        /* same account? */
-                        if (!ev.getAccountID().equals(accountID)) {
-                            // mismatched AccountID
-                            continue;
-                        }
-                        ev.setAccount(account); // redundant
-        
+                EventUtil.forEachEvent(out, account, dev, range, new EventUtil.EventHandler() {
+                    public void handleEvent(EventData ev, int index, boolean isLast) throws IOException {
+
                         /* write marker */
-                        String pc = this._writePlacemark(out, i18n, privLabel, ev, isLast, useLastPP, 4);
+                        String pc = GoogleKML.this._writePlacemark(out, i18n, privLabel, ev, isLast, useLastPP, 4);
                         routeList.add(pc);
-        
+
+                        /* write route segment (bounds the route coordinate list size) */
+                        if (routeList.size() >= ROUTE_SEGMENT_SIZE) {
+                            GoogleKML.this._writeRoute(out, i18n, privLabel, deviceID, routeList, 4);
+                            routeList.clear();
+                            routeList.add(pc); // next segment starts at this point
+                        }
+
                     }
-                }
+                });
     
                 /* draw device route */
                 if (routeList.size() > 1) {
@@ -349,11 +349,11 @@ public class Diagnostic
         /* get Properties */
         Diagnostic d[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             //d = (Diagnostic[])DBRecord.select(Diagnostic.getFactory(), dsel.toString(false));
             d = DBRecord.select(dsel); // select:DBSelect
         } finally {
-            DBProvider.unlockTables();
+            DBProvider.unlockReadTables();
         }
 
         /* no properties */
@@ -421,11 +421,11 @@ public class PendingPacket
         /* get PendingPackets */
         PendingPacket pp[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             //pp = (PendingPacket[])DBRecord.select(PendingPacket.getFactory(), dsel.toString(false));
             pp = DBRecord.select(dsel); // select:DBSelect
         } finally {
-            DBProvider.unlockTables();
+            DBProvider.unlockReadTables();
         }
 
         /* no packets? */
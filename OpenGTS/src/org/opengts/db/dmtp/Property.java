@@ -350,11 +350,11 @@ public class Property
         /* get Properties */
         Property p[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             //p = (Property[])DBRecord.select(Property.getFactory(), dsel.toString(false));
             p = DBRecord.select(dsel); // select:DBSelect
         } finally {
-            DBProvider.unlockTables();
+            DBProvider.unlockReadTables();
         }
 
         /* no properties */
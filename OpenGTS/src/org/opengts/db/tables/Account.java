@@ -3390,6 +3390,20 @@ public class Account
         return Account.getAllAccounts(null);
     }
 
+    /* return a page of Account IDs following the specified Account ID (keyset pagination) */
+    public static Collection<String> getAllAccounts(String afterAcctID, long limit)
+        throws DBException
+    {
+        // DBSelect: SELECT accountID FROM Account WHERE (accountID>'after') ORDER BY accountID LIMIT n
+        DBSelect<Account> dsel = new DBSelect<Account>(Account.getFactory());
+        dsel.setSelectedFields(Account.FLD_accountID);
+        dsel.setSeekAfter(
+            new String[] { Account.FLD_accountID },
+            !StringTools.isBlank(afterAcctID)? new Object[] { afterAcctID } : null);
+        dsel.setLimit(limit);
+        return Account.getAllAccounts(dsel);
+    }
+
     /* return list of all Account IDs which have a non-blank dataPushURL (NOT SCALABLE) */
     public static Collection<String> getDataPushAccountIDs()
         throws DBException
@@ -3548,6 +3562,94 @@ public class Account
 
     }
 
+    /* return a page of authorized Account IDs following the specified Account ID (keyset pagination) */
+    public static Collection<String> getAuthorizedAccounts(Account account, String afterAcctID, long limit)
+        throws DBException
+    {
+
+        /* invalid/inactive account */
+        if (account == null) {
+            return new Vector<String>();
+        }
+
+        /* SysAdmin Account? */
+        if (account.isSystemAdmin()) {
+            // all accounts
+            return Account.getAllAccounts(afterAcctID, limit);
+        }
+
+        /* inactive account? */
+        if (!account.getIsActive()) {
+            // not active, not even authorized to self
+            return new Vector<String>();
+        }
+
+        /* manager account? */
+        if (account.isAccountManager()) {
+            String managerID = account.getManagerID();
+            if (!StringTools.isBlank(managerID)) {
+                // DBSelect: SELECT accountID FROM Account WHERE (managerID='mgr') AND (accountID>'after') ORDER BY accountID LIMIT n
+                DBSelect<Account> dsel = new DBSelect<Account>(Account.getFactory());
+                dsel.setSelectedFields(Account.FLD_accountID, Account.FLD_managerID);
+                DBWhere dwh = dsel.createDBWhere();
+                dsel.setWhere(dwh.WHERE(dwh.EQ(Account.FLD_managerID, managerID)));
+                dsel.setSeekAfter(
+                    new String[] { Account.FLD_accountID },
+                    !StringTools.isBlank(afterAcctID)? new Object[] { afterAcctID } : null);
+                dsel.setLimit(limit);
+                return Account.getAllAccounts(dsel);
+            }
+        }
+
+        /* only authorized to self */
+        Collection<String> acctList = new Vector<String>();
+        String acctID = account.getAccountID();
+        if (StringTools.isBlank(afterAcctID) || (acctID.compareTo(afterAcctID) > 0)) {
+            acctList.add(acctID);
+        }
+        return acctList;
+
+    }
+
+    /* return true if the specified Account is authorized to access the specified Account ID */
+    public static boolean isAuthorizedAccount(Account account, String acctID)
+        throws DBException
+    {
+
+        /* invalid account */
+        if ((account == null) || StringTools.isBlank(acctID)) {
+            return false;
+        }
+
+        /* SysAdmin Account? */
+        if (account.isSystemAdmin()) {
+            return Account.exists(acctID);
+        }
+
+        /* inactive account? */
+        if (!account.getIsActive()) {
+            return false;
+        }
+
+        /* self */
+        if (acctID.equals(account.getAccountID())) {
+            return true;
+        }
+
+        /* manager account? */
+        if (account.isAccountManager()) {
+            String managerID = account.getManagerID();
+            if (!StringTools.isBlank(managerID)) {
+                Account acct = Account.getAccount(acctID);
+                return (acct != null) && managerID.equals(acct.getManagerID());
+            }
+        }
+
+        /* not authorized */
+        return false;
+
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -5017,6 +5119,17 @@ public class Account
                         Print.sysPrintln("ERROR: Missing '-"+ARG_CONFIRM_DEL[0]+"', aborting delete ...");
                         System.exit(1);
                     }
+                    if (acctID.equalsIgnoreCase("all")) {
+                        // -- all Accounts: first drop whole EventData partitions (if partitioned)
+                        int dropCount = EventData.dropOldPartitions(oldTimeSec, true);
+                        if (dropCount >= 0) {
+                            Print.sysPrintln("Dropped " + dropCount + " EventData partitions");
+                            DBPartition partition = EventData.getFactory().getPartition();
+                            if (partition != null) {
+                                partition.addFuturePartitions(EventData.getFactory().getUntranslatedTableName());
+                            }
+                        }
+                    }
                     for (String A : acctList) {
                         if (!StringTools.isBlank(A)) {
                             Account account = Account.getAccount(A);
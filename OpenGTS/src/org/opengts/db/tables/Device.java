@@ -8828,19 +8828,39 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
     private static DateTime loadTestingTime         = null;
     private static long     loadTestingCount        = 0L;
 
+    private static final Metrics.Histogram METRIC_EXT_UPDATE        = Metrics.getHistogram("event_insert_seconds", "stage", "ext_update");
+    private static final Metrics.Counter   METRIC_EVENTS_INSERTED   = Metrics.getCounter("events_inserted_total");
+    private static final Metrics.Counter   METRIC_EVENTS_NOSTATUS   = Metrics.getCounter("events_nostatus_total");
+
     /**
     *** Gets the number of events between the specified timestamps (inclusive)<br>
-    *** Note: will return -1 if EventData table is InnoDB
+    *** Note: will return -1 if EventData table is InnoDB (and EventCount counters are
+    *** not available for this Device)
     *** @param timeStart  The starting timestamp
     *** @param timeEnd    The ending timestamp
     *** @return The number of events between the specified timestamps (inclusive)
     **/
     public long getEventCount(long timeStart, long timeEnd)
         throws DBException
+    {
+        return this.getEventCount(timeStart, timeEnd, false);
+    }
+
+    /**
+    *** Gets the number of events between the specified timestamps (inclusive)
+    *** @param timeStart  The starting timestamp
+    *** @param timeEnd    The ending timestamp
+    *** @param exact      True to always count the EventData records ("COUNT(*)"), 
+    ***                   false to use the EventCount counters if available
+    *** @return The number of events between the specified timestamps (inclusive)
+    **/
+    public long getEventCount(long timeStart, long timeEnd, boolean exact)
+        throws DBException
     {
         long count = EventData.getRecordCount(  // -1 for InnoDB?
             this.getAccountID(), this.getDeviceID(),
-            timeStart, timeEnd);
+            timeStart, timeEnd,
+            exact);
         return count;
     }
 
@@ -8926,7 +8946,16 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
         }
 
         /* insert event */
-        if (!this._insertEventData(evdb)) {
+        EventTrace trace = EventTrace.start(this.getAccountID(), this.getDeviceID()); // may be null
+        boolean inserted = false;
+        try {
+            inserted = this._insertEventData(evdb, trace);
+        } finally {
+            if (trace != null) {
+                trace.insertComplete(inserted); // completed after Device update
+            }
+        }
+        if (!inserted) {
             // event was ignored
             Print.logWarn("Event not inserted ...");
             return false;
@@ -8969,6 +8998,17 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
     *** @return True if successful, false otherwise
     **/
     protected boolean _insertEventData(final EventData evdb)
+    {
+        return this._insertEventData(evdb, null);
+    }
+
+    /**
+    *** Insert event into EventData table
+    *** @param evdb   The EventData record to insert
+    *** @param trace  The ingestion stage trace (may be null)
+    *** @return True if successful, false otherwise
+    **/
+    protected boolean _insertEventData(final EventData evdb, EventTrace trace)
     {
         // Notes:
         // 1) This incoming EventData record is populated, but hasn't been saved
@@ -8976,6 +9016,7 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
         Account account = this.getAccount();
         String  acctID  = this.getAccountID();
         String  devID   = this.getDeviceID();
+        boolean metrics = Metrics.isEnabled();
 
         /* invalid EventData? */
         if (evdb == null) {
@@ -8983,6 +9024,9 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
             return false;
         }
         int statusCode = evdb.getStatusCode();
+        if (trace != null) {
+            trace.setEvent(statusCode, evdb.getTimestamp());
+        }
 
         /* set device */
         evdb.setDevice(this);
@@ -9095,6 +9139,7 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
         /* no status code? */
         if (statusCode == StatusCodes.STATUS_NONE) {
             // '0' status codes are quietly consumed/ignored.
+            if (metrics) { METRIC_EVENTS_NOSTATUS.increment(); }
             if (ENABLE_LOAD_TESTING) {
                 // This section is for load testing.
                 if (loadTestingTime == null) {
@@ -9122,6 +9167,9 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
 
         /* extended EventData record update */
         int extUpdate = EXT_UPDATE_NONE;
+        if (trace != null) {
+            trace.mark(EventTrace.STAGE_VALIDATE);
+        }
 
         /* update GPS location based on Geozone */
         if (UpdateEventWithGeozoneLocation() && !evdb.isValidGeoPoint() && evdb.hasGeozoneID()) {
@@ -9162,6 +9210,10 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
             }
         }
 
+        if (trace != null) {
+            trace.mark(EventTrace.STAGE_CELLTOWER);
+        }
+
         /* set geozone/reverse-geocode address */
         try {
             Set<String> updFields = evdb.updateAddress(true/*fastOnly*/);
@@ -9188,6 +9240,9 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
         } catch (Throwable th) {
             Print.logException("Address update error", th);
         }
+        if (trace != null) {
+            trace.mark(EventTrace.STAGE_GEOCODE);
+        }
 
         /* stateline border-crossing check */
         //if (this.getBorderCrossing() == Device.BorderCrossingState.ON.getIntValue()) {
@@ -9474,10 +9529,20 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
 
         // ---------------------------------------------------------------------
 
+        if (trace != null) {
+            trace.mark(EventTrace.STAGE_STATE);
+        }
+
         /* save EventData record */
         try {
             evdb.save(); // insert();
             // may be re-saved below after deferred reverse-geocode
+            if (trace != null) {
+                trace.mark(EventTrace.STAGE_INSERT);
+            }
+            if (metrics) {
+                METRIC_EVENTS_INSERTED.increment();
+            }
         } catch (DBException dbe) {
             // save failed
             Print.logError("EventData save failed: " + dbe);
@@ -9490,12 +9555,35 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
             final int extUpd = extUpdate;
             Runnable job = new Runnable() {
                 public void run() {
+                    long startNS = System.nanoTime();
                     Device.this._postEventInsertionProcessing(evdb, extUpd);
+                    METRIC_EXT_UPDATE.recordSince(startNS);
                 }
             };
             ThreadPool_DeviceEventUpdate.run(job);
             Print.logDebug("Address update queued for background operation");
         }
+        if (trace != null) {
+            trace.mark(EventTrace.STAGE_QUEUE);
+        }
+
+        /* in-memory event history (only if this device history is active) */
+        if (EventHistory.IsEnabled()) {
+            EventHistory.getInstance().appendEvent(evdb);
+        }
+
+        /* trip/stop segments */
+        // out-of-order events are skipped here (see "MotionSegment -rebuild")
+        if (!isOldEvent && ((nextStartTime > 0L) || (nextStopTime > 0L)) && MotionSegment.IsMotionSegmentEnabled()) {
+            try {
+                MotionSegment.updateMotionSegment(this, evdb, (nextStartTime > 0L), (nextStopTime > 0L));
+            } catch (DBException dbe) {
+                Print.logError("MotionSegment update failed: " + dbe);
+            }
+        }
+        if (trace != null) {
+            trace.mark(EventTrace.STAGE_SEGMENTS);
+        }
 
         // ---------------------------------------------------------------------
         // Device record should not have been changed before this point
@@ -9507,6 +9595,9 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
             //   FLD_lastNotifyTime
             //   FLD_lastNotifyCode
         }
+        if (trace != null) {
+            trace.mark(EventTrace.STAGE_RULES);
+        }
 
         // ---------------------------------------------------------------------
         // Device record can now be updated
@@ -9719,6 +9810,9 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
 
         // TODO: GPIO? "lastInputState"  (must currently be set by DCS)
         // TODO: GPIO? "lastOutputState" (must currently be set by DCS)
+        if (trace != null) {
+            trace.mark(EventTrace.STAGE_FIELDS);
+        }
 
         /* return success */
         return true;
@@ -10154,7 +10248,9 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
     public void updateChangedEventFields()
         throws DBException
     {
+        long startNS = System.nanoTime();
         this.update(_createChangedFieldsSet((String[])null));
+        EventTrace.deviceUpdated(this.getAccountID(), this.getDeviceID(), startNS);
     }
 
     /**
@@ -10164,7 +10260,9 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
     public void updateChangedEventFields(Set<String> flds)
         throws DBException
     {
+        long startNS = System.nanoTime();
         this.update(_createChangedFieldsSet(flds));
+        EventTrace.deviceUpdated(this.getAccountID(), this.getDeviceID(), startNS);
     }
 
     /**
@@ -10174,7 +10272,9 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
     public void updateChangedEventFields(String... flds)
         throws DBException
     {
+        long startNS = System.nanoTime();
         this.update(_createChangedFieldsSet(flds));
+        EventTrace.deviceUpdated(this.getAccountID(), this.getDeviceID(), startNS);
     }
 
     // ------------------------------------------------------------------------
@@ -10755,6 +10855,76 @@ SET NEW.uniqueID=concat('gprmc_',md5(concat(NEW.accountID,NEW.deviceID)))
             limitType, limit);
     }
 
+    /**
+    *** Streams the events for the specified range and attributes to the specified
+    *** record handler, in ascending timestamp order (see "EventData.streamRangeEvents")
+    *** @param timeStart  The event start time
+    *** @param timeEnd    The event end time
+    *** @param validGPS    True to read only events with valid GPS locations
+    *** @param limitType   The limit type (FIRST, LAST)
+    *** @param limit       The maximum number of events to stream
+    *** @param chunkSize   The number of events read per DB select
+    *** @param rcdHandler  The record handler
+    *** @return The number of events sent to the record handler
+    *** @throws DBException
+    **/
+    public long streamRangeEvents(
+        long timeStart, long timeEnd,
+        boolean validGPS,
+        EventData.LimitType limitType, long limit,
+        int chunkSize,
+        final DBRecordHandler<EventData> rcdHandler)
+        throws DBException
+    {
+        return this.streamRangeEvents(
+            timeStart, timeEnd,
+            validGPS,
+            limitType, limit,
+            chunkSize,
+            null/*selFields*/,
+            rcdHandler);
+    }
+
+    /**
+    *** Streams the events for the specified range and attributes to the specified
+    *** record handler, in ascending timestamp order (see "EventData.streamRangeEvents")
+    *** @param timeStart  The event start time
+    *** @param timeEnd    The event end time
+    *** @param validGPS    True to read only events with valid GPS locations
+    *** @param limitType   The limit type (FIRST, LAST)
+    *** @param limit       The maximum number of events to stream
+    *** @param chunkSize   The number of events read per DB select
+    *** @param selFields   The EventData fields to read, or null to read all fields
+    *** @param rcdHandler  The record handler
+    *** @return The number of events sent to the record handler
+    *** @throws DBException
+    **/
+    public long streamRangeEvents(
+        long timeStart, long timeEnd,
+        boolean validGPS,
+        EventData.LimitType limitType, long limit,
+        int chunkSize,
+        Set<String> selFields,
+        final DBRecordHandler<EventData> rcdHandler)
+        throws DBException
+    {
+        final Device thisDev = this;
+        return EventData.streamRangeEvents(
+            this.getAccountID(), this.getDeviceID(),
+            timeStart, timeEnd,
+            null/*statusCodes*/,
+            validGPS,
+            limitType, limit,
+            chunkSize,
+            selFields,
+            new DBRecordHandler<EventData>() {
+                public int handleDBRecord(EventData rcd) throws DBException {
+                    rcd.setDevice(thisDev);
+                    return rcdHandler.handleDBRecord(rcd);
+                }
+            });
+    }
+
     /**
     *** Gets an array of EventData records
     *** @param limit       The maximum number of events to return
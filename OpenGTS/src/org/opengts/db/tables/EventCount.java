@@ -0,0 +1,1002 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Per-device, per-hour EventData record counters.  Counters are incremented as
+//  events are inserted (buffered in memory, and flushed periodically), and are
+//  adjusted as events are deleted.  Range counts are answered from the counters
+//  for whole hours, and with an exact count for the partial hours at either end
+//  of the range.  Counters for a Device are used only after they have been
+//  initialized with the "-rebuild" option.  Buffered increments which were lost
+//  (ie. in a crash) are recovered by reconciling the recent hours against the
+//  EventData table when a Device first reports after startup, or with the
+//  "-reconcile" option.
+// ----------------------------------------------------------------------------
+package org.opengts.db.tables;
+
+import java.lang.*;
+import java.util.*;
+import java.math.*;
+import java.io.*;
+import java.sql.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.*;
+
+public class EventCount
+    extends DeviceRecord<EventCount>
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final long   HOUR_SECONDS        = DateTime.HourSeconds(1);
+
+    /* marker record 'hourTime', indicates that the Device counters are maintained */
+    private static final long   MARKER_HOUR         = 0L;
+
+    private static final Metrics.Counter METRIC_COUNTERS  = Metrics.getCounter("event_count_queries_total", "source", "counters");
+    private static final Metrics.Counter METRIC_EXACT     = Metrics.getCounter("event_count_queries_total", "source", "exact");
+
+    /**
+    *** Returns true if EventCount records should be maintained as events are inserted/deleted
+    **/
+    public static boolean IsEventCountEnabled()
+    {
+        if (!RTConfig.getBoolean(DBConfig.PROP_EventCount_enabled)) {
+            return false;
+        }
+        if (EventCount.tableExists == null) {
+            try {
+                EventCount.tableExists = new Boolean(EventCount.getFactory().tableExists());
+            } catch (DBException dbe) {
+                Print.logException("Unable to determine if EventCount table exists", dbe);
+                EventCount.tableExists = Boolean.FALSE;
+            }
+            if (!EventCount.tableExists.booleanValue()) {
+                Print.logWarn("EventCount table does not exist (event counters disabled)");
+            }
+        }
+        return EventCount.tableExists.booleanValue();
+    }
+    private static Boolean tableExists = null;
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // SQL table definition below
+
+    /* table name */
+    private static final String _TABLE_NAME             = "EventCount";
+    public static String TABLE_NAME() { return DBProvider._translateTableName(_TABLE_NAME); }
+
+    /* field definition */
+    public static final String FLD_hourTime             = "hourTime";
+    public static final String FLD_eventCount           = "eventCount";
+    private static DBField FieldInfo[] = {
+        // EventCount fields
+        newField_accountID(true),
+        newField_deviceID(true),
+        new DBField(FLD_hourTime        , Long.TYPE     , DBField.TYPE_UINT32      , "Hour Start Time"      , "key=true"),
+        new DBField(FLD_eventCount      , Long.TYPE     , DBField.TYPE_UINT32      , "Event Count"          , ""),
+    };
+
+    /* key class */
+    public static class Key
+        extends DeviceKey<EventCount>
+    {
+        public Key() {
+            super();
+        }
+        public Key(String acctId, String devId, long hourTime) {
+            super.setFieldValue(FLD_accountID, ((acctId != null)? acctId.toLowerCase() : ""));
+            super.setFieldValue(FLD_deviceID , ((devId  != null)? devId.toLowerCase()  : ""));
+            super.setFieldValue(FLD_hourTime , hourTime);
+        }
+        public DBFactory<EventCount> getFactory() {
+            return EventCount.getFactory();
+        }
+    }
+
+    /* factory constructor */
+    private static DBFactory<EventCount> factory = null;
+    public static DBFactory<EventCount> getFactory()
+    {
+        if (factory == null) {
+            factory = DBFactory.createDBFactory(
+                EventCount.TABLE_NAME(),
+                EventCount.FieldInfo,
+                DBFactory.KeyType.PRIMARY,
+                EventCount.class,
+                EventCount.Key.class,
+                false/*editable*/,false/*viewable*/);
+            factory.addParentTable(Account.TABLE_NAME());
+            factory.addParentTable(Device.TABLE_NAME());
+        }
+        return factory;
+    }
+
+    /* Bean instance */
+    public EventCount()
+    {
+        super();
+    }
+
+    /* database record */
+    public EventCount(EventCount.Key key)
+    {
+        super(key);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* table description */
+    public static String getTableDescription(Locale loc)
+    {
+        I18N i18n = I18N.getI18N(EventCount.class, loc);
+        return i18n.getString("EventCount.description",
+            "This table contains " +
+            "per-Device hourly EventData record counts."
+            );
+    }
+
+    // SQL table definition above
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // Bean access fields below
+
+    public long getHourTime()
+    {
+        Long v = (Long)this.getFieldValue(FLD_hourTime);
+        return (v != null)? v.longValue() : 0L;
+    }
+
+    public long getEventCount()
+    {
+        Long v = (Long)this.getFieldValue(FLD_eventCount);
+        return (v != null)? v.longValue() : 0L;
+    }
+
+    public void setEventCount(long v)
+    {
+        this.setFieldValue(FLD_eventCount, v);
+    }
+
+    // Bean access fields above
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /* start of the hour containing the specified time */
+    private static long _hourFloor(long timeSec)
+    {
+        return (timeSec / HOUR_SECONDS) * HOUR_SECONDS;
+    }
+
+    /* Account/Device key */
+    private static String _deviceKey(String acctID, String devID)
+    {
+        return acctID.toLowerCase() + "/" + devID.toLowerCase();
+    }
+
+    /* Account/Device/Hour WHERE clause */
+    private static String _getWhere(DBWhere dwh, String acctID, String devID, long hourStart, long hourEnd)
+    {
+        // WHERE ((accountID='acct') AND (deviceID='dev') AND (hourTime>=S) AND (hourTime<E))
+        StringBuffer sb = new StringBuffer();
+        sb.append(dwh.AND(
+            dwh.EQ(FLD_accountID,acctID),
+            dwh.EQ(FLD_deviceID ,devID)
+        ));
+        if (hourStart >= 0L) {
+            sb.append(dwh.AND_(dwh.GE(FLD_hourTime,hourStart)));
+        }
+        if (hourEnd >= 0L) {
+            sb.append(dwh.AND_(dwh.LT(FLD_hourTime,hourEnd)));
+        }
+        return dwh.WHERE(sb.toString());
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // pending (unflushed) increments
+
+    /* "account/device" ==> (hourTime ==> count) */
+    private static final Map<String,Map<Long,AtomicLong>> pendingCounts = new ConcurrentHashMap<String,Map<Long,AtomicLong>>();
+    private static Thread flushThread = null;
+
+    /* "account/device" first reporting since startup, to be reconciled by the flush thread */
+    private static final Set<String> reconcileDevices = Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+
+    /**
+    *** Records the insertion of an EventData record
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @param timestamp  The event timestamp
+    **/
+    public static void eventInserted(String acctID, String devID, long timestamp)
+    {
+        if (StringTools.isBlank(acctID) || StringTools.isBlank(devID) || (timestamp < HOUR_SECONDS)) {
+            return;
+        }
+        try {
+            if (!EventCount.isInitialized(acctID, devID)) {
+                return; // counters are created by 'rebuildEventCounts'
+            }
+        } catch (DBException dbe) {
+            Print.logError("EventCount lookup failed: " + dbe);
+            return;
+        }
+        long hour = EventCount._hourFloor(timestamp);
+        long flushMS = RTConfig.getLong(DBConfig.PROP_EventCount_flushIntervalMS,5000L);
+        if (flushMS <= 0L) {
+            // -- unbuffered
+            try {
+                EventCount._addCount(acctID, devID, hour, 1L);
+            } catch (DBException dbe) {
+                Print.logError("EventCount update failed: " + dbe);
+            }
+            return;
+        }
+        String devKey = EventCount._deviceKey(acctID, devID);
+        Map<Long,AtomicLong> devMap = pendingCounts.get(devKey);
+        if (devMap == null) {
+            synchronized (pendingCounts) {
+                devMap = pendingCounts.get(devKey);
+                if (devMap == null) {
+                    devMap = new ConcurrentHashMap<Long,AtomicLong>();
+                    pendingCounts.put(devKey, devMap);
+                    reconcileDevices.add(devKey); // first report since startup
+                }
+            }
+        }
+        AtomicLong cnt = devMap.get(hour);
+        if (cnt == null) {
+            synchronized (devMap) {
+                cnt = devMap.get(hour);
+                if (cnt == null) {
+                    cnt = new AtomicLong(0L);
+                    devMap.put(hour, cnt);
+                }
+            }
+        }
+        cnt.incrementAndGet();
+        EventCount._startFlushThread(flushMS);
+    }
+
+    /* start the background flush thread */
+    private static void _startFlushThread(final long flushMS)
+    {
+        if (flushThread != null) {
+            return;
+        }
+        synchronized (pendingCounts) {
+            if (flushThread == null) {
+                flushThread = new Thread("EventCountFlush") {
+                    public void run() {
+                        for (;;) {
+                            try { Thread.sleep(flushMS); } catch (InterruptedException ie) { /*ignore*/ }
+                            EventCount.flush();
+                            EventCount._reconcileReportingDevices();
+                        }
+                    }
+                };
+                flushThread.setDaemon(true);
+                flushThread.start();
+                Runtime.getRuntime().addShutdownHook(new Thread("EventCountShutdown") {
+                    public void run() {
+                        EventCount.flush();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+    *** Writes all pending counter increments to the EventCount table
+    **/
+    public static synchronized void flush()
+    {
+        for (String devKey : pendingCounts.keySet()) {
+            Map<Long,AtomicLong> devMap = pendingCounts.get(devKey);
+            if (devMap == null) {
+                continue;
+            }
+            int    p      = devKey.indexOf('/');
+            String acctID = devKey.substring(0,p);
+            String devID  = devKey.substring(p+1);
+            for (Long hour : devMap.keySet()) {
+                AtomicLong cnt = devMap.get(hour);
+                long delta = (cnt != null)? cnt.getAndSet(0L) : 0L;
+                if (delta <= 0L) {
+                    devMap.remove(hour); // may race with an increment, which is then flushed next time
+                    if ((cnt != null) && (cnt.get() > 0L)) {
+                        devMap.put(hour, cnt);
+                    }
+                    continue;
+                }
+                try {
+                    EventCount._addCount(acctID, devID, hour.longValue(), delta);
+                } catch (DBException dbe) {
+                    Print.logError("EventCount flush failed: " + dbe);
+                    cnt.addAndGet(delta); // retry next time
+                }
+            }
+        }
+    }
+
+    /* gets the pending increments for the specified Device and hour range [hourStart,hourEnd) */
+    private static long _getPending(String acctID, String devID, long hourStart, long hourEnd)
+    {
+        Map<Long,AtomicLong> devMap = pendingCounts.get(EventCount._deviceKey(acctID, devID));
+        long count = 0L;
+        if (devMap != null) {
+            for (Map.Entry<Long,AtomicLong> e : devMap.entrySet()) {
+                long hour = e.getKey().longValue();
+                if ((hour >= hourStart) && ((hourEnd < 0L) || (hour < hourEnd))) {
+                    count += e.getValue().get();
+                }
+            }
+        }
+        return count;
+    }
+
+    /* clears the pending increments for the specified Device within the hour range [hourStart,hourEnd) */
+    private static void _clearPending(String acctID, String devID, long hourStart, long hourEnd)
+    {
+        Map<Long,AtomicLong> devMap = pendingCounts.get(EventCount._deviceKey(acctID, devID));
+        if (devMap != null) {
+            for (Long hour : devMap.keySet()) {
+                long h = hour.longValue();
+                if ((h >= hourStart) && ((hourEnd < 0L) || (h < hourEnd))) {
+                    devMap.remove(hour);
+                }
+            }
+        }
+    }
+
+    /* reconciles the recent counters of Devices which have reported for the first time since startup */
+    private static void _reconcileReportingDevices()
+    {
+        if (reconcileDevices.isEmpty()) {
+            return;
+        }
+        long hours = RTConfig.getLong(DBConfig.PROP_EventCount_reconcileHours,24L);
+        if (hours <= 0L) {
+            reconcileDevices.clear();
+            return;
+        }
+        long nowSec = DateTime.getCurrentTimeSec();
+        for (String devKey : reconcileDevices) {
+            reconcileDevices.remove(devKey);
+            int    p      = devKey.indexOf('/');
+            String acctID = devKey.substring(0,p);
+            String devID  = devKey.substring(p+1);
+            try {
+                if (EventCount.isInitialized(acctID, devID)) {
+                    int n = EventCount.reconcileEventCounts(acctID, devID, nowSec - DateTime.HourSeconds(hours), -1L);
+                    if (n > 0) {
+                        Print.logInfo("Reconciled EventCount: " + devKey + " [" + n + " hours corrected]");
+                    }
+                }
+            } catch (DBException dbe) {
+                Print.logError("EventCount reconcile failed: " + devKey + " - " + dbe);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Adds the specified count to the specified Device hour counter
+    **/
+    private static void _addCount(String acctID, String devID, long hour, long delta)
+        throws DBException
+    {
+        DBProvider dbp = DBProvider.getProvider();
+        String table = dbp.quoteTableName(EventCount.getFactory().getTranslatedTableName());
+        String cntCol = dbp.quoteColumnName(FLD_eventCount);
+        DBConnection dbc = null;
+        try {
+            dbc = DBConnection.getDefaultConnection();
+            if (dbp.getID() == DBProvider.DB_MYSQL) {
+                // INSERT INTO EventCount (accountID,deviceID,hourTime,eventCount) VALUES ('a','d',H,N) ON DUPLICATE KEY UPDATE eventCount=eventCount+N
+                StringBuffer sql = new StringBuffer();
+                sql.append("INSERT INTO ").append(table).append(" (");
+                sql.append(dbp.quoteColumnName(FLD_accountID)).append(",");
+                sql.append(dbp.quoteColumnName(FLD_deviceID)).append(",");
+                sql.append(dbp.quoteColumnName(FLD_hourTime)).append(",");
+                sql.append(cntCol).append(") VALUES (");
+                sql.append(DBField.quote(acctID.toLowerCase())).append(",");
+                sql.append(DBField.quote(devID.toLowerCase())).append(",");
+                sql.append(hour).append(",").append(delta).append(")");
+                sql.append(" ON DUPLICATE KEY UPDATE ").append(cntCol).append("=").append(cntCol).append("+").append(delta);
+                dbc.executeUpdate(sql.toString());
+            } else {
+                // UPDATE EventCount SET eventCount=eventCount+N WHERE ...
+                DBWhere dwh = new DBWhere(EventCount.getFactory());
+                String sql = "UPDATE " + table + " SET " + cntCol + "=" + cntCol + "+" + delta + " " +
+                    EventCount._getWhere(dwh, acctID, devID, hour, hour + 1L);
+                if (dbc.executeUpdate(sql, false) <= 0L) {
+                    EventCount rcd = new EventCount.Key(acctID, devID, hour).getDBRecord();
+                    rcd.setEventCount(delta);
+                    rcd.insert();
+                }
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Updating EventCount", sqe);
+        } finally {
+            DBConnection.release(dbc);
+        }
+    }
+
+    /**
+    *** Sets the specified Device hour counter to the exact number of events in that hour
+    **/
+    private static void _recountHour(String acctID, String devID, long hour)
+        throws DBException
+    {
+        long count = EventCount.countEventsExact(acctID, devID, hour, hour + HOUR_SECONDS - 1L);
+        EventCount.Key key = new EventCount.Key(acctID, devID, hour);
+        if (count > 0L) {
+            EventCount rcd = key.getDBRecord();
+            rcd.setEventCount(count);
+            rcd.save();
+        } else
+        if (key.exists()) {
+            key.delete(false);
+        }
+    }
+
+    /* deletes the Device counters within the hour range [hourStart,hourEnd) */
+    private static void _deleteCounts(String acctID, String devID, long hourStart, long hourEnd)
+        throws DBException
+    {
+        DBDelete ddel = new DBDelete(EventCount.getFactory());
+        ddel.setWhere(EventCount._getWhere(ddel.createDBWhere(), acctID, devID, hourStart, hourEnd));
+        DBConnection dbc = null;
+        try {
+            dbc = DBConnection.getDefaultConnection();
+            dbc.executeUpdate(ddel.toString());
+        } catch (SQLException sqe) {
+            throw new DBException("Deleting EventCount records", sqe);
+        } finally {
+            DBConnection.release(dbc);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Adjusts the Device counters after the oldest events prior to the specified time have
+    *** been deleted (in timestamp order, see <code>EventData.deleteOldEventsChunk</code>)
+    *** @param acctID      The Account ID
+    *** @param devID       The Device ID
+    *** @param oldTimeSec  The delete time (exclusive)
+    **/
+    public static void eventsDeletedBefore(String acctID, String devID, long oldTimeSec)
+    {
+        try {
+            if (!EventCount.isInitialized(acctID, devID)) {
+                return;
+            }
+            // -- all events prior to the first remaining event have been deleted
+            long firstTime = EventCount._getFirstEventTime(acctID, devID);
+            long delTime   = ((firstTime >= 0L) && (firstTime < oldTimeSec))? firstTime : oldTimeSec;
+            long hour      = EventCount._hourFloor(delTime);
+            synchronized (EventCount.class) { // not while flushing
+                // -- pending increments for the deleted (and recounted) hours must not be flushed afterwards
+                EventCount._clearPending(acctID, devID, 0L, hour + HOUR_SECONDS);
+                EventCount._deleteCounts(acctID, devID, MARKER_HOUR + 1L, hour);
+                EventCount._recountHour(acctID, devID, hour);
+            }
+        } catch (DBException dbe) {
+            Print.logError("EventCount adjustment failed: " + dbe);
+        }
+    }
+
+    /**
+    *** Adjusts the Device counters after the events at or after the specified time have
+    *** been deleted
+    *** @param acctID      The Account ID
+    *** @param devID       The Device ID
+    *** @param delFromTime The delete time (inclusive)
+    **/
+    public static void eventsDeletedAfter(String acctID, String devID, long delFromTime)
+    {
+        try {
+            if (!EventCount.isInitialized(acctID, devID)) {
+                return;
+            }
+            long hour = EventCount._hourFloor(delFromTime);
+            synchronized (EventCount.class) { // not while flushing
+                EventCount._clearPending(acctID, devID, hour, -1L);
+                EventCount._deleteCounts(acctID, devID, hour + 1L, -1L);
+                EventCount._recountHour(acctID, devID, hour);
+            }
+        } catch (DBException dbe) {
+            Print.logError("EventCount adjustment failed: " + dbe);
+        }
+    }
+
+    /**
+    *** Deletes all Device counters prior to the specified time (ie. after EventData partitions
+    *** have been dropped).  The specified time should be on an hour boundary.
+    **/
+    public static void deleteCountsBefore(long timeSec)
+    {
+        DBDelete ddel = new DBDelete(EventCount.getFactory());
+        DBWhere dwh = ddel.createDBWhere();
+        ddel.setWhere(dwh.WHERE_(
+            dwh.AND(
+                dwh.GT(FLD_hourTime,MARKER_HOUR),
+                dwh.LT(FLD_hourTime,EventCount._hourFloor(timeSec))
+            )
+        ));
+        DBConnection dbc = null;
+        try {
+            dbc = DBConnection.getDefaultConnection();
+            dbc.executeUpdate(ddel.toString());
+        } catch (Throwable th) { // SQLException, DBException
+            Print.logError("EventCount delete failed: " + th);
+        } finally {
+            DBConnection.release(dbc);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /* Devices with initialized counters */
+    private static final Set<String> initializedDevices = Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+
+    /* Devices without initialized counters (time of last check, millis) */
+    private static final Map<String,Long> uninitializedDevices = new ConcurrentHashMap<String,Long>();
+    private static final long UNINITIALIZED_RECHECK_MS = 60000L;
+
+    /**
+    *** Returns true if the counters for the specified Device have been initialized.
+    *** Uninitialized Devices are re-checked at most once per minute.
+    **/
+    public static boolean isInitialized(String acctID, String devID)
+        throws DBException
+    {
+        String devKey = EventCount._deviceKey(acctID, devID);
+        if (initializedDevices.contains(devKey)) {
+            return true;
+        }
+        long nowMS   = System.currentTimeMillis();
+        Long checkMS = uninitializedDevices.get(devKey);
+        if ((checkMS != null) && ((nowMS - checkMS.longValue()) < UNINITIALIZED_RECHECK_MS)) {
+            return false;
+        } else
+        if (new EventCount.Key(acctID, devID, MARKER_HOUR).exists()) {
+            initializedDevices.add(devKey);
+            if (uninitializedDevices.remove(devKey) != null) {
+                // -- rebuilt by another process, recover increments skipped since the rebuild
+                reconcileDevices.add(devKey);
+            }
+            return true;
+        } else {
+            uninitializedDevices.put(devKey, new Long(nowMS));
+            return false;
+        }
+    }
+
+    /**
+    *** Gets the number of events for the specified Device within the specified range, from
+    *** the hourly counters.
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @param timeStart  The starting time range (inclusive), or -1 for no start
+    *** @param timeEnd    The ending time range (inclusive), or -1 for no end
+    *** @return The number of events, or -1 if the counters are not available for this Device
+    **/
+    public static long getEventCount(String acctID, String devID, long timeStart, long timeEnd)
+        throws DBException
+    {
+        if (StringTools.isBlank(acctID) || StringTools.isBlank(devID)) {
+            return -1L;
+        } else
+        if (!EventCount.IsEventCountEnabled() || !EventCount.isInitialized(acctID, devID)) {
+            return -1L;
+        }
+        long start = (timeStart >= 0L)? timeStart : 0L;
+        if ((timeEnd >= 0L) && (timeEnd < start)) {
+            return 0L;
+        }
+        METRIC_COUNTERS.increment();
+
+        /* whole hours [hourStart,hourEnd) */
+        long hourStart = ((start % HOUR_SECONDS) == 0L)? start : (EventCount._hourFloor(start) + HOUR_SECONDS);
+        long hourEnd   = (timeEnd >= 0L)? EventCount._hourFloor(timeEnd + 1L) : -1L;
+        if ((hourEnd >= 0L) && (hourEnd <= hourStart)) {
+            // -- range does not span a whole hour
+            return EventCount.countEventsExact(acctID, devID, start, timeEnd);
+        }
+        long count = EventCount._sumCounts(acctID, devID, Math.max(hourStart, MARKER_HOUR + 1L), hourEnd);
+        count += EventCount._getPending(acctID, devID, hourStart, hourEnd);
+
+        /* partial hours */
+        if (start < hourStart) {
+            count += EventCount.countEventsExact(acctID, devID, start, hourStart - 1L);
+        }
+        if ((hourEnd >= 0L) && (hourEnd <= timeEnd)) {
+            count += EventCount.countEventsExact(acctID, devID, hourEnd, timeEnd);
+        }
+        return count;
+
+    }
+
+    /* sum of the Device counters in the hour range [hourStart,hourEnd) */
+    private static long _sumCounts(String acctID, String devID, long hourStart, long hourEnd)
+        throws DBException
+    {
+        DBWhere dwh = new DBWhere(EventCount.getFactory());
+        String sql = "SELECT SUM(" + DBProvider.getProvider().quoteColumnName(FLD_eventCount) + ") FROM " +
+            DBProvider.getProvider().quoteTableName(EventCount.getFactory().getTranslatedTableName()) + " " +
+            EventCount._getWhere(dwh, acctID, devID, hourStart, hourEnd);
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql);
+            rs   = stmt.getResultSet();
+            return rs.next()? rs.getLong(1) : 0L;
+        } catch (SQLException sqe) {
+            throw new DBException("Summing EventCount records", sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+    }
+
+    /**
+    *** Gets the exact number of events for the specified Device within the specified range,
+    *** using "COUNT(*)" on the EventData table (regardless of the table type).
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @param timeStart  The starting time range (inclusive), or -1 for no start
+    *** @param timeEnd    The ending time range (inclusive), or -1 for no end
+    *** @return The number of events
+    **/
+    public static long countEventsExact(String acctID, String devID, long timeStart, long timeEnd)
+        throws DBException
+    {
+        METRIC_EXACT.increment();
+        String sql = "SELECT " + DBProvider.FLD_COUNT() + " FROM " +
+            DBProvider.getProvider().quoteTableName(EventData.getFactory().getTranslatedTableName()) + " " +
+            EventData.getWhereClause(
+                acctID, devID,
+                timeStart, timeEnd,
+                null  /*statCode[]*/ ,
+                false /*gpsRequired*/,
+                null  /*andSelect*/  );
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql);
+            rs   = stmt.getResultSet();
+            return rs.next()? rs.getLong(1) : 0L;
+        } catch (SQLException sqe) {
+            throw new DBException("Counting EventData records", sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+    }
+
+    /* gets the timestamp of the oldest event for the specified Device, or -1 if there are no events */
+    private static long _getFirstEventTime(String acctID, String devID)
+        throws DBException
+    {
+        String sql = "SELECT MIN(" + DBProvider.getProvider().quoteColumnName(EventData.FLD_timestamp) + ") FROM " +
+            DBProvider.getProvider().quoteTableName(EventData.getFactory().getTranslatedTableName()) + " " +
+            EventData.getWhereClause(acctID, devID, -1L, -1L, null, false, null);
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql);
+            rs   = stmt.getResultSet();
+            if (rs.next()) {
+                long ts = rs.getLong(1);
+                return !rs.wasNull()? ts : -1L;
+            }
+            return -1L;
+        } catch (SQLException sqe) {
+            throw new DBException("Reading first EventData timestamp", sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Regenerates the hourly counters for the specified Device from the EventData table,
+    *** and marks the Device counters as initialized.  Events inserted for the Device while
+    *** the counters are being regenerated may be counted twice, so this should be run while
+    *** the Device is not reporting (or simply run again).
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @return The total number of events counted
+    **/
+    public static long rebuildEventCounts(String acctID, String devID)
+        throws DBException
+    {
+        EventCount.flush();
+        EventCount._clearPending(acctID, devID, 0L, -1L);
+        EventCount._deleteCounts(acctID, devID, -1L, -1L);
+        initializedDevices.remove(EventCount._deviceKey(acctID, devID));
+
+        /* hourly counts */
+        Map<Long,Long> hours = EventCount._getHourlyEventCounts(acctID, devID, -1L, -1L);
+
+        /* save counters */
+        long total = 0L;
+        for (Long hour : hours.keySet()) {
+            long h = hour.longValue();
+            if (h <= MARKER_HOUR) {
+                continue; // invalid timestamps
+            }
+            long count = hours.get(hour).longValue();
+            EventCount rcd = new EventCount.Key(acctID, devID, h).getDBRecord();
+            rcd.setEventCount(count);
+            rcd.insert();
+            total += count;
+        }
+        EventCount marker = new EventCount.Key(acctID, devID, MARKER_HOUR).getDBRecord();
+        marker.setEventCount(DateTime.getCurrentTimeSec()); // time of rebuild
+        marker.insert();
+        uninitializedDevices.remove(EventCount._deviceKey(acctID, devID));
+        initializedDevices.add(EventCount._deviceKey(acctID, devID));
+        return total;
+
+    }
+
+    /**
+    *** Reconciles the hourly counters for the specified Device within the specified range
+    *** against the EventData table (ie. to recover buffered increments lost in a crash).
+    *** Counters which differ from the exact hourly event count are corrected, and pending
+    *** (unflushed) increments are taken into account.
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @param timeStart  The starting time range (rounded down to the hour), or -1 for no start
+    *** @param timeEnd    The ending time range (inclusive), or -1 for no end
+    *** @return The number of corrected hourly counters
+    **/
+    public static int reconcileEventCounts(String acctID, String devID, long timeStart, long timeEnd)
+        throws DBException
+    {
+        if (!EventCount.isInitialized(acctID, devID)) {
+            return 0;
+        }
+        long hourStart = Math.max(((timeStart >= 0L)? EventCount._hourFloor(timeStart) : 0L), MARKER_HOUR + 1L);
+        long hourEnd   = (timeEnd >= 0L)? (EventCount._hourFloor(timeEnd) + HOUR_SECONDS) : -1L;
+        EventCount.flush();
+        synchronized (EventCount.class) { // not while flushing
+            Map<Long,Long> exact = EventCount._getHourlyEventCounts(acctID, devID, hourStart, ((hourEnd >= 0L)? (hourEnd - 1L) : -1L));
+            Map<Long,Long> saved = EventCount._getCounts(acctID, devID, hourStart, hourEnd);
+            Set<Long> allHours = new TreeSet<Long>(exact.keySet());
+            allHours.addAll(saved.keySet());
+            int corrected = 0;
+            for (Long hour : allHours) {
+                long h = hour.longValue();
+                if (h <= MARKER_HOUR) {
+                    continue; // invalid timestamps
+                }
+                // -- events counted exactly, but not yet flushed, will be added by the next flush
+                long count = (exact.containsKey(hour)? exact.get(hour).longValue() : 0L) - 
+                    EventCount._getPending(acctID, devID, h, h + 1L);
+                long cur   = saved.containsKey(hour)? saved.get(hour).longValue() : 0L;
+                if (count == cur) {
+                    continue;
+                }
+                EventCount.Key key = new EventCount.Key(acctID, devID, h);
+                if (count > 0L) {
+                    EventCount rcd = key.getDBRecord();
+                    rcd.setEventCount(count);
+                    rcd.save();
+                } else {
+                    key.delete(false);
+                }
+                corrected++;
+            }
+            return corrected;
+        }
+    }
+
+    /* exact event counts per hour for the specified Device and time range (inclusive) */
+    private static Map<Long,Long> _getHourlyEventCounts(String acctID, String devID, long timeStart, long timeEnd)
+        throws DBException
+    {
+        // SELECT FLOOR(timestamp/3600),COUNT(*) FROM EventData WHERE ... GROUP BY FLOOR(timestamp/3600)
+        DBProvider dbp = DBProvider.getProvider();
+        String hourExpr = "FLOOR(" + dbp.quoteColumnName(EventData.FLD_timestamp) + "/" + HOUR_SECONDS + ")";
+        String sql = "SELECT " + hourExpr + "," + DBProvider.FLD_COUNT() + " FROM " +
+            dbp.quoteTableName(EventData.getFactory().getTranslatedTableName()) + " " +
+            EventData.getWhereClause(acctID, devID, timeStart, timeEnd, null, false, null) +
+            " GROUP BY " + hourExpr;
+        Map<Long,Long> hours = new TreeMap<Long,Long>();
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql);
+            rs   = stmt.getResultSet();
+            while (rs.next()) {
+                hours.put(new Long(rs.getLong(1) * HOUR_SECONDS), new Long(rs.getLong(2)));
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Counting hourly EventData records", sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+        return hours;
+    }
+
+    /* saved Device counters within the hour range [hourStart,hourEnd) */
+    private static Map<Long,Long> _getCounts(String acctID, String devID, long hourStart, long hourEnd)
+        throws DBException
+    {
+        DBProvider dbp = DBProvider.getProvider();
+        DBWhere dwh = new DBWhere(EventCount.getFactory());
+        String sql = "SELECT " + dbp.quoteColumnName(FLD_hourTime) + "," + dbp.quoteColumnName(FLD_eventCount) + " FROM " +
+            dbp.quoteTableName(EventCount.getFactory().getTranslatedTableName()) + " " +
+            EventCount._getWhere(dwh, acctID, devID, hourStart, hourEnd);
+        Map<Long,Long> hours = new TreeMap<Long,Long>();
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql);
+            rs   = stmt.getResultSet();
+            while (rs.next()) {
+                hours.put(new Long(rs.getLong(1)), new Long(rs.getLong(2)));
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Reading EventCount records", sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+        return hours;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final String ARG_ACCOUNT[]   = new String[] { "account", "acct", "a" };
+    private static final String ARG_DEVICE[]    = new String[] { "device" , "dev" , "d" };
+    private static final String ARG_REBUILD[]   = new String[] { "rebuild"              };
+    private static final String ARG_RECONCILE[] = new String[] { "reconcile"            };
+    private static final String ARG_COUNT[]     = new String[] { "count"                };
+    private static final String ARG_START[]     = new String[] { "start"  , "from"      };
+    private static final String ARG_END[]       = new String[] { "end"    , "to"        };
+
+    private static void usage()
+    {
+        Print.sysPrintln("Usage:");
+        Print.sysPrintln("  java ... " + EventCount.class.getName() + " {options}");
+        Print.sysPrintln("Options:");
+        Print.sysPrintln("  -account=<id>    Account ID (or 'all')");
+        Print.sysPrintln("  -device=<id>     Device ID (or '*' for all account devices)");
+        Print.sysPrintln("  -rebuild         Regenerate/initialize the hourly event counters");
+        Print.sysPrintln("  -reconcile       Correct the hourly event counters for the specified time range");
+        Print.sysPrintln("  -count           Compare counter and exact event counts for the specified time range");
+        Print.sysPrintln("  -start=<time>    Start time (epoch seconds)");
+        Print.sysPrintln("  -end=<time>      End time (epoch seconds)");
+        System.exit(1);
+    }
+
+    public static void main(String argv[])
+    {
+        DBConfig.cmdLineInit(argv,true);
+        String acctArg = RTConfig.getString(ARG_ACCOUNT, "");
+        String devArg  = RTConfig.getString(ARG_DEVICE , "*");
+
+        /* account/devices */
+        java.util.List<String> devKeys = new Vector<String>();
+        try {
+            Collection<String> acctIDs = acctArg.equalsIgnoreCase("all")?
+                Account.getAllAccounts() :
+                ListTools.toList(StringTools.parseStringArray(acctArg,','));
+            for (String acctID : acctIDs) {
+                if (devArg.equals("*")) {
+                    OrderedSet<String> ids = Device.getDeviceIDsForAccount(acctID, null, true);
+                    if (ids != null) {
+                        for (String did : ids) { devKeys.add(acctID + "/" + did); }
+                    }
+                } else {
+                    devKeys.add(acctID + "/" + devArg);
+                }
+            }
+        } catch (DBException dbe) {
+            Print.logException("Error reading Accounts/Devices: " + acctArg, dbe);
+            System.exit(99);
+        }
+        if (devKeys.isEmpty()) {
+            Print.sysPrintln("ERROR: Account/Device not specified");
+            usage();
+        }
+
+        /* rebuild */
+        if (RTConfig.getBoolean(ARG_REBUILD,false)) {
+            int rtn = 0;
+            for (String key : devKeys) {
+                int p = key.indexOf('/');
+                try {
+                    long count = EventCount.rebuildEventCounts(key.substring(0,p), key.substring(p+1));
+                    Print.sysPrintln("Rebuilt event counters: " + key + " [" + count + " events]");
+                } catch (DBException dbe) {
+                    Print.logException("Error rebuilding event counters: " + key, dbe);
+                    rtn = 99;
+                }
+            }
+            System.exit(rtn);
+        }
+
+        /* reconcile */
+        if (RTConfig.getBoolean(ARG_RECONCILE,false)) {
+            long hours     = RTConfig.getLong(DBConfig.PROP_EventCount_reconcileHours,24L);
+            long timeStart = RTConfig.getLong(ARG_START, ((hours > 0L)? (DateTime.getCurrentTimeSec() - DateTime.HourSeconds(hours)) : -1L));
+            long timeEnd   = RTConfig.getLong(ARG_END  , -1L);
+            int rtn = 0;
+            for (String key : devKeys) {
+                int p = key.indexOf('/');
+                try {
+                    int n = EventCount.reconcileEventCounts(key.substring(0,p), key.substring(p+1), timeStart, timeEnd);
+                    Print.sysPrintln("Reconciled event counters: " + key + " [" + n + " hours corrected]");
+                } catch (DBException dbe) {
+                    Print.logException("Error reconciling event counters: " + key, dbe);
+                    rtn = 99;
+                }
+            }
+            System.exit(rtn);
+        }
+
+        /* count */
+        if (RTConfig.getBoolean(ARG_COUNT,false)) {
+            long timeStart = RTConfig.getLong(ARG_START, -1L);
+            long timeEnd   = RTConfig.getLong(ARG_END  , -1L);
+            for (String key : devKeys) {
+                int p = key.indexOf('/');
+                try {
+                    long cnt   = EventCount.getEventCount(key.substring(0,p), key.substring(p+1), timeStart, timeEnd);
+                    long exact = EventCount.countEventsExact(key.substring(0,p), key.substring(p+1), timeStart, timeEnd);
+                    Print.sysPrintln(key + ": counters=" + cnt + " exact=" + exact + ((cnt != exact)? " (MISMATCH)" : ""));
+                } catch (DBException dbe) {
+                    Print.logException("Error counting events: " + key, dbe);
+                    System.exit(99);
+                }
+            }
+            System.exit(0);
+        }
+
+        /* no options specified */
+        Print.sysPrintln("No command-line options specified");
+        usage();
+
+    }
+
+}
@@ -919,6 +919,40 @@ public class EventData
             // "COUNT(*)" not allowed if InnoDB
             boolean countOK = RTConfig.getBoolean(DBConfig.PROP_EventData_allowInnoDBCountWithWhere,false);
             factory.setAllowInnoDBCOUNT(countOK);
+            // time-range partitioning (applied when the table is created)
+            DBPartition.Interval partInterval = DBPartition.Interval.parse(RTConfig.getString(DBConfig.PROP_EventData_partitionInterval,""));
+            if (!partInterval.equals(DBPartition.Interval.NONE)) {
+                int partAhead = RTConfig.getInt(DBConfig.PROP_EventData_partitionAhead,3);
+                factory.setPartition(new DBPartition(FLD_timestamp, partInterval, partAhead));
+            }
+            // common access patterns (see "DBAdmin -indexAdvisor")
+            factory.setQueryShapeProvider(new DBFactory.QueryShapeProvider() {
+                public OrderedMap<String,DBSelect<?>> getQueryShapes() {
+                    OrderedMap<String,DBSelect<?>> shapes = new OrderedMap<String,DBSelect<?>>();
+                    long nowTime = DateTime.getCurrentTimeSec();
+                    shapes.put("lastValidGPS", EventData._createRangeEventSelector(
+                        "account", "device",
+                        -1L, -1L,
+                        null/*statCode*/,
+                        true/*validGPS*/,
+                        EventData.LimitType.LAST, 100L, false/*ascending*/,
+                        null/*addtnlSelect*/));
+                    shapes.put("statusCodeRange", EventData._createRangeEventSelector(
+                        "account", "device",
+                        nowTime - DateTime.DaySeconds(7), nowTime,
+                        new int[] { StatusCodes.STATUS_LOCATION },
+                        false/*validGPS*/,
+                        EventData.LimitType.FIRST, 1000L, true/*ascending*/,
+                        null/*addtnlSelect*/));
+                    if (EventData.getFactory().hasField(EventData.FLD_creationMillis)) {
+                        shapes.put("creationMillis", EventData._createCreationMillisSelector(
+                            "account", "*",
+                            (nowTime - DateTime.HourSeconds(1)) * 1000L, nowTime * 1000L,
+                            1000L));
+                    }
+                    return shapes;
+                }
+            });
         }
         return factory;
     }
@@ -7022,6 +7056,9 @@ public class EventData
         // (DBRecordListnener not allowed, to prevent excessive backlogging)
         // ----
         // TODO: Queue JMS EventData message?
+        if (EventCount.IsEventCountEnabled()) {
+            EventCount.eventInserted(this.getAccountID(), this.getDeviceID(), this.getTimestamp());
+        }
     }
 
     /**
@@ -7216,10 +7253,10 @@ public class EventData
         /* get events */
         EventData ed[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             ed = DBRecord.select(dsel, null); // select:DBSelect
         } finally {
-            DBProvider.unlockTables();
+            DBProvider.unlockReadTables();
         }
 
         /* return result */
@@ -7229,7 +7266,8 @@ public class EventData
 
     // ------------------------------------------------------------------------
 
-    /* return the EventData record for the specified 'autoIndex' value */
+    /* return the EventData records for the specified DBSelect */
+    /* (archived events are not included, see "EventArchive") */
     public static EventData[] getSelectedEvents(DBSelect<EventData> dsel, DBRecordHandler<EventData> rcdHandler)
         throws DBException
     {
@@ -7237,10 +7275,10 @@ public class EventData
         /* get events */
         EventData ed[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             ed = DBRecord.select(dsel, rcdHandler);
         } finally {
-            DBProvider.unlockTables();
+            DBProvider.unlockReadTables();
         }
 
         /* return result */
@@ -7295,10 +7333,31 @@ public class EventData
         dsel.setOrderByFields(FLD_timestamp);
         dsel.setOrderAscending(isAscending);
         dsel.setLimit(limit);
+        dsel.setReadReplica(DBReplica.isReplicaReads());
+        if (!ListTools.isEmpty(statCode)) {
+            EventData._applyIndexHint(dsel, DBConfig.PROP_EventData_indexHint_statusCode);
+        } else
+        if (validGPS) {
+            EventData._applyIndexHint(dsel, DBConfig.PROP_EventData_indexHint_validGPS);
+        }
         return dsel;
         
     }
 
+    /* apply the configured index hint, if the index exists */
+    private static void _applyIndexHint(DBSelect<EventData> dsel, String hintProp)
+    {
+        String ndxName = RTConfig.getString(hintProp, "");
+        if (StringTools.isBlank(ndxName)) {
+            // no hint
+        } else
+        if (dsel.getFactory().hasActualIndex(ndxName)) {
+            dsel.setIndexHint(ndxName, false/*force*/);
+        } else {
+            Print.logDebug("Index hint not applied, index does not exist: " + ndxName);
+        }
+    }
+
     /* get a specific EventData record */
     public static EventData getEventData(
         String acctId, String devId,
@@ -7348,6 +7407,34 @@ public class EventData
         DBRecordHandler<EventData> rcdHandler)
         throws DBException
     {
+        return EventData.getRangeEvents(
+            acctId, devId, 
+            timeStart, timeEnd,
+            statCode,
+            validGPS, 
+            limitType, limit, ascending,
+            addtnlSelect,
+            rcdHandler,
+            null/*selFields*/);
+    }
+
+    /**
+    *** Gets a range of EventData records (does not return null).  If 'selFields' is
+    *** specified, only the specified fields (and the primary key fields) are read, and 
+    *** the returned records are partially loaded (see "DBSelect.setProjectedFields").
+    **/
+    public static EventData[] getRangeEvents(
+        String acctId, 
+        String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        EventData.LimitType limitType, long limit, boolean ascending,
+        String addtnlSelect,
+        DBRecordHandler<EventData> rcdHandler,
+        Set<String> selFields)
+        throws DBException
+    {
 
         /* get record selector */
         DBSelect<EventData> dsel = EventData._createRangeEventSelector(
@@ -7363,6 +7450,25 @@ public class EventData
             return EMPTY_ARRAY;
         }
 
+        /* range includes archived events? */
+        long archCutoff = EventData._getArchiveCutoff(acctId, devId, timeStart, addtnlSelect);
+        if (archCutoff > 0L) {
+            return EventData._getArchiveMergedEvents(
+                acctId, devId,
+                timeStart, timeEnd,
+                statCode,
+                validGPS,
+                limitType, limit, ascending,
+                rcdHandler,
+                selFields,
+                archCutoff);
+        }
+
+        /* projected fields */
+        if (!ListTools.isEmpty(selFields)) {
+            dsel.setProjectedFields(selFields);
+        }
+
         /* debug: compare SQL selections */
         if (DBConnection.getShowExecutedSQL()) {
             Print.logInfo("SQL Select comparison:");
@@ -7375,12 +7481,12 @@ public class EventData
         /* get events */
         EventData ed[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             //ed = (EventData[])DBRecord.select(EventData.getFactory(), dsel.toString(false), rcdHandler);
             ed = DBRecord.select(dsel, rcdHandler); // select:DBSelect
             // 'ed' _may_ be empty if (rcdHandler != null)
         } finally {
-            DBProvider.unlockTables();
+            DBProvider.unlockReadTables();
         }
         if (ed == null) {
             // no records
@@ -7403,6 +7509,507 @@ public class EventData
 
     }
 
+    /**
+    *** Gets a range of EventData records from the EventData table only, in ascending order.
+    *** Archived events are not included, regardless of the Device archive cutoff.
+    *** @param acctId     The Account ID
+    *** @param devId      The Device ID
+    *** @param timeStart  The starting time range (inclusive), or -1 for no start
+    *** @param timeEnd    The ending time range (inclusive), or -1 for no end
+    *** @param limit      The maximum number of records to return, or -1 for no limit
+    *** @return The EventData records in the table (does not return null)
+    **/
+    public static EventData[] getTableRangeEvents(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        long limit)
+        throws DBException
+    {
+        DBSelect<EventData> dsel = EventData._createRangeEventSelector(
+            acctId, devId,
+            timeStart, timeEnd,
+            null/*statCode*/,
+            false/*validGPS*/,
+            EventData.LimitType.FIRST, limit, true/*ascending*/,
+            null/*addtnlSelect*/);
+        if (dsel == null) {
+            return EMPTY_ARRAY;
+        }
+        EventData ed[] = null;
+        try {
+            DBProvider.lockReadTables(TABLE_NAME());
+            ed = DBRecord.select(dsel, null); // select:DBSelect
+        } finally {
+            DBProvider.unlockReadTables();
+        }
+        return (ed != null)? ed : EMPTY_ARRAY;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the archive cutoff time for the specified Device, if the specified range starts 
+    *** prior to the cutoff (ie. the range includes archived events).
+    *** @return The archive cutoff time, or 0 if the range does not include archived events
+    **/
+    private static long _getArchiveCutoff(String acctId, String devId, long timeStart, String addtnlSelect)
+    {
+        if (!EventArchive.isEnabled()) {
+            return 0L;
+        }
+        long cutoff = EventArchive.getArchiveCutoff(acctId, devId);
+        if ((cutoff <= 0L) || ((timeStart >= 0L) && (timeStart >= cutoff))) {
+            return 0L;
+        } else
+        if (!StringTools.isBlank(addtnlSelect)) {
+            // -- SQL selection cannot be applied to archived events
+            Print.logDebug("Additional selection specified, archived events not included: " + acctId + "/" + devId);
+            return 0L;
+        }
+        return cutoff;
+    }
+
+    /**
+    *** Streams the matching archived events within the specified range, prior to the archive
+    *** cutoff, to the specified record handler (archive files are read only until the limit
+    *** has been reached)
+    *** @param limit      The maximum number of matching events, or &lt;=0 for no limit
+    *** @param fromLast   True to stream the newest events first (LAST), false for oldest first
+    *** @return The number of matching events sent to the record handler
+    **/
+    private static long _streamArchivedEvents(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        final int statCode[],
+        final boolean validGPS,
+        long archCutoff,
+        final long limit, boolean fromLast,
+        final DBRecordHandler<EventData> rcdHandler)
+        throws DBException
+    {
+        long archEnd = ((timeEnd >= 0L) && (timeEnd < archCutoff))? timeEnd : (archCutoff - 1L);
+        final AccumulatorLong count = new AccumulatorLong(0L);
+        EventArchive.streamEvents(acctId, devId, timeStart, archEnd, fromLast, new DBRecordHandler<EventData>() {
+            public int handleDBRecord(EventData ev) throws DBException {
+                if ((limit > 0L) && (count.get() >= limit)) {
+                    return DBRH_STOP;
+                } else
+                if (!ListTools.isEmpty(statCode) && !ListTools.contains(statCode, ev.getStatusCode())) {
+                    return DBRH_SKIP;
+                } else
+                if (validGPS && (ev.getLatitude() == 0.0) && (ev.getLongitude() == 0.0) &&
+                    (ev.getFieldValue(FLD_cellLatitude ,0.0) == 0.0) && 
+                    (ev.getFieldValue(FLD_cellLongitude,0.0) == 0.0)) {
+                    return DBRH_SKIP;
+                }
+                count.increment();
+                if (rcdHandler.handleDBRecord(ev) == DBRH_STOP) {
+                    return DBRH_STOP;
+                }
+                return ((limit > 0L) && (count.get() >= limit))? DBRH_STOP : DBRH_SKIP;
+            }
+        });
+        return count.get();
+    }
+
+    /**
+    *** Reads the matching archived events within the specified range, prior to the archive cutoff
+    *** @param limit      The maximum number of matching events, or &lt;=0 for no limit
+    *** @param fromLast   True to read the newest 'limit' events (LAST), false for the oldest
+    *** @return The matching archived events, in ascending order
+    **/
+    private static java.util.List<EventData> _readArchivedEvents(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        long archCutoff,
+        long limit, boolean fromLast)
+        throws DBException
+    {
+        final java.util.List<EventData> list = new Vector<EventData>();
+        EventData._streamArchivedEvents(
+            acctId, devId,
+            timeStart, timeEnd,
+            statCode,
+            validGPS,
+            archCutoff,
+            limit, fromLast,
+            new DBRecordHandler<EventData>() {
+                public int handleDBRecord(EventData ev) throws DBException {
+                    list.add(ev);
+                    return DBRH_SKIP;
+                }
+            });
+        if (fromLast) {
+            Collections.reverse(list);
+        }
+        return list;
+    }
+
+    /**
+    *** Gets a range of EventData records which starts prior to the archive cutoff time,
+    *** merging the archived events with the events in the EventData table.
+    **/
+    private static EventData[] _getArchiveMergedEvents(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        EventData.LimitType limitType, long limit, boolean ascending,
+        DBRecordHandler<EventData> rcdHandler,
+        Set<String> selFields,
+        long archCutoff)
+        throws DBException
+    {
+        boolean isLast = (limit > 0L) && ((limitType == null) || EventData.LimitType.LAST.equals(limitType));
+        boolean inclDB = (timeEnd < 0L) || (timeEnd >= archCutoff);
+
+        /* EventData table portion (LAST: read first) */
+        EventData dbEv[] = EMPTY_ARRAY;
+        if (inclDB && isLast) {
+            dbEv = EventData.getRangeEvents(
+                acctId, devId,
+                archCutoff, timeEnd,
+                statCode,
+                validGPS,
+                limitType, limit, true/*ascending*/,
+                null/*addtnlSelect*/,
+                null/*rcdHandler*/,
+                selFields);
+        }
+
+        /* archive portion */
+        java.util.List<EventData> list = new Vector<EventData>();
+        if (!isLast || (dbEv.length < limit)) {
+            list.addAll(EventData._readArchivedEvents(
+                acctId, devId,
+                timeStart, timeEnd,
+                statCode,
+                validGPS,
+                archCutoff,
+                (isLast? (limit - dbEv.length) : limit), isLast));
+        }
+
+        /* EventData table portion (FIRST: read only if more records are needed) */
+        if (inclDB && !isLast && ((limit <= 0L) || (list.size() < limit))) {
+            dbEv = EventData.getRangeEvents(
+                acctId, devId,
+                archCutoff, timeEnd,
+                statCode,
+                validGPS,
+                limitType, ((limit > 0L)? (limit - list.size()) : limit), true/*ascending*/,
+                null/*addtnlSelect*/,
+                null/*rcdHandler*/,
+                selFields);
+        }
+        list.addAll(Arrays.asList(dbEv));
+
+        /* limit/order */
+        if ((limit > 0L) && (list.size() > limit)) {
+            int n = list.size();
+            list = isLast? list.subList(n - (int)limit, n) : list.subList(0, (int)limit);
+        }
+        if (!ascending) {
+            list = new Vector<EventData>(list);
+            Collections.reverse(list);
+        }
+
+        /* record handler */
+        if (rcdHandler != null) {
+            java.util.List<EventData> saved = new Vector<EventData>();
+            for (EventData ev : list) {
+                int rtn = rcdHandler.handleDBRecord(ev);
+                if (rtn == DBRecordHandler.DBRH_STOP) {
+                    break;
+                } else
+                if (rtn == DBRecordHandler.DBRH_SAVE) {
+                    saved.add(ev);
+                }
+            }
+            list = saved;
+        }
+        return list.toArray(new EventData[list.size()]);
+
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* default number of records read per streamed chunk */
+    public  static final int    DFT_STREAM_CHUNK_SIZE   = 500;
+
+    /**
+    *** Streams the range of EventData records to the specified record handler, in
+    *** ascending timestamp order.  Records are read from the DB in key-ordered chunks of
+    *** 'chunkSize' records, so no more than one chunk is held in memory at any time.
+    *** The record handler may return 'DBRH_STOP' to stop the stream.  Saved records are
+    *** not accumulated ('DBRH_SAVE' is treated the same as 'DBRH_SKIP').<br>
+    *** The selected records are the same as those returned by "getRangeEvents" for the
+    *** same 'limitType' and 'limit' arguments.
+    *** @param acctId     The Account ID
+    *** @param devId      The Device ID
+    *** @param timeStart  The starting time range (inclusive), or -1 for no start
+    *** @param timeEnd    The ending time range (inclusive), or -1 for no end
+    *** @param statCode   The list of status-codes, or null for all status-codes
+    *** @param validGPS   True to read only events with valid GPS locations
+    *** @param limitType  The limit type (FIRST, LAST)
+    *** @param limit      The maximum number of records to stream, or &lt;=0 for no limit
+    *** @param chunkSize  The number of records read per DB select
+    *** @param rcdHandler The record handler
+    *** @return The number of records sent to the record handler
+    **/
+    public static long streamRangeEvents(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        EventData.LimitType limitType, long limit,
+        int chunkSize,
+        final DBRecordHandler<EventData> rcdHandler)
+        throws DBException
+    {
+        return EventData.streamRangeEvents(
+            acctId, devId,
+            timeStart, timeEnd,
+            statCode,
+            validGPS,
+            limitType, limit,
+            chunkSize,
+            null/*selFields*/,
+            rcdHandler);
+    }
+
+    /**
+    *** Streams the range of EventData records to the specified record handler (see above).
+    *** If 'selFields' is specified, only the specified fields (and the primary key fields)
+    *** are read, and the streamed records are partially loaded.
+    **/
+    public static long streamRangeEvents(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        EventData.LimitType limitType, long limit,
+        int chunkSize,
+        Set<String> selFields,
+        final DBRecordHandler<EventData> rcdHandler)
+        throws DBException
+    {
+
+        /* invalid arguments? */
+        if (rcdHandler == null) {
+            return 0L;
+        } else
+        if (StringTools.isBlank(acctId) || StringTools.isBlank(devId)) {
+            return 0L;
+        } else
+        if ((timeStart > 0L) && (timeEnd > 0L) && (timeStart > timeEnd)) {
+            return 0L;
+        }
+        if (chunkSize <= 0) {
+            chunkSize = DFT_STREAM_CHUNK_SIZE;
+        }
+
+        /* range includes archived events? */
+        long archCutoff = EventData._getArchiveCutoff(acctId, devId, timeStart, null);
+        if (archCutoff > 0L) {
+            boolean isLast = (limit > 0L) && ((limitType == null) || EventData.LimitType.LAST.equals(limitType));
+            boolean inclDB = (timeEnd < 0L) || (timeEnd >= archCutoff);
+            java.util.List<EventData> arch = new Vector<EventData>();
+            long dbLimit = limit;
+            if (isLast) {
+                // -- archived events are needed only if the table has fewer than 'limit' events
+                long dbCount = inclDB? EventData.countRangeEvents(
+                    acctId, devId,
+                    archCutoff, timeEnd,
+                    statCode,
+                    validGPS,
+                    EventData.LimitType.LAST, limit,
+                    null/*addtnlSelect*/) : 0L;
+                if (dbCount < limit) {
+                    // -- at most 'limit' archived events are read
+                    arch = EventData._readArchivedEvents(acctId, devId, timeStart, timeEnd, statCode, validGPS, archCutoff,
+                        (limit - dbCount), true/*fromLast*/);
+                }
+            }
+            long count = 0L;
+            for (EventData ev : arch) {
+                count++;
+                if (rcdHandler.handleDBRecord(ev) == DBRecordHandler.DBRH_STOP) {
+                    return count;
+                }
+            }
+            if (!isLast) {
+                // -- archived events are streamed (one month file at a time)
+                final boolean stopped[] = new boolean[] { false };
+                count = EventData._streamArchivedEvents(acctId, devId, timeStart, timeEnd, statCode, validGPS, archCutoff,
+                    limit, false/*fromLast*/,
+                    new DBRecordHandler<EventData>() {
+                        public int handleDBRecord(EventData ev) throws DBException {
+                            int rtn = rcdHandler.handleDBRecord(ev);
+                            if (rtn == DBRH_STOP) { stopped[0] = true; }
+                            return rtn;
+                        }
+                    });
+                if (stopped[0]) {
+                    return count;
+                }
+                dbLimit = (limit > 0L)? (limit - count) : limit;
+            }
+            if (inclDB && ((limit <= 0L) || (dbLimit > 0L))) {
+                count += EventData.streamRangeEvents(
+                    acctId, devId,
+                    archCutoff, timeEnd,
+                    statCode,
+                    validGPS,
+                    limitType, dbLimit,
+                    chunkSize,
+                    selFields,
+                    rcdHandler);
+            }
+            return count;
+        }
+
+        /* LIMIT/OFFSET not supported (ie. Derby), read all records in a single select */
+        DBProvider dbp = DBProvider.getProvider();
+        if (!dbp.supportsLimit() || !dbp.supportsOffset()) {
+            final AccumulatorLong count = new AccumulatorLong(0L);
+            EventData.getRangeEvents(
+                acctId, devId,
+                timeStart, timeEnd,
+                statCode,
+                validGPS,
+                limitType, limit, true/*ascending*/,
+                null/*addtnlSelect*/,
+                new DBRecordHandler<EventData>() {
+                    public int handleDBRecord(EventData rcd) throws DBException {
+                        count.increment();
+                        int rtn = rcdHandler.handleDBRecord(rcd);
+                        return (rtn == DBRH_STOP)? DBRH_STOP : DBRH_SKIP;
+                    }
+                },
+                selFields);
+            return count.get();
+        }
+
+        /* LAST: find the oldest key of the last 'limit' records */
+        long seekTime = -1L;
+        int  seekCode = -1;
+        if ((limit > 0L) && ((limitType == null) || EventData.LimitType.LAST.equals(limitType))) {
+            DBSelect<EventData> dsel = new DBSelect<EventData>(EventData.getFactory());
+            dsel.setSelectedFields(FLD_timestamp, FLD_statusCode);
+            dsel.setWhere(EventData.getWhereClause(
+                acctId, devId,
+                timeStart, timeEnd,
+                statCode,
+                validGPS,
+                null/*addtnlSelect*/));
+            dsel.setOrderByFields(FLD_timestamp, FLD_statusCode);
+            dsel.setOrderAscending(false);
+            dsel.setLimit(1L);
+            dsel.setOffset(limit - 1L);
+            dsel.setReadReplica(DBReplica.isReplicaReads());
+            DBConnection dbc[] = new DBConnection[1];
+            Statement    stmt  = null;
+            ResultSet    rs    = null;
+            try {
+                stmt = DBReplica.execute(dsel, dbc);
+                rs   = stmt.getResultSet();
+                if (rs.next()) {
+                    seekTime = rs.getLong(FLD_timestamp);
+                    seekCode = rs.getInt(FLD_statusCode);
+                }
+            } catch (SQLException sqe) {
+                throw new DBException("Stream range events (last key)", sqe);
+            } finally {
+                DBConnection.release(dbc[0], stmt, rs);
+            }
+            // if 'seekTime' is still undefined, there are fewer than 'limit' records in range
+        }
+
+        /* stream records in key-ordered chunks */
+        final AccumulatorLong count   = new AccumulatorLong(0L);
+        final AccumulatorLong rcdTime = new AccumulatorLong(seekTime);
+        final AccumulatorLong rcdCode = new AccumulatorLong(seekCode);
+        final boolean stopped[] = new boolean[] { false };
+        boolean inclSeekKey = true; // first chunk includes the LAST boundary record
+        DBFactory<EventData> dbFact = EventData.getFactory();
+        for (;;) {
+
+            /* records remaining */
+            long chunkLimit = chunkSize;
+            if (limit > 0L) {
+                long remain = limit - count.get();
+                if (remain <= 0L) {
+                    break;
+                } else
+                if (remain < chunkLimit) {
+                    chunkLimit = remain;
+                }
+            }
+
+            /* seek past the last key read */
+            // AND ( (timestamp>T) OR ((timestamp=T) AND (statusCode>S)) )
+            String seekSel = null;
+            long lastTime = rcdTime.get();
+            if (lastTime >= 0L) {
+                DBWhere dwh = new DBWhere(dbFact);
+                int lastCode = (int)rcdCode.get();
+                seekSel = dwh.OR(
+                    dwh.GT(FLD_timestamp, lastTime),
+                    dwh.AND(
+                        dwh.EQ(FLD_timestamp, lastTime),
+                        inclSeekKey? dwh.GE(FLD_statusCode, lastCode) : dwh.GT(FLD_statusCode, lastCode)
+                    )
+                );
+            }
+            inclSeekKey = false;
+
+            /* select chunk */
+            DBSelect<EventData> dsel = new DBSelect<EventData>(dbFact);
+            dsel.setWhere(EventData.getWhereClause(
+                acctId, devId,
+                timeStart, timeEnd,
+                statCode,
+                validGPS,
+                seekSel));
+            dsel.setOrderByFields(FLD_timestamp, FLD_statusCode);
+            dsel.setOrderAscending(true);
+            dsel.setLimit(chunkLimit);
+            dsel.setReadReplica(DBReplica.isReplicaReads());
+            if (!ListTools.isEmpty(selFields)) {
+                dsel.setProjectedFields(selFields);
+            }
+            final AccumulatorLong chunkCount = new AccumulatorLong(0L);
+            try {
+                DBProvider.lockReadTables(TABLE_NAME());
+                DBRecord.select(dsel, new DBRecordHandler<EventData>() {
+                    public int handleDBRecord(EventData rcd) throws DBException {
+                        chunkCount.increment();
+                        count.increment();
+                        rcdTime.set(rcd.getTimestamp());
+                        rcdCode.set(rcd.getStatusCode());
+                        if (rcdHandler.handleDBRecord(rcd) == DBRH_STOP) {
+                            stopped[0] = true;
+                            return DBRH_STOP;
+                        }
+                        return DBRH_SKIP;
+                    }
+                });
+            } finally {
+                DBProvider.unlockReadTables();
+            }
+
+            /* done? */
+            if (stopped[0] || (chunkCount.get() < chunkLimit)) {
+                break;
+            }
+
+        }
+        return count.get();
+
+    }
+
     /* return count in range of EventData records */
     public static long countRangeEvents(
         String acctId, String devId,
@@ -7428,13 +8035,49 @@ public class EventData
             return 0L;
         }
 
+        /* range includes archived events? */
+        long archCutoff = EventData._getArchiveCutoff(acctId, devId, timeStart, addtnlSelect);
+        if (archCutoff > 0L) {
+            // -- archived events are counted as they are streamed (up to the limit)
+            long count = EventData._streamArchivedEvents(
+                acctId, devId,
+                timeStart, timeEnd,
+                statCode,
+                validGPS,
+                archCutoff,
+                limit, false/*fromLast*/,
+                new DBRecordHandler<EventData>() {
+                    public int handleDBRecord(EventData ev) throws DBException {
+                        return DBRH_SKIP;
+                    }
+                });
+            if ((timeEnd < 0L) || (timeEnd >= archCutoff)) {
+                count += EventData.countRangeEvents(
+                    acctId, devId,
+                    archCutoff, timeEnd,
+                    statCode,
+                    validGPS,
+                    limitType, limit,
+                    null/*addtnlSelect*/);
+            }
+            return ((limit > 0L) && (count > limit))? limit : count;
+        }
+
+        /* count events from counters (unfiltered range only) */
+        if (ListTools.isEmpty(statCode) && !validGPS && StringTools.isBlank(addtnlSelect)) {
+            long count = EventCount.getEventCount(acctId, devId, timeStart, timeEnd);
+            if (count >= 0L) {
+                return ((limit > 0L) && (count > limit))? limit : count;
+            }
+        }
+
         /* count events */
         long recordCount = 0L;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             recordCount = DBRecord.getRecordCount(dsel);
         } finally {
-            DBProvider.unlockTables();
+            DBProvider.unlockReadTables();
         }
         return recordCount;
 
@@ -7454,6 +8097,33 @@ public class EventData
         long timeStart, long timeEnd)
         throws DBException
     {
+        return EventData.getRecordCount(acctId, devId, timeStart, timeEnd, false);
+    }
+
+    /** 
+    *** Gets the number of EventData records for the specified Account/Device
+    *** within the specified range.  Unless an exact count is requested, the count is 
+    *** obtained from the hourly EventCount counters, if available.
+    *** @param acctId     The Account ID
+    *** @param devId      The Device ID
+    *** @param timeStart  The starting time range (inclusive)
+    *** @param timeEnd    The ending time range (inclusive)
+    *** @param exact      True to always count the EventData records ("COUNT(*)")
+    *** @return The number of records within the specified range
+    **/
+    public static long getRecordCount(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        boolean exact)
+        throws DBException
+    {
+        if (exact) {
+            return EventCount.countEventsExact(acctId, devId, timeStart, timeEnd);
+        }
+        long count = EventCount.getEventCount(acctId, devId, timeStart, timeEnd);
+        if (count >= 0L) {
+            return count;
+        }
         StringBuffer wh = new StringBuffer();
         wh.append(EventData.getWhereClause(
             acctId, devId,
@@ -7495,6 +8165,36 @@ public class EventData
             return EMPTY_ARRAY;
         }
 
+        /* get events */
+        DBSelect<EventData> dsel = EventData._createCreationMillisSelector(
+            acctId, devId,
+            createStartMS, createEndMS,
+            limit);
+        EventData ed[] = null;
+        try {
+            DBProvider.lockReadTables(TABLE_NAME());
+            ed = DBRecord.select(dsel, null/*rcdHandler*/); // select:DBSelect
+        } finally {
+            DBProvider.unlockReadTables();
+        }
+        if (ed == null) {
+            // no records
+            return EMPTY_ARRAY;
+        } else {
+            return ed;
+        }
+
+    }
+
+    /* create "creationMillis" event selector */
+    private static DBSelect<EventData> _createCreationMillisSelector(
+        String acctId, 
+        String devId,
+        long createStartMS, long createEndMS,
+        long limit)
+    {
+        DBFactory<EventData> dbFact = EventData.getFactory();
+
         /* create/return DBSelect */
         // DBSelect: [SELECT * FROM EventData] <Where> ORDER BY <FLD_creationMillis> LIMIT <Limit>
         DBSelect<EventData> dsel = new DBSelect<EventData>(dbFact);
@@ -7515,21 +8215,8 @@ public class EventData
         dsel.setOrderByFields(FLD_creationMillis,FLD_timestamp);
         dsel.setOrderAscending(true);
         dsel.setLimit(limit);
-
-        /* get events */
-        EventData ed[] = null;
-        try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
-            ed = DBRecord.select(dsel, null/*rcdHandler*/); // select:DBSelect
-        } finally {
-            DBProvider.unlockTables();
-        }
-        if (ed == null) {
-            // no records
-            return EMPTY_ARRAY;
-        } else {
-            return ed;
-        }
+        EventData._applyIndexHint(dsel, DBConfig.PROP_EventData_indexHint_creationMillis);
+        return dsel;
 
     }
 
@@ -7644,6 +8331,9 @@ public class EventData
         } finally {
             DBConnection.release(dbc);
         }
+        if (EventCount.IsEventCountEnabled()) {
+            EventCount.eventsDeletedAfter(acctID, devID, delFromTime);
+        }
 
         /* return count */
         return count;
@@ -7654,12 +8344,10 @@ public class EventData
     
     /**
     *** Delete events which are in the future.<br>
-    *** Note: Will return -1 if EventData table is InnoDB.  
-    ***       Old events will still be deleted, however it will still go through the
-    ***       motions of attempting to delete events, event if the range is empty.
-    *** @param acctID      The Account ID
-    *** @param devID       The Device ID
+    *** Events are deleted in chunks of at most "EventPurge.chunkSize" records.
+    *** @param device      The Device
     *** @param oldTimeSec  The time in the past before which (exclusive) events will be deleted.  
+    *** @param msg         Message buffer (may be null)
     *** @return The number of events deleted.
     **/
     public static long deleteOldEvents(
@@ -7669,6 +8357,83 @@ public class EventData
         throws DBException
     {
 
+        /* adjusted delete time */
+        boolean savingLastEvent[] = new boolean[] { false };
+        oldTimeSec = EventData._getDeleteOldEventsTime(device, oldTimeSec, msg, savingLastEvent);
+        String acctID = device.getAccountID();
+        String devID  = device.getDeviceID();
+
+        /* archived events (same retention as the EventData table) */
+        if (EventArchive.isEnabled()) {
+            long archDel = EventArchive.deleteEventsBefore(acctID, devID, oldTimeSec);
+            if ((archDel > 0L) && (msg != null)) {
+                if (msg.length() > 0) { msg.append(", "); }
+                msg.append("Archived deleted ").append(archDel);
+            }
+        }
+
+        /* count events in range */
+        long count = EventData.getRecordCount(acctID,devID,-1L,(oldTimeSec - 1L)); // -1 for InnoDB?
+        if (count == 0L) {
+            // already empty range
+            if (msg != null) {
+                if (msg.length() > 0) { msg.append(", "); }
+                if (savingLastEvent[0]) {
+                    // an empty-range is normal/expected if savingLastEvent is true.
+                    msg.append("Nothing to delete");
+                } else {
+                    msg.append("Empty range");
+                }
+            }
+            return 0L;
+        } else
+        if (count < 0L) { // InnoDB
+            // -- unable to count (InnoDB?)
+            Print.logWarn("Unable to count events (InnoDB?) ... continuing ...");
+        }
+
+        /* delete */
+        long chunkSize = RTConfig.getLong(DBConfig.PROP_EventPurge_chunkSize,5000L);
+        long deleted   = 0L;
+        for (;;) {
+            long n = EventData.deleteOldEventsChunk(acctID, devID, oldTimeSec, chunkSize);
+            deleted += n;
+            if ((n <= 0L) || (chunkSize <= 0L) || (n < chunkSize)) {
+                break;
+            }
+        }
+
+        /* return count */
+        return deleted;
+
+    }
+
+    /**
+    *** Gets the time before which (exclusive) events for the specified Device may be deleted.
+    *** The specified time is adjusted to the Account retained-event time, and is moved back
+    *** to the time of the last event for the Device (so that at least one event is retained).
+    *** @param device      The Device
+    *** @param oldTimeSec  The time in the past before which (exclusive) events should be deleted.  
+    *** @param msg         Message buffer (may be null)
+    *** @return The adjusted delete time
+    **/
+    public static long getDeleteOldEventsTime(
+        Device device,
+        long oldTimeSec, 
+        StringBuffer msg)
+        throws DBException
+    {
+        return EventData._getDeleteOldEventsTime(device, oldTimeSec, msg, null);
+    }
+
+    private static long _getDeleteOldEventsTime(
+        Device device,
+        long oldTimeSec, 
+        StringBuffer msg,
+        boolean savingLastEvent[])
+        throws DBException
+    {
+
         /* valid Device */
         if (device == null) {
             throw new DBException("Device not specified");
@@ -7695,17 +8460,22 @@ public class EventData
             oldTimeSec = 1L;
         }
 
-        /* get time of very last event for this device */
+        /* get time of very last event for this device (from the primary) */
         String acctID = device.getAccountID();
         String devID  = device.getDeviceID();
-        EventData ev[] = EventData.getRangeEvents(
-            acctID, devID,
-            -1L/*timeStart*/, -1L/*timeEnd*/,
-            null/*statusCodes*/,
-            false/*validGPS*/,
-            EventData.LimitType.LAST, 1L/*limit*/, true/*ascending*/,
-            null/*additionalSelect*/);
-        boolean savingLastEvent = false;
+        EventData ev[];
+        DBReplica.beginPrimaryReads();
+        try {
+            ev = EventData.getRangeEvents(
+                acctID, devID,
+                -1L/*timeStart*/, -1L/*timeEnd*/,
+                null/*statusCodes*/,
+                false/*validGPS*/,
+                EventData.LimitType.LAST, 1L/*limit*/, true/*ascending*/,
+                null/*additionalSelect*/);
+        } finally {
+            DBReplica.endPrimaryReads();
+        }
         long lastTimestamp = !ListTools.isEmpty(ev)? ev[0].getTimestamp() : 0L;
         if (lastTimestamp <= 0L) {
             // no events found for this device
@@ -7719,58 +8489,197 @@ public class EventData
             // just prior to last timestamp in order to save at elast one event
             // for this device.
             oldTimeSec = lastTimestamp; // deletion is non-inclusive
-            savingLastEvent = true;
+            if (savingLastEvent != null) {
+                savingLastEvent[0] = true;
+            }
             if (msg != null) {
                 if (msg.length() > 0) { msg.append(", "); }
                 msg.append("Saved last event");
             }
         }
 
-        /* count events in range */
-        long count = EventData.getRecordCount(acctID,devID,-1L,(oldTimeSec - 1L)); // -1 for InnoDB?
-        if (count == 0L) {
-            // already empty range
-            if (msg != null) {
-                if (msg.length() > 0) { msg.append(", "); }
-                if (savingLastEvent) {
-                    // an empty-range is normal/expected if savingLastEvent is true.
-                    msg.append("Nothing to delete");
-                } else {
-                    msg.append("Empty range");
+        return oldTimeSec;
+    }
+
+    /**
+    *** Deletes the oldest events (in primary-key order) prior to the specified time, up to
+    *** the specified maximum number of events.<br>
+    *** On MySQL this is a "DELETE ... ORDER BY timestamp LIMIT n".  Otherwise the timestamp of
+    *** the n'th oldest event is selected first, and the events up to (and including) that 
+    *** timestamp are deleted (which may delete slightly more than 'maxCount' events, if 
+    *** several events share that timestamp).
+    *** @param acctID      The Account ID
+    *** @param devID       The Device ID
+    *** @param oldTimeSec  The time in the past before which (exclusive) events will be deleted.  
+    *** @param maxCount    The maximum number of events to delete (0 for unlimited)
+    *** @return The number of events deleted
+    **/
+    public static long deleteOldEventsChunk(
+        String acctID, String devID,
+        long oldTimeSec,
+        long maxCount)
+        throws DBException
+    {
+        DBDelete ddel = new DBDelete(EventData.getFactory());
+        long  delTimeSec = oldTimeSec;
+        boolean inclusive = false;
+
+        /* key-range walk (DBProvider does not support DELETE LIMIT) */
+        if ((maxCount > 0L) && !ddel.supportsLimit()) {
+            DBSelect<EventData> dsel = new DBSelect<EventData>(EventData.getFactory());
+            dsel.setSelectedFields(EventData.FLD_timestamp);
+            DBWhere sw = dsel.createDBWhere();
+            dsel.setWhere(sw.WHERE_(
+                sw.AND(
+                    sw.EQ(EventData.FLD_accountID,acctID),
+                    sw.EQ(EventData.FLD_deviceID ,devID),
+                    sw.LT(EventData.FLD_timestamp,oldTimeSec)
+                )
+            ));
+            dsel.setOrderByFields(EventData.FLD_timestamp);
+            dsel.setOrderAscending(true);
+            if (dsel.supportsLimit()) {
+                dsel.setLimit(maxCount);
+            }
+            long lastTS = 0L;
+            DBConnection dbc = null;
+            Statement    stmt = null;
+            ResultSet    rs   = null;
+            try {
+                dbc  = DBConnection.getDefaultConnection();
+                stmt = dbc.execute(dsel.toString());
+                rs   = stmt.getResultSet();
+                for (long n = 0L; (n < maxCount) && rs.next(); n++) {
+                    lastTS = rs.getLong(EventData.FLD_timestamp);
                 }
+            } catch (SQLException sqe) {
+                throw new DBException("Selecting old EventData chunk", sqe);
+            } finally {
+                if (rs   != null) { try { rs.close();   } catch (Throwable t) {} }
+                if (stmt != null) { try { stmt.close(); } catch (Throwable t) {} }
+                DBConnection.release(dbc);
+            }
+            if (lastTS <= 0L) {
+                return 0L; // nothing to delete
+            } else
+            if (lastTS < (oldTimeSec - 1L)) {
+                delTimeSec = lastTS;
+                inclusive  = true;
             }
-            return 0L;
-        } else
-        if (count < 0L) { // InnoDB
-            // -- unable to count (InnoDB?)
-            Print.logWarn("Unable to count events (InnoDB?) ... continuing ...");
         }
 
         /* SQL statement */
-        // DBDelete: DELETE FROM EventData WHERE ((accountID='acct) AND (deviceID='dev') AND (timestamp<oldTimeSec))
-        DBDelete ddel = new DBDelete(EventData.getFactory());
+        // DBDelete: DELETE FROM EventData WHERE ((accountID='acct) AND (deviceID='dev') AND (timestamp<oldTimeSec)) [ORDER BY timestamp LIMIT n]
         DBWhere dwh = ddel.createDBWhere();
         ddel.setWhere(dwh.WHERE_(
             dwh.AND(
                 dwh.EQ(EventData.FLD_accountID,acctID),
                 dwh.EQ(EventData.FLD_deviceID ,devID),
-                dwh.LT(EventData.FLD_timestamp,oldTimeSec) // non-inclusive
+                inclusive?
+                    dwh.LE(EventData.FLD_timestamp,delTimeSec) :
+                    dwh.LT(EventData.FLD_timestamp,delTimeSec) // non-inclusive
             )
         ));
+        if ((maxCount > 0L) && ddel.supportsLimit()) {
+            ddel.setOrderByFields(EventData.FLD_timestamp);
+            ddel.setLimit(maxCount);
+        }
 
         /* delete */
+        long count = 0L;
         DBConnection dbc = null;
         try {
             dbc = DBConnection.getDefaultConnection();
-            dbc.executeUpdate(ddel.toString());
+            count = dbc.executeUpdate(ddel.toString(), false);
         } catch (SQLException sqe) {
             throw new DBException("Deleting old EventData records", sqe);
         } finally {
             DBConnection.release(dbc);
         }
+        if ((count > 0L) && EventCount.IsEventCountEnabled()) {
+            EventCount.eventsDeletedBefore(acctID, devID, oldTimeSec);
+        }
+        return (count > 0L)? count : 0L;
 
-        /* return count */
-        return count; // -1 for InnoDB
+    }
+
+    /**
+    *** Drops the EventData partitions which contain only events prior to the specified
+    *** time, and which are also prior to the retained-event time of every Account.<br>
+    *** Unless "EventData.partitionKeepLastEvent" is false, partitions containing the last
+    *** event of any Device are retained as well.  Events which are not removed by dropping
+    *** partitions must still be deleted with <code>deleteOldEvents</code>.
+    *** @param oldTimeSec  The time in the past before which (exclusive) events will be deleted.
+    *** @param log         True to log the dropped partitions
+    *** @return The number of partitions dropped, or -1 if the EventData table is not partitioned
+    **/
+    public static int dropOldPartitions(long oldTimeSec, boolean log)
+        throws DBException
+    {
+        DBFactory<EventData> fact = EventData.getFactory();
+        String utableName = fact.getUntranslatedTableName();
+
+        /* partitioned? */
+        if (ListTools.isEmpty(DBPartition.getPartitions(utableName))) {
+            return -1;
+        }
+
+        /* every Account must allow deletion */
+        long cutoffSec = oldTimeSec;
+        for (String acctID : Account.getAllAccounts()) {
+            Account account = Account.getAccount(acctID);
+            if (account != null) {
+                cutoffSec = Math.min(cutoffSec, account.adjustRetainedEventTime(oldTimeSec));
+            }
+        }
+
+        /* keep the last event of every Device */
+        if (RTConfig.getBoolean(DBConfig.PROP_EventData_partitionKeepLastEvent,true)) {
+            // SELECT MIN(lastEventTimestamp) FROM Device WHERE lastEventTimestamp>0
+            String sql = "SELECT MIN(" + Device.FLD_lastEventTimestamp + ") FROM " + 
+                Device.getFactory().getTranslatedTableName() + 
+                " WHERE " + Device.FLD_lastEventTimestamp + ">0";
+            DBConnection dbc  = null;
+            Statement    stmt = null;
+            ResultSet    rs   = null;
+            try {
+                dbc  = DBConnection.getDefaultConnection();
+                stmt = dbc.execute(sql);
+                rs   = stmt.getResultSet();
+                long minLastTime = rs.next()? rs.getLong(1) : 0L;
+                if ((minLastTime > 0L) && (minLastTime < cutoffSec)) {
+                    cutoffSec = minLastTime;
+                }
+            } catch (SQLException sqe) {
+                throw new DBException("Reading minimum Device last event time", sqe);
+            } finally {
+                if (rs   != null) { try { rs.close();   } catch (Throwable t) {} }
+                if (stmt != null) { try { stmt.close(); } catch (Throwable t) {} }
+                DBConnection.release(dbc);
+            }
+        }
+
+        /* drop partitions */
+        java.util.List<DBPartition.Partition> parts = DBPartition.getPartitionsBefore(utableName, cutoffSec);
+        if (log) {
+            Print.sysPrintln("EventData partition cutoff: " + new DateTime(cutoffSec) + " (" + parts.size() + " partitions)");
+            for (DBPartition.Partition p : parts) {
+                Print.sysPrintln("  Dropping partition " + p);
+            }
+        }
+        DBPartition.dropPartitions(utableName, parts);
+
+        /* remove counters for the dropped events */
+        if (!parts.isEmpty() && EventCount.IsEventCountEnabled()) {
+            long dropTime = 0L;
+            for (DBPartition.Partition p : parts) {
+                if (!p.isMaxValue() && (p.getUpperBound() > dropTime)) {
+                    dropTime = p.getUpperBound();
+                }
+            }
+            EventCount.deleteCountsBefore(dropTime);
+        }
+        return parts.size();
 
     }
 
@@ -9231,6 +10140,7 @@ public class EventData
     private static final String ARG_EVENTS_PER_SECOND[] = new String[] { "eventsPerSecond"  , "eps" };
     private static final String ARG_QUERY_ALL[]         = new String[] { "queryAll"                 };
     private static final String ARG_ADDR_LEN[]          = new String[] { "addressLen"               };
+    private static final String ARG_BENCH_VALUES[]      = new String[] { "benchValues"              };
 
     private static void usage()
     {
@@ -9238,6 +10148,7 @@ public class EventData
         Print.sysPrintln("  java ... " + EventData.class.getName() + " {options}");
         Print.sysPrintln("Common Options:");
         Print.sysPrintln("  -eps=<HOURS>   Display event-per-second over the last specified HOURS");
+        Print.sysPrintln("  -benchValues=<COUNT> Measure in-memory field value storage for COUNT records");
         System.exit(1);
     }
 
@@ -9275,6 +10186,42 @@ public class EventData
             System.exit(0);
         }
 
+        /* field value storage benchmark (no DB access) */
+        if (RTConfig.hasProperty(ARG_BENCH_VALUES)) {
+            int count = RTConfig.getInt(ARG_BENCH_VALUES, 1000000);
+            if (count <= 0) { count = 1000000; }
+            EventData.getFactory().getFieldSlots(); // pre-build slot table
+            Runtime rt = Runtime.getRuntime();
+            System.gc();
+            long heap0 = rt.totalMemory() - rt.freeMemory();
+            long nano0 = System.nanoTime();
+            EventData ed[] = new EventData[count];
+            for (int i = 0; i < count; i++) {
+                EventData.Key key = new EventData.Key("bench", "dev", 1400000000L + i, StatusCodes.STATUS_LOCATION);
+                EventData e = new EventData(key);
+                e.setLatitude(  39.0 + ((double)i / (double)count));
+                e.setLongitude(-142.0 + ((double)i / (double)count));
+                e.setSpeedKPH((double)(i % 120));
+                e.setHeading((double)(i % 360));
+                e.setOdometerKM((double)i * 0.1);
+                e.setAddress("Street " + (i % 1000));
+                ed[i] = e;
+            }
+            long nano1 = System.nanoTime();
+            System.gc();
+            long heap1 = rt.totalMemory() - rt.freeMemory();
+            double sum = 0.0;
+            for (int i = 0; i < count; i++) {
+                sum += ed[i].getLatitude() + ed[i].getSpeedKPH() + ed[i].getTimestamp();
+            }
+            long nano2 = System.nanoTime();
+            Print.sysPrintln("Records  : " + count);
+            Print.sysPrintln("Create   : " + ((nano1 - nano0) / 1000000L) + " ms");
+            Print.sysPrintln("Read     : " + ((nano2 - nano1) / 1000000L) + " ms  (checksum " + (long)sum + ")");
+            Print.sysPrintln("Heap     : " + ((heap1 - heap0) / 1024L) + " Kb (" + ((heap1 - heap0) / count) + " bytes/record)");
+            System.exit(0);
+        }
+
         /* address length */
         if (RTConfig.getBoolean(ARG_QUERY_ALL,false)) {
             String addrSizeKey = "db.typeSize.address";
@@ -9297,6 +10244,7 @@ public class EventData
                 false, 
                 EventData.LimitType.FIRST, 0L, true,
                 null);
+            dsel.setOrderByFields(EventData.getFactory().getKeyNames()); // keyset pagination
             try {
                 DBRecordIterator<EventData> dbi = new DBRecordIterator<EventData>(dsel);
                 for (int rc = 1; dbi.hasNext(); rc++) {
@@ -2829,14 +2829,14 @@ public class Geozone
         /* get Geozones */
         Geozone gz[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             gz = DBRecord.select(dsel); // select:DBSelect
         } catch (DBException dbe) {
             Print.logError("Geozone error: " + dbe);
             return null;
         } finally {
             try {
-                DBProvider.unlockTables();
+                DBProvider.unlockReadTables();
             } catch (DBException dbe) {
                 // ignore
             }
@@ -2930,7 +2930,7 @@ public class Geozone
         /* get Geozones */
         Geozone gz[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             gz = DBRecord.select(dsel); // select:DBSelect
         } catch (DBException dbe) {
             Print.logError("Geozone error: " + dbe);
@@ -2938,7 +2938,7 @@ public class Geozone
             throw dbe;
         } finally {
             try {
-                DBProvider.unlockTables();
+                DBProvider.unlockReadTables();
             } catch (DBException dbe) {
                 // ignore
             }
@@ -3045,7 +3045,7 @@ public class Geozone
         /* get Geozones */
         Geozone gz[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             gz = DBRecord.select(dsel); // select:DBSelect
         } catch (DBException dbe) {
             Print.logError("Geozone error: " + dbe);
@@ -3053,7 +3053,7 @@ public class Geozone
             throw dbe;
         } finally {
             try {
-                DBProvider.unlockTables();
+                DBProvider.unlockReadTables();
             } catch (DBException dbe) {
                 // -- ignore
             }
@@ -3185,14 +3185,14 @@ public class Geozone
         /* get Geozones */
         Geozone gz[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             //gz = (Geozone[])DBRecord.select(Geozone.getFactory(), dsel.toString(false));
             gz = DBRecord.select(dsel); // select:DBSelect
         } catch (DBException dbe) {
             throw new DBNotFoundException("Geozone error: " + dbe);
         } finally {
             try {
-                DBProvider.unlockTables();
+                DBProvider.unlockReadTables();
             } catch (DBException dbe) {
                 // ignore
             }
@@ -3252,7 +3252,7 @@ public class Geozone
         /* get clientID Geozones */
         Geozone gz[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             //gz = (Geozone[])DBRecord.select(Geozone.getFactory(), dsel.toString(false));
             gz = DBRecord.select(dsel); // select:DBSelect
         } catch (DBException dbe) {
@@ -3260,7 +3260,7 @@ public class Geozone
             return null;
         } finally {
             try {
-                DBProvider.unlockTables();
+                DBProvider.unlockReadTables();
             } catch (DBException dbe) {
                 // ignore
             }
@@ -3305,7 +3305,7 @@ public class Geozone
         /* get Geozones */
         Geozone gz[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             //gz = (Geozone[])DBRecord.select(Geozone.getFactory(), dsel.toString(false));
             gz = DBRecord.select(dsel); // select:DBSelect
         } catch (DBException dbe) {
@@ -3313,7 +3313,7 @@ public class Geozone
             return null;
         } finally {
             try {
-                DBProvider.unlockTables();
+                DBProvider.unlockReadTables();
             } catch (DBException dbe) {
                 // ignore
             }
@@ -3492,7 +3492,7 @@ public class Geozone
         /* get Geozones */
         Geozone gz[] = null;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             //gz = (Geozone[])DBRecord.select(Geozone.getFactory(), dsel.toString(false));
             gz = DBRecord.select(dsel); // select:DBSelect
         } catch (DBException dbe) {
@@ -3500,7 +3500,7 @@ public class Geozone
             return;
         } finally {
             try {
-                DBProvider.unlockTables();
+                DBProvider.unlockReadTables();
             } catch (DBException dbe) {
                 // ignore
             }
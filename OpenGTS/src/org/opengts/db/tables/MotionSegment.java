@@ -0,0 +1,761 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Materialized trip/stop segments.  Each record represents a single trip
+//  (motion-start to motion-stop), followed by the stop period which ends at the
+//  start of the next trip.  Records are maintained incrementally from
+//  "Device._insertEventData" and may be regenerated with the "-rebuild" option.
+// ----------------------------------------------------------------------------
+package org.opengts.db.tables;
+
+import java.lang.*;
+import java.util.*;
+import java.math.*;
+import java.io.*;
+import java.sql.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.*;
+
+public class MotionSegment
+    extends DeviceRecord<MotionSegment>
+{
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if MotionSegment records should be maintained as events are inserted
+    **/
+    public static boolean IsMotionSegmentEnabled()
+    {
+        if (!RTConfig.getBoolean(DBConfig.PROP_MotionSegment_enabled)) {
+            return false;
+        }
+        if (MotionSegment.tableExists == null) {
+            try {
+                MotionSegment.tableExists = new Boolean(MotionSegment.getFactory().tableExists());
+            } catch (DBException dbe) {
+                Print.logException("Unable to determine if MotionSegment table exists", dbe);
+                MotionSegment.tableExists = Boolean.FALSE;
+            }
+            if (!MotionSegment.tableExists.booleanValue()) {
+                Print.logWarn("MotionSegment table does not exist (trip/stop segments disabled)");
+            }
+        }
+        return MotionSegment.tableExists.booleanValue();
+    }
+    private static Boolean tableExists = null;
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // SQL table definition below
+
+    /* table name */
+    private static final String _TABLE_NAME             = "MotionSegment";
+    public static String TABLE_NAME() { return DBProvider._translateTableName(_TABLE_NAME); }
+
+    /* field definition */
+    public static final String FLD_startTime            = "startTime";
+    public static final String FLD_startLatitude        = "startLatitude";
+    public static final String FLD_startLongitude       = "startLongitude";
+    public static final String FLD_startAddress         = "startAddress";
+    public static final String FLD_startGeozoneID       = "startGeozoneID";
+    public static final String FLD_startOdometerKM      = "startOdometerKM";
+    public static final String FLD_startOdomOfsKM       = "startOdomOfsKM";
+    public static final String FLD_startFuelTotal       = "startFuelTotal";
+    public static final String FLD_stopTime             = "stopTime";
+    public static final String FLD_stopLatitude         = "stopLatitude";
+    public static final String FLD_stopLongitude        = "stopLongitude";
+    public static final String FLD_stopAddress          = "stopAddress";
+    public static final String FLD_stopGeozoneID        = "stopGeozoneID";
+    public static final String FLD_stopOdometerKM       = "stopOdometerKM";
+    public static final String FLD_stopOdomOfsKM        = "stopOdomOfsKM";
+    public static final String FLD_stopFuelTotal        = "stopFuelTotal";
+    public static final String FLD_stopElapsed          = "stopElapsed";
+    private static DBField FieldInfo[] = {
+        // MotionSegment fields
+        newField_accountID(true),
+        newField_deviceID(true),
+        new DBField(FLD_startTime       , Long.TYPE     , DBField.TYPE_UINT32      , "Trip Start Time"      , "key=true"),
+        new DBField(FLD_startLatitude   , Double.TYPE   , DBField.TYPE_DOUBLE      , "Start Latitude"       , "format=#0.00000"),
+        new DBField(FLD_startLongitude  , Double.TYPE   , DBField.TYPE_DOUBLE      , "Start Longitude"      , "format=#0.00000"),
+        new DBField(FLD_startAddress    , String.class  , DBField.TYPE_ADDRESS()   , "Start Address"        , "utf8=true"),
+        new DBField(FLD_startGeozoneID  , String.class  , DBField.TYPE_ZONE_ID()   , "Start Geozone ID"     , ""),
+        new DBField(FLD_startOdometerKM , Double.TYPE   , DBField.TYPE_DOUBLE      , "Start Odometer KM"    , "format=#0.0 units=distance"),
+        new DBField(FLD_startOdomOfsKM  , Double.TYPE   , DBField.TYPE_DOUBLE      , "Start Odometer Offset", "format=#0.0 units=distance"),
+        new DBField(FLD_startFuelTotal  , Double.TYPE   , DBField.TYPE_DOUBLE      , "Start Total Fuel Used", "format=#0.0 units=volume"),
+        new DBField(FLD_stopTime        , Long.TYPE     , DBField.TYPE_UINT32      , "Trip Stop Time"       , ""),
+        new DBField(FLD_stopLatitude    , Double.TYPE   , DBField.TYPE_DOUBLE      , "Stop Latitude"        , "format=#0.00000"),
+        new DBField(FLD_stopLongitude   , Double.TYPE   , DBField.TYPE_DOUBLE      , "Stop Longitude"       , "format=#0.00000"),
+        new DBField(FLD_stopAddress     , String.class  , DBField.TYPE_ADDRESS()   , "Stop Address"         , "utf8=true"),
+        new DBField(FLD_stopGeozoneID   , String.class  , DBField.TYPE_ZONE_ID()   , "Stop Geozone ID"      , ""),
+        new DBField(FLD_stopOdometerKM  , Double.TYPE   , DBField.TYPE_DOUBLE      , "Stop Odometer KM"     , "format=#0.0 units=distance"),
+        new DBField(FLD_stopOdomOfsKM   , Double.TYPE   , DBField.TYPE_DOUBLE      , "Stop Odometer Offset" , "format=#0.0 units=distance"),
+        new DBField(FLD_stopFuelTotal   , Double.TYPE   , DBField.TYPE_DOUBLE      , "Stop Total Fuel Used" , "format=#0.0 units=volume"),
+        new DBField(FLD_stopElapsed     , Long.TYPE     , DBField.TYPE_UINT32      , "Stopped Elapsed Sec"  , ""),
+    };
+
+    /* key class */
+    public static class Key
+        extends DeviceKey<MotionSegment>
+    {
+        public Key() {
+            super();
+        }
+        public Key(String acctId, String devId, long startTime) {
+            super.setFieldValue(FLD_accountID, ((acctId != null)? acctId.toLowerCase() : ""));
+            super.setFieldValue(FLD_deviceID , ((devId  != null)? devId.toLowerCase()  : ""));
+            super.setFieldValue(FLD_startTime, startTime);
+        }
+        public DBFactory<MotionSegment> getFactory() {
+            return MotionSegment.getFactory();
+        }
+    }
+
+    /* factory constructor */
+    private static DBFactory<MotionSegment> factory = null;
+    public static DBFactory<MotionSegment> getFactory()
+    {
+        if (factory == null) {
+            factory = DBFactory.createDBFactory(
+                MotionSegment.TABLE_NAME(),
+                MotionSegment.FieldInfo,
+                DBFactory.KeyType.PRIMARY,
+                MotionSegment.class,
+                MotionSegment.Key.class,
+                false/*editable*/,false/*viewable*/);
+            factory.addParentTable(Account.TABLE_NAME());
+            factory.addParentTable(Device.TABLE_NAME());
+        }
+        return factory;
+    }
+
+    /* Bean instance */
+    public MotionSegment()
+    {
+        super();
+    }
+
+    /* database record */
+    public MotionSegment(MotionSegment.Key key)
+    {
+        super(key);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* table description */
+    public static String getTableDescription(Locale loc)
+    {
+        I18N i18n = I18N.getI18N(MotionSegment.class, loc);
+        return i18n.getString("MotionSegment.description",
+            "This table contains " +
+            "Device trip/stop segments derived from inserted events."
+            );
+    }
+
+    // SQL table definition above
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // Bean access fields below
+
+    public long getStartTime()
+    {
+        Long v = (Long)this.getFieldValue(FLD_startTime);
+        return (v != null)? v.longValue() : 0L;
+    }
+
+    private void setStartTime(long v)
+    {
+        this.setFieldValue(FLD_startTime, v);
+    }
+
+    public GeoPoint getStartGeoPoint()
+    {
+        double lat = this.getFieldValue(FLD_startLatitude , 0.0);
+        double lon = this.getFieldValue(FLD_startLongitude, 0.0);
+        return GeoPoint.isValid(lat,lon)? new GeoPoint(lat,lon) : null;
+    }
+
+    public String getStartAddress()
+    {
+        String v = (String)this.getFieldValue(FLD_startAddress);
+        return StringTools.trim(v);
+    }
+
+    public String getStartGeozoneID()
+    {
+        String v = (String)this.getFieldValue(FLD_startGeozoneID);
+        return StringTools.trim(v);
+    }
+
+    public double getStartOdometerKM()
+    {
+        return this.getFieldValue(FLD_startOdometerKM, 0.0);
+    }
+
+    public double getStartOdomOfsKM()
+    {
+        return this.getFieldValue(FLD_startOdomOfsKM, 0.0);
+    }
+
+    public double getStartFuelTotal()
+    {
+        return this.getFieldValue(FLD_startFuelTotal, 0.0);
+    }
+
+    /**
+    *** Sets the trip start fields from the specified EventData record
+    **/
+    private void setStartEvent(EventData ev, double odomKM)
+    {
+        GeoPoint gp = ev.getGeoPoint();
+        this.setFieldValue(FLD_startLatitude   , (gp != null)? gp.getLatitude()  : 0.0);
+        this.setFieldValue(FLD_startLongitude  , (gp != null)? gp.getLongitude() : 0.0);
+        this.setFieldValue(FLD_startAddress    , StringTools.trim(ev.getAddress()));
+        this.setFieldValue(FLD_startGeozoneID  , StringTools.trim(ev.getGeozoneID()));
+        this.setFieldValue(FLD_startOdometerKM , odomKM);
+        this.setFieldValue(FLD_startOdomOfsKM  , ev.getOdometerOffsetKM(null));
+        this.setFieldValue(FLD_startFuelTotal  , ev.getFieldValue(EventData.FLD_fuelTotal, 0.0));
+    }
+
+    // ------------------------------------------------------------------------
+
+    public long getStopTime()
+    {
+        Long v = (Long)this.getFieldValue(FLD_stopTime);
+        return (v != null)? v.longValue() : 0L;
+    }
+
+    /**
+    *** Returns true if this trip has not yet stopped
+    **/
+    public boolean isOpen()
+    {
+        return (this.getStopTime() <= 0L);
+    }
+
+    public GeoPoint getStopGeoPoint()
+    {
+        double lat = this.getFieldValue(FLD_stopLatitude , 0.0);
+        double lon = this.getFieldValue(FLD_stopLongitude, 0.0);
+        return GeoPoint.isValid(lat,lon)? new GeoPoint(lat,lon) : null;
+    }
+
+    public String getStopAddress()
+    {
+        String v = (String)this.getFieldValue(FLD_stopAddress);
+        return StringTools.trim(v);
+    }
+
+    public String getStopGeozoneID()
+    {
+        String v = (String)this.getFieldValue(FLD_stopGeozoneID);
+        return StringTools.trim(v);
+    }
+
+    public double getStopOdometerKM()
+    {
+        return this.getFieldValue(FLD_stopOdometerKM, 0.0);
+    }
+
+    public double getStopOdomOfsKM()
+    {
+        return this.getFieldValue(FLD_stopOdomOfsKM, 0.0);
+    }
+
+    public double getStopFuelTotal()
+    {
+        return this.getFieldValue(FLD_stopFuelTotal, 0.0);
+    }
+
+    /**
+    *** Sets the trip stop fields from the specified EventData record
+    **/
+    private void setStopEvent(EventData ev, double odomKM)
+    {
+        GeoPoint gp = ev.getGeoPoint();
+        this.setFieldValue(FLD_stopTime        , ev.getTimestamp());
+        this.setFieldValue(FLD_stopLatitude    , (gp != null)? gp.getLatitude()  : 0.0);
+        this.setFieldValue(FLD_stopLongitude   , (gp != null)? gp.getLongitude() : 0.0);
+        this.setFieldValue(FLD_stopAddress     , StringTools.trim(ev.getAddress()));
+        this.setFieldValue(FLD_stopGeozoneID   , StringTools.trim(ev.getGeozoneID()));
+        this.setFieldValue(FLD_stopOdometerKM  , odomKM);
+        this.setFieldValue(FLD_stopOdomOfsKM   , ev.getOdometerOffsetKM(null));
+        this.setFieldValue(FLD_stopFuelTotal   , ev.getFieldValue(EventData.FLD_fuelTotal, 0.0));
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the number of seconds stopped following this trip (0 if still stopped)
+    **/
+    public long getStopElapsed()
+    {
+        Long v = (Long)this.getFieldValue(FLD_stopElapsed);
+        return (v != null)? v.longValue() : 0L;
+    }
+
+    private void setStopElapsed(long v)
+    {
+        this.setFieldValue(FLD_stopElapsed, ((v > 0L)? v : 0L));
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the elapsed driving time (-1 if the trip has not stopped)
+    **/
+    public long getDrivingElapsed()
+    {
+        return this.isOpen()? -1L : (this.getStopTime() - this.getStartTime());
+    }
+
+    /**
+    *** Gets the distance driven in kilometers (-1 if the trip has not stopped)
+    **/
+    public double getDrivingDistanceKM()
+    {
+        return this.isOpen()? -1.0 : (this.getStopOdometerKM() - this.getStartOdometerKM());
+    }
+
+    /**
+    *** Gets the fuel used during this trip in liters (-1 if the trip has not stopped)
+    **/
+    public double getTripFuel()
+    {
+        return this.isOpen()? -1.0 : (this.getStopFuelTotal() - this.getStartFuelTotal());
+    }
+
+    // Bean access fields above
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /* String representation */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(this.getAccountID()).append("/").append(this.getDeviceID()).append(" ");
+        sb.append(new DateTime(this.getStartTime())).append(" ==> ");
+        sb.append(this.isOpen()? "(open)" : (new DateTime(this.getStopTime())).toString());
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns the best available odometer value for the specified event
+    **/
+    private static double _getEventOdometerKM(Device device, EventData ev)
+    {
+        double odomKM = ev.getOdometerKM();
+        if (odomKM <= 0.0) {
+            odomKM = ev.getDistanceKM();
+            if ((odomKM <= 0.0) && (device != null)) {
+                // -- we do not have a valid odometer, use last device odometer
+                odomKM = device.getLastOdometerKM();
+            }
+        }
+        return odomKM;
+    }
+
+    /**
+    *** Gets the last MotionSegment starting at, or before, the specified time
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @param beforeTime The maximum trip start time (inclusive)
+    *** @return The last MotionSegment, or null if none exist
+    **/
+    public static MotionSegment getLastMotionSegment(String acctID, String devID, long beforeTime)
+        throws DBException
+    {
+        MotionSegment ms[] = MotionSegment.getMotionSegments(acctID, devID, -1L, beforeTime, 1L, false);
+        return !ListTools.isEmpty(ms)? ms[0] : null;
+    }
+
+    /**
+    *** Gets the MotionSegments for the specified Device and trip start time range
+    *** @param acctID     The Account ID
+    *** @param devID      The Device ID
+    *** @param timeStart  The minimum trip start time (inclusive, -1 for no minimum)
+    *** @param timeEnd    The maximum trip start time (inclusive, -1 for no maximum)
+    *** @param limit      The maximum number of records to return (-1 for no limit)
+    *** @param ascending  True to sort by ascending start time
+    *** @return The array of MotionSegments
+    **/
+    public static MotionSegment[] getMotionSegments(String acctID, String devID,
+        long timeStart, long timeEnd, long limit, boolean ascending)
+        throws DBException
+    {
+
+        /* invalid account/device? */
+        if (StringTools.isBlank(acctID) || StringTools.isBlank(devID)) {
+            return null;
+        }
+
+        /* where clause */
+        // DBSelect: WHERE ((accountID='acct') AND (deviceID='dev') AND (startTime>=123) AND (startTime<=456)) ORDER BY startTime
+        DBSelect<MotionSegment> dsel = new DBSelect<MotionSegment>(MotionSegment.getFactory());
+        DBWhere dwh = dsel.createDBWhere();
+        dwh.append(dwh.AND(
+            dwh.EQ(FLD_accountID,acctID),
+            dwh.EQ(FLD_deviceID ,devID)
+        ));
+        if (timeStart >= 0L) {
+            dwh.append(dwh.AND_(dwh.GE(FLD_startTime,timeStart)));
+        }
+        if (timeEnd >= 0L) {
+            dwh.append(dwh.AND_(dwh.LE(FLD_startTime,timeEnd)));
+        }
+        dsel.setWhere(dwh.WHERE(dwh.toString()));
+        dsel.setOrderByFields(FLD_startTime);
+        dsel.setOrderAscending(ascending);
+        dsel.setLimit(limit);
+
+        /* select */
+        MotionSegment ms[] = null;
+        try {
+            DBProvider.lockReadTables(TABLE_NAME());
+            ms = DBRecord.select(dsel); // select:DBSelect
+        } finally {
+            DBProvider.unlockReadTables();
+        }
+        return ms;
+
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Updates the MotionSegment records for a motion state change on the specified event.
+    *** Called after the EventData record has been saved.
+    *** @param device   The Device
+    *** @param ev       The EventData record
+    *** @param isStart  True if this event starts a trip
+    *** @param isStop   True if this event stops a trip
+    **/
+    public static void updateMotionSegment(Device device, EventData ev, boolean isStart, boolean isStop)
+        throws DBException
+    {
+        if ((device == null) || (ev == null) || (!isStart && !isStop)) {
+            return;
+        }
+        String acctID = device.getAccountID();
+        String devID  = device.getDeviceID();
+        long   evTime = ev.getTimestamp();
+        double odomKM = MotionSegment._getEventOdometerKM(device, ev);
+
+        /* last segment */
+        MotionSegment last = MotionSegment.getLastMotionSegment(acctID, devID, evTime);
+        if ((last != null) && (last.getStartTime() == evTime)) {
+            // -- already have a segment starting at this event (re-inserted event)
+            if (isStop && last.isOpen()) {
+                // -- zero-length trip, discard
+                last.getRecordKey().delete(false);
+            }
+            return;
+        }
+
+        /* start */
+        if (isStart) {
+            if (last != null) {
+                if (last.isOpen()) {
+                    // -- abnormal start ==> start, treat this start as the stop of the previous trip
+                    last.setStopEvent(ev, odomKM);
+                    last.setStopElapsed(0L);
+                } else
+                if (evTime > last.getStopTime()) {
+                    // -- normal start --> stop ==> start
+                    last.setStopElapsed(evTime - last.getStopTime());
+                }
+                last.save();
+            }
+            MotionSegment.Key key = new MotionSegment.Key(acctID, devID, evTime);
+            MotionSegment ms = key.getDBRecord();
+            ms.setStartEvent(ev, odomKM);
+            ms.setFieldValue(FLD_stopTime, 0L);
+            ms.setStopElapsed(0L);
+            ms.save();
+            return;
+        }
+
+        /* stop */
+        if (isStop) {
+            if ((last != null) && last.isOpen()) {
+                last.setStopEvent(ev, odomKM);
+                last.save();
+            } else {
+                // -- abnormal stop ==> stop, no trip start to close
+            }
+            return;
+        }
+
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Deletes the MotionSegments with a start time within the specified range
+    **/
+    public static void deleteMotionSegments(String acctID, String devID, long timeStart, long timeEnd)
+        throws DBException
+    {
+
+        /* SQL statement */
+        // DBDelete: DELETE FROM MotionSegment WHERE ((accountID='acct') AND (deviceID='dev') AND (startTime>=123) AND (startTime<=456))
+        DBDelete ddel = new DBDelete(MotionSegment.getFactory());
+        DBWhere dwh = ddel.createDBWhere();
+        dwh.append(dwh.AND(
+            dwh.EQ(FLD_accountID,acctID),
+            dwh.EQ(FLD_deviceID ,devID)
+        ));
+        if (timeStart >= 0L) {
+            dwh.append(dwh.AND_(dwh.GE(FLD_startTime,timeStart)));
+        }
+        if (timeEnd >= 0L) {
+            dwh.append(dwh.AND_(dwh.LE(FLD_startTime,timeEnd)));
+        }
+        ddel.setWhere(dwh.WHERE(dwh.toString()));
+
+        /* delete */
+        DBConnection dbc = null;
+        try {
+            dbc = DBConnection.getDefaultConnection();
+            dbc.executeUpdate(ddel.toString());
+        } catch (SQLException sqe) {
+            throw new DBException("Deleting MotionSegment records", sqe);
+        } finally {
+            DBConnection.release(dbc);
+        }
+
+    }
+
+    /**
+    *** Regenerates the MotionSegments for the specified Device and time range from the
+    *** stored EventData records.  The motion start/stop detection mirrors the rules used
+    *** by "Device._insertEventData".
+    *** @param device     The Device
+    *** @param timeStart  The start of the time range (-1 for no minimum)
+    *** @param timeEnd    The end of the time range (-1 for no maximum)
+    *** @return The number of events examined
+    **/
+    public static long rebuildMotionSegments(final Device device, long timeStart, long timeEnd)
+        throws DBException
+    {
+        if (device == null) {
+            throw new DBException("Device not specified");
+        }
+        String acctID = device.getAccountID();
+        String devID  = device.getDeviceID();
+
+        /* remove existing segments in range */
+        MotionSegment.deleteMotionSegments(acctID, devID, timeStart, timeEnd);
+
+        /* initial motion state from prior segment */
+        final int STOPPED = 0, MOVING = 1, UNKNOWN = -1;
+        final int state[] = new int[] { UNKNOWN };
+        if (timeStart > 0L) {
+            MotionSegment prior = MotionSegment.getLastMotionSegment(acctID, devID, timeStart - 1L);
+            if (prior != null) {
+                state[0] = prior.isOpen()? MOVING : STOPPED;
+            }
+        }
+
+        /* replay events */
+        final GeoPoint lastGP[] = new GeoPoint[] { null };
+        final double radiusM = Device.EVENT_START_MOTION_RADIUS_M;
+        return EventData.streamRangeEvents(
+            acctID, devID,
+            timeStart, timeEnd,
+            null/*statusCodes*/,
+            false/*validGPS*/,
+            EventData.LimitType.FIRST, -1L/*limit*/,
+            EventData.DFT_STREAM_CHUNK_SIZE,
+            new DBRecordHandler<EventData>() {
+                public int handleDBRecord(EventData ev) throws DBException {
+                    ev.setDevice(device);
+                    GeoPoint gp = ev.getGeoPoint();
+                    double deltaM = (GeoPoint.isValid(lastGP[0]) && GeoPoint.isValid(gp))?
+                        lastGP[0].metersToPoint(gp) : -1.0;
+                    boolean isStart = false;
+                    boolean isStop  = false;
+                    if (state[0] == MOVING) {
+                        isStop  = ev.isStopEvent(true);
+                    } else
+                    if (state[0] == STOPPED) {
+                        isStart = ((radiusM > 0.0) && (deltaM > radiusM)) || ev.isStartEvent(true);
+                    } else
+                    if ((radiusM > 0.0) && (deltaM > radiusM)) {
+                        isStart = true;
+                    } else
+                    if (ev.isStopEvent(true)) {
+                        isStop  = true;
+                    } else
+                    if (ev.isStartEvent(true)) {
+                        isStart = true;
+                    } else {
+                        isStop  = (ev.getSpeedKPH() <= 0.0);
+                        isStart = !isStop;
+                    }
+                    if (isStart) {
+                        state[0] = MOVING;
+                    } else
+                    if (isStop) {
+                        state[0] = STOPPED;
+                    }
+                    MotionSegment.updateMotionSegment(device, ev, isStart, isStop);
+                    if (GeoPoint.isValid(gp)) {
+                        lastGP[0] = gp;
+                    }
+                    return DBRH_SKIP;
+                }
+            });
+
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final String ARG_ACCOUNT[]   = new String[] { "account", "acct", "a" };
+    private static final String ARG_DEVICE[]    = new String[] { "device" , "dev" , "d" };
+    private static final String ARG_REBUILD[]   = new String[] { "rebuild"              };
+    private static final String ARG_START[]     = new String[] { "start"  , "from"      };
+    private static final String ARG_END[]       = new String[] { "end"    , "to"        };
+    private static final String ARG_LIST[]      = new String[] { "list"                 };
+
+    private static void usage()
+    {
+        Print.sysPrintln("Usage:");
+        Print.sysPrintln("  java ... " + MotionSegment.class.getName() + " {options}");
+        Print.sysPrintln("Options:");
+        Print.sysPrintln("  -account=<id>    Account ID");
+        Print.sysPrintln("  -device=<id>     Device ID (or '*' for all account devices)");
+        Print.sysPrintln("  -start=<time>    Start time (YYYY/MM/DD[/hh:mm:ss], or epoch seconds)");
+        Print.sysPrintln("  -end=<time>      End time (YYYY/MM/DD[/hh:mm:ss], or epoch seconds)");
+        Print.sysPrintln("  -rebuild         Regenerate trip/stop segments for the specified time range");
+        Print.sysPrintln("  -list            List trip/stop segments for the specified time range");
+        System.exit(1);
+    }
+
+    private static long _parseTime(String s, TimeZone tz, long dft)
+    {
+        if (StringTools.isBlank(s)) {
+            return dft;
+        } else
+        if (StringTools.isLong(s,true)) {
+            return StringTools.parseLong(s,dft);
+        } else {
+            try {
+                return DateTime.parseArgumentDate(s,tz).getTimeSec();
+            } catch (DateTime.DateParseException dpe) {
+                Print.logError("Invalid date/time: " + s);
+                return dft;
+            }
+        }
+    }
+
+    public static void main(String argv[])
+    {
+        DBConfig.cmdLineInit(argv,true);
+        String acctID  = RTConfig.getString(ARG_ACCOUNT, "");
+        String devID   = RTConfig.getString(ARG_DEVICE , "");
+
+        /* account */
+        Account account = null;
+        try {
+            account = Account.getAccount(acctID);
+            if (account == null) {
+                Print.sysPrintln("ERROR: Account not found: " + acctID);
+                usage();
+            }
+        } catch (DBException dbe) {
+            Print.logException("Error loading Account: " + acctID, dbe);
+            System.exit(99);
+        }
+        TimeZone tz    = account.getTimeZone(null);
+        long timeStart = MotionSegment._parseTime(RTConfig.getString(ARG_START,null), tz, -1L);
+        long timeEnd   = MotionSegment._parseTime(RTConfig.getString(ARG_END  ,null), tz, -1L);
+
+        /* devices */
+        java.util.List<String> devIDs = new Vector<String>();
+        try {
+            if (devID.equals("*")) {
+                OrderedSet<String> ids = Device.getDeviceIDsForAccount(acctID, null, true);
+                if (ids != null) { devIDs.addAll(ids); }
+            } else
+            if (!StringTools.isBlank(devID)) {
+                devIDs.add(devID);
+            }
+        } catch (DBException dbe) {
+            Print.logException("Error reading Device IDs: " + acctID, dbe);
+            System.exit(99);
+        }
+        if (devIDs.isEmpty()) {
+            Print.sysPrintln("ERROR: Device not specified");
+            usage();
+        }
+
+        /* rebuild */
+        if (RTConfig.getBoolean(ARG_REBUILD,false)) {
+            int rtn = 0;
+            for (String did : devIDs) {
+                try {
+                    Device device = Device.getDevice(account, did);
+                    if (device == null) {
+                        Print.sysPrintln("ERROR: Device not found: " + acctID + "/" + did);
+                        rtn = 1;
+                        continue;
+                    }
+                    long count = MotionSegment.rebuildMotionSegments(device, timeStart, timeEnd);
+                    Print.sysPrintln("Rebuilt segments: " + acctID + "/" + did + " [" + count + " events]");
+                } catch (DBException dbe) {
+                    Print.logException("Error rebuilding segments: " + acctID + "/" + did, dbe);
+                    rtn = 99;
+                }
+            }
+            System.exit(rtn);
+        }
+
+        /* list */
+        if (RTConfig.getBoolean(ARG_LIST,false)) {
+            for (String did : devIDs) {
+                try {
+                    MotionSegment ms[] = MotionSegment.getMotionSegments(acctID, did, timeStart, timeEnd, -1L, true);
+                    Print.sysPrintln("Device: " + acctID + "/" + did + " [" + ListTools.size(ms) + " segments]");
+                    for (int i = 0; i < ListTools.size(ms); i++) {
+                        Print.sysPrintln("  " + ms[i] + "  stopped=" + ms[i].getStopElapsed() + "s");
+                    }
+                } catch (DBException dbe) {
+                    Print.logException("Error listing segments: " + acctID + "/" + did, dbe);
+                    System.exit(99);
+                }
+            }
+            System.exit(0);
+        }
+
+        /* no options specified */
+        Print.sysPrintln("No command-line options specified");
+        usage();
+
+    }
+
+}
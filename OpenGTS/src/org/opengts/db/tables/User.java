@@ -1819,10 +1819,10 @@ public class User
         /* count users */
         long recordCount = 0L;
         try {
-            DBProvider.lockTables(new String[] { TABLE_NAME() }, null);
+            DBProvider.lockReadTables(TABLE_NAME());
             recordCount = DBRecord.getRecordCount(dsel);
         } finally {
-            DBProvider.unlockTables();
+            DBProvider.unlockReadTables();
         }
         return recordCount;
 
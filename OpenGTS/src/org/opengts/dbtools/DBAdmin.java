@@ -880,6 +880,20 @@ public class DBAdmin
     public  static final String ARG_NOINSERT[]  = new String[] { "noInsert"  };
     public  static final String ARG_OVERWRITE[] = new String[] { "overwrite" };
     public  static final String ARG_BEAN[]      = new String[] { "bean"      };
+    public  static final String ARG_PARTITION[] = new String[] { "partition" };
+    public  static final String ARG_SINCE[]     = new String[] { "since"     };
+    public  static final String ARG_BEFORE[]    = new String[] { "before"    };
+    public  static final String ARG_CONFIRM[]   = new String[] { "confirm"   };
+    public  static final String ARG_PDUMP[]     = new String[] { "pdump"     };
+    public  static final String ARG_PLOAD[]     = new String[] { "pload"     };
+    public  static final String ARG_THREADS[]   = new String[] { "threads"   };
+    public  static final String ARG_SEGMENTBY[] = new String[] { "segmentBy" };
+    public  static final String ARG_INTERVAL[]  = new String[] { "interval"  };
+    public  static final String ARG_BATCH[]     = new String[] { "batch"     };
+    public  static final String ARG_LOADDATA[]  = new String[] { "loadData"  };
+    public  static final String ARG_RESTART[]   = new String[] { "restart"   };
+    public  static final String ARG_NDXADVISE[] = new String[] { "indexAdvisor" };
+    public  static final String ARG_CREATENDX[] = new String[] { "createIndexes" };
   //public  static final String ARG_HIBXML[]    = new String[] { "hibxml"    };
   //public  static final String ARG_RELOAD[]    = new String[] { "reload"    };
 
@@ -900,6 +914,8 @@ public class DBAdmin
         // -tables
         // -dump=<table> -dir=<Destination_Dir>
         // -load=<table> -dir=<Source_Dir>
+        // -pdump=<table> -dir=<Destination_Dir>
+        // -pload=<table> -dir=<Source_Dir>
         // -drop=<table>
 
         /* if specified, the argument specified for "-db" MUST match 'DBProvider.getDBName()' */
@@ -1419,6 +1435,48 @@ public class DBAdmin
             }
         }
         
+        /* partition: time-range partition management */
+        // bin/exe DBAdmin -partition=list  -tableName=EventData
+        // bin/exe DBAdmin -partition=init  -tableName=EventData [-since=<date>]
+        // bin/exe DBAdmin -partition=add   -tableName=EventData
+        // bin/exe DBAdmin -partition=drop  -tableName=EventData -before=<date> -confirm
+        if (RTConfig.hasProperty(ARG_PARTITION)) {
+            execCmd++;
+            DBAdminExec rtn = DBAdmin._partitionCommand(
+                RTConfig.getString(ARG_PARTITION,"list"), 
+                RTConfig.getString(ARG_TABLENAME,null));
+            if (!rtn.equals(DBAdminExec.OK)) {
+                return rtn;
+            }
+        }
+
+        /* pdump/pload: parallel, segmented, resumable table dump/load */
+        // bin/exe DBAdmin -pdump=<Table>[,<Table>] -dir=<Dir> [-threads=<N>] [-segmentBy=key|time] [-interval=<days>] [-restart]
+        // bin/exe DBAdmin -pload=<Table>[,<Table>] -dir=<Dir> [-threads=<N>] [-batch=<rows>] [-loadData] [-overwrite] [-restart]
+        if (RTConfig.hasProperty(ARG_PDUMP) || RTConfig.hasProperty(ARG_PLOAD)) {
+            execCmd++;
+            boolean isDump = RTConfig.hasProperty(ARG_PDUMP);
+            String tables[] = StringTools.split(RTConfig.getString(isDump? ARG_PDUMP : ARG_PLOAD,""),',');
+            DBAdminExec rtn = DBAdmin._transferCommand(isDump, tables, isDump? dumpDir : loadDir);
+            if (!rtn.equals(DBAdminExec.OK)) {
+                return rtn;
+            }
+        }
+
+        /* indexAdvisor: report missing indexes and unsupported query shapes */
+        // bin/exe DBAdmin -indexAdvisor[=<Table>[,<Table>]] [-createIndexes]
+        if (RTConfig.hasProperty(ARG_NDXADVISE)) {
+            execCmd++;
+            String tables = RTConfig.getString(ARG_NDXADVISE,"").trim();
+            DBAdminExec rtn = DBAdmin._indexAdvisorCommand(
+                (tables.equals("") || tables.equalsIgnoreCase("true") || tables.equalsIgnoreCase("all"))? 
+                    null : StringTools.split(tables,','),
+                RTConfig.getBoolean(ARG_CREATENDX,false));
+            if (!rtn.equals(DBAdminExec.OK)) {
+                return rtn;
+            }
+        }
+
         /* hibxml: print Hibernate XML for specified table */
         // bin/exe DBAdmin -hibxml=table
         // [This option is currently experimental]
@@ -1442,6 +1500,321 @@ public class DBAdmin
 
     }
 
+    /**
+    *** Executes the specified time-range partition command
+    *** @param cmd         The partition command ("list", "init", "add", "drop")
+    *** @param utableName  The untranslated table name
+    *** @return The DBAdminExec status
+    **/
+    private static DBAdminExec _partitionCommand(String cmd, String utableName)
+    {
+
+        /* table */
+        DBFactory<? extends DBRecord> fact = DBAdmin.getTableFactory(utableName);
+        if (fact == null) {
+            Print.logError("'-partition' requires a valid '-tableName'");
+            return DBAdminExec.ERROR;
+        } else
+        if (!DBPartition.isSupported()) {
+            Print.logError("Partitioning is not supported by the current DBProvider");
+            return DBAdminExec.ERROR;
+        }
+        utableName = fact.getUntranslatedTableName();
+        DBPartition partition = fact.getPartition();
+
+        try {
+            if (cmd.equalsIgnoreCase("list")) {
+                // -- list existing partitions
+                java.util.List<DBPartition.Partition> parts = DBPartition.getPartitions(utableName);
+                Print.sysPrintln("Table '" + utableName + "': " + 
+                    (ListTools.isEmpty(parts)? "not partitioned" : (parts.size() + " partitions")));
+                for (DBPartition.Partition p : parts) {
+                    Print.sysPrintln("  " + p);
+                }
+                return DBAdminExec.OK;
+            } else
+            if (cmd.equalsIgnoreCase("drop")) {
+                // -- drop partitions entirely prior to the specified time (ignores Account retention)
+                DateTime before = null;
+                try {
+                    before = DateTime.parseArgumentDate(RTConfig.getString(ARG_BEFORE,""), DateTime.GMT);
+                } catch (DateTime.DateParseException dpe) {
+                    before = null;
+                }
+                if (before == null) {
+                    Print.logError("'-partition=drop' requires a valid '-before' date");
+                    return DBAdminExec.ERROR;
+                }
+                java.util.List<DBPartition.Partition> parts = DBPartition.getPartitionsBefore(utableName, before.getTimeSec());
+                for (DBPartition.Partition p : parts) {
+                    Print.sysPrintln("  Dropping " + p);
+                }
+                if (!RTConfig.getBoolean(ARG_CONFIRM,false)) {
+                    Print.sysPrintln("ERROR: Missing '-confirm', aborting drop ...");
+                    return DBAdminExec.ERROR;
+                }
+                DBPartition.dropPartitions(utableName, parts);
+                Print.sysPrintln("Dropped " + parts.size() + " partitions");
+                return DBAdminExec.OK;
+            }
+
+            /* commands below require a configured partition interval */
+            if ((partition == null) || !partition.isEnabled()) {
+                Print.logError("Partitioning not configured for table: " + utableName);
+                return DBAdminExec.ERROR;
+            }
+            if (cmd.equalsIgnoreCase("init")) {
+                // -- partition an existing table (rebuilds the table)
+                long sinceSec = DateTime.getCurrentTimeSec() - DateTime.DaySeconds(365);
+                if (RTConfig.hasProperty(ARG_SINCE)) {
+                    try {
+                        sinceSec = DateTime.parseArgumentDate(RTConfig.getString(ARG_SINCE,""), DateTime.GMT).getTimeSec();
+                    } catch (Throwable th) {
+                        Print.logError("Invalid '-since' date");
+                        return DBAdminExec.ERROR;
+                    }
+                }
+                Print.sysPrintln("Partitioning table '" + utableName + "' (" + partition.getInterval() + ") ...");
+                partition.partitionTable(utableName, sinceSec);
+                Print.sysPrintln("... done");
+                return DBAdminExec.OK;
+            } else
+            if (cmd.equalsIgnoreCase("add")) {
+                // -- add future partitions
+                int count = partition.addFuturePartitions(utableName);
+                Print.sysPrintln("Added " + count + " partitions to table '" + utableName + "'");
+                return DBAdminExec.OK;
+            } else {
+                Print.logError("Invalid partition command: " + cmd);
+                return DBAdminExec.ERROR;
+            }
+        } catch (DBException dbe) {
+            Print.logException("Partition command error: " + utableName, dbe);
+            return DBAdminExec.ERROR;
+        }
+
+    }
+
+    /**
+    *** Executes a parallel table dump or load
+    *** @param isDump  True to dump, false to load
+    *** @param tables  The untranslated table names
+    *** @param dir     The dump/load directory
+    *** @return The DBAdminExec status
+    **/
+    private static DBAdminExec _transferCommand(boolean isDump, String tables[], File dir)
+    {
+        if (ListTools.isEmpty(tables)) {
+            Print.logError("No tables specified");
+            return DBAdminExec.ERROR;
+        } else
+        if (isDump && !dir.isDirectory() && !dir.mkdirs()) {
+            Print.logError("Unable to create directory: " + dir);
+            return DBAdminExec.ERROR;
+        }
+        for (String utableName : tables) {
+            DBFactory<? extends DBRecord> fact = DBAdmin.getTableFactory(StringTools.trim(utableName));
+            if (fact == null) {
+                Print.logError("Table not found: " + utableName);
+                return DBAdminExec.ERROR;
+            }
+            DBTableTransfer xfer = new DBTableTransfer(fact, dir);
+            if (RTConfig.hasProperty(ARG_THREADS)) {
+                xfer.setThreads(RTConfig.getInt(ARG_THREADS,4));
+            }
+            xfer.setSegmentBy(
+                DBTableTransfer.SegmentBy.parse(RTConfig.getString(ARG_SEGMENTBY,"key")),
+                RTConfig.getInt(ARG_INTERVAL,30));
+            xfer.setBatchSize(RTConfig.getInt(ARG_BATCH,500));
+            xfer.setLoadData(RTConfig.getBoolean(ARG_LOADDATA,false));
+            xfer.setOverwrite(RTConfig.getBoolean(ARG_OVERWRITE,false));
+            boolean restart = RTConfig.getBoolean(ARG_RESTART,false);
+            try {
+                long count = isDump? xfer.dump(restart) : xfer.load(restart);
+                Print.sysPrintln((isDump? "Dumped " : "Loaded ") + count + " records: " + fact.getUntranslatedTableName());
+            } catch (DBException dbe) {
+                Print.logException((isDump? "Dump" : "Load") + " error: " + utableName, dbe);
+                return DBAdminExec.ERROR;
+            }
+        }
+        return DBAdminExec.OK;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Index advisor.  For each specified table, reports the defined (and configured) alternate
+    *** indexes which do not exist in the table, and checks the query shapes provided by the 
+    *** table DBFactory (see "DBFactory.QueryShapeProvider") for index support using "EXPLAIN"
+    *** (MySQL and PostgreSQL only).
+    *** @param tables        The tables to check (null for all tables)
+    *** @param createMissing True to create the missing configured indexes
+    *** @return The DBAdminExec status
+    **/
+    private static DBAdminExec _indexAdvisorCommand(String tables[], boolean createMissing)
+    {
+        DBAdminExec rtn = DBAdminExec.OK;
+
+        /* tables */
+        java.util.List<DBFactory<? extends DBRecord>> factList = new Vector<DBFactory<? extends DBRecord>>();
+        if (ListTools.isEmpty(tables)) {
+            factList.addAll(DBAdmin.getTableFactoryMap().values());
+        } else {
+            for (String utableName : tables) {
+                DBFactory<? extends DBRecord> fact = DBAdmin.getTableFactory(StringTools.trim(utableName));
+                if (fact == null) {
+                    Print.logError("Table not found: " + utableName);
+                    return DBAdminExec.ERROR;
+                }
+                factList.add(fact);
+            }
+        }
+
+        /* check tables */
+        for (DBFactory<? extends DBRecord> fact : factList) {
+            String utableName = fact.getUntranslatedTableName();
+            try {
+                if (!fact.tableExists()) {
+                    continue;
+                }
+            } catch (DBException dbe) {
+                Print.logError("Unable to check table existence: " + utableName);
+                rtn = DBAdminExec.ERROR;
+                continue;
+            }
+            Print.sysPrintln("");
+            Print.sysPrintln("Table: " + utableName);
+
+            /* defined alternate indexes */
+            Set<String> actualIndexes = null;
+            try {
+                DBTableIndexMap indexMap = DBProvider.getActualTableIndexMap(utableName);
+                actualIndexes = (indexMap != null)? indexMap.getIndexes() : null;
+            } catch (DBException dbe) {
+                Print.logWarn("Unable to retrieve index information: " + dbe.getMessage());
+            }
+            DBAlternateIndex altIndexes[] = fact.getAlternateIndexes();
+            if ((actualIndexes != null) && (altIndexes != null)) {
+                boolean created = false;
+                for (DBAlternateIndex altIndex : altIndexes) {
+                    String indexName = altIndex.getIndexName();
+                    if (actualIndexes.contains(indexName) || 
+                        actualIndexes.contains(utableName + "_" + indexName)) { // Derby
+                        Print.sysPrintln("  Index   " + indexName + " [" + altIndex.getFieldNames() + "]: OK");
+                        continue;
+                    }
+                    Print.sysPrintln("  Index   " + indexName + " [" + altIndex.getFieldNames() + "]: MISSING" +
+                        (altIndex.isConfigured()? " (configured)" : ""));
+                    if (createMissing && altIndex.isConfigured()) {
+                        try {
+                            DBProvider.createAlternateIndex(utableName, altIndex);
+                            Print.sysPrintln("          Created index " + indexName);
+                            created = true;
+                        } catch (SQLException sqe) {
+                            Print.logException("Unable to create index: " + utableName + "." + indexName, sqe);
+                            rtn = DBAdminExec.ERROR;
+                        } catch (DBException dbe) {
+                            Print.logException("Unable to create index: " + utableName + "." + indexName, dbe);
+                            rtn = DBAdminExec.ERROR;
+                        }
+                    }
+                }
+                if (created) {
+                    fact.clearExistingColumnMap();
+                }
+            }
+
+            /* query shapes */
+            OrderedMap<String,DBSelect<?>> shapes = fact.getQueryShapes();
+            if (shapes != null) {
+                for (String shapeName : shapes.keySet()) {
+                    DBSelect<?> dsel = shapes.get(shapeName);
+                    if (dsel != null) {
+                        DBAdmin._explainQueryShape(shapeName, dsel);
+                    }
+                }
+            }
+
+        }
+
+        return rtn;
+    }
+
+    /**
+    *** Displays the "EXPLAIN" query plan summary for the specified query shape, and whether
+    *** the query is supported by an index.
+    **/
+    private static void _explainQueryShape(String shapeName, DBSelect<?> dsel)
+    {
+        DBProvider dbp = DBProvider.getProvider();
+        int        dbid = dbp.getID();
+        String     sql  = dsel.toString();
+        if ((dbid != DBProvider.DB_MYSQL) && (dbid != DBProvider.DB_POSTGRESQL)) {
+            Print.sysPrintln("  Query   " + shapeName + ": EXPLAIN not supported by " + dbp.getJDBCName());
+            Print.sysPrintln("          " + sql);
+            return;
+        }
+
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute("EXPLAIN " + sql);
+            rs   = stmt.getResultSet();
+            java.util.List<String> issues = new Vector<String>();
+            StringBuffer plan = new StringBuffer();
+            while (rs.next()) {
+                if (dbid == DBProvider.DB_MYSQL) {
+                    // id, select_type, table, [partitions,] type, possible_keys, key, key_len, ref, rows, [filtered,] Extra
+                    String type  = StringTools.trim(rs.getString("type"));
+                    String key   = StringTools.trim(rs.getString("key"));
+                    String rows  = StringTools.trim(rs.getString("rows"));
+                    String extra = StringTools.trim(rs.getString("Extra"));
+                    if (plan.length() > 0) { plan.append("; "); }
+                    plan.append("type=").append(type);
+                    plan.append(", key=").append(StringTools.isBlank(key)? "none" : key);
+                    plan.append(", rows=").append(rows);
+                    if (!StringTools.isBlank(extra)) {
+                        plan.append(", ").append(extra);
+                    }
+                    if (StringTools.isBlank(key)) {
+                        issues.add("no index used");
+                    }
+                    if (type.equalsIgnoreCase("ALL") || type.equalsIgnoreCase("index")) {
+                        issues.add("full " + (type.equalsIgnoreCase("ALL")? "table" : "index") + " scan");
+                    }
+                    if (extra.indexOf("Using filesort") >= 0) {
+                        issues.add("filesort");
+                    }
+                } else {
+                    // PostgreSQL: "QUERY PLAN" text lines
+                    String line = StringTools.trim(rs.getString(1));
+                    if (plan.length() > 0) { plan.append("; "); }
+                    plan.append(line);
+                    if (line.indexOf("Seq Scan") >= 0) {
+                        issues.add("sequential scan");
+                    }
+                }
+            }
+            boolean covering = (dbid == DBProvider.DB_MYSQL)?
+                (plan.indexOf("Using index") >= 0) && (plan.indexOf("Using index condition") < 0) :
+                (plan.indexOf("Index Only Scan") >= 0);
+            Print.sysPrintln("  Query   " + shapeName + ": " + 
+                (issues.isEmpty()? (covering? "OK (covering index)" : "OK") : ("NO INDEX SUPPORT (" + StringTools.join(issues,", ") + ")")));
+            Print.sysPrintln("          " + sql);
+            Print.sysPrintln("          " + plan);
+        } catch (SQLException sqe) {
+            Print.logError("EXPLAIN failed: " + shapeName + " [" + sqe.getMessage() + "]");
+        } catch (DBException dbe) {
+            Print.logError("EXPLAIN failed: " + shapeName + " [" + dbe.getMessage() + "]");
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Main entry point
     *** @param argv  The command-line arguments
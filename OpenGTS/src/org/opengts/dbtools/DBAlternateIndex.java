@@ -30,7 +30,12 @@ import java.sql.*;
 import org.opengts.util.*;
 
 /**
-*** <code>DBAlternateIndex</code> holds information for a single defined alternate index.
+*** <code>DBAlternateIndex</code> holds information for a single defined alternate index.<br>
+*** Alternate indexes are normally defined by the "altkey" attribute of the table fields,
+*** in which case the index columns are in field definition order.  Composite/covering
+*** indexes may also be configured per deployment with the runtime property
+*** "&lt;Table&gt;.index.&lt;name&gt;=&lt;column&gt;,...[:&lt;coveredColumn&gt;,...]", in which case
+*** the index columns are in the specified order, followed by the covered columns.
 **/
 
 public class DBAlternateIndex
@@ -47,6 +52,9 @@ public class DBAlternateIndex
     
     private boolean                 isUnique    = false;
 
+    private boolean                 configured  = false;    // defined by "<Table>.index.<name>"
+    private java.util.List<DBField> include     = null;     // covered (non-key) columns
+
     /**
     *** Constructor
     *** @param factory   The DBFactory instance
@@ -135,6 +143,75 @@ public class DBAlternateIndex
         return this.fld;
     }
     
+    /**
+    *** Returns true if the specified field is part of this index (including covered fields)
+    *** @param fldName  The field name
+    *** @return True if the specified field is part of this index
+    **/
+    public boolean hasField(String fldName)
+    {
+        for (DBField f : this.keys) {
+            if (f.getName().equals(fldName)) { return true; }
+        }
+        if (this.include != null) {
+            for (DBField f : this.include) {
+                if (f.getName().equals(fldName)) { return true; }
+            }
+        }
+        return false;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Sets this index as configured by the "&lt;Table&gt;.index.&lt;name&gt;" runtime property
+    *** @param configured  True if this index is configured
+    **/
+    public void setConfigured(boolean configured)
+    {
+        this.configured = configured;
+    }
+
+    /**
+    *** Returns true if this index was configured by the "&lt;Table&gt;.index.&lt;name&gt;"
+    *** runtime property (rather than by the field "altkey" attributes)
+    *** @return True if this index is configured
+    **/
+    public boolean isConfigured()
+    {
+        return this.configured;
+    }
+
+    /**
+    *** Adds the specified covered (non-key) field to this index.  On providers which
+    *** support "INCLUDE" (PostgreSQL, SQLServer) the field is included in the index leaf
+    *** entries only, otherwise the field is appended to the index key columns.
+    *** @param field  The DBField to cover
+    **/
+    public void addIncludeField(DBField field)
+    {
+        if (field != null) {
+            if (this.include == null) {
+                this.include = new Vector<DBField>();
+            }
+            this.include.add(field);
+        }
+    }
+
+    /**
+    *** Returns an array of covered (non-key) DBFields for this index
+    *** @return An array of covered DBFields (does not return null)
+    **/
+    public DBField[] getIncludeFields()
+    {
+        if (this.include == null) {
+            return new DBField[0];
+        }
+        return this.include.toArray(new DBField[this.include.size()]);
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Returns a String list of comma-separated field names
     *** @return A String containing a comma-separated list of field names
@@ -147,6 +224,13 @@ public class DBAlternateIndex
             if (sb.length() > 0) { sb.append(","); }
             sb.append(f.getName());
         }
+        if (this.include != null) {
+            sb.append(":");
+            for (int i = 0; i < this.include.size(); i++) {
+                if (i > 0) { sb.append(","); }
+                sb.append(this.include.get(i).getName());
+            }
+        }
         return sb.toString();
     }
 
@@ -0,0 +1,224 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Immutable insert/update column plan for a DBFactory.  The plan contains the
+//  fields which exist in the table (in field order), their quoted column names,
+//  and their DBFieldValues slot indexes, so that the "INSERT"/"UPDATE" statements
+//  can be assembled without per-field column name translation/quoting and
+//  existing-column lookups.  A plan is rebuilt whenever the cached existing
+//  column map of the DBFactory is cleared or refreshed.
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>DBColumnPlan</code> contains the insertable/updatable columns of a DBFactory.
+**/
+
+public class DBColumnPlan
+{
+
+    // ------------------------------------------------------------------------
+
+    private Map<String,DBField> existingColumns = null;     // map from which this plan was built
+    private DBFieldSlots        slots           = null;
+
+    private DBField             insertFields[]  = null;
+    private int                 insertSlots[]   = null;
+    private String              insertColumns   = null;     // "(col,col,...)"
+
+    private DBField             updateFields[]  = null;
+    private int                 updateSlots[]   = null;
+    private String              updateColumns[] = null;     // quoted column names
+
+    private DBField             autoIncrField   = null;
+
+    /**
+    *** Constructor
+    *** @param fact             The DBFactory
+    *** @param existingColumns  The map of existing table columns (null to include all fields)
+    **/
+    public DBColumnPlan(DBFactory<?> fact, Map<String,DBField> existingColumns)
+    {
+        this.existingColumns = existingColumns;
+        this.slots           = fact.getFieldSlots();
+        String xtableName    = fact.getTranslatedTableName();
+        DBProvider dbp       = DBProvider.getProvider();
+        DBField field[]      = fact.getFields();
+
+        java.util.List<DBField> insFlds = new Vector<DBField>();
+        java.util.List<DBField> updFlds = new Vector<DBField>();
+        StringBuffer colSB = new StringBuffer();
+        for (int i = 0; i < field.length; i++) {
+            String fldName = field[i].getName();
+            if (field[i].isAutoIncrement()) {
+                // we skip 'auto_increment' fields on INSERT/UPDATE
+                if (this.autoIncrField == null) {
+                    this.autoIncrField = field[i]; // "There must be only one"
+                }
+                continue;
+            }
+            // -- insert: existing columns (translated name)
+            String xFldName = DBProvider.translateColumnName(fldName);
+            if ((existingColumns == null) || existingColumns.containsKey(xFldName)) {
+                if (!insFlds.isEmpty()) { colSB.append(","); }
+                colSB.append(dbp.quoteColumnName(fldName));
+                insFlds.add(field[i]);
+            } else
+            if (fact.logMissingColumnWarning()) {
+                // ignore non-existant columns
+                Print.logWarn("Insert: Field does not exist: " + xtableName + "." + fldName + " [ignored]");
+            }
+            // -- update: existing columns
+            if ((existingColumns == null) || existingColumns.containsKey(fldName)) {
+                updFlds.add(field[i]);
+            } else
+            if (fact.logMissingColumnWarning()) {
+                // ignore non-existant columns (ie. field defined in Java class, but not in table)
+                Print.logWarn("Update: Field does not exist: " + xtableName + "." + fldName + " [ignored]");
+            }
+        }
+
+        /* insert */
+        this.insertFields  = insFlds.toArray(new DBField[insFlds.size()]);
+        this.insertSlots   = new int[this.insertFields.length];
+        for (int i = 0; i < this.insertFields.length; i++) {
+            this.insertSlots[i] = this.slots.getSlot(this.insertFields[i].getName());
+        }
+        this.insertColumns = "(" + colSB + ")";
+
+        /* update */
+        this.updateFields  = updFlds.toArray(new DBField[updFlds.size()]);
+        this.updateSlots   = new int[this.updateFields.length];
+        this.updateColumns = new String[this.updateFields.length];
+        for (int i = 0; i < this.updateFields.length; i++) {
+            this.updateSlots[i]   = this.slots.getSlot(this.updateFields[i].getName());
+            this.updateColumns[i] = dbp.quoteColumnName(this.updateFields[i].getName());
+        }
+
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if this plan was built from the specified existing column map
+    **/
+    public boolean isPlanFor(Map<String,DBField> existingColumns)
+    {
+        return (this.existingColumns == existingColumns);
+    }
+
+    /**
+    *** Gets the auto-increment field, or null if the table has no auto-increment field
+    **/
+    public DBField getAutoIncrementField()
+    {
+        return this.autoIncrField;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the number of inserted columns
+    **/
+    public int getInsertCount()
+    {
+        return this.insertFields.length;
+    }
+
+    /**
+    *** Gets the inserted column list "(col,col,...)"
+    **/
+    public String getInsertColumns()
+    {
+        return this.insertColumns;
+    }
+
+    /**
+    *** Gets the inserted field at the specified index
+    **/
+    public DBField getInsertField(int ndx)
+    {
+        return this.insertFields[ndx];
+    }
+
+    /**
+    *** Gets the quoted SQL value of the inserted field at the specified index
+    **/
+    public String getInsertQValue(DBFieldValues fieldValues, int ndx)
+    {
+        return this._getQValue(fieldValues, this.insertFields[ndx], this.insertSlots[ndx]);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the number of updatable columns
+    **/
+    public int getUpdateCount()
+    {
+        return this.updateFields.length;
+    }
+
+    /**
+    *** Gets the updatable field at the specified index
+    **/
+    public DBField getUpdateField(int ndx)
+    {
+        return this.updateFields[ndx];
+    }
+
+    /**
+    *** Gets the quoted column name of the updatable field at the specified index
+    **/
+    public String getUpdateColumn(int ndx)
+    {
+        return this.updateColumns[ndx];
+    }
+
+    /**
+    *** Gets the quoted SQL value of the updatable field at the specified index
+    **/
+    public String getUpdateQValue(DBFieldValues fieldValues, int ndx)
+    {
+        return this._getQValue(fieldValues, this.updateFields[ndx], this.updateSlots[ndx]);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* gets the quoted field value (or default value), by slot if the slot table is shared */
+    private String _getQValue(DBFieldValues fieldValues, DBField fld, int slot)
+    {
+        Object fldVal;
+        if ((slot >= 0) && (fieldValues.getFieldSlots() == this.slots)) {
+            fldVal = fieldValues.getFieldValue(slot);
+            if (fldVal == null) {
+                fldVal = fld.getDefaultValue();
+            }
+        } else {
+            fldVal = fieldValues.getFieldValue(fld.getName(), true);
+        }
+        return fld.getQValue(fldVal);
+    }
+
+}
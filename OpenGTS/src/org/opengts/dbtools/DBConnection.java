@@ -45,6 +45,7 @@ package org.opengts.dbtools;
 
 import java.lang.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.io.*;
 
 import java.sql.*; // DriverManager
@@ -391,6 +392,8 @@ public class DBConnection
     
     private static Object ConnectionPoolLock = new Object();
 
+    private static final Metrics.Histogram METRIC_LEASE_WAIT = Metrics.getHistogram("db_connection_wait_seconds");
+
     /**
     *** Gets a DBConnection based on the specified URI 
     *** @param uri  The connection URI
@@ -404,6 +407,7 @@ public class DBConnection
             DBConnection dbc = null;
             String dbConnMsg = null;
             Throwable previousLock = null;
+            long leaseStartNS = System.nanoTime();
             synchronized (DBConnection.ConnectionPoolLock) {
                 dbc = DBConnection._getDBConnection(uri);
                 if (dbc == null) {
@@ -421,6 +425,9 @@ public class DBConnection
                 }
                 previousLock = dbc._lock();
             }
+            if (Metrics.isEnabled()) {
+                METRIC_LEASE_WAIT.recordSince(leaseStartNS);
+            }
             if (dbConnMsg != null) {
                 Print.logDebug(dbConnMsg);
             }
@@ -443,6 +450,18 @@ public class DBConnection
         String pwd = DBProvider.getDBPassword();
         return DBConnection.getDBConnection(uri, usr, pwd);
     }
+
+    /**
+    *** Gets a DBConnection for a read-only query.  If 'allowReplica' is true, and a read 
+    *** replica is configured and available (see <code>DBReplica</code>), a replica 
+    *** connection is returned.  Otherwise the default (primary) connection is returned.
+    *** @param allowReplica  True if the query may be executed on a read replica
+    **/
+    public static DBConnection getReadConnection(boolean allowReplica)
+    {
+        DBConnection dbc = allowReplica? DBReplica.getConnection() : null;
+        return (dbc != null)? dbc : DBConnection.getDefaultConnection();
+    }
     
     public static boolean isLocked(DBConnection dbc)
     {
@@ -505,6 +524,8 @@ public class DBConnection
     private int         lockCount           = 0;
     private Throwable   lastLockTrace       = null;
 
+    private boolean     replica             = false;
+
     /**
     *** Constructor
     *** @param uri  The connection URI
@@ -528,6 +549,24 @@ public class DBConnection
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Sets this DBConnection as a read replica connection
+    **/
+    protected void setReplica(boolean replica)
+    {
+        this.replica = replica;
+    }
+
+    /**
+    *** Returns true if this DBConnection is a read replica connection
+    **/
+    public boolean isReplica()
+    {
+        return this.replica;
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Gets the DBConnection lock count (should be either '0' or '1')
     **/
@@ -649,7 +688,7 @@ public class DBConnection
             String user = this.getUser();
             if (StringTools.isBlank(user)) {
                 //Print.logInfo("Obtaining connection without a user/password ...");
-                if (USE_DRIVER_MANAGER || (DBConnection.DBDataSource == null)) {
+                if (USE_DRIVER_MANAGER || (DBConnection.DBDataSource == null) || this.replica) {
                     this.dbConnection = DriverManager.getConnection(this.getUri());
                 } else {
                     this.dbConnection = DBConnection.DBDataSource.getConnection();
@@ -657,7 +696,8 @@ public class DBConnection
             } else {
                 String pass = this.getPassword();
                 //Print.logInfo("User: " + user + " Password: " + pass);
-                if (USE_DRIVER_MANAGER || (DBConnection.DBDataSource == null)) {
+                if (USE_DRIVER_MANAGER || (DBConnection.DBDataSource == null) || this.replica) {
+                    // -- the DataSource only provides primary connections
                     this.dbConnection = DriverManager.getConnection(this.getUri(), user, pass);
                 } else {
                     //this.dbConnection = DBConnection.DBDataSource.getConnection(user, pass);
@@ -869,10 +909,12 @@ public class DBConnection
         throws SQLException
     {
         Statement stmt = null;
+        long startNS = System.nanoTime();
         try {
             LastSQLExecuted = sql;
             stmt = this.createStatement(rowByRow); // may throw SQLException
             stmt.execute(sql); // eg. "SELECT * FROM <table>"
+            DBConnection._recordSQLTime(sql, startNS);
             return stmt;
         } catch (SQLException sqe) { // CommunicationsException?
             // -- close Statement if an exception occurs (we won't get another chance to close it later)
@@ -921,10 +963,12 @@ public class DBConnection
     {
         Statement stmt = null;
         ResultSet rs   = null;
+        long startNS = System.nanoTime();
         try {
             LastSQLExecuted = sql;
             stmt = this.createStatement(); // may throw SQLException
             rs = stmt.executeQuery(sql);
+            DBConnection._recordSQLTime(sql, startNS);
             return rs; // TODO: close 'stmt'?
         } catch (SQLException sqe) { // CommunicationsException?
             // -- close ResultSet if an exception occurs (we won't get another chance to close it later)
@@ -954,13 +998,17 @@ public class DBConnection
     *** @param sql  The String SQL statement to execute
     *** @param rtnAutoIncrVal If auto-generated fields (ie. "auto_increment")
     ***        should be returned
-    *** @return The generated auto increment value or -1
+    *** @return The generated auto increment value or -1 (if 'rtnAutoIncrVal' is false,
+    ***         the number of rows affected is returned)
     *** @throws SQLException  If an SQL error occurs
     *** @throws DBException   If a database error occurs
     **/
     public long executeUpdate(String sql, boolean rtnAutoIncrVal)
         throws SQLException, DBException
     {
+        if (!this.replica) {
+            DBReplica.markWrite(); // read-your-writes
+        }
         try {
             if (ShowExecutedSQL) { 
                 Print.logInfo("SQL: " + sql); 
@@ -1008,11 +1056,13 @@ public class DBConnection
     {
         Statement stmt = null;
         ResultSet rs = null;
+        long startNS = System.nanoTime();
         try {
             LastSQLExecuted = sql;
             stmt = this.createStatement(); // may throw SQLException
             if (rtnAutoIncrVal) {
                 stmt.executeUpdate(sql, Statement.RETURN_GENERATED_KEYS);
+                DBConnection._recordSQLTime(sql, startNS);
                 rs = stmt.getGeneratedKeys();
                 if (rs.next()) {
                     return rs.getLong(1);
@@ -1021,8 +1071,9 @@ public class DBConnection
                     return -1L;
                 }
             } else {
-                stmt.executeUpdate(sql); // known to throw IOException
-                return -1L;
+                int count = stmt.executeUpdate(sql); // known to throw IOException
+                DBConnection._recordSQLTime(sql, startNS);
+                return (long)count;
             }
         } catch (SQLException sqe) {
             throw sqe;
@@ -1035,4 +1086,73 @@ public class DBConnection
 
     // ------------------------------------------------------------------------
 
+    // ------------------------------------------------------------------------
+
+    private static final ConcurrentHashMap<String,Metrics.Histogram> sqlTimeMetrics =
+        new ConcurrentHashMap<String,Metrics.Histogram>();
+
+    /**
+    *** Records the execution time of the specified SQL statement, per table and operation
+    *** @param sql      The executed SQL statement
+    *** @param startNS  The <code>System.nanoTime()</code> at which execution started
+    **/
+    private static void _recordSQLTime(String sql, long startNS)
+    {
+        if (!Metrics.isEnabled()) {
+            return;
+        }
+        long deltaNS = System.nanoTime() - startNS;
+        String op    = DBConnection._getSQLOperation(sql);
+        String table = DBConnection._getSQLTableName(sql);
+        String key   = op + ":" + table;
+        Metrics.Histogram h = sqlTimeMetrics.get(key);
+        if (h == null) {
+            h = Metrics.getHistogram("db_sql_seconds", "table", table, "op", op);
+            sqlTimeMetrics.putIfAbsent(key, h);
+        }
+        h.record(deltaNS);
+    }
+
+    /**
+    *** Returns the (lowercase) leading SQL keyword of the specified statement ("select", "insert", ...)
+    **/
+    private static String _getSQLOperation(String sql)
+    {
+        int len = (sql != null)? sql.length() : 0;
+        int s   = 0;
+        while ((s < len) && Character.isWhitespace(sql.charAt(s))) { s++; }
+        int e   = s;
+        while ((e < len) && Character.isLetter(sql.charAt(e))) { e++; }
+        return (e > s)? sql.substring(s,e).toLowerCase() : "other";
+    }
+
+    /**
+    *** Returns the name of the first table referenced by the specified SQL statement
+    *** (the name following the first "FROM", "INTO", or "UPDATE" keyword), or "other"
+    *** if no table name could be found.
+    **/
+    private static String _getSQLTableName(String sql)
+    {
+        if (sql == null) {
+            return "other";
+        }
+        String SQL = sql.length() > 512? sql.substring(0,512) : sql;
+        String upr = SQL.toUpperCase();
+        int p = -1;
+        for (String kw : new String[] { "FROM ", "INTO ", "UPDATE " }) {
+            int k = upr.indexOf(kw);
+            if ((k >= 0) && ((k == 0) || !Character.isLetterOrDigit(upr.charAt(k-1))) && ((p < 0) || (k < p))) {
+                p = k + kw.length();
+            }
+        }
+        if (p < 0) {
+            return "other";
+        }
+        int len = SQL.length();
+        while ((p < len) && (Character.isWhitespace(SQL.charAt(p)) || (SQL.charAt(p) == '`'))) { p++; }
+        int e = p;
+        while ((e < len) && (Character.isLetterOrDigit(SQL.charAt(e)) || (SQL.charAt(e) == '_') || (SQL.charAt(e) == '.'))) { e++; }
+        return (e > p)? SQL.substring(p,e) : "other";
+    }
+
 }
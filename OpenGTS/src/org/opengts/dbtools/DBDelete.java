@@ -52,6 +52,9 @@ public class DBDelete
     private String    utableName      = null;
     private String    where           = null;
 
+    private String    orderByFields[] = null;
+    private long      limit           = 0L;
+
     /**
     *** Constructor
     *** @param fact The table DBFactory
@@ -168,6 +171,49 @@ public class DBDelete
 
     // ------------------------------------------------------------------------
 
+    /** 
+    *** Returns true if the DBProvider supports "ORDER BY ... LIMIT" on a DELETE statement
+    *** (currently MySQL only)
+    *** @return True if the DBProvider supports a DELETE LIMIT clause
+    **/
+    public boolean supportsLimit()
+    {
+        return (DBProvider.getProvider().getID() == DBProvider.DB_MYSQL);
+    }
+
+    /**
+    *** Sets the order-by fields (ignored if the DBProvider does not support a DELETE LIMIT)
+    *** @param obf The field names by which the deleted records will be ordered
+    **/
+    public void setOrderByFields(String... obf)
+    {
+        this.orderByFields = ((obf != null) && (obf.length > 0))? obf : null;
+    }
+
+    /**
+    *** Sets the maximum number of records to delete (ignored if the DBProvider does not 
+    *** support a DELETE LIMIT)
+    *** @param limit  The record limit
+    **/
+    public void setLimit(long limit)
+    {
+        this.limit = (limit > 0L)? limit : 0L;
+        if ((this.limit > 0L) && !this.supportsLimit()) {
+            Print.logWarn("DELETE LIMIT not supported by DBProvider: " + this.limit);
+        }
+    }
+
+    /**
+    *** Returns true if a limit has been defined
+    *** @return True if a limit has been defined
+    **/
+    public boolean hasLimit()
+    {
+        return (this.limit > 0L);
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Returns the DELETE statement for this DBDelete
     *** @return The DELETE statement for this DBDelete
@@ -188,6 +234,21 @@ public class DBDelete
             sb.append(" ");
             sb.append(this.getWhere());
         }
+
+        /* ORDER BY/LIMIT (MySQL only) */
+        if (this.supportsLimit()) {
+            DBProvider dbp = DBProvider.getProvider();
+            if (this.orderByFields != null) {
+                sb.append(" ORDER BY ");
+                for (int i = 0; i < this.orderByFields.length; i++) {
+                    if (i > 0) { sb.append(","); }
+                    sb.append(dbp.quoteColumnName(this.orderByFields[i]));
+                }
+            }
+            if (this.hasLimit()) {
+                sb.append(" LIMIT ").append(this.limit);
+            }
+        }
         
         return sb.toString();
     }
@@ -349,10 +349,12 @@ public class DBFactory<gDBR extends DBRecord>
     private Object                                  existingFieldLock   = new Object();
     private DBField                                 existingField[]     = null;
     private Map<String,DBField>                     existingFieldMap    = null;
+    private volatile DBColumnPlan                   columnPlan          = null;     // insert/update columns
 
     private OrderedMap<String,DBField>              fieldMap            = null;
     private boolean                                 fieldArrayReady     = false;
     private DBField                                 fieldArray[]        = null;     // optimization
+    private volatile DBFieldSlots                   fieldSlots          = null;     // value storage layout
 
     private boolean                                 editable            = true;
     private boolean                                 viewable            = true;
@@ -365,6 +367,10 @@ public class DBFactory<gDBR extends DBRecord>
     private boolean                                 logMissingColumns   = true; // default log
 
     private boolean                                 allowInnoDBCOUNT    = true; // allow "COUNT(*)" for InnoDB
+    private DBPartition                             partition           = null; // time-range partitioning
+
+    private QueryShapeProvider                      queryShapes         = null; // index advisor query shapes
+    private volatile Set<String>                    actualIndexNames    = null; // cached existing index names
 
     // ------------------------------------------------------------------------
  
@@ -539,9 +545,14 @@ public class DBFactory<gDBR extends DBRecord>
         }
         this.priKeys = pkList.toArray(new DBField[pkList.size()]);
 
+        /* configured composite/covering indexes */
+        this._addConfiguredIndexes();
+
         /* force creation of field array now */
         this.fieldArray = null;
         this.fieldArrayReady = false;
+        this.fieldSlots = null;
+        this.columnPlan = null;
         this.getFields();
 
         /* set "logMissingColumns" default */
@@ -630,7 +641,43 @@ public class DBFactory<gDBR extends DBRecord>
         synchronized (this.existingFieldLock) {
             this.existingField = null;
             this.existingFieldMap = null;
+            this.columnPlan = null;
+        }
+        this.actualIndexNames = null;
+    }
+
+    /**
+    *** Gets the insert/update column plan for the existing columns of this DBFactory.
+    *** The plan is rebuilt when the existing column map is cleared or refreshed.
+    *** @return The DBColumnPlan
+    *** @throws DBException   If a database error occurs
+    **/
+    public DBColumnPlan getColumnPlan()
+        throws DBException
+    {
+        Map<String,DBField> existingColumns = this.getExistingColumnMap(false);
+        DBColumnPlan plan = this.columnPlan;
+        if ((plan == null) || !plan.isPlanFor(existingColumns)) {
+            plan = new DBColumnPlan(this, existingColumns);
+            this.columnPlan = plan;
         }
+        return plan;
+    }
+
+    /**
+    *** Gets the insert/update column plan for the specified existing columns.  The cached
+    *** plan is returned if it was built from the specified map, otherwise a new plan is 
+    *** built (but not cached, so that the cached plan for the existing columns is retained).
+    *** @param existingColumns The map of existing table columns (null to include all fields)
+    *** @return The DBColumnPlan
+    **/
+    public DBColumnPlan getColumnPlan(Map<String,DBField> existingColumns)
+    {
+        DBColumnPlan plan = this.columnPlan;
+        if ((plan != null) && plan.isPlanFor(existingColumns)) {
+            return plan;
+        }
+        return new DBColumnPlan(this, existingColumns);
     }
     
     /**
@@ -672,6 +719,7 @@ public class DBFactory<gDBR extends DBRecord>
             if (update || (this.existingField == null)) {
                 // get fields (may throw DBException)
                 this.existingFieldMap = null;
+                this.columnPlan = null;
                 this.existingField = DBProvider.getActualTableFields(this.getUntranslatedTableName());
             }
         }
@@ -866,16 +914,16 @@ public class DBFactory<gDBR extends DBRecord>
                 priKeyMismatchColumns.add(colDefined[i]);
                 columnsOK = false;
             } else
-            if (existingField.hasMissingAlternateIndexes(colDefined[i].getAlternateIndexes())) {
+            if (existingField.hasMissingAlternateIndexes(this._getDefinedAlternateIndexes(colDefined[i]))) {
                 // existing field is missing some alternate keys
                 if (displayErrors) {
-                    String altKeys = StringTools.join(existingField.getMissingAlternateIndexes(colDefined[i].getAlternateIndexes()),",");
+                    String altKeys = StringTools.join(existingField.getMissingAlternateIndexes(this._getDefinedAlternateIndexes(colDefined[i])),",");
                     Print.logInfo("ERROR - " + utableName + ": Column '" + columnName + "' missing Alternate key ["+altKeys+"]");
                 }
                 altKeyMismatchColumns.add(colDefined[i]);
                 columnsOK = false;
             } else
-            if (existingField.hasExtraAlternateIndexes(colDefined[i].getAlternateIndexes())) {
+            if (existingField.hasExtraAlternateIndexes(this._getDefinedAlternateIndexes(colDefined[i]))) {
                 // existing field has some extra alternate keys
                 if (displayWarnings) { // displayErrors/displayWarnings
                     String altKeys = StringTools.join(existingField.getAlternateIndexes(),",");
@@ -1037,6 +1085,37 @@ public class DBFactory<gDBR extends DBRecord>
         return this.fieldArray;
     }
 
+    /**
+    *** Returns the field slot table used by DBFieldValues to store field values
+    *** in primitive arrays.  Slots are assigned in the order returned by "getFields()".
+    *** @return The DBFieldSlots for this DBFactory
+    **/
+    public DBFieldSlots getFieldSlots()
+    {
+        // Note: this method is called for each new DBFieldValues instance
+        DBFieldSlots slots = this.fieldSlots;
+        if (slots == null) {
+            DBField flds[] = this.getFields();
+            synchronized (this.fieldMap) {
+                if (this.fieldSlots == null) { // test again inside lock
+                    this.fieldSlots = new DBFieldSlots(flds);
+                }
+                slots = this.fieldSlots;
+            }
+        }
+        return slots;
+    }
+
+    /**
+    *** Returns the slot index of the specified field name
+    *** @param fldName  The field name
+    *** @return The slot index, or -1 if the field is not defined by this DBFactory
+    **/
+    public int getFieldSlot(String fldName)
+    {
+        return this.getFieldSlots().getSlot(fldName);
+    }
+
     /**
     *** Returns a set of DBFields defined by this DBFactory
     *** @param fieldNames  A set of field names representing fields to return (null for all)
@@ -1533,6 +1612,84 @@ public class DBFactory<gDBR extends DBRecord>
 
     // ------------------------------------------------------------------------
     
+    /**
+    *** Adds the composite/covering indexes configured for this table with the runtime
+    *** property "&lt;Table&gt;.index.&lt;name&gt;=&lt;column&gt;,...[:&lt;coveredColumn&gt;,...]"
+    **/
+    private void _addConfiguredIndexes()
+    {
+        String prefix = this.utableName + RTKey._DB_INDEX_;
+        Set<String> keys = RTConfig.getPropertyKeys(prefix);
+        if (ListTools.isEmpty(keys)) {
+            return;
+        }
+        for (String key : keys) {
+            String indexName = key.substring(prefix.length());
+            String spec      = RTConfig.getString(key, "").trim();
+            if (StringTools.isBlank(indexName) || StringTools.isBlank(spec)) {
+                continue;
+            } else
+            if ((this.altIndexMap != null) && this.altIndexMap.containsKey(indexName)) {
+                Print.logWarn("Configured index already defined: " + this.utableName + "." + indexName + " [ignored]");
+                continue;
+            }
+            int    p        = spec.indexOf(':');
+            String keyFld[] = StringTools.parseStringArray((p >= 0)? spec.substring(0,p) : spec, ',');
+            String incFld[] = (p >= 0)? StringTools.parseStringArray(spec.substring(p+1), ',') : new String[0];
+            DBAlternateIndex altKey = new DBAlternateIndex(this, indexName);
+            altKey.setConfigured(true);
+            boolean ok = !ListTools.isEmpty(keyFld);
+            for (int i = 0; ok && (i < keyFld.length); i++) {
+                DBField fld = this.fieldMap.get(keyFld[i].trim());
+                if (fld == null) {
+                    Print.logError("Configured index column not found: " + this.utableName + "." + indexName + " [" + keyFld[i] + "]");
+                    ok = false;
+                } else {
+                    altKey.addField(fld);
+                }
+            }
+            for (int i = 0; ok && (i < incFld.length); i++) {
+                DBField fld = this.fieldMap.get(incFld[i].trim());
+                if (fld == null) {
+                    Print.logError("Configured index column not found: " + this.utableName + "." + indexName + " [" + incFld[i] + "]");
+                    ok = false;
+                } else {
+                    altKey.addIncludeField(fld);
+                }
+            }
+            if (ok) {
+                if (this.altIndexMap == null) {
+                    this.altIndexMap = new OrderedMap<String,DBAlternateIndex>();
+                }
+                this.altIndexMap.put(indexName, altKey);
+            }
+        }
+    }
+
+    /**
+    *** Gets the names of the alternate indexes which are expected to contain the specified 
+    *** field (the field "altkey" indexes, and the configured indexes containing the field)
+    **/
+    private String[] _getDefinedAlternateIndexes(DBField fld)
+    {
+        String fldAlt[] = fld.getAlternateIndexes();
+        if (this.altIndexMap == null) {
+            return fldAlt;
+        }
+        java.util.List<String> list = null;
+        for (DBAlternateIndex ndx : this.altIndexMap.values()) {
+            // (covered columns are also reported by the index metadata)
+            if (ndx.isConfigured() && ndx.hasField(fld.getName())) {
+                if (list == null) {
+                    list = new Vector<String>();
+                    if (fldAlt != null) { list.addAll(Arrays.asList(fldAlt)); }
+                }
+                list.add(ndx.getIndexName());
+            }
+        }
+        return (list != null)? list.toArray(new String[list.size()]) : fldAlt;
+    }
+
     /**
     *** Returns the number of alternate indexes defined for this table
     *** @return The number of alternate indexes defined for this table
@@ -2246,6 +2403,7 @@ public class DBFactory<gDBR extends DBRecord>
         throws DBException
     {
         String utableName = this.getUntranslatedTableName();
+        this.actualIndexNames = null;
 
         /* drop all alternate indexes */
         try {
@@ -3435,6 +3593,92 @@ public class DBFactory<gDBR extends DBRecord>
         }
     }
 
+    /**
+    *** Sets the time-range partitioning used when creating this table
+    *** @param partition  The partitioning specification (null for none)
+    **/
+    public void setPartition(DBPartition partition)
+    {
+        this.partition = partition;
+    }
+
+    /**
+    *** Gets the time-range partitioning used when creating this table
+    *** @return The partitioning specification, or null if none has been specified
+    **/
+    public DBPartition getPartition()
+    {
+        return this.partition;
+    }
+
+    /**
+    *** Returns true if time-range partitioning has been enabled for this table
+    **/
+    public boolean hasPartition()
+    {
+        return (this.partition != null) && this.partition.isEnabled();
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** QueryShapeProvider interface.<br>
+    *** Provides representative DBSelect statements for the common access patterns of a table,
+    *** which are used by the index advisor ("DBAdmin -indexAdvisor") to check index support.
+    **/
+    public interface QueryShapeProvider
+    {
+        public OrderedMap<String,DBSelect<?>> getQueryShapes();
+    }
+
+    /**
+    *** Sets the query shape provider for this table
+    *** @param qsp  The QueryShapeProvider
+    **/
+    public void setQueryShapeProvider(QueryShapeProvider qsp)
+    {
+        this.queryShapes = qsp;
+    }
+
+    /**
+    *** Gets the representative query shapes for this table (name to DBSelect)
+    *** @return The query shapes, or null if no QueryShapeProvider has been set
+    **/
+    public OrderedMap<String,DBSelect<?>> getQueryShapes()
+    {
+        return (this.queryShapes != null)? this.queryShapes.getQueryShapes() : null;
+    }
+
+    /**
+    *** Returns true if the specified index currently exists in the table represented by
+    *** this DBFactory.  The existing index names are cached until the existing column map
+    *** is cleared, or the alternate indexes are recreated.
+    *** @param indexName  The index name
+    *** @return True if the index exists, false otherwise (or if the indexes could not be read)
+    **/
+    public boolean hasActualIndex(String indexName)
+    {
+        if (StringTools.isBlank(indexName)) {
+            return false;
+        }
+        Set<String> ndxNames = this.actualIndexNames;
+        if (ndxNames == null) {
+            ndxNames = new HashSet<String>();
+            try {
+                DBTableIndexMap indexMap = DBProvider.getActualTableIndexMap(this.getUntranslatedTableName());
+                if ((indexMap != null) && (indexMap.getIndexes() != null)) {
+                    ndxNames.addAll(indexMap.getIndexes());
+                }
+            } catch (DBException dbe) {
+                Print.logWarn("Unable to retrieve index information: " + dbe.getMessage());
+            }
+            this.actualIndexNames = ndxNames;
+        }
+        return ndxNames.contains(indexName);
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Return true if this DBFactory suports efficient records countins.
     **/
@@ -0,0 +1,200 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Immutable field slot table shared by all DBFieldValues instances of a
+//  DBFactory.  Each field is assigned a slot, and each slot is assigned a
+//  position within one of the primitive 'long[]', 'double[]', or 'Object[]'
+//  value arrays held by DBFieldValues.
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>DBFieldSlots</code> maps the fields of a DBFactory to value storage slots.
+**/
+
+public class DBFieldSlots
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final int    KIND_OBJECT     = 0;
+    public  static final int    KIND_BOOLEAN    = 1;    // stored in 'long[]'
+    public  static final int    KIND_INTEGER    = 2;    // stored in 'long[]'
+    public  static final int    KIND_LONG       = 3;    // stored in 'long[]'
+    public  static final int    KIND_FLOAT      = 4;    // stored in 'double[]'
+    public  static final int    KIND_DOUBLE     = 5;    // stored in 'double[]'
+
+    /**
+    *** Returns the storage kind for the specified field
+    **/
+    public static int GetKind(DBField fld)
+    {
+        if (fld == null) {
+            return KIND_OBJECT;
+        } else
+        if (fld.isTypeBoolean()) {
+            return KIND_BOOLEAN;
+        } else
+        if (fld.isTypeInteger()) {
+            return KIND_INTEGER;
+        } else
+        if (fld.isTypeLong()) {
+            return KIND_LONG;
+        } else
+        if (fld.isTypeFloat()) {
+            return KIND_FLOAT;
+        } else
+        if (fld.isTypeDouble()) {
+            return KIND_DOUBLE;
+        } else {
+            return KIND_OBJECT;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    private DBField             fields[]        = null;
+    private int                 kind[]          = null;
+    private int                 store[]         = null;
+    private int                 longCount       = 0;
+    private int                 doubleCount     = 0;
+    private int                 objectCount     = 0;
+    private Map<String,Integer> nameMap         = null;
+    private Map<String,String>  caseMap         = null;
+
+    /**
+    *** Constructor
+    *** @param flds  The DBFields for which slots are assigned (in slot order)
+    **/
+    public DBFieldSlots(DBField flds[])
+    {
+        int len = (flds != null)? flds.length : 0;
+        this.fields  = new DBField[len];
+        this.kind    = new int[len];
+        this.store   = new int[len];
+        this.nameMap = new HashMap<String,Integer>(len * 2);
+        this.caseMap = new HashMap<String,String>(len * 2);
+        for (int s = 0; s < len; s++) {
+            DBField fld = flds[s];
+            this.fields[s] = fld;
+            this.kind[s]   = DBFieldSlots.GetKind(fld);
+            switch (this.kind[s]) {
+                case KIND_BOOLEAN:
+                case KIND_INTEGER:
+                case KIND_LONG:
+                    this.store[s] = this.longCount++;
+                    break;
+                case KIND_FLOAT:
+                case KIND_DOUBLE:
+                    this.store[s] = this.doubleCount++;
+                    break;
+                default:
+                    this.store[s] = this.objectCount++;
+                    break;
+            }
+            Integer slot = new Integer(s);
+            String  name = fld.getName();
+            String  tran = DBProvider.translateColumnName(name);
+            this.nameMap.put(name, slot);
+            if (!tran.equals(name)) {
+                this.nameMap.put(tran, slot);
+            }
+            this.caseMap.put(tran.toLowerCase(), tran);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the number of slots
+    **/
+    public int getSlotCount()
+    {
+        return this.fields.length;
+    }
+
+    /**
+    *** Gets the slot for the specified field name
+    *** @param fldName  The field name
+    *** @return The slot index, or -1 if the field is not defined
+    **/
+    public int getSlot(String fldName)
+    {
+        if (fldName == null) {
+            return -1;
+        }
+        Integer slot = this.nameMap.get(fldName);
+        return (slot != null)? slot.intValue() : -1;
+    }
+
+    /**
+    *** Gets the DBField for the specified slot
+    **/
+    public DBField getField(int slot)
+    {
+        return this.fields[slot];
+    }
+
+    /**
+    *** Gets the storage kind for the specified slot
+    **/
+    public int getKind(int slot)
+    {
+        return this.kind[slot];
+    }
+
+    /**
+    *** Gets the position of the specified slot within its value array
+    **/
+    public int getStoreIndex(int slot)
+    {
+        return this.store[slot];
+    }
+
+    /**
+    *** Gets the properly cased (translated) field name for the specified case-insensitive name
+    **/
+    public String getFieldName(String fldName)
+    {
+        return (fldName != null)? this.caseMap.get(fldName.toLowerCase()) : null;
+    }
+
+    // ------------------------------------------------------------------------
+
+    public int getLongCount()
+    {
+        return this.longCount;
+    }
+
+    public int getDoubleCount()
+    {
+        return this.doubleCount;
+    }
+
+    public int getObjectCount()
+    {
+        return this.objectCount;
+    }
+
+}
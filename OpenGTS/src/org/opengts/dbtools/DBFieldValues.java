@@ -81,9 +81,16 @@ public class DBFieldValues
     private String                      name            = "";
 
     private DBRecordKey                 recordKey       = null;
-    private OrderedMap<String,Object>   valueMap        = null;
-    private OrderedMap<String,DBField>  fieldMap        = null;
-    private Map<String,String>          caseMap         = null; // order is not important
+
+    private DBFieldSlots                slots           = null; // shared by all instances of the DBFactory
+    private boolean                     keyMask[]       = null; // non-null if only key fields are defined
+    private long                        longVals[]      = null; // Boolean/Integer/Long values
+    private double                      doubleVals[]    = null; // Float/Double values
+    private Object                      objectVals[]    = null; // all other values
+    private long                        setBits[]       = null; // slot has been assigned a value
+    private long                        nullBits[]      = null; // slot has been assigned 'null'
+    private long                        unloadedBits[]  = null; // slot not loaded by a projection (null if none)
+    private OrderedMap<String,Object>   extraMap        = null; // values for fields not in the slot table
 
     private DBFieldValues               fieldDelegate   = null;
 
@@ -94,9 +101,7 @@ public class DBFieldValues
     **/
     private DBFieldValues()
     {
-        this.valueMap  = new OrderedMap<String,Object>();
-        this.fieldMap  = new OrderedMap<String,DBField>();
-        this.caseMap   = new HashMap<String,String>();
+        super();
     }
 
     /**
@@ -118,16 +123,25 @@ public class DBFieldValues
         this.recordKey = rcdKey;
         this.fieldDelegate = delegate; // may be null
 
-        /* get fields (key fields only, if delegate is specified) */
-        DBField fld[] = (this.fieldDelegate == null)? 
-            rcdKey.getFields()    : // no field delegate
-            rcdKey.getKeyFields();  // field delegate
+        /* value storage for all fields of this table */
+        this.slots      = rcdKey.getFactory().getFieldSlots();
+        this.longVals   = new long[this.slots.getLongCount()];
+        this.doubleVals = new double[this.slots.getDoubleCount()];
+        this.objectVals = new Object[this.slots.getObjectCount()];
+        int bitLen      = (this.slots.getSlotCount() + 63) >> 6;
+        this.setBits    = new long[bitLen];
+        this.nullBits   = new long[bitLen];
 
-        /* add fields to this instance */
-        for (int i = 0; i < fld.length; i++) {
-            String fldName = DBProvider.translateColumnName(fld[i].getName());
-            this.fieldMap.put(fldName, fld[i]);
-            this.caseMap.put(fldName.toLowerCase(),fldName);
+        /* defined fields (key fields only, if delegate is specified) */
+        if (this.fieldDelegate != null) {
+            DBField keyFld[] = rcdKey.getKeyFields();
+            this.keyMask = new boolean[this.slots.getSlotCount()];
+            for (int i = 0; i < keyFld.length; i++) {
+                int slot = this.slots.getSlot(keyFld[i].getName());
+                if (slot >= 0) {
+                    this.keyMask[slot] = true;
+                }
+            }
         }
 
     }
@@ -344,8 +358,15 @@ public class DBFieldValues
 
         /* store value */
         String fldName = fld.getName();
-        Object oldVal = this._getFieldValue(fldName, true);
-        this.valueMap.put(fldName, newVal);
+        int slot = this.slots.getSlot(fldName);
+        Object oldVal = this._isSlotUnloaded(slot)? null : this._getFieldValue(fldName, true);
+        if (slot >= 0) {
+            this._storeSlotValue(slot, newVal);
+        } else {
+            // not defined by the DBFactory (should not occur)
+            if (this.extraMap == null) { this.extraMap = new OrderedMap<String,Object>(); }
+            this.extraMap.put(fldName, newVal);
+        }
 
         /* also set delegate */
         if (this.fieldDelegate != null) {
@@ -767,7 +788,11 @@ public class DBFieldValues
     public String getFieldName(String fldName)
     {
         if (fldName != null) {
-            return this.caseMap.get(fldName.toLowerCase());
+            String fn = this.slots.getFieldName(fldName);
+            if ((fn != null) && (this.keyMask != null) && !this.keyMask[this.slots.getSlot(fn)]) {
+                return null; // not a key field
+            }
+            return fn;
         } else {
             return null;
         }
@@ -786,7 +811,15 @@ public class DBFieldValues
             return false;
         } else {
             String fn = DBProvider.translateColumnName(fldName);
-            return this.fieldMap.containsKey(fn);
+            int slot = this.slots.getSlot(fn);
+            if (slot < 0) {
+                return false;
+            } else
+            if (this.keyMask != null) {
+                return this.keyMask[slot];
+            } else {
+                return true;
+            }
         }
     }
 
@@ -802,8 +835,17 @@ public class DBFieldValues
             // no field name, no field value
             return false;
         } else
-        if (this.valueMap.containsKey(fldName)) {
-            // found in this value map
+        if (this._isSlotUnloaded(this.slots.getSlot(fldName))) {
+            // not yet loaded
+            this._loadUnloadedFields(this.slots.getSlot(fldName));
+            return this.hasFieldValue(fldName);
+        } else
+        if (this._isSlotSet(this.slots.getSlot(fldName))) {
+            // found in this value set
+            return true;
+        } else
+        if ((this.extraMap != null) && this.extraMap.containsKey(fldName)) {
+            // found in the extra value map
             return true;
         } else
         if (this.fieldDelegate != null) {
@@ -832,7 +874,13 @@ public class DBFieldValues
         }
 
         /* get value, return if found */
-        Object val = this.valueMap.get(fldName);
+        int slot = this.slots.getSlot(fldName);
+        if (this._isSlotUnloaded(slot)) {
+            this._loadUnloadedFields(slot);
+        }
+        Object val = (slot >= 0)? 
+            this._getSlotValue(slot) :
+            ((this.extraMap != null)? this.extraMap.get(fldName) : null);
         if (val != null) {
             // field value found
             //Print.logInfo("("+this.getName() + ") " + fldName + " value: " + val);
@@ -959,6 +1007,388 @@ public class DBFieldValues
         return DBFieldValues.toStringValue(val);
     }
 
+    // ------------------------------------------------------------------------
+    // Partially loaded (projected) records
+
+    /**
+    *** Marks all fields other than the specified loaded fields (and the primary key
+    *** fields) as "unloaded".  Accessing the value of an unloaded field will first
+    *** load the remaining unloaded fields from the DB (see "DBRecord.isPartial").
+    *** @param fldList  The fields which have been loaded (null to mark all fields loaded)
+    **/
+    public void setLoadedFields(DBField fldList[])
+    {
+        if (fldList == null) {
+            this.unloadedBits = null;
+            return;
+        }
+        int slotCnt = this.slots.getSlotCount();
+        long unl[] = new long[this.setBits.length];
+        for (int slot = 0; slot < slotCnt; slot++) {
+            if (!this.slots.getField(slot).isPrimaryKey()) {
+                unl[slot >> 6] |= (1L << slot);
+            }
+        }
+        for (int i = 0; i < fldList.length; i++) {
+            int slot = this.slots.getSlot(fldList[i].getName());
+            if (slot >= 0) {
+                unl[slot >> 6] &= ~(1L << slot);
+            }
+        }
+        this.unloadedBits = unl;
+    }
+
+    /**
+    *** Returns true if any fields have not been loaded
+    *** @return True if any fields have not been loaded
+    **/
+    public boolean isPartial()
+    {
+        if (this.unloadedBits != null) {
+            for (int i = 0; i < this.unloadedBits.length; i++) {
+                if (this.unloadedBits[i] != 0L) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+    *** Gets the fields which have not been loaded 
+    *** @return The unloaded fields (empty if all fields have been loaded)
+    **/
+    public DBField[] getUnloadedFields()
+    {
+        java.util.List<DBField> unl = new Vector<DBField>();
+        if (this.unloadedBits != null) {
+            for (int slot = 0; slot < this.slots.getSlotCount(); slot++) {
+                if (this._isSlotUnloaded(slot)) {
+                    unl.add(this.slots.getField(slot));
+                }
+            }
+        }
+        return unl.toArray(new DBField[unl.size()]);
+    }
+
+    /**
+    *** Gets the names of the non-key fields which have been loaded (or explicitly set)
+    *** @return The loaded field names
+    **/
+    public Set<String> getLoadedFieldNames()
+    {
+        Set<String> fn = new HashSet<String>();
+        for (int slot = 0; slot < this.slots.getSlotCount(); slot++) {
+            if (!this._isSlotUnloaded(slot) && !this.slots.getField(slot).isPrimaryKey()) {
+                fn.add(this.slots.getField(slot).getName());
+            }
+        }
+        return fn;
+    }
+
+    /**
+    *** Returns true if the specified slot has not been loaded
+    **/
+    private boolean _isSlotUnloaded(int slot)
+    {
+        return (this.unloadedBits != null) && (slot >= 0) && 
+            ((this.unloadedBits[slot >> 6] & (1L << slot)) != 0L);
+    }
+
+    /**
+    *** Loads the unloaded fields from the DB, in response to accessing the specified slot
+    **/
+    private void _loadUnloadedFields(int slot)
+    {
+        DBRecord rcd = (this.recordKey != null)? this.recordKey._getDBRecord() : null;
+        if (rcd != null) {
+            rcd._loadUnloadedFields(this.slots.getField(slot)); // may throw IllegalStateException
+        } else {
+            // no record to load from
+            this.unloadedBits = null;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Slot storage
+
+    /**
+    *** Returns true if the specified slot has been assigned a value (which may be null)
+    **/
+    private boolean _isSlotSet(int slot)
+    {
+        return (slot >= 0) && ((this.setBits[slot >> 6] & (1L << slot)) != 0L);
+    }
+
+    /**
+    *** Returns true if the specified slot has been assigned a non-null value
+    **/
+    private boolean _isSlotNonNull(int slot)
+    {
+        long bit = 1L << slot;
+        int  ndx = slot >> 6;
+        return ((this.setBits[ndx] & bit) != 0L) && ((this.nullBits[ndx] & bit) == 0L);
+    }
+
+    /**
+    *** Stores the specified (already validated) value in the specified slot
+    **/
+    private void _storeSlotValue(int slot, Object val)
+    {
+        long bit = 1L << slot;
+        int  ndx = slot >> 6;
+        this.setBits[ndx] |= bit;
+        if (this.unloadedBits != null) {
+            this.unloadedBits[ndx] &= ~bit; // explicitly set, no longer unloaded
+        }
+        int si = this.slots.getStoreIndex(slot);
+        if (val == null) {
+            this.nullBits[ndx] |= bit;
+            if (this.slots.getKind(slot) == DBFieldSlots.KIND_OBJECT) {
+                this.objectVals[si] = null; // release reference
+            }
+            return;
+        }
+        this.nullBits[ndx] &= ~bit;
+        switch (this.slots.getKind(slot)) {
+            case DBFieldSlots.KIND_BOOLEAN:
+                this.longVals[si] = ((Boolean)val).booleanValue()? 1L : 0L;
+                break;
+            case DBFieldSlots.KIND_INTEGER:
+            case DBFieldSlots.KIND_LONG:
+                this.longVals[si] = ((Number)val).longValue();
+                break;
+            case DBFieldSlots.KIND_FLOAT:
+            case DBFieldSlots.KIND_DOUBLE:
+                this.doubleVals[si] = ((Number)val).doubleValue();
+                break;
+            default:
+                this.objectVals[si] = val;
+                break;
+        }
+    }
+
+    /**
+    *** Gets the (boxed) value stored in the specified slot, or null if no value has been set
+    **/
+    private Object _getSlotValue(int slot)
+    {
+        if (!this._isSlotNonNull(slot)) {
+            return null;
+        }
+        int si = this.slots.getStoreIndex(slot);
+        switch (this.slots.getKind(slot)) {
+            case DBFieldSlots.KIND_BOOLEAN:
+                return (this.longVals[si] != 0L)? Boolean.TRUE : Boolean.FALSE;
+            case DBFieldSlots.KIND_INTEGER:
+                return Integer.valueOf((int)this.longVals[si]);
+            case DBFieldSlots.KIND_LONG:
+                return Long.valueOf(this.longVals[si]);
+            case DBFieldSlots.KIND_FLOAT:
+                return Float.valueOf((float)this.doubleVals[si]);
+            case DBFieldSlots.KIND_DOUBLE:
+                return Double.valueOf(this.doubleVals[si]);
+            default:
+                return this.objectVals[si];
+        }
+    }
+
+    /**
+    *** Returns the delegate slot index for the specified slot, or -1 if there is
+    *** no delegate, or the delegate does not share the same slot table.
+    **/
+    private int _getDelegateSlot(int slot)
+    {
+        if (this.fieldDelegate == null) {
+            return -1;
+        } else
+        if (this.fieldDelegate.slots == this.slots) {
+            return slot;
+        } else {
+            return this.fieldDelegate.slots.getSlot(this.slots.getField(slot).getName());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the field slot table used by this instance
+    *** @return The DBFieldSlots
+    **/
+    public DBFieldSlots getFieldSlots()
+    {
+        return this.slots;
+    }
+
+    /**
+    *** Gets the slot index for the specified field name
+    *** @param fldName  The field name
+    *** @return The slot index, or -1 if the field is not defined
+    **/
+    public int getFieldSlot(String fldName)
+    {
+        return this.slots.getSlot(fldName);
+    }
+
+    /**
+    *** Returns true if a value has been set for the specified slot
+    *** @param slot  The field slot index
+    *** @return True if a value has been set for the specified slot
+    **/
+    public boolean hasFieldValue(int slot)
+    {
+        if ((slot < 0) || (slot >= this.slots.getSlotCount())) {
+            return false;
+        }
+        if (this._isSlotUnloaded(slot)) {
+            this._loadUnloadedFields(slot);
+        }
+        if (this._isSlotSet(slot)) {
+            return true;
+        } else {
+            int ds = this._getDelegateSlot(slot);
+            return (ds >= 0)? this.fieldDelegate.hasFieldValue(ds) : false;
+        }
+    }
+
+    /**
+    *** Gets the value for the specified slot
+    *** @param slot  The field slot index
+    *** @return The field value, or null if the value has not been set
+    **/
+    public Object getFieldValue(int slot)
+    {
+        if ((slot < 0) || (slot >= this.slots.getSlotCount())) {
+            return null;
+        } else
+        if (this._isSlotUnloaded(slot)) {
+            this._loadUnloadedFields(slot);
+        }
+        if (this._isSlotNonNull(slot)) {
+            return this._getSlotValue(slot);
+        } else {
+            int ds = this._getDelegateSlot(slot);
+            return (ds >= 0)? this.fieldDelegate.getFieldValue(ds) : null;
+        }
+    }
+
+    /**
+    *** Sets the value for the specified slot
+    *** @param slot    The field slot index
+    *** @param newVal  The 'Object' value to set for the field
+    *** @return True if 'newVal' is proper field type, false otherwise
+    **/
+    public boolean setFieldValue(int slot, Object newVal)
+    {
+        if ((slot < 0) || (slot >= this.slots.getSlotCount())) {
+            return false;
+        } else {
+            return this._setFieldValue(this.slots.getField(slot), newVal);
+        }
+    }
+
+    /**
+    *** Gets the value for the specified slot as a 'long', without boxing
+    *** @param slot  The field slot index
+    *** @param dft   The value returned if the field value has not been set, or is not numeric
+    *** @return The field value
+    **/
+    public long getLongValue(int slot, long dft)
+    {
+        if ((slot < 0) || (slot >= this.slots.getSlotCount())) {
+            return dft;
+        }
+        if (this._isSlotUnloaded(slot)) {
+            this._loadUnloadedFields(slot);
+        }
+        if (this._isSlotNonNull(slot)) {
+            int si = this.slots.getStoreIndex(slot);
+            switch (this.slots.getKind(slot)) {
+                case DBFieldSlots.KIND_BOOLEAN:
+                case DBFieldSlots.KIND_INTEGER:
+                case DBFieldSlots.KIND_LONG:
+                    return this.longVals[si];
+                case DBFieldSlots.KIND_FLOAT:
+                case DBFieldSlots.KIND_DOUBLE:
+                    return (long)this.doubleVals[si];
+                default:
+                    Object val = this.objectVals[si];
+                    return (val instanceof Number)? ((Number)val).longValue() : dft;
+            }
+        } else {
+            int ds = this._getDelegateSlot(slot);
+            return (ds >= 0)? this.fieldDelegate.getLongValue(ds, dft) : dft;
+        }
+    }
+
+    /**
+    *** Gets the value for the specified field name as a 'long', without boxing
+    *** @param fldName  The field name
+    *** @param dft      The value returned if the field value has not been set, or is not numeric
+    *** @return The field value
+    **/
+    public long getLongValue(String fldName, long dft)
+    {
+        int slot = this.slots.getSlot(fldName);
+        if (slot >= 0) {
+            return this.getLongValue(slot, dft);
+        } else {
+            Object val = this.getOptionalFieldValue(fldName);
+            return (val instanceof Number)? ((Number)val).longValue() : dft;
+        }
+    }
+
+    /**
+    *** Gets the value for the specified slot as a 'double', without boxing
+    *** @param slot  The field slot index
+    *** @param dft   The value returned if the field value has not been set, or is not numeric
+    *** @return The field value
+    **/
+    public double getDoubleValue(int slot, double dft)
+    {
+        if ((slot < 0) || (slot >= this.slots.getSlotCount())) {
+            return dft;
+        }
+        if (this._isSlotUnloaded(slot)) {
+            this._loadUnloadedFields(slot);
+        }
+        if (this._isSlotNonNull(slot)) {
+            int si = this.slots.getStoreIndex(slot);
+            switch (this.slots.getKind(slot)) {
+                case DBFieldSlots.KIND_BOOLEAN:
+                case DBFieldSlots.KIND_INTEGER:
+                case DBFieldSlots.KIND_LONG:
+                    return (double)this.longVals[si];
+                case DBFieldSlots.KIND_FLOAT:
+                case DBFieldSlots.KIND_DOUBLE:
+                    return this.doubleVals[si];
+                default:
+                    Object val = this.objectVals[si];
+                    return (val instanceof Number)? ((Number)val).doubleValue() : dft;
+            }
+        } else {
+            int ds = this._getDelegateSlot(slot);
+            return (ds >= 0)? this.fieldDelegate.getDoubleValue(ds, dft) : dft;
+        }
+    }
+
+    /**
+    *** Gets the value for the specified field name as a 'double', without boxing
+    *** @param fldName  The field name
+    *** @param dft      The value returned if the field value has not been set, or is not numeric
+    *** @return The field value
+    **/
+    public double getDoubleValue(String fldName, double dft)
+    {
+        int slot = this.slots.getSlot(fldName);
+        if (slot >= 0) {
+            return this.getDoubleValue(slot, dft);
+        } else {
+            Object val = this.getOptionalFieldValue(fldName);
+            return (val instanceof Number)? ((Number)val).doubleValue() : dft;
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -970,10 +1400,19 @@ public class DBFieldValues
         String utableName = this.getUntranslatedTableName();
         sb.append(this.getName()).append(" ");
         sb.append("[").append(utableName).append("]");
-        for (String fld : this.valueMap.keySet()) {
-            Object val = this.valueMap.get(fld);
-            sb.append(" ");
-            sb.append(fld).append("=").append(StringTools.trim(val));
+        for (int slot = 0; slot < this.slots.getSlotCount(); slot++) {
+            if (this._isSlotSet(slot)) {
+                Object val = this._getSlotValue(slot);
+                sb.append(" ");
+                sb.append(this.slots.getField(slot).getName()).append("=").append(StringTools.trim(val));
+            }
+        }
+        if (this.extraMap != null) {
+            for (String fld : this.extraMap.keySet()) {
+                Object val = this.extraMap.get(fld);
+                sb.append(" ");
+                sb.append(fld).append("=").append(StringTools.trim(val));
+            }
         }
         return sb.toString();
     }
@@ -0,0 +1,430 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Time-range table partitioning (MySQL "PARTITION BY RANGE")
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+import java.sql.*;
+
+import org.opengts.util.*;
+
+/**
+*** Time-range partitioning specification for a table with an epoch-seconds column.<br>
+*** Partitions are named "pYYYYMMDD" after the (GMT) start of the time range they
+*** contain.  The first partition ("p00000000") holds everything prior to the first
+*** time range, and the last partition ("pmax") holds everything after the last time range.
+*** Currently only supported on MySQL.
+**/
+
+public class DBPartition
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final String PARTITION_FIRST     = "p00000000";
+    public  static final String PARTITION_MAX       = "pmax";
+
+    /**
+    *** Partition interval
+    **/
+    public enum Interval {
+        NONE,
+        WEEKLY,
+        MONTHLY;
+        /**
+        *** Parses the specified interval name ("weekly", "monthly", else NONE)
+        **/
+        public static Interval parse(String s) {
+            String S = StringTools.trim(s).toLowerCase();
+            if (S.startsWith("week")) {
+                return WEEKLY;
+            } else
+            if (S.startsWith("month")) {
+                return MONTHLY;
+            } else {
+                return NONE;
+            }
+        }
+    };
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** A partition of an existing table
+    **/
+    public static class Partition
+    {
+        private String  name        = null;
+        private long    upperBound  = 0L;    // exclusive, Long.MAX_VALUE for MAXVALUE
+        private long    rows        = 0L;    // estimated
+        public Partition(String name, long upperBound, long rows) {
+            this.name       = name;
+            this.upperBound = upperBound;
+            this.rows       = rows;
+        }
+        public String getName() {
+            return this.name;
+        }
+        public long getUpperBound() {
+            return this.upperBound;
+        }
+        public boolean isMaxValue() {
+            return (this.upperBound == Long.MAX_VALUE);
+        }
+        public long getEstimatedRows() {
+            return this.rows;
+        }
+        public String toString() {
+            String ub = this.isMaxValue()? "MAXVALUE" : (this.upperBound + " [" + new DateTime(this.upperBound,DateTime.GMT) + "]");
+            return StringTools.padRight(this.name,' ',10) + " < " + ub + ", ~" + this.rows + " rows";
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if the current DBProvider supports table partitioning
+    **/
+    public static boolean isSupported()
+    {
+        return (DBProvider.getProvider().getID() == DBProvider.DB_MYSQL);
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private String      columnName  = null;
+    private Interval    interval    = Interval.NONE;
+    private int         aheadCount  = 3;
+
+    /**
+    *** Constructor
+    *** @param columnName  The epoch-seconds partitioning column (must be part of all unique keys)
+    *** @param interval    The partition interval
+    *** @param aheadCount  The number of future partitions to maintain
+    **/
+    public DBPartition(String columnName, Interval interval, int aheadCount)
+    {
+        this.columnName = columnName;
+        this.interval   = (interval != null)? interval : Interval.NONE;
+        this.aheadCount = Math.max(aheadCount, 1);
+    }
+
+    /**
+    *** Gets the partitioning column name
+    **/
+    public String getColumnName()
+    {
+        return this.columnName;
+    }
+
+    /**
+    *** Gets the partition interval
+    **/
+    public Interval getInterval()
+    {
+        return this.interval;
+    }
+
+    /**
+    *** Returns true if partitioning is enabled (and supported)
+    **/
+    public boolean isEnabled()
+    {
+        return !this.interval.equals(Interval.NONE) &&
+            !StringTools.isBlank(this.columnName) &&
+            DBPartition.isSupported();
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns the start of the interval containing the specified time (GMT)
+    **/
+    public long getIntervalStart(long timeSec)
+    {
+        Calendar cal = new GregorianCalendar(DateTime.GMT);
+        cal.setTimeInMillis(timeSec * 1000L);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        if (this.interval.equals(Interval.WEEKLY)) {
+            int dow = cal.get(Calendar.DAY_OF_WEEK); // SUNDAY=1
+            int back = (dow + 5) % 7;                // days since Monday
+            cal.add(Calendar.DAY_OF_MONTH, -back);
+        } else {
+            cal.set(Calendar.DAY_OF_MONTH, 1);
+        }
+        return cal.getTimeInMillis() / 1000L;
+    }
+
+    /**
+    *** Returns the start of the interval following the interval starting at the specified time
+    **/
+    public long getNextIntervalStart(long startSec)
+    {
+        Calendar cal = new GregorianCalendar(DateTime.GMT);
+        cal.setTimeInMillis(startSec * 1000L);
+        if (this.interval.equals(Interval.WEEKLY)) {
+            cal.add(Calendar.DAY_OF_MONTH, 7);
+        } else {
+            cal.add(Calendar.MONTH, 1);
+        }
+        return cal.getTimeInMillis() / 1000L;
+    }
+
+    /**
+    *** Gets the partition name for the interval starting at the specified time
+    **/
+    public String getPartitionName(long startSec)
+    {
+        return "p" + new DateTime(startSec,DateTime.GMT).format("yyyyMMdd",DateTime.GMT);
+    }
+
+    /* append "PARTITION pYYYYMMDD VALUES LESS THAN (end)" for each interval in [startSec, untilSec) */
+    private long _appendRanges(StringBuffer sb, long startSec, long untilSec)
+    {
+        long s = startSec;
+        while (s < untilSec) {
+            long e = this.getNextIntervalStart(s);
+            sb.append("PARTITION ").append(this.getPartitionName(s));
+            sb.append(" VALUES LESS THAN (").append(e).append("),");
+            s = e;
+        }
+        return s;
+    }
+
+    /**
+    *** Returns the "PARTITION BY RANGE" clause used when creating the table.<br>
+    *** Partitions are created from the start of the current interval, through 'aheadCount'
+    *** future intervals.
+    **/
+    public String getCreateClause()
+    {
+        long firstSec = this.getIntervalStart(DateTime.getCurrentTimeSec());
+        long untilSec = firstSec;
+        for (int i = 0; i <= this.aheadCount; i++) {
+            untilSec = this.getNextIntervalStart(untilSec);
+        }
+        return this.getCreateClause(firstSec, untilSec);
+    }
+
+    /**
+    *** Returns the "PARTITION BY RANGE" clause covering the specified time range
+    *** @param firstSec  The start of the first partitioned interval (earlier times are
+    ***                  placed in the first partition)
+    *** @param untilSec  The end of the last partitioned interval (later times are placed
+    ***                  in the "pmax" partition)
+    **/
+    public String getCreateClause(long firstSec, long untilSec)
+    {
+        // PARTITION BY RANGE (timestamp) (
+        //    PARTITION p00000000 VALUES LESS THAN (1475280000),
+        //    PARTITION p20161001 VALUES LESS THAN (1477958400),
+        //    ...
+        //    PARTITION pmax VALUES LESS THAN MAXVALUE )
+        firstSec = this.getIntervalStart(firstSec);
+        StringBuffer sb = new StringBuffer();
+        sb.append("PARTITION BY RANGE (").append(this.getColumnName()).append(") (");
+        sb.append("PARTITION ").append(PARTITION_FIRST).append(" VALUES LESS THAN (").append(firstSec).append("),");
+        this._appendRanges(sb, firstSec, untilSec);
+        sb.append("PARTITION ").append(PARTITION_MAX).append(" VALUES LESS THAN MAXVALUE)");
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the existing partitions for the specified table (empty if not partitioned)
+    *** @param utableName  The untranslated table name
+    *** @return The list of partitions, in ascending range order
+    **/
+    public static java.util.List<Partition> getPartitions(String utableName)
+        throws DBException
+    {
+        java.util.List<Partition> list = new Vector<Partition>();
+        if (!DBPartition.isSupported()) {
+            return list;
+        }
+        String xtableName = DBProvider.translateTableName(utableName);
+        String sql =
+            "SELECT PARTITION_NAME,PARTITION_DESCRIPTION,TABLE_ROWS FROM information_schema.PARTITIONS" +
+            " WHERE TABLE_SCHEMA=DATABASE() AND TABLE_NAME='" + xtableName + "'" +
+            " AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION";
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql);
+            rs   = stmt.getResultSet();
+            while (rs.next()) {
+                String name = rs.getString(1);
+                String desc = StringTools.trim(rs.getString(2));
+                long   ub   = desc.equalsIgnoreCase("MAXVALUE")? Long.MAX_VALUE : StringTools.parseLong(desc,0L);
+                list.add(new Partition(name, ub, rs.getLong(3)));
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Reading partitions: " + xtableName, sqe);
+        } finally {
+            if (rs   != null) { try { rs.close();   } catch (Throwable t) {} }
+            if (stmt != null) { try { stmt.close(); } catch (Throwable t) {} }
+            DBConnection.release(dbc);
+        }
+        return list;
+    }
+
+    /* execute the specified DDL statement */
+    private static void _executeUpdate(String sql)
+        throws DBException
+    {
+        DBConnection dbc = null;
+        try {
+            dbc = DBConnection.getDefaultConnection();
+            dbc.executeUpdate(sql);
+        } catch (SQLException sqe) {
+            throw new DBException("Partition update: " + sql, sqe);
+        } finally {
+            DBConnection.release(dbc);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Partitions an existing (non-partitioned) table.<br>
+    *** Note: this rebuilds the entire table, and may take a long time on large tables.
+    *** @param utableName  The untranslated table name
+    *** @param firstSec    The start of the first partitioned interval
+    **/
+    public void partitionTable(String utableName, long firstSec)
+        throws DBException
+    {
+        if (!this.isEnabled()) {
+            throw new DBException("Partitioning not enabled/supported");
+        }
+        long untilSec = this.getIntervalStart(DateTime.getCurrentTimeSec());
+        for (int i = 0; i <= this.aheadCount; i++) {
+            untilSec = this.getNextIntervalStart(untilSec);
+        }
+        String xtableName = DBProvider.translateTableName(utableName);
+        DBPartition._executeUpdate("ALTER TABLE " + xtableName + " " + this.getCreateClause(firstSec, untilSec));
+    }
+
+    /**
+    *** Splits the "pmax" partition so that partitions exist through 'aheadCount' future
+    *** intervals.
+    *** @param utableName  The untranslated table name
+    *** @return The number of partitions added
+    **/
+    public int addFuturePartitions(String utableName)
+        throws DBException
+    {
+        if (!this.isEnabled()) {
+            return 0;
+        }
+
+        /* last bounded partition */
+        java.util.List<Partition> parts = DBPartition.getPartitions(utableName);
+        long lastUB = 0L;
+        boolean hasMax = false;
+        for (Partition p : parts) {
+            if (p.isMaxValue()) {
+                hasMax = true;
+            } else
+            if (p.getUpperBound() > lastUB) {
+                lastUB = p.getUpperBound();
+            }
+        }
+        if (!hasMax || (lastUB <= 0L)) {
+            Print.logWarn("Table is not range partitioned: " + utableName);
+            return 0;
+        }
+
+        /* required end of partitioned range */
+        long untilSec = this.getIntervalStart(DateTime.getCurrentTimeSec());
+        for (int i = 0; i <= this.aheadCount; i++) {
+            untilSec = this.getNextIntervalStart(untilSec);
+        }
+        if (lastUB >= untilSec) {
+            return 0; // already partitioned far enough ahead
+        }
+
+        /* reorganize "pmax" */
+        // ALTER TABLE EventData REORGANIZE PARTITION pmax INTO (
+        //    PARTITION p20170101 VALUES LESS THAN (...), PARTITION pmax VALUES LESS THAN MAXVALUE )
+        StringBuffer sb = new StringBuffer();
+        sb.append("ALTER TABLE ").append(DBProvider.translateTableName(utableName));
+        sb.append(" REORGANIZE PARTITION ").append(PARTITION_MAX).append(" INTO (");
+        int count = 0;
+        for (long s = lastUB; s < untilSec; s = this.getNextIntervalStart(s)) {
+            count++;
+        }
+        this._appendRanges(sb, lastUB, untilSec);
+        sb.append("PARTITION ").append(PARTITION_MAX).append(" VALUES LESS THAN MAXVALUE)");
+        DBPartition._executeUpdate(sb.toString());
+        return count;
+
+    }
+
+    /**
+    *** Gets the partitions which contain only times prior to the specified time
+    *** @param utableName  The untranslated table name
+    *** @param cutoffSec   The cutoff time (exclusive)
+    *** @return The list of partitions entirely before the cutoff time
+    **/
+    public static java.util.List<Partition> getPartitionsBefore(String utableName, long cutoffSec)
+        throws DBException
+    {
+        java.util.List<Partition> list = new Vector<Partition>();
+        for (Partition p : DBPartition.getPartitions(utableName)) {
+            if (!p.isMaxValue() && (p.getUpperBound() <= cutoffSec)) {
+                list.add(p);
+            }
+        }
+        return list;
+    }
+
+    /**
+    *** Drops the specified partitions (and all rows they contain)
+    *** @param utableName  The untranslated table name
+    *** @param parts       The partitions to drop
+    **/
+    public static void dropPartitions(String utableName, java.util.List<Partition> parts)
+        throws DBException
+    {
+        if (ListTools.isEmpty(parts)) {
+            return;
+        }
+        StringBuffer sb = new StringBuffer();
+        sb.append("ALTER TABLE ").append(DBProvider.translateTableName(utableName));
+        sb.append(" DROP PARTITION ");
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) { sb.append(","); }
+            sb.append(parts.get(i).getName());
+        }
+        DBPartition._executeUpdate(sb.toString());
+    }
+
+}
@@ -1738,7 +1738,8 @@ public class DBProvider
         DBField fields[]    = factory.getFields();
         DBField priKeys[]   = factory.getKeyFields();
         String priKeyType   = factory.getKeyType();
-        DBProvider.createTable(utableName, fields, priKeys, priKeyType, factory.getAlternateIndexes());
+        DBPartition partition = factory.hasPartition()? factory.getPartition() : null;
+        DBProvider.createTable(utableName, fields, priKeys, priKeyType, factory.getAlternateIndexes(), partition);
     }
 
     /**
@@ -1753,6 +1754,23 @@ public class DBProvider
     **/
     public static void createTable(String utableName, DBField flds[], DBField priKeys[], String keyType, DBAlternateIndex altIndexes[])
         throws SQLException, DBException
+    {
+        DBProvider.createTable(utableName, flds, priKeys, keyType, altIndexes, null);
+    }
+
+    /**
+    *** Create the specified SQL table
+    *** @param utableName The untranslated table name
+    *** @param flds       The table columns
+    *** @param priKeys    The table primary keys
+    *** @param keyType    The key type
+    *** @param altIndexes The table alternate indexes
+    *** @param partition  The time-range partitioning (may be null)
+    *** @throws SQLException  If an SQL error occurs
+    *** @throws DBException   If a database error occurs
+    **/
+    public static void createTable(String utableName, DBField flds[], DBField priKeys[], String keyType, DBAlternateIndex altIndexes[], DBPartition partition)
+        throws SQLException, DBException
     {
         DBProvider dbp = DBProvider.getProvider();
         int dbProvID = dbp.getID();
@@ -1802,6 +1820,14 @@ public class DBProvider
             sb.append(" ").append(indexType);
         }
 
+        /* partitioning */
+        // MySQL: the partitioning column must be part of every unique key
+        boolean partitioned = (partition != null) && partition.isEnabled();
+        if (partitioned) {
+            sb.append(" ").append(partition.getCreateClause());
+            Print.logInfo("Creating " + partition.getInterval() + " partitioned table: " + xtableName);
+        }
+
         /* create table */
         DBConnection dbc = null;
         try {
@@ -1826,7 +1852,8 @@ public class DBProvider
             String altIndexName = "autoIncrement";
             Print.logInfo("Adding 'auto_increment' altIndex: " + xtableName + " " + altIndexName);
             DBField altNdxFlds[] = new DBField[] { autoIncrField };
-            DBProvider.createAlternateIndex(utableName, altIndexName, altNdxFlds, true);
+            // a partitioned table cannot have a unique index which excludes the partitioning column
+            DBProvider.createAlternateIndex(utableName, altIndexName, altNdxFlds, null, !partitioned);
         }
 
     }
@@ -1844,7 +1871,8 @@ public class DBProvider
         String  indexName   = altIndex.getIndexName(); // unfiltered
         DBField indexFlds[] = altIndex.getFields();
         boolean isUnique    = altIndex.isUnique();
-        DBProvider.createAlternateIndex(utableName, indexName, indexFlds, isUnique);
+        DBField inclFlds[]  = altIndex.getIncludeFields();
+        DBProvider.createAlternateIndex(utableName, indexName, indexFlds, inclFlds, isUnique);
     }
     
     /**
@@ -1852,11 +1880,12 @@ public class DBProvider
     *** @param utableName The unfiltered table name
     *** @param indexName  The alternate index name
     *** @param altKeys    The alternate keys (columns)
+    *** @param inclFlds   The covered (non-key) columns (may be null)
     *** @param isUnique   True if the index is unique
     *** @throws SQLException  If an SQL error occurs
     *** @throws DBException   If a database error occurs
     **/
-    private static void createAlternateIndex(String utableName, String indexName, DBField altKeys[], boolean isUnique)
+    private static void createAlternateIndex(String utableName, String indexName, DBField altKeys[], DBField inclFlds[], boolean isUnique)
         throws SQLException, DBException
     {
         String xtableName = DBProvider.translateTableName(utableName);
@@ -1889,12 +1918,33 @@ public class DBProvider
             altSB.append(DBFactory.getKeyTypeName(keyType)).append(" ");
             altSB.append(indexName).append(" ");
             altSB.append("ON ").append(xtableName).append(" ");
+            // covered columns:
+            // PostgreSQL: ... (<key>,...) INCLUDE (<column>,...)
+            // SQLServer:  ... (<key>,...) INCLUDE (<column>,...)
+            // MySQL:      ... (<key>,...,<column>,...)
+            // Derby:      ... (<key>,...,<column>,...)
+            int dbid = DBProvider.getProvider().getID();
+            boolean hasIncl = (inclFlds != null) && (inclFlds.length > 0);
+            boolean inclClause = hasIncl && ((dbid == DB_POSTGRESQL) || (dbid == DB_SQLSERVER));
             altSB.append("(");
             for (int akx = 0; akx < altKeys.length; akx++) {
                 if (akx > 0) { altSB.append(","); }
                 altSB.append(altKeys[akx].getName());
             }
+            if (hasIncl && !inclClause) {
+                for (int ikx = 0; ikx < inclFlds.length; ikx++) {
+                    altSB.append(",").append(inclFlds[ikx].getName());
+                }
+            }
             altSB.append(")");
+            if (inclClause) {
+                altSB.append(" INCLUDE (");
+                for (int ikx = 0; ikx < inclFlds.length; ikx++) {
+                    if (ikx > 0) { altSB.append(","); }
+                    altSB.append(inclFlds[ikx].getName());
+                }
+                altSB.append(")");
+            }
 
             /* create index */
             DBConnection dbc = null;
@@ -2106,6 +2156,55 @@ public class DBProvider
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
+    /**
+    *** Assemble the insert statement for the specified record
+    *** @param rec             The record to insert
+    *** @param existingColumns The map of existing table columns (null to include all fields)
+    *** @return The "INSERT" statement, or null if no columns are to be inserted
+    **/
+    @SuppressWarnings("unchecked")
+    public static String createInsertSQL(DBRecord rec, Map existingColumns)
+    {
+        DBRecordKey  recKey   = rec.getRecordKey();
+        DBFactory recFact     = recKey.getFactory();
+        return DBProvider.createInsertSQLFromPlan(rec, recFact.getColumnPlan(existingColumns));
+    }
+
+    /**
+    *** Assemble the insert statement for the specified record
+    *** @param rec   The record to insert
+    *** @param plan  The DBFactory column plan
+    *** @return The "INSERT" statement, or null if no columns are to be inserted
+    **/
+    public static String createInsertSQLFromPlan(DBRecord rec, DBColumnPlan plan)
+    {
+        DBRecordKey  recKey   = rec.getRecordKey();
+        String xtableName     = recKey.getTranslatedTableName();
+        DBFieldValues fieldValues = recKey.getFieldValues();
+        int colCount          = plan.getInsertCount();
+        if (colCount <= 0) {
+            return null;
+        }
+
+        /* insert */
+        // MySQL:      INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
+        // SQLServer:  INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
+        // Derby:      INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
+        // PostgreSQL: INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
+        String cols = plan.getInsertColumns();
+        StringBuffer sb = new StringBuffer(xtableName.length() + (cols.length() * 2) + 32);
+        sb.append("INSERT INTO ").append(xtableName);
+        sb.append(" ").append(cols);
+        sb.append(" VALUES (");
+        for (int i = 0; i < colCount; i++) {
+            if (i > 0) { sb.append(","); }
+            sb.append(plan.getInsertQValue(fieldValues, i));
+        }
+        sb.append(")");
+        return sb.toString();
+
+    }
+
     /**
     *** Insert record into table
     *** @param rec The record to insert
@@ -2116,89 +2215,29 @@ public class DBProvider
         throws SQLException, DBException
     {
         DBRecordKey  recKey   = rec.getRecordKey();
-        StringBuffer sb       = new StringBuffer();
         String xtableName     = recKey.getTranslatedTableName();
         DBFactory recFact     = recKey.getFactory();
-        Map existingColumns   = recFact.getExistingColumnMap(false);
-        DBField field[]       = recKey.getFields();
-        DBField autoIncrField = null;
+        DBColumnPlan plan     = recFact.getColumnPlan();
+        DBField autoIncrField = plan.getAutoIncrementField();
         DBFieldValues fieldValues = recKey.getFieldValues();
 
         /* insert */
-        // MySQL:      INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
-        // SQLServer:  INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
-        // Derby:      INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
-        // PostgreSQL: INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
-        boolean addedField = false;
-        sb.append("INSERT INTO ").append(recKey.getTranslatedTableName());
-        StringBuffer colSB = new StringBuffer();
-        StringBuffer valSB = new StringBuffer();
-        for (int i = 0; i < field.length; i++) {
-            String fldName = field[i].getName();
-            String xFldName = DBProvider.translateColumnName(fldName);
-            if (field[i].isAutoIncrement()) {
-                // we skip 'auto_increment' fields on INSERT
-                autoIncrField = field[i]; // "There must be only one"
-                continue;
-            }
-            if ((existingColumns == null) || existingColumns.containsKey(xFldName)) {
-                // insert existing columns
-                if (addedField) { 
-                    colSB.append(","); 
-                    valSB.append(","); 
-                }
-                Object fldVal = fieldValues.getFieldValue(fldName,true);
-                String dbVal  = field[i].getQValue(fldVal);
-                //colSB.append(DBProvider.getProvider().getStartColumnChar());
-                //colSB.append(fldName);
-                //colSB.append(DBProvider.getProvider().getEndColumnChar());
-                colSB.append(DBProvider.getProvider().quoteColumnName(fldName));
-                valSB.append(dbVal);
-                addedField = true;
-            } else
-            if (recFact.logMissingColumnWarning()) {
-                // ignore non-existant columns
-                Print.logWarn("Insert: Field does not exist: " + xtableName + "." + fldName + " [ignored]");
-            }
-        }
-        sb.append(" (").append(colSB).append(")");
-        sb.append(" VALUES (").append(valSB).append(")");
-            
-        /* MySQL also supports this version of "INSERT" */
-        // MySQL: INSERT INTO <table> SET <column>=<value>, ...
-        /*
-        sb.append("INSERT INTO ").append(xtableName).append(" SET ");
-        for (int i = 0; i < field.length; i++) {
-            String fldName = field[i].getName();
-            if ((existingColumns == null) || existingColumns.containsKey(fldName)) {
-                // insert existing columns
-                if (addedField) { sb.append(", "); }
-                Object fldVal = fieldValues.getFieldValue(fldName,true);
-                String dbVal  = field[i].getQValue(fldVal);
-                sb.append(fldName).append("=").append(dbVal);
-                addedField = true;
-            } else
-            if (recFact.logMissingColumnWarning()) {
-                // ignore non-existant columns
-                Print.logWarn("Insert: Field does not exist: " + xtableName + "." + fldName + " [ignored]");
-            }
-        }
-        */
-        
+        String insertSQL = DBProvider.createInsertSQLFromPlan(rec, plan);
+
         /* execute */
-        if (addedField) {
+        if (insertSQL != null) {
             // ResultSet rs = <Statement>.getGeneratedKeys();
             DBConnection dbc = null;
             try {
                 dbc = DBConnection.getDefaultConnection();
                 if (autoIncrField != null) {
-                    long autoIncrVal = dbc.executeUpdate(sb.toString(), true);
+                    long autoIncrVal = dbc.executeUpdate(insertSQL, true);
                     if (autoIncrVal >= 0) {
                         Print.logDebug("Auto-Increment value: " + autoIncrVal);
                         fieldValues.setFieldValue(autoIncrField.getName(), autoIncrVal);
                     }
                 } else {
-                    dbc.executeUpdate(sb.toString());
+                    dbc.executeUpdate(insertSQL);
                 }
             } finally {
                 DBConnection.release(dbc);
@@ -2206,6 +2245,7 @@ public class DBProvider
             return true;
         } else {
             Print.logInfo("No columns specified to insert!!! [" + xtableName + "]");
+            Map existingColumns = recFact.getExistingColumnMap(false);
             if (existingColumns != null) {
                 Print.logInfo("Existing columns: ");
                 for (Object fldName : existingColumns.keySet()) {
@@ -2271,44 +2311,29 @@ public class DBProvider
         /* set */
         sb.append(" SET ");
         DBFactory     recFact     = recKey.getFactory();
-        Map       existingColumns = recFact.getExistingColumnMap(false);
+        DBColumnPlan  plan        = recFact.getColumnPlan();
         DBFieldValues fieldValues = recKey.getFieldValues();
-        DBField       field[]     = recKey.getFields();
+        int           colCount    = plan.getUpdateCount();
         boolean       addedField  = false;
-        for (int i = 0; i < field.length; i++) {
-            String fldName = field[i].getName();
+        for (int i = 0; i < colCount; i++) {
+            DBField field   = plan.getUpdateField(i); // existing, not auto-increment
+            String fldName  = field.getName();
             // check explicit update field set
             if ((updFldSet != null) && !updFldSet.contains(fldName)) {
                 continue;
             }
             // skip fields that are not allowed to update
-            if (!field[i].isUpdateAllowed()) { // 2.5.2-B10
+            if (!field.isUpdateAllowed()) { // 2.5.2-B10
                 if (updFldSet != null) {
                     // field explicitly specified, display disallowed update warning
-                    String type = field[i].isPrimaryKey()? "Primary key" : "Field";
+                    String type = field.isPrimaryKey()? "Primary key" : "Field";
                     Print.logWarn(type + " update not allowed: " + xtableName + "." + fldName + " [ignored]");
                 }
                 continue;
             }
-            // skip primary keys
-            /* OBSOLETED BY ABOVE "isUpdateAllowed"
-            if (field[i].isPrimaryKey()) {
-                // ignore update to primary key (if not explicitly allowed)
-                if (updFldSet != null) {
-                    // field explicitly specified, display disallowed update warning
-                    Print.logWarn("Primary key update not allowed: " + xtableName + "." + fldName + " [ignored]");
-                } 
-                continue;
-            }
-            */
-            // skip auto-increment fields
-            if (field[i].isAutoIncrement()) {
-                // quietly skip 'auto_increment' fields
-                continue;
-            }
             // explicit excluded field?
             if (updFldSet == null) {
-                if (rec.excludeFieldFromUpdate(field[i])) {
+                if (rec.excludeFieldFromUpdate(field)) {
                     // quietly skip excluded update fields (only if explicit update field are not specified)
                     continue;
                 } else
@@ -2321,23 +2346,10 @@ public class DBProvider
                     continue;
                 }
             }
-            // check column existance
-            if ((existingColumns != null) && !existingColumns.containsKey(fldName)) {
-                // ignore non-existant columns (ie. field defined in Java class, but not in MySQL table)
-                if (recFact.logMissingColumnWarning()) {
-                    Print.logWarn("Update: Field does not exist: " + xtableName + "." + fldName + " [ignored]");
-                }
-                continue;
-            }
             // update existing columns
             if (addedField) { sb.append(", "); }
-            Object fldVal = fieldValues.getFieldValue(fldName,true);
-            String dbVal  = field[i].getQValue(fldVal);
-            //sb.append(DBProvider.getProvider().getStartColumnChar());
-            //sb.append(fldName);
-            //sb.append(DBProvider.getProvider().getEndColumnChar());
-            sb.append(DBProvider.getProvider().quoteColumnName(fldName));
-            sb.append("=").append(dbVal);
+            sb.append(plan.getUpdateColumn(i));
+            sb.append("=").append(plan.getUpdateQValue(fieldValues, i));
             addedField = true;
         } // updated field loop
 
@@ -2569,6 +2581,7 @@ public class DBProvider
     // Note: By default, table locking is disabled.
 
     private static Boolean          lockingEnabled = null;
+    private static Boolean          readLocking    = null;
     private static Stack<Throwable> lockLevel      = new Stack<Throwable>();
     private static int              lockSeq        = 0;
     private static int              unlockSeq      = 0;
@@ -2593,6 +2606,33 @@ public class DBProvider
         }
     }
 
+    /**
+    *** Returns true if read-only queries should lock the tables they read.<br>
+    *** Per "db.readLockMode": "lock" always locks (when table locking is enabled), "none"
+    *** never locks, and "auto" (the default) does not lock MySQL InnoDB tables, since 
+    *** InnoDB SELECTs are non-locking consistent (MVCC snapshot) reads which neither wait
+    *** for, nor block, concurrent writers.
+    *** @return True if read-only queries should lock the tables they read
+    **/
+    public static boolean isReadLockingEnabled()
+    {
+        if (readLocking == null) {
+            boolean lock;
+            String mode = RTConfig.getString(RTKey.DB_READ_LOCK_MODE,"auto");
+            if (mode.equalsIgnoreCase("lock")) {
+                lock = true;
+            } else
+            if (mode.equalsIgnoreCase("none")) {
+                lock = false;
+            } else {
+                lock = !DBProvider.isMySqlInnoDB();
+            }
+            readLocking = new Boolean(lock);
+            Print.logDebug("Read-only table locking is " + (lock?"enabled":"disabled") + " [" + mode + "]");
+        }
+        return readLocking.booleanValue() && DBProvider.isTableLockingEnabled();
+    }
+
     /**
     *** Returns the current recursive lock level
     *** @return The current recursive lock level
@@ -2615,6 +2655,44 @@ public class DBProvider
         return DBProvider._lockTables(writeTables, readTables, false);
     }
     
+    /**
+    *** Lock the specified tables for a read-only query, unless read locking is disabled
+    *** (see <code>isReadLockingEnabled</code>).  Must be paired with 
+    *** <code>unlockReadTables</code>.
+    *** @param tables  The untranslated table names read by the query
+    *** @return True if the tables were locked
+    *** @throws DBException   If a database error occurs
+    **/
+    public static boolean lockReadTables(String... tables)
+        throws DBException
+    {
+        if (!DBProvider.isReadLockingEnabled()) {
+            if (Metrics.isEnabled() && DBProvider.isTableLockingEnabled()) {
+                // -- locking is enabled, but skipped for this read (ie. InnoDB consistent read)
+                METRIC_LOCK_SKIPPED.increment();
+            }
+            return false;
+        }
+        return DBProvider._lockTables(tables, null, false);
+    }
+
+    /**
+    *** Unlock the tables locked by <code>lockReadTables</code>
+    *** @return True if the query was successful
+    *** @throws DBException   If a database error occurs
+    **/
+    public static boolean unlockReadTables()
+        throws DBException
+    {
+        if (!DBProvider.isReadLockingEnabled()) {
+            return false;
+        }
+        return DBProvider.unlockTables();
+    }
+
+    private static final Metrics.Histogram METRIC_LOCK_WAIT    = Metrics.getHistogram("db_table_lock_wait_seconds");
+    private static final Metrics.Counter   METRIC_LOCK_SKIPPED = Metrics.getCounter("db_table_lock_skipped_total");
+
     /**
     *** Lock specified tables for write/read
     *** @param writeTables The array of untranslated table names to lock for writing
@@ -2685,7 +2763,11 @@ public class DBProvider
                 DBConnection dbc = null;
                 try {
                     dbc = DBConnection.getDefaultConnection();
-                    dbc.executeUpdate(sb.toString());
+                    long lockStartNS = System.nanoTime();
+                    dbc.executeUpdate(sb.toString()); // blocks until the locks are granted
+                    if (Metrics.isEnabled()) {
+                        METRIC_LOCK_WAIT.recordSince(lockStartNS);
+                    }
                 } finally {
                     DBConnection.release(dbc);
                 }
@@ -296,8 +296,12 @@ public abstract class DBRecord<gDBR extends DBRecord>
         ResultSet   rs    = null;
         long        count = 0L;
         try {
-            dbc  = DBConnection.getDefaultConnection();
-            stmt = dbc.execute(dsel.toString());
+            DBConnection dbcRtn[] = new DBConnection[1];
+            try {
+                stmt = DBReplica.execute(dsel, dbcRtn);
+            } finally {
+                dbc  = dbcRtn[0];
+            }
             rs   = stmt.getResultSet();
             if (rs.next()) {
                 // this only has 1 column
@@ -723,10 +727,15 @@ public abstract class DBRecord<gDBR extends DBRecord>
         ResultSet    rs   = null;
         java.util.List<T> rcdList = new Vector<T>();
         DBFactory<T> fact = dsel.getFactory();
+        DBField projFlds[] = dsel.getProjectedFields(); // null if all fields are selected
 
         try {
-            dbc  = DBConnection.getDefaultConnection();
-            stmt = dbc.execute(dsel.toString());
+            DBConnection dbcRtn[] = new DBConnection[1];
+            try {
+                stmt = DBReplica.execute(dsel, dbcRtn);
+            } finally {
+                dbc  = dbcRtn[0];
+            }
             rs   = stmt.getResultSet();
             /* extract records from result set */
             while (rs.next()) {
@@ -734,8 +743,16 @@ public abstract class DBRecord<gDBR extends DBRecord>
                 DBRecordKey<T> rcdKey = fact.createKey(rs); // may throw DBException
                 if (rcdKey != null) {
                     T rcd = rcdKey.getDBRecord();
-                    rcd.setAllFieldValues(rs); // TODO: possible bug
-                    // rcd.setAllFieldValues(rs, dsel.getSelectedFields());
+                    if (projFlds != null) {
+                        // partial record, remaining fields are loaded on demand
+                        DBFieldValues fldVals = rcdKey.getFieldValues();
+                        fldVals.clearFieldValues(projFlds);
+                        fldVals.setAllFieldValues(rs, false, projFlds);
+                        fldVals.setLoadedFields(projFlds);
+                    } else {
+                        rcd.setAllFieldValues(rs); // TODO: possible bug
+                        // rcd.setAllFieldValues(rs, dsel.getSelectedFields());
+                    }
                     if (rcdHandler != null) {
                         int rcdStatus = rcdHandler.handleDBRecord(rcd);
                         if (rcdStatus == DBRecordHandler.DBRH_STOP) {
@@ -792,6 +809,69 @@ public abstract class DBRecord<gDBR extends DBRecord>
         return this.changed;
     }
 
+    // ------------------------------------------------------------------------
+
+    private static Set<String> projectionWarnings = new HashSet<String>();
+
+    /**
+    *** Returns true if this record was only partially loaded by a projected DBSelect
+    *** (see "DBSelect.setProjectedFields"), and some fields have not yet been loaded.
+    *** @return True if this record is partially loaded
+    **/
+    public boolean isPartial()
+    {
+        return this.getRecordKey().getFieldValues().isPartial();
+    }
+
+    /**
+    *** Loads the fields which were not loaded by a projected DBSelect.  Called when an
+    *** unloaded field is first accessed.  If "db.projectionFailFast" is true, an
+    *** IllegalStateException is thrown instead.
+    *** @param fld  The unloaded field which was accessed
+    **/
+    /* package */ void _loadUnloadedFields(DBField fld)
+    {
+        DBFieldValues fldVals = this.getRecordKey().getFieldValues();
+        String tblFld = this.getRecordKey().getUntranslatedTableName() + "." + fld.getName();
+
+        /* fail fast? */
+        if (RTConfig.getBoolean(RTKey.DB_PROJECTION_FAIL_FAST,false)) {
+            throw new IllegalStateException("Field not loaded by projection: " + tblFld);
+        }
+
+        /* unloaded fields */
+        DBField unl[] = fldVals.getUnloadedFields();
+        fldVals.setLoadedFields(null); // prevent recursion
+        if (ListTools.isEmpty(unl)) {
+            return;
+        }
+
+        /* warn once per field (the projection should include this field) */
+        boolean warn;
+        synchronized (DBRecord.projectionWarnings) {
+            warn = DBRecord.projectionWarnings.add(tblFld);
+        }
+        if (warn) {
+            Print.logWarn("Loading unprojected fields, accessed field: " + tblFld);
+        }
+
+        /* load remaining fields */
+        String fn[] = new String[unl.length];
+        for (int i = 0; i < unl.length; i++) {
+            fn[i] = unl[i].getName();
+        }
+        boolean wasChanged = this.hasChanged();
+        try {
+            this._reload(fn);
+        } catch (DBException dbe) {
+            Print.logException("Unable to load unprojected fields: " + tblFld, dbe);
+        }
+        if (!wasChanged) {
+            this.clearChanged();
+        }
+
+    }
+
     /**
     *** Sets the 'changed' state of this record, and sends a change notification to
     *** any registered listeners.
@@ -1443,6 +1523,9 @@ public abstract class DBRecord<gDBR extends DBRecord>
         /* save allowed? */
         if (!this.isOkToSave()) {
             throw new DBException("Update not allowed");
+        } else
+        if (this.isPartial()) {
+            throw new DBException("Insert of partially loaded record not allowed");
         }
 
         /* insert */
@@ -1530,6 +1613,17 @@ public abstract class DBRecord<gDBR extends DBRecord>
             boolean updTime = this.setLastUpdateTime(DateTime.getCurrentTimeSec());
             boolean updAcct = this.setLastUpdateAccount(updAcctID,false);
             boolean updUser = this.setLastUpdateUser(updUserID,false);
+            if ((updFldSet == null) && this.isPartial()) {
+                // partially loaded record, update only the loaded/changed fields
+                updFldSet = this.getRecordKey().getFieldValues().getLoadedFieldNames();
+                updFldSet.remove(FLD_creationTime);
+                updFldSet.remove(FLD_creationMillis);
+                for (DBField fld : this.getRecordKey().getFields()) {
+                    if (this.excludeFieldFromUpdate(fld)) {
+                        updFldSet.remove(fld.getName());
+                    }
+                }
+            }
             if (updFldSet != null) {
                 if (updTime) { updFldSet.add(FLD_lastUpdateTime);    }
                 if (updAcct) { updFldSet.add(FLD_lastUpdateAccount); }
@@ -2302,6 +2396,12 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public int getFieldValue(String fldName, int dft)
     {
+        DBFieldValues fv = this.getRecordKey().getFieldValues();
+        int slot = fv.getFieldSlot(fldName);
+        if (slot >= 0) {
+            // primitive slot access (no boxing)
+            return (int)fv.getLongValue(slot, (long)dft);
+        }
         Object obj = this.getFieldValue(fldName);
         return (obj instanceof Number)? ((Number)obj).intValue() : dft;
     }
@@ -2381,6 +2481,12 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public long getFieldValue(String fldName, long dft)
     {
+        DBFieldValues fv = this.getRecordKey().getFieldValues();
+        int slot = fv.getFieldSlot(fldName);
+        if (slot >= 0) {
+            // primitive slot access (no boxing)
+            return fv.getLongValue(slot, dft);
+        }
         Object obj = this.getFieldValue(fldName);
         return (obj instanceof Number)? ((Number)obj).longValue() : dft;
     }
@@ -2460,6 +2566,12 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public float getFieldValue(String fldName, float dft)
     {
+        DBFieldValues fv = this.getRecordKey().getFieldValues();
+        int slot = fv.getFieldSlot(fldName);
+        if (slot >= 0) {
+            // primitive slot access (no boxing)
+            return (float)fv.getDoubleValue(slot, (double)dft);
+        }
         Object obj = this.getFieldValue(fldName);
         return (obj instanceof Number)? ((Number)obj).floatValue() : dft;
     }
@@ -2539,6 +2651,12 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public double getFieldValue(String fldName, double dft)
     {
+        DBFieldValues fv = this.getRecordKey().getFieldValues();
+        int slot = fv.getFieldSlot(fldName);
+        if (slot >= 0) {
+            // primitive slot access (no boxing)
+            return fv.getDoubleValue(slot, dft);
+        }
         Object obj = this.getFieldValue(fldName);
         return (obj instanceof Number)? ((Number)obj).doubleValue() : dft;
     }
@@ -30,11 +30,14 @@ import org.opengts.util.*;
 
 /**
 *** <code>DBRecordIterator</code> is used to iterate through a DBRecord selection.<br>
-*** This DBRecordIterator currently uses the SQL DB provider OFFSET/LIMIT keywords to
-*** iterate through a selection, and thus is only supported by DB providers that support
-*** these keywords.  This method has the disadvantage that record insertions/deletions 
-*** occurring while this DBRecordIterator is in use may cause this iterator to possibly 
-*** miss some records, or produce duplicate records.
+*** If the selection is unordered, or ordered by the primary key, this DBRecordIterator 
+*** uses keyset pagination ("WHERE key > lastKey ORDER BY key LIMIT n"), with the key
+*** of the last record retrieved as the cursor, so that the cost of fetching a block does
+*** not depend on how many records precede it.  Otherwise the SQL DB provider OFFSET/LIMIT
+*** keywords are used to iterate through a selection, which is only supported by DB 
+*** providers that support these keywords, and which has the disadvantage that record 
+*** insertions/deletions occurring while this DBRecordIterator is in use may cause this 
+*** iterator to possibly miss some records, or produce duplicate records.
 **/
 
 public class DBRecordIterator<DBR extends DBRecord>
@@ -53,6 +56,7 @@ public class DBRecordIterator<DBR extends DBRecord>
     private long                limit           = DEFAULT_LIMIT;
     
     private DBRecordKey<DBR>    lastRecordKey   = null;
+    private boolean             keyset          = false;
     
     // ------------------------------------------------------------------------
 
@@ -101,15 +105,77 @@ public class DBRecordIterator<DBR extends DBRecord>
         this.iterator   = null;
         this.dbSelector = dbSel;
         if (this.dbSelector != null) {
+            this.keyset = DBRecordIterator.isKeyOrdered(this.dbSelector);
             if (!this.dbSelector.supportsLimit()) {
                 throw new DBException("DB provider does not support LIMIT");
             } else
-            if (!this.dbSelector.supportsOffset()) {
+            if (!this.keyset && !this.dbSelector.supportsOffset()) {
                 throw new DBException("DB provider does not support OFFSET");
             }
         }
     }
 
+    /**
+    *** Returns true if the specified DBSelect is unordered, or ordered by the primary key
+    *** fields (and may therefore be iterated using keyset pagination)
+    *** @param dbSel  The DBSelect instance
+    *** @return True if the DBSelect may be iterated using keyset pagination
+    **/
+    public static boolean isKeyOrdered(DBSelect<?> dbSel)
+    {
+        if ((dbSel == null) || !dbSel.hasFactory()) {
+            return false;
+        }
+        String obf[] = dbSel.getOrderByFields();
+        if (obf == null) {
+            return true;
+        }
+        String kn[] = dbSel.getFactory().getKeyNames();
+        if (obf.length != kn.length) {
+            return false;
+        }
+        for (int i = 0; i < kn.length; i++) {
+            if (!kn[i].equals(obf[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if this iterator uses keyset pagination
+    *** @return True if this iterator uses keyset pagination
+    **/
+    public boolean isKeyset()
+    {
+        return this.keyset;
+    }
+
+    /**
+    *** Gets the DBRecordKey of the last record retrieved (the keyset pagination cursor)
+    *** @return The DBRecordKey of the last record retrieved, or null if no records have
+    ***         been retrieved
+    **/
+    public DBRecordKey<DBR> getLastRecordKey()
+    {
+        return this.lastRecordKey;
+    }
+
+    /**
+    *** Sets the keyset pagination cursor.  Iteration resumes with the record following
+    *** the specified key (ie. to continue from the last record shown on a previous page).
+    *** Ignored if this iterator does not use keyset pagination.
+    *** @param rcdKey  The DBRecordKey of the last record retrieved
+    **/
+    public void setLastRecordKey(DBRecordKey<DBR> rcdKey)
+    {
+        if (this.keyset) {
+            this.lastRecordKey = rcdKey;
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -200,7 +266,12 @@ public class DBRecordIterator<DBR extends DBRecord>
         }
         
         /* offset/limit */
-        this.dbSelector.setOffset(this.offset);
+        if (this.keyset) {
+            // keyset: WHERE key > lastRecordKey ORDER BY key LIMIT n
+            this.dbSelector.setSeekKey(this.lastRecordKey);
+        } else {
+            this.dbSelector.setOffset(this.offset);
+        }
         this.dbSelector.setLimit(this.limit);
         this.dbSelector.setLastRecordKey(this.lastRecordKey);
 
@@ -0,0 +1,352 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Read replica routing for read-only queries
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+import java.sql.*;
+import java.util.concurrent.atomic.*;
+
+import org.opengts.util.*;
+
+/**
+*** Routes read-only queries to a pool of read replicas.<br>
+*** Replicas are configured with "db.replica.uri" (comma-separated JDBC URIs).  Only
+*** queries whose <code>DBSelect</code> has been marked with <code>setReadReplica(true)</code>
+*** are routed to a replica, all other queries (and all updates) use the primary.<br>
+*** A replica is used only while it is reachable and its replication lag does not exceed
+*** "db.replica.maxLagSec" (checked every "db.replica.checkIntervalSec").  A replica which
+*** fails is not used again for "db.replica.retrySec".  When no replica is usable the
+*** query falls back to the primary.<br>
+*** Shared query builders (ie. EventData range selections) mark their DBSelect as 
+*** replica-eligible only within a <code>beginReplicaReads</code>/<code>endReplicaReads</code>
+*** section, so that only callers which tolerate stale data (ie. reports and maps) opt in.<br>
+*** Read-your-writes: a thread which has updated the primary within the last
+*** "db.replica.maxLagSec" seconds, or which is within a
+*** <code>beginPrimaryReads</code>/<code>endPrimaryReads</code> section, reads from the primary.
+**/
+
+public class DBReplica
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final Metrics.Counter METRIC_READ_REPLICA = Metrics.getCounter("db_replica_reads_total", "target", "replica");
+    private static final Metrics.Counter METRIC_READ_PRIMARY = Metrics.getCounter("db_replica_reads_total", "target", "primary");
+    private static final Metrics.Counter METRIC_FAILOVER     = Metrics.getCounter("db_replica_failover_total");
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Replica state
+    **/
+    private static class Replica
+    {
+        private String          uri         = null;
+        private volatile boolean usable     = false;
+        private volatile long   lagSec      = 0L;
+        private volatile long   checkMS     = 0L;   // time of next check
+        private AtomicBoolean   checking    = new AtomicBoolean(false);
+        public Replica(int ndx, String uri) {
+            this.uri = uri;
+            Metrics.registerGauge("db_replica_lag_seconds", new Metrics.GaugeValue() {
+                public long getValue() { return Replica.this.lagSec; }
+            }, "replica", String.valueOf(ndx));
+        }
+    }
+
+    private static Replica          replicas[]      = null;
+    private static AtomicInteger    nextReplica     = new AtomicInteger(0);
+
+    /* per-thread state: [0] primary-read section depth, [1] time of last primary write, [2] replica-read section depth */
+    private static final ThreadLocal<long[]> threadState = new ThreadLocal<long[]>() {
+        protected long[] initialValue() { return new long[3]; }
+    };
+
+    /**
+    *** Gets the configured replicas
+    **/
+    private static Replica[] _getReplicas()
+    {
+        if (replicas == null) {
+            synchronized (DBReplica.class) {
+                if (replicas == null) {
+                    String uri[] = StringTools.parseStringArray(RTConfig.getString(RTKey.DB_REPLICA_URI,""),',');
+                    java.util.List<Replica> list = new Vector<Replica>();
+                    if (uri != null) {
+                        for (int i = 0; i < uri.length; i++) {
+                            if (!StringTools.isBlank(uri[i])) {
+                                list.add(new Replica(list.size(), uri[i].trim()));
+                            }
+                        }
+                    }
+                    if (!list.isEmpty()) {
+                        Print.logInfo("Read replicas: " + list.size());
+                    }
+                    replicas = list.toArray(new Replica[list.size()]);
+                }
+            }
+        }
+        return replicas;
+    }
+
+    /**
+    *** Returns true if read replicas have been configured
+    **/
+    public static boolean isEnabled()
+    {
+        return (DBReplica._getReplicas().length > 0);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Begins a section in which read-only queries on the current thread use the primary
+    *** (ie. for reading back recently written records).  Must be paired with
+    *** <code>endPrimaryReads</code>.
+    **/
+    public static void beginPrimaryReads()
+    {
+        threadState.get()[0]++;
+    }
+
+    /**
+    *** Ends a section started by <code>beginPrimaryReads</code>
+    **/
+    public static void endPrimaryReads()
+    {
+        long st[] = threadState.get();
+        if (st[0] > 0L) {
+            st[0]--;
+        }
+    }
+
+    /**
+    *** Begins a section in which the shared read-only query builders on the current thread
+    *** may use a read replica (ie. for reports and maps, which tolerate data which is up to 
+    *** "db.replica.maxLagSec" stale).  Must be paired with <code>endReplicaReads</code>.
+    **/
+    public static void beginReplicaReads()
+    {
+        threadState.get()[2]++;
+    }
+
+    /**
+    *** Ends a section started by <code>beginReplicaReads</code>
+    **/
+    public static void endReplicaReads()
+    {
+        long st[] = threadState.get();
+        if (st[2] > 0L) {
+            st[2]--;
+        }
+    }
+
+    /**
+    *** Returns true if the current thread is within a <code>beginReplicaReads</code> section
+    *** (and is not within a <code>beginPrimaryReads</code> section)
+    **/
+    public static boolean isReplicaReads()
+    {
+        long st[] = threadState.get();
+        return (st[2] > 0L) && (st[0] <= 0L);
+    }
+
+    /**
+    *** Records an update to the primary by the current thread
+    **/
+    public static void markWrite()
+    {
+        if (DBReplica.isEnabled()) {
+            threadState.get()[1] = System.currentTimeMillis();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets a read replica connection for a read-only query on the current thread
+    *** @return A replica connection, or null if the primary should be used
+    **/
+    public static DBConnection getConnection()
+    {
+        Replica rep[] = DBReplica._getReplicas();
+        if (rep.length == 0) {
+            return null;
+        }
+
+        /* read-your-writes */
+        long nowMS  = System.currentTimeMillis();
+        long st[]   = threadState.get();
+        long lagMS  = RTConfig.getLong(RTKey.DB_REPLICA_MAX_LAG,30L) * 1000L;
+        if ((st[0] > 0L) || ((st[1] > 0L) && ((nowMS - st[1]) < Math.max(lagMS,1000L)))) {
+            METRIC_READ_PRIMARY.increment();
+            return null;
+        }
+
+        /* next usable replica (round-robin) */
+        int start = nextReplica.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < rep.length; i++) {
+            Replica r = rep[(start + i) % rep.length];
+            if (DBReplica._isUsable(r, nowMS)) {
+                DBConnection dbc = DBReplica._getDBConnection(r);
+                if (dbc != null) {
+                    METRIC_READ_REPLICA.increment();
+                    return dbc;
+                }
+            }
+        }
+
+        /* fallback to primary */
+        METRIC_READ_PRIMARY.increment();
+        return null;
+
+    }
+
+    /**
+    *** Marks the replica of the specified connection as unavailable (after a query failure)
+    *** @param dbc  The replica connection
+    *** @param th   The query failure
+    **/
+    public static void markUnavailable(DBConnection dbc, Throwable th)
+    {
+        if ((dbc == null) || !dbc.isReplica()) {
+            return;
+        }
+        for (Replica r : DBReplica._getReplicas()) {
+            if (r.uri.equals(dbc.getUri())) {
+                Print.logWarn("Read replica unavailable [" + r.uri + "]: " + th);
+                DBReplica._setUnavailable(r);
+            }
+        }
+        METRIC_FAILOVER.increment();
+        dbc.closeConnection();
+    }
+
+    /**
+    *** Executes a read-only query, on a read replica if the DBSelect allows it.  If the
+    *** query fails on the replica, the replica is marked unavailable and the query is
+    *** executed on the primary.
+    *** @param dsel  The DBSelect
+    *** @param dbc   Returns the DBConnection used (in dbc[0]), which must be released by the caller
+    *** @return The executed Statement
+    **/
+    public static Statement execute(DBSelect<?> dsel, DBConnection dbc[])
+        throws SQLException, DBException
+    {
+        String sql = dsel.toString();
+        dbc[0] = DBConnection.getReadConnection(dsel.isReadReplica());
+        if (dbc[0].isReplica()) {
+            try {
+                return dbc[0].execute(sql);
+            } catch (SQLException sqe) {
+                DBReplica.markUnavailable(dbc[0], sqe);
+            } catch (DBException dbe) {
+                DBReplica.markUnavailable(dbc[0], dbe);
+            }
+            DBConnection.release(dbc[0]);
+            dbc[0] = DBConnection.getDefaultConnection();
+        }
+        return dbc[0].execute(sql);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* gets a DBConnection for the specified replica */
+    private static DBConnection _getDBConnection(Replica r)
+    {
+        String user = RTConfig.getString(RTKey.DB_REPLICA_USER,"");
+        String pass = RTConfig.getString(RTKey.DB_REPLICA_PASS,"");
+        if (StringTools.isBlank(user)) {
+            user = DBProvider.getDBUsername();
+            pass = DBProvider.getDBPassword();
+        }
+        DBConnection dbc = DBConnection.getDBConnection(r.uri, user, pass);
+        if (dbc != null) {
+            dbc.setReplica(true);
+        }
+        return dbc;
+    }
+
+    /* marks the specified replica as unavailable until the retry time */
+    private static void _setUnavailable(Replica r)
+    {
+        r.usable  = false;
+        r.checkMS = System.currentTimeMillis() + (RTConfig.getLong(RTKey.DB_REPLICA_RETRY,60L) * 1000L);
+    }
+
+    /* returns true if the specified replica is usable, checking its state if due */
+    private static boolean _isUsable(Replica r, long nowMS)
+    {
+        if ((nowMS >= r.checkMS) && r.checking.compareAndSet(false,true)) {
+            try {
+                DBReplica._check(r);
+            } finally {
+                r.checking.set(false);
+            }
+        }
+        return r.usable;
+    }
+
+    /* checks the availability and replication lag of the specified replica */
+    private static void _check(Replica r)
+    {
+        long maxLag = RTConfig.getLong(RTKey.DB_REPLICA_MAX_LAG,30L);
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc = DBReplica._getDBConnection(r);
+            if (!dbc.getConnection().isValid(5)) {
+                throw new SQLException("Connection is not valid");
+            }
+            long lag = 0L;
+            if (DBProvider.getProvider().getID() == DBProvider.DB_MYSQL) {
+                stmt = dbc.execute("SHOW SLAVE STATUS");
+                rs   = stmt.getResultSet();
+                if (rs.next()) {
+                    String s = rs.getString("Seconds_Behind_Master");
+                    lag = (s != null)? StringTools.parseLong(s,0L) : Long.MAX_VALUE; // null: replication stopped
+                }
+            }
+            boolean wasUsable = r.usable;
+            r.lagSec  = lag;
+            r.usable  = (maxLag <= 0L) || (lag <= maxLag);
+            r.checkMS = System.currentTimeMillis() + (RTConfig.getLong(RTKey.DB_REPLICA_CHECK_INTERVAL,10L) * 1000L);
+            if (wasUsable && !r.usable) {
+                Print.logWarn("Read replica too stale [" + r.uri + "]: lag " + lag + " sec");
+            } else
+            if (!wasUsable && r.usable) {
+                Print.logInfo("Read replica available [" + r.uri + "]: lag " + lag + " sec");
+            }
+        } catch (Throwable th) { // SQLException, DBException
+            if (r.usable || (r.checkMS == 0L)) {
+                Print.logWarn("Read replica unavailable [" + r.uri + "]: " + th);
+            }
+            if (dbc != null) { dbc.closeConnection(); }
+            DBReplica._setUnavailable(r);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+    }
+
+}
@@ -55,12 +55,18 @@ public class DBSelect<gDBR extends DBRecord>
     private DBFactory<gDBR> factory         = null;
     
     private String          selectFields[]  = null;
+    private boolean         projection      = false; // selected fields are a record projection
     private String          utableName      = null;
     private String          where           = null;
     private String          orderByFields[] = null;
     private boolean         ascending       = true; // default ascending
     private long            limit           = 0L;   // no limit
     private long            offset          = 0L;   // beginning of list
+    private boolean         readReplica     = false; // may be executed on a read replica
+    private String          seekFields[]    = null;  // keyset pagination fields
+    private Object          seekValues[]    = null;  // keyset pagination cursor values
+    private String          indexHint       = null;  // index hint (MySQL/SQLServer only)
+    private boolean         forceIndex      = false; // force (vs. suggest) the hinted index
 
     /**
     *** Constructor
@@ -136,6 +142,7 @@ public class DBSelect<gDBR extends DBRecord>
     **/
     public void setSelectedFields(String... sf)
     {
+        this.projection = false;
         if (ListTools.isEmpty(sf)) {
             this.selectFields = null;
         } else {
@@ -177,6 +184,95 @@ public class DBSelect<gDBR extends DBRecord>
         return ((this.selectFields != null) && (this.selectFields.length > 0))? this.selectFields : null;
     }
 
+    // ------------------------------------------------------------------------
+    // Projected fields
+
+    /**
+    *** Sets the projected fields (column subset) of the selected records.  The primary
+    *** key fields are always included.  Records returned by "DBRecord.select" for this
+    *** DBSelect are partially populated with the projected fields only, and will load
+    *** the remaining fields from the DB if any of them are accessed (see 
+    *** "DBRecord.isPartial").
+    *** @param fldNames  The field names to select (null/empty to select all fields)
+    **/
+    public void setProjectedFields(String... fldNames)
+    {
+        DBFactory<gDBR> fact = this.getFactory();
+        if (ListTools.isEmpty(fldNames) || (fact == null)) {
+            this.setSelectedFields((String[])null);
+            return;
+        }
+
+        /* requested fields */
+        Set<String> fldSet = new HashSet<String>();
+        for (String fn : fldNames) {
+            DBField fld = fact.getField(fn);
+            if (fld != null) {
+                fldSet.add(fld.getName());
+            } else {
+                Print.logError("DBFactory field does not exist: %s.%s", fact.getUntranslatedTableName(), fn);
+            }
+        }
+
+        /* primary keys, followed by requested fields (in table order) */
+        java.util.List<String> selList = new Vector<String>();
+        for (DBField fld : fact.getKeyFields()) {
+            selList.add(fld.getName());
+        }
+        DBField allFlds[] = fact.getFields();
+        for (DBField fld : allFlds) {
+            String fn = fld.getName();
+            if (fldSet.contains(fn) && !selList.contains(fn)) {
+                selList.add(fn);
+            }
+        }
+
+        /* set selected fields */
+        if (selList.size() >= allFlds.length) {
+            // all fields requested
+            this.setSelectedFields((String[])null);
+        } else {
+            this.setSelectedFields(selList.toArray(new String[selList.size()]));
+            this.projection = true;
+        }
+
+    }
+
+    /**
+    *** Sets the projected fields (column subset) of the selected records
+    *** @param fldNames  The set of field names to select (null/empty to select all fields)
+    **/
+    public void setProjectedFields(Set<String> fldNames)
+    {
+        if (ListTools.isEmpty(fldNames)) {
+            this.setSelectedFields((String[])null);
+        } else {
+            this.setProjectedFields(fldNames.toArray(new String[fldNames.size()]));
+        }
+    }
+
+    /**
+    *** Returns true if the selected fields of this DBSelect are a record projection
+    *** @return True if this DBSelect selects a record projection
+    **/
+    public boolean isProjection()
+    {
+        return this.projection && this.hasSelectedFields();
+    }
+
+    /**
+    *** Gets the projected fields, or null if this DBSelect is not a record projection
+    *** @return The projected DBFields, or null if all fields are selected
+    **/
+    public DBField[] getProjectedFields()
+    {
+        if (this.isProjection() && (this.getFactory() != null)) {
+            return this.getFactory().getFields(this.getSelectedFields());
+        } else {
+            return null;
+        }
+    }
+
     // ------------------------------------------------------------------------
     // Table name
 
@@ -447,6 +543,28 @@ public class DBSelect<gDBR extends DBRecord>
         return this.offset;
     }
 
+    // ------------------------------------------------------------------------
+    // read replica
+
+    /**
+    *** Sets whether this (read-only) DBSelect may be executed on a read replica
+    *** (see <code>DBReplica</code>)
+    *** @param replica  True to allow execution on a read replica
+    **/
+    public void setReadReplica(boolean replica)
+    {
+        this.readReplica = replica;
+    }
+
+    /**
+    *** Returns true if this DBSelect may be executed on a read replica
+    *** @return True if this DBSelect may be executed on a read replica
+    **/
+    public boolean isReadReplica()
+    {
+        return this.readReplica;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -460,6 +578,118 @@ public class DBSelect<gDBR extends DBRecord>
         // managed by subclasses of DBSelect
     }
 
+    // ------------------------------------------------------------------------
+    // keyset (seek) pagination
+
+    /**
+    *** Sets the keyset pagination cursor.  Only records which sort after the specified
+    *** field values (in the order specified by the order-by fields) will be selected.<br>
+    *** The order-by fields are set to the specified fields, which should uniquely identify
+    *** a record (ie. the primary key), and which should be indexed.  Unlike OFFSET, the
+    *** cost of selecting a page does not depend on the number of preceding records.
+    *** @param flds  The cursor field names (ie. the primary key fields)
+    *** @param vals  The cursor values (ie. the field values of the last record retrieved),
+    ***              or null to start at the first record
+    **/
+    public void setSeekAfter(String flds[], Object vals[])
+    {
+        if (ListTools.isEmpty(flds)) {
+            this.seekFields = null;
+            this.seekValues = null;
+        } else
+        if ((vals != null) && (vals.length != flds.length)) {
+            Print.logError("Seek field/value count mismatch: " + flds.length + " != " + vals.length);
+            this.seekFields = null;
+            this.seekValues = null;
+        } else {
+            this.setOrderByFields(flds);
+            this.seekFields = flds;
+            this.seekValues = vals;
+        }
+        this.offset = 0L;
+    }
+
+    /**
+    *** Sets the keyset pagination cursor to the specified record key.  Only records which
+    *** sort after the specified key (by primary key) will be selected.
+    *** @param rcdKey  The DBRecordKey of the last record retrieved, or null to start at
+    ***                the first record
+    **/
+    public void setSeekKey(DBRecordKey<gDBR> rcdKey)
+    {
+        String kn[] = this.getFactory().getKeyNames();
+        Object kv[] = null;
+        if (rcdKey != null) {
+            kv = new Object[kn.length];
+            for (int i = 0; i < kn.length; i++) {
+                kv[i] = rcdKey.getKeyValue(kn[i]);
+            }
+        }
+        this.setSeekAfter(kn, kv);
+    }
+
+    /**
+    *** Returns true if a keyset pagination cursor has been defined
+    *** @return True if a keyset pagination cursor has been defined
+    **/
+    public boolean hasSeek()
+    {
+        return (this.seekFields != null) && (this.seekValues != null);
+    }
+
+    /**
+    *** Gets the keyset pagination condition
+    *** @return The keyset pagination condition, or null if no cursor is defined
+    **/
+    protected String getSeekCondition()
+    {
+        if (!this.hasSeek()) {
+            return null;
+        }
+        // ((k1>v1) OR ((k1=v1) AND (k2>v2)) OR ...)
+        DBWhere dwh = this.createDBWhere();
+        boolean asc = this.isOrderAscending();
+        String or[] = new String[this.seekFields.length];
+        for (int i = 0; i < this.seekFields.length; i++) {
+            String and[] = new String[i + 1];
+            for (int k = 0; k < i; k++) {
+                and[k] = dwh.EQ(this.seekFields[k], this.seekValues[k]);
+            }
+            and[i] = asc?
+                dwh.GT(this.seekFields[i], this.seekValues[i]) :
+                dwh.LT(this.seekFields[i], this.seekValues[i]);
+            or[i] = (and.length == 1)? and[0] : dwh.AND(and);
+        }
+        return (or.length == 1)? or[0] : dwh.OR(or);
+    }
+
+    // ------------------------------------------------------------------------
+    // index hint
+
+    /**
+    *** Sets the index hint for this DBSelect.  The hint is only included for DBProviders
+    *** which support table index hints (MySQL "USE/FORCE INDEX", SQLServer "WITH (INDEX(...))"),
+    *** and is ignored otherwise.  The caller should make sure that the index exists, since
+    *** an index hint naming a non-existent index will cause the query to fail.
+    *** @param indexName  The name of the index to use, or null to clear the hint
+    *** @param force      True to force the use of the index (MySQL "FORCE INDEX"), 
+    ***                   false to only suggest it (MySQL "USE INDEX")
+    **/
+    public void setIndexHint(String indexName, boolean force)
+    {
+        this.indexHint  = !StringTools.isBlank(indexName)? indexName.trim() : null;
+        this.forceIndex = (this.indexHint != null) && force;
+    }
+
+    /**
+    *** Gets the index hint for this DBSelect
+    *** @return The index name, or null if no index hint has been set
+    **/
+    public String getIndexHint()
+    {
+        return this.indexHint;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -539,9 +769,37 @@ public class DBSelect<gDBR extends DBRecord>
             //sb.append(dbp.getEndColumnChar());
             sb.append(dbp.quoteTableName(this.getTranslatedTableName(dbp)));
 
+            /* index hint */
+            // MySQL:      FROM <table> USE INDEX (<index>)
+            // SQLServer:  FROM <table> WITH (INDEX(<index>))
+            if (this.indexHint != null) {
+                switch (dbid) {
+                    case DBProvider.DB_MYSQL:
+                        sb.append(this.forceIndex? " FORCE INDEX (" : " USE INDEX (");
+                        sb.append(this.indexHint).append(")");
+                        break;
+                    case DBProvider.DB_SQLSERVER:
+                        sb.append(" WITH (INDEX(").append(this.indexHint).append("))");
+                        break;
+                    default:
+                        // index hints not supported
+                        break;
+                }
+            }
+
         }
 
         /* WHERE */
+        String seek = this.getSeekCondition();
+        if (seek != null) {
+            if (this.hasWhere()) {
+                // WHERE (...) AND (seek)
+                String wh = this.getWhere().substring("WHERE ".length()).trim();
+                sb.append(" WHERE (").append(wh).append(") AND ").append(seek);
+            } else {
+                sb.append(" WHERE ").append(seek);
+            }
+        } else
         if (this.hasWhere()) {
             sb.append(" ").append(this.getWhere());
         }
@@ -558,6 +816,9 @@ public class DBSelect<gDBR extends DBRecord>
                 //sb.append(fld[i]);
                 //sb.append(dbp.getEndColumnChar());
                 sb.append(dbp.quoteColumnName(fld[i]));
+                if ((this.seekFields != null) && !this.isOrderAscending() && (i < (fld.length - 1))) {
+                    sb.append(" DESC"); // keyset: all fields descending
+                }
             }
             if (!this.isOrderAscending()) {
                 sb.append(" DESC");
@@ -0,0 +1,784 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Parallel, segmented, resumable table dump/load
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+import java.sql.*;
+import java.util.zip.*;
+import java.util.concurrent.atomic.*;
+
+import org.opengts.util.*;
+
+/**
+*** Parallel table dump/load.<br>
+*** A table is dumped as a set of key-range segments (by the leading primary key columns,
+*** ie. one segment per Account/Device for EventData), or time-range segments (by the
+*** "timestamp" column).  Each segment is written to a separate gzip compressed CSV file
+*** (in the same format as <code>DBFactory.dumpTable</code>) in the directory
+*** "&lt;dir&gt;/&lt;table&gt;/".  Segments are dumped and loaded concurrently by a
+*** configurable number of threads.<br>
+*** Segments are loaded with multi-row INSERT statements (or MySQL "LOAD DATA LOCAL INFILE",
+*** when requested).  Completed segments are recorded in "&lt;dir&gt;/&lt;table&gt;.progress",
+*** so that an interrupted dump/load resumes with the remaining segments.
+**/
+
+public class DBTableTransfer
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final String     SEGMENT_EXT         = ".csv.gz";
+    public  static final String     PROGRESS_EXT        = ".progress";
+
+    private static final String     OP_DUMP             = "dump";
+    private static final String     OP_LOAD             = "load";
+
+    private static final int        MAX_INSERT_LENGTH   = 1024 * 1024; // maximum multi-row INSERT length
+
+    private static final Metrics.Counter METRIC_DUMP_ROWS     = Metrics.getCounter("dbtransfer_rows_total"    , "op", OP_DUMP);
+    private static final Metrics.Counter METRIC_LOAD_ROWS     = Metrics.getCounter("dbtransfer_rows_total"    , "op", OP_LOAD);
+    private static final Metrics.Counter METRIC_DUMP_SEGMENTS = Metrics.getCounter("dbtransfer_segments_total", "op", OP_DUMP);
+    private static final Metrics.Counter METRIC_LOAD_SEGMENTS = Metrics.getCounter("dbtransfer_segments_total", "op", OP_LOAD);
+
+    /**
+    *** Dump segmentation
+    **/
+    public enum SegmentBy {
+        KEY,
+        TIME;
+        public static SegmentBy parse(String s) {
+            return StringTools.trim(s).equalsIgnoreCase("time")? TIME : KEY;
+        }
+    };
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Dump segment
+    **/
+    private static class Segment
+    {
+        private String name  = null;
+        private String where = null;
+        public Segment(String name, String where) {
+            this.name  = name;
+            this.where = where;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    private DBFactory<? extends DBRecord> factory   = null;
+    private File                        dir         = null;
+    private int                         threads     = 4;
+    private SegmentBy                   segmentBy   = SegmentBy.KEY;
+    private long                        intervalSec = DateTime.DaySeconds(30);
+    private int                         batchSize   = 500;
+    private boolean                     overwrite   = false;
+    private volatile boolean            loadData    = false;
+
+    private Set<String>                 done        = new HashSet<String>();
+    private PrintWriter                 progressOut = null;
+    private AtomicLong                  totalRows   = new AtomicLong(0L);
+    private AtomicLong                  errors      = new AtomicLong(0L);
+
+    /**
+    *** Constructor
+    *** @param factory  The table DBFactory
+    *** @param dir      The dump/load directory
+    **/
+    public DBTableTransfer(DBFactory<? extends DBRecord> factory, File dir)
+    {
+        this.factory = factory;
+        this.dir     = dir;
+        this.threads = Math.max(Runtime.getRuntime().availableProcessors(), 2);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Sets the number of segments dumped/loaded concurrently
+    **/
+    public void setThreads(int threads)
+    {
+        this.threads = Math.max(threads, 1);
+    }
+
+    /**
+    *** Sets the dump segmentation
+    *** @param segBy     Key or time segmentation
+    *** @param days      The time segment interval (in days)
+    **/
+    public void setSegmentBy(SegmentBy segBy, int days)
+    {
+        this.segmentBy   = (segBy != null)? segBy : SegmentBy.KEY;
+        this.intervalSec = DateTime.DaySeconds(Math.max(days,1));
+    }
+
+    /**
+    *** Sets the number of rows per INSERT statement
+    **/
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+    *** Sets whether loaded records overwrite existing records (MySQL only, otherwise
+    *** existing records are retained)
+    **/
+    public void setOverwrite(boolean overwrite)
+    {
+        this.overwrite = overwrite;
+    }
+
+    /**
+    *** Sets whether segments are loaded with "LOAD DATA LOCAL INFILE" (MySQL only.  Requires
+    *** "local_infile" on the server, and "allowLoadLocalInfile=true" on the JDBC URL)
+    **/
+    public void setLoadData(boolean loadData)
+    {
+        this.loadData = loadData;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* table segment directory */
+    private File _getTableDir()
+    {
+        return new File(this.dir, this.factory.getUntranslatedTableName());
+    }
+
+    /* reads completed segments from the progress file, and opens it for append */
+    private void _openProgress(String op, boolean restart)
+        throws IOException
+    {
+        File file = new File(this.dir, this.factory.getUntranslatedTableName() + PROGRESS_EXT);
+        this.done.clear();
+        if (file.isFile() && !restart) {
+            BufferedReader br = null;
+            try {
+                br = new BufferedReader(new FileReader(file));
+                for (String line; (line = br.readLine()) != null;) {
+                    String f[] = StringTools.split(line.trim(),' ');
+                    if ((f.length >= 2) && f[0].equals(op)) {
+                        this.done.add(f[1]);
+                    }
+                }
+            } finally {
+                if (br != null) { try { br.close(); } catch (Throwable th) {/*ignore*/} }
+            }
+        }
+        if (restart || !file.isFile()) {
+            // -- progress of both operations is reset
+            this.progressOut = new PrintWriter(new FileWriter(file, false), true);
+        } else {
+            this.progressOut = new PrintWriter(new FileWriter(file, true), true);
+        }
+        if (!this.done.isEmpty()) {
+            Print.logInfo("Resuming " + op + ": " + this.done.size() + " segments already complete");
+        }
+    }
+
+    /* records a completed segment */
+    private void _progress(String op, String segName, long rows)
+    {
+        synchronized (this.progressOut) {
+            this.progressOut.println(op + " " + segName + " " + rows);
+        }
+        if (op.equals(OP_DUMP)) {
+            METRIC_DUMP_ROWS.add(rows);
+            METRIC_DUMP_SEGMENTS.increment();
+        } else {
+            METRIC_LOAD_ROWS.add(rows);
+            METRIC_LOAD_SEGMENTS.increment();
+        }
+    }
+
+    /* closes the progress file */
+    private void _closeProgress()
+    {
+        if (this.progressOut != null) {
+            this.progressOut.close();
+            this.progressOut = null;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Runs the specified segment task on the configured number of threads
+    **/
+    private <T> void _runParallel(final String op, final java.util.List<T> work, final SegmentTask<T> task)
+    {
+        final Iterator<T> workIter = work.iterator();
+        int n = Math.max(1, Math.min(this.threads, work.size()));
+        Thread thread[] = new Thread[n];
+        for (int t = 0; t < n; t++) {
+            thread[t] = new Thread(op + "_" + this.factory.getUntranslatedTableName() + "_" + t) {
+                public void run() {
+                    for (;;) {
+                        T item;
+                        synchronized (workIter) {
+                            if (!workIter.hasNext()) { break; }
+                            item = workIter.next();
+                        }
+                        try {
+                            task.run(item);
+                        } catch (Throwable th) { // DBException, SQLException, IOException
+                            DBTableTransfer.this.errors.incrementAndGet();
+                            Print.logException("Segment " + op + " failed: " + item, th);
+                        }
+                    }
+                }
+            };
+            thread[t].start();
+        }
+        for (int t = 0; t < n; t++) {
+            try {
+                thread[t].join();
+            } catch (InterruptedException ie) {
+                Print.logWarn("Interrupted");
+            }
+        }
+    }
+
+    private interface SegmentTask<T>
+    {
+        public void run(T item) throws Throwable;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // Dump
+
+    /**
+    *** Dumps the table into compressed segment files
+    *** @param restart  True to ignore the progress of a previous dump
+    *** @return The number of records dumped (excluding segments dumped by a previous run)
+    *** @throws DBException If any segment could not be dumped
+    **/
+    public long dump(boolean restart)
+        throws DBException
+    {
+        String utableName = this.factory.getUntranslatedTableName();
+        File tableDir = this._getTableDir();
+        if (!tableDir.isDirectory() && !tableDir.mkdirs()) {
+            throw new DBException("Unable to create directory: " + tableDir);
+        }
+
+        /* segments */
+        java.util.List<Segment> segments = this._getSegments();
+        try {
+            this._openProgress(OP_DUMP, restart);
+        } catch (IOException ioe) {
+            throw new DBException("Unable to open progress file", ioe);
+        }
+        java.util.List<Segment> work = new Vector<Segment>();
+        for (Segment s : segments) {
+            if (!this.done.contains(s.name)) {
+                work.add(s);
+            }
+        }
+        Print.logInfo("Dumping '" + utableName + "': " + work.size() + " of " + segments.size() +
+            " segments, " + this.threads + " threads ...");
+
+        /* dump */
+        long startMS = System.currentTimeMillis();
+        try {
+            this._runParallel(OP_DUMP, work, new SegmentTask<Segment>() {
+                public void run(Segment seg) throws Throwable {
+                    long rows = DBTableTransfer.this._dumpSegment(seg);
+                    DBTableTransfer.this._progress(OP_DUMP, seg.name, rows);
+                }
+            });
+        } finally {
+            this._closeProgress();
+        }
+        return this._finish(OP_DUMP, startMS);
+
+    }
+
+    /* logs the result of a dump/load */
+    private long _finish(String op, long startMS)
+        throws DBException
+    {
+        long rows  = this.totalRows.get();
+        long secs  = Math.max((System.currentTimeMillis() - startMS) / 1000L, 1L);
+        Print.logInfo(op + " '" + this.factory.getUntranslatedTableName() + "': " + rows + " records, " +
+            secs + " sec (" + (rows / secs) + " records/sec)");
+        if (this.errors.get() > 0L) {
+            throw new DBException(op + " incomplete, failed segments: " + this.errors.get() + " (re-run to resume)");
+        }
+        return rows;
+    }
+
+    /**
+    *** Gets the dump segments
+    **/
+    private java.util.List<Segment> _getSegments()
+        throws DBException
+    {
+        java.util.List<Segment> segList = new Vector<Segment>();
+        String   xtable = DBProvider.getProvider().quoteTableName(this.factory.getTranslatedTableName());
+        DBWhere  dwh    = new DBWhere(this.factory);
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc = DBConnection.getDefaultConnection();
+            if (this.segmentBy.equals(SegmentBy.TIME)) {
+                // -- timestamp ranges
+                String tsFld = "timestamp";
+                if (!this.factory.hasField(tsFld)) {
+                    throw new DBException("Table does not have a '" + tsFld + "' column");
+                }
+                String qts = DBProvider.getProvider().quoteColumnName(tsFld);
+                stmt = dbc.execute("SELECT MIN(" + qts + "),MAX(" + qts + ") FROM " + xtable);
+                rs   = stmt.getResultSet();
+                long minTS = 0L, maxTS = -1L;
+                if (rs.next()) {
+                    minTS = rs.getLong(1);
+                    maxTS = rs.getLong(2);
+                }
+                long start = (minTS / this.intervalSec) * this.intervalSec;
+                for (long s = start; s <= maxTS; s += this.intervalSec) {
+                    String name = "t" + new DateTime(s, DateTime.GMT).format("yyyyMMdd");
+                    segList.add(new Segment(name, dwh.WHERE_(dwh.AND(
+                        dwh.GE(tsFld, s),
+                        dwh.LT(tsFld, s + this.intervalSec)))));
+                }
+            } else {
+                // -- leading primary key columns
+                DBField keys[] = this.factory.getKeyFields();
+                int n = (keys.length >= 3)? 2 : (keys.length == 2)? 1 : 0;
+                if (n == 0) {
+                    segList.add(new Segment("all", null));
+                } else {
+                    StringBuffer cols = new StringBuffer();
+                    for (int k = 0; k < n; k++) {
+                        if (k > 0) { cols.append(","); }
+                        cols.append(DBProvider.getProvider().quoteColumnName(keys[k].getName()));
+                    }
+                    stmt = dbc.execute("SELECT DISTINCT " + cols + " FROM " + xtable + " ORDER BY " + cols, true);
+                    rs   = stmt.getResultSet();
+                    while (rs.next()) {
+                        StringBuffer name = new StringBuffer();
+                        String cond[] = new String[n];
+                        for (int k = 0; k < n; k++) {
+                            String v = rs.getString(k + 1);
+                            if (k > 0) { name.append("~"); }
+                            name.append(DBTableTransfer._fileName(v));
+                            cond[k] = dwh.EQ(keys[k].getName(), v);
+                        }
+                        segList.add(new Segment(name.toString(), dwh.WHERE_((n == 1)? cond[0] : dwh.AND(cond))));
+                    }
+                }
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Reading dump segments", sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+        return segList;
+    }
+
+    /* encode a key value as a file name component */
+    private static String _fileName(String v)
+    {
+        StringBuffer sb = new StringBuffer();
+        byte b[] = StringTools.getBytes(StringTools.trim(v));
+        for (int i = 0; i < b.length; i++) {
+            int c = b[i] & 0xFF;
+            if (((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) ||
+                (c == '_') || (c == '-')) {
+                sb.append((char)c);
+            } else {
+                sb.append('%').append(StringTools.toHexString(b[i]));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+    *** Dumps the specified segment
+    *** @return The number of records dumped
+    **/
+    private long _dumpSegment(Segment seg)
+        throws DBException, SQLException, IOException
+    {
+        File tableDir = this._getTableDir();
+        File outFile  = new File(tableDir, seg.name + SEGMENT_EXT);
+        File tmpFile  = new File(tableDir, seg.name + SEGMENT_EXT + ".tmp");
+        DBField fields[] = this.factory.getFields();
+        String sql = "SELECT * FROM " + DBProvider.getProvider().quoteTableName(this.factory.getTranslatedTableName()) +
+            ((seg.where != null)? (" " + seg.where) : "");
+
+        long rows = 0L;
+        Writer       out  = null;
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(tmpFile), 64 * 1024), "UTF-8"), 64 * 1024);
+
+            /* header */
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) { out.write(","); }
+                out.write("\"" + fields[i].getName() + "\"");
+            }
+            out.write("\n");
+
+            /* records (row by row) */
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql, true);
+            rs   = stmt.getResultSet();
+            StringBuilder sb = new StringBuilder();
+            while (rs.next()) {
+                sb.setLength(0);
+                for (int i = 0; i < fields.length; i++) {
+                    if (i > 0) { sb.append(","); }
+                    sb.append(fields[i].getQValue(fields[i].getResultSetValue(rs)));
+                }
+                sb.append("\n");
+                out.write(sb.toString());
+                rows++;
+            }
+
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+            if (out != null) { out.close(); }
+        }
+
+        /* complete */
+        if (outFile.exists()) {
+            outFile.delete();
+        }
+        if (!tmpFile.renameTo(outFile)) {
+            throw new IOException("Unable to rename " + tmpFile + " to " + outFile);
+        }
+        this.totalRows.addAndGet(rows);
+        Print.logDebug("Dumped " + seg.name + ": " + rows);
+        return rows;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // Load
+
+    /**
+    *** Loads the table from the segment files created by <code>dump</code>
+    *** @param restart  True to ignore the progress of a previous load
+    *** @return The number of records loaded (excluding segments loaded by a previous run)
+    *** @throws DBException If any segment could not be loaded
+    **/
+    public long load(boolean restart)
+        throws DBException
+    {
+        String utableName = this.factory.getUntranslatedTableName();
+        File tableDir = this._getTableDir();
+        File files[] = tableDir.listFiles(new FileFilter() {
+            public boolean accept(File f) {
+                return f.isFile() && f.getName().endsWith(SEGMENT_EXT);
+            }
+        });
+        if (ListTools.isEmpty(files)) {
+            throw new DBException("No segment files found: " + tableDir);
+        }
+        Arrays.sort(files);
+
+        /* remaining segments */
+        try {
+            this._openProgress(OP_LOAD, restart);
+        } catch (IOException ioe) {
+            throw new DBException("Unable to open progress file", ioe);
+        }
+        java.util.List<File> work = new Vector<File>();
+        for (File f : files) {
+            if (!this.done.contains(DBTableTransfer._segmentName(f))) {
+                work.add(f);
+            }
+        }
+        Print.logInfo("Loading '" + utableName + "': " + work.size() + " of " + files.length +
+            " segments, " + this.threads + " threads ...");
+
+        /* load */
+        long startMS = System.currentTimeMillis();
+        try {
+            this._runParallel(OP_LOAD, work, new SegmentTask<File>() {
+                public void run(File file) throws Throwable {
+                    long rows = DBTableTransfer.this._loadSegment(file);
+                    DBTableTransfer.this._progress(OP_LOAD, DBTableTransfer._segmentName(file), rows);
+                }
+            });
+        } finally {
+            this._closeProgress();
+        }
+        return this._finish(OP_LOAD, startMS);
+
+    }
+
+    /* segment name of the specified file */
+    private static String _segmentName(File f)
+    {
+        String n = f.getName();
+        return n.endsWith(SEGMENT_EXT)? n.substring(0, n.length() - SEGMENT_EXT.length()) : n;
+    }
+
+    /* opens a segment file */
+    private static BufferedReader _openSegment(File file)
+        throws IOException
+    {
+        return new BufferedReader(new InputStreamReader(
+            new GZIPInputStream(new FileInputStream(file), 64 * 1024), "UTF-8"), 64 * 1024);
+    }
+
+    /* maps the segment header columns to this table's fields (null for dropped columns) */
+    private DBField[] _getColumnFields(String header)
+        throws DBException
+    {
+        String cols[] = StringTools.parseArray(header);
+        if (ListTools.isEmpty(cols)) {
+            throw new DBException("Unable to parse field names");
+        }
+        DBField fields[] = new DBField[cols.length];
+        for (int i = 0; i < cols.length; i++) {
+            fields[i] = this.factory.getField(cols[i]);
+        }
+        return fields;
+    }
+
+    /**
+    *** Loads the specified segment file
+    *** @return The number of records loaded
+    **/
+    private long _loadSegment(File file)
+        throws DBException, SQLException, IOException
+    {
+        boolean isMySQL = (DBProvider.getProvider().getID() == DBProvider.DB_MYSQL);
+        if (this.loadData && isMySQL) {
+            try {
+                return this._loadSegmentLocalInfile(file);
+            } catch (SQLException sqe) {
+                Print.logWarn("LOAD DATA LOCAL INFILE failed, using INSERT: " + sqe);
+                this.loadData = false;
+            }
+        }
+        return this._loadSegmentInsert(file, isMySQL);
+    }
+
+    /**
+    *** Loads the specified segment file with multi-row INSERT statements.<br>
+    *** MySQL: existing records are retained (INSERT IGNORE), or replaced if 'overwrite' is set.
+    *** Other DBProviders: a failed multi-row INSERT is retried row by row, skipping existing records.
+    **/
+    private long _loadSegmentInsert(File file, boolean isMySQL)
+        throws DBException, SQLException, IOException
+    {
+        DBProvider dbp = DBProvider.getProvider();
+        BufferedReader in = null;
+        DBConnection  dbc = null;
+        long rows = 0L;
+        try {
+            in  = DBTableTransfer._openSegment(file);
+            dbc = DBConnection.getDefaultConnection();
+
+            /* columns */
+            String header = in.readLine();
+            if (header == null) {
+                return 0L; // empty file
+            }
+            DBField fields[] = this._getColumnFields(header);
+            StringBuffer cols = new StringBuffer();
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] != null) {
+                    if (cols.length() > 0) { cols.append(","); }
+                    cols.append(dbp.quoteColumnName(fields[i].getName()));
+                }
+            }
+            String verb = !isMySQL? "INSERT" : this.overwrite? "REPLACE" : "INSERT IGNORE";
+            String insertPfx = verb + " INTO " + dbp.quoteTableName(this.factory.getTranslatedTableName()) +
+                " (" + cols + ") VALUES ";
+
+            /* rows */
+            java.util.List<String> batch = new Vector<String>();
+            int batchLen = 0;
+            StringBuilder vsb = new StringBuilder();
+            for (int lineNum = 2;; lineNum++) {
+                String line = in.readLine();
+                if ((line == null) || (batch.size() >= this.batchSize) || (batchLen >= MAX_INSERT_LENGTH)) {
+                    rows += this._insertBatch(dbc, insertPfx, batch, isMySQL);
+                    batch.clear();
+                    batchLen = 0;
+                    if (line == null) {
+                        break;
+                    }
+                }
+                line = line.trim();
+                if (line.equals("")) {
+                    continue;
+                }
+                String v[] = StringTools.parseArray(line);
+                if (v.length != fields.length) {
+                    Print.logError(file.getName() + ": fields found != expected: " + v.length + " != " +
+                        fields.length + " [row " + lineNum + "]");
+                    continue;
+                }
+                vsb.setLength(0);
+                vsb.append("(");
+                boolean first = true;
+                for (int i = 0; i < fields.length; i++) {
+                    if (fields[i] != null) {
+                        if (!first) { vsb.append(","); }
+                        String rowVal = !v[i].equals("\\N")? v[i] : null;
+                        vsb.append(fields[i].getQValue(fields[i].parseStringValue(rowVal)));
+                        first = false;
+                    }
+                }
+                vsb.append(")");
+                batch.add(vsb.toString());
+                batchLen += vsb.length() + 1;
+            }
+
+        } finally {
+            DBConnection.release(dbc);
+            if (in != null) { try { in.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+        this.totalRows.addAndGet(rows);
+        Print.logDebug("Loaded " + file.getName() + ": " + rows);
+        return rows;
+    }
+
+    /* inserts a batch of rows */
+    private long _insertBatch(DBConnection dbc, String insertPfx, java.util.List<String> batch, boolean isMySQL)
+        throws SQLException, DBException
+    {
+        if (batch.isEmpty()) {
+            return 0L;
+        }
+        StringBuilder sql = new StringBuilder(insertPfx);
+        for (int r = 0; r < batch.size(); r++) {
+            if (r > 0) { sql.append(","); }
+            sql.append(batch.get(r));
+        }
+        try {
+            dbc.executeUpdate(sql.toString(), false);
+            return batch.size();
+        } catch (SQLException sqe) {
+            if (isMySQL) {
+                throw sqe;
+            }
+            // -- retry row by row (skip existing records)
+            long count = 0L;
+            for (String row : batch) {
+                try {
+                    dbc.executeUpdate(insertPfx + row, false);
+                    count++;
+                } catch (SQLException dup) {
+                    Print.logDebug("Row not inserted: " + dup);
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+    *** Loads the specified segment file with MySQL "LOAD DATA LOCAL INFILE"
+    **/
+    private long _loadSegmentLocalInfile(File file)
+        throws DBException, SQLException, IOException
+    {
+        DBProvider dbp = DBProvider.getProvider();
+        File tmpFile = File.createTempFile(this.factory.getUntranslatedTableName() + "_", ".csv");
+        BufferedReader in = null;
+        DBConnection  dbc = null;
+        try {
+
+            /* uncompress (counting records) */
+            long rows = -1L; // excluding header
+            String header = null;
+            Writer out = null;
+            try {
+                in  = DBTableTransfer._openSegment(file);
+                out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8"), 64 * 1024);
+                for (String line; (line = in.readLine()) != null;) {
+                    if (header == null) { header = line; }
+                    if (line.trim().equals("")) { continue; }
+                    out.write(line);
+                    out.write("\n");
+                    rows++;
+                }
+            } finally {
+                if (out != null) { out.close(); }
+            }
+            if (header == null) {
+                return 0L; // empty file
+            }
+
+            /* columns (BLOB columns are dumped as "0x<hex>") */
+            DBField fields[] = this._getColumnFields(header);
+            StringBuffer cols = new StringBuffer();
+            StringBuffer sets = new StringBuffer();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) { cols.append(","); }
+                if (fields[i] == null) {
+                    cols.append("@skip");
+                } else
+                if (fields[i].isBLOB()) {
+                    cols.append("@b").append(i);
+                    if (sets.length() > 0) { sets.append(","); }
+                    sets.append(dbp.quoteColumnName(fields[i].getName()));
+                    sets.append("=UNHEX(SUBSTRING(@b").append(i).append(",3))");
+                } else {
+                    cols.append(dbp.quoteColumnName(fields[i].getName()));
+                }
+            }
+
+            /* load */
+            StringBuffer sql = new StringBuffer();
+            sql.append("LOAD DATA LOCAL INFILE ").append(DBField.quote(tmpFile.getAbsolutePath()));
+            sql.append(this.overwrite? " REPLACE" : " IGNORE");
+            sql.append(" INTO TABLE ").append(dbp.quoteTableName(this.factory.getTranslatedTableName()));
+            sql.append(" CHARACTER SET utf8");
+            sql.append(" FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\\'' ESCAPED BY '\\\\'");
+            sql.append(" LINES TERMINATED BY '\\n' IGNORE 1 LINES");
+            sql.append(" (").append(cols).append(")");
+            if (sets.length() > 0) {
+                sql.append(" SET ").append(sets);
+            }
+            dbc = DBConnection.getDefaultConnection();
+            dbc.executeUpdate(sql.toString(), false);
+            this.totalRows.addAndGet(Math.max(rows,0L));
+            Print.logDebug("Loaded " + file.getName() + ": " + rows);
+            return Math.max(rows,0L);
+
+        } finally {
+            DBConnection.release(dbc);
+            if (in != null) { try { in.close(); } catch (Throwable th) {/*ignore*/} }
+            tmpFile.delete();
+        }
+    }
+
+}
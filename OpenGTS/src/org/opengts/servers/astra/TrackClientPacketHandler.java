@@ -190,7 +190,7 @@ public class TrackClientPacketHandler
             protocol = packet[0];
 
             /* Determine the full packet length */
-            Payload p = new Payload(packet, 1, 2);
+            BufferPayload p = BufferPayload.wrap(packet, 1, 2);
             packetLength = p.readUInt(2, 0, true);
 
             /* (debug message) log protocol for received packet */
@@ -310,7 +310,7 @@ public class TrackClientPacketHandler
         String rawData = "";
 
         /* Generate 2 byte packet checksum for all bytes except the last 2 */
-        Payload p = new Payload(pktBytes, (pktBytes.length - 2), 2);
+        BufferPayload p = BufferPayload.wrap(pktBytes, (pktBytes.length - 2), 2);
         packetChecksum = p.readUInt(2, 0);
         checksum = generateCheckSum (pktBytes, pktBytes.length);
 
@@ -322,7 +322,7 @@ public class TrackClientPacketHandler
 
         /* Parse the header to extract the IMEI */
         index = 3;
-        p = new Payload(pktBytes, index, 7);
+        p = BufferPayload.wrap(pktBytes, index, 7);
         long tac = p.readULong(4, 0L, true);
         int msn = p.readUInt(3, 0, true);
         String imei = String.valueOf(tac) + String.valueOf(msn);
@@ -345,7 +345,7 @@ public class TrackClientPacketHandler
         {
             reportLen = PROTOCOL_C_BASIC_LEN;
 
-            p = new Payload(pktBytes, index, PROTOCOL_K_BASIC_LEN);
+            p = BufferPayload.wrap(pktBytes, index, PROTOCOL_K_BASIC_LEN);
             sequenceNumber = p.readUInt(1, 0);
             intLatitude = p.readInt(4, 0);
             intLongitude = p.readInt(4, 0);
@@ -521,7 +521,7 @@ public class TrackClientPacketHandler
         String rawData = "";
 
         /* Generate 2 byte packet checksum for all bytes except the last 2 */
-        Payload p = new Payload(pktBytes, (pktBytes.length - 2), 2);
+        BufferPayload p = BufferPayload.wrap(pktBytes, (pktBytes.length - 2), 2);
         packetChecksum = p.readUInt(2, 0);
         checksum = generateCheckSum (pktBytes, pktBytes.length);
 
@@ -533,7 +533,7 @@ public class TrackClientPacketHandler
 
         /* Parse the header to extract the IMEI */
         index = 3;
-        p = new Payload(pktBytes, index, 7);
+        p = BufferPayload.wrap(pktBytes, index, 7);
         long tac = p.readULong(4, 0L, true);
         int msn = p.readUInt(3, 0, true);
         String imei = String.valueOf(tac) + String.valueOf(msn);
@@ -554,7 +554,7 @@ public class TrackClientPacketHandler
         /* Parse each report in the packet */
         do
         {
-            p = new Payload(pktBytes, index, PROTOCOL_K_BASIC_LEN);
+            p = BufferPayload.wrap(pktBytes, index, PROTOCOL_K_BASIC_LEN);
             sequenceNumber = p.readUInt(1, 0);
             intLatitude = p.readInt(4, 0);
             intLongitude = p.readInt(4, 0);
@@ -638,7 +638,7 @@ public class TrackClientPacketHandler
             if ((repStatus & STATUS_EXTRA_DATA) > 0)
             {
                 /* For start/stop reports read the lifetime odometer in km */
-                p = new Payload(pktBytes, (index + 45), 3);
+                p = BufferPayload.wrap(pktBytes, (index + 45), 3);
                 intOdometer = p.readUInt(3, 0);
                 odometer = (double)intOdometer;
             }
@@ -753,7 +753,7 @@ public class TrackClientPacketHandler
         String rawData = "";
 
         /* Generate 2 byte packet checksum for all bytes except the last 2 */
-        Payload p = new Payload(pktBytes, (pktBytes.length - 2), 2);
+        BufferPayload p = BufferPayload.wrap(pktBytes, (pktBytes.length - 2), 2);
         packetChecksum = p.readUInt(2, 0);
         checksum = generateCheckSum (pktBytes, pktBytes.length);
 
@@ -765,7 +765,7 @@ public class TrackClientPacketHandler
 
         /* Parse the header to extract the IMEI */
         index = 3;
-        p = new Payload(pktBytes, index, 7);
+        p = BufferPayload.wrap(pktBytes, index, 7);
         long tac = p.readULong(4, 0L, true);
         int msn = p.readUInt(3, 0, true);
         String imei = String.valueOf(tac) + String.valueOf(msn);
@@ -786,7 +786,7 @@ public class TrackClientPacketHandler
         /* Parse each report in the packet */
         do
         {
-            p = new Payload(pktBytes, index, PROTOCOL_M_BASIC_LEN);
+            p = BufferPayload.wrap(pktBytes, index, PROTOCOL_M_BASIC_LEN);
             sequenceNumber = p.readUInt(1, 0);
             intLatitude = p.readInt(4, 0);
             intLongitude = p.readInt(4, 0);
@@ -876,7 +876,7 @@ public class TrackClientPacketHandler
             if ((repStatus & STATUS_EXTRA_DATA) > 0)
             {
                 /* For start/stop reports read the lifetime odometer in km */
-                p = new Payload(pktBytes, (index + 48), 3);
+                p = BufferPayload.wrap(pktBytes, (index + 48), 3);
                 intOdometer = p.readUInt(3, 0);
                 odometer = (double)intOdometer;
             }
@@ -0,0 +1,444 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Asynchronous log file writer used by 'Print'.  Log messages are placed in
+//  a bounded lock-free multi-producer/single-consumer ring buffer, and are
+//  formatted and written (in batches) to the log file by a single writer thread.
+// ----------------------------------------------------------------------------
+package org.opengts.util;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+*** <code>AsyncLogWriter</code> writes 'Print' log messages to the log file from a
+*** single background thread.<br>
+*** Message formatting (including the evaluation of format arguments) is deferred
+*** to the writer thread, so mutable objects passed as format arguments should not
+*** be modified by the caller after logging.
+**/
+
+public class AsyncLogWriter
+    implements Runnable
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final String POLICY_BLOCK        = "block";
+    public  static final String POLICY_DROP         = "drop";
+
+    public  static final int    MIN_QUEUE_SIZE      = 64;
+    public  static final int    DFT_QUEUE_SIZE      = 8192;
+
+    private static final int    MAX_BATCH_SIZE      = 512;
+    private static final int    MAX_BATCH_CHARS     = 64 * 1024;
+    private static final long   IDLE_PARK_NANOS     = 100L * 1000000L;  // 100ms
+    private static final long   FULL_PARK_NANOS     = 50L * 1000L;      // 50us
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Queued log message
+    **/
+    private static class LogEntry
+    {
+        public int      level  = 0;
+        public boolean  header = false;
+        public long     timeMS = 0L;    // 0 to omit date
+        public String   frame  = null;  // null to omit stack frame
+        public String   msg    = null;
+        public Object   args[] = null;
+        public boolean  raw    = false; // 'msg' is already formatted
+    }
+
+    // ------------------------------------------------------------------------
+
+    private int                             capacity    = 0;
+    private int                             mask        = 0;
+    private AtomicReferenceArray<LogEntry>  slots       = null;
+    private AtomicLongArray                 sequence    = null;
+    private AtomicLong                      tail        = new AtomicLong(0L);  // next producer position
+    private long                            head        = 0L;                  // next consumer position (writer thread only)
+    private volatile long                   written     = 0L;                  // positions written to the log file
+
+    private boolean                         dropWhenFull = false;
+    private AtomicLong                      dropCount   = new AtomicLong(0L);
+
+    private Thread                          writerThread = null;
+    private volatile boolean                sleeping    = false;
+    private volatile boolean                stopped     = false;
+
+    private File                            logFile     = null;
+    private FileChannel                     channel     = null;
+    private long                            fileSize    = 0L;
+
+    private long                            lastDateSec = -1L;
+    private String                          lastDateStr = "";
+
+    /**
+    *** Constructor
+    *** @param queueSize     The maximum number of queued messages (rounded up to a power of 2)
+    *** @param dropWhenFull  True to drop messages when the queue is full, false to block the caller
+    **/
+    public AsyncLogWriter(int queueSize, boolean dropWhenFull)
+    {
+        int cap = MIN_QUEUE_SIZE;
+        while ((cap < queueSize) && (cap < (1 << 24))) { cap <<= 1; }
+        this.capacity     = cap;
+        this.mask         = cap - 1;
+        this.slots        = new AtomicReferenceArray<LogEntry>(cap);
+        this.sequence     = new AtomicLongArray(cap);
+        for (int i = 0; i < cap; i++) {
+            this.sequence.set(i, (long)i);
+        }
+        this.dropWhenFull = dropWhenFull;
+    }
+
+    /**
+    *** Starts the writer thread (and registers a shutdown hook which flushes the queue)
+    **/
+    public AsyncLogWriter start()
+    {
+        if (this.writerThread == null) {
+            this.writerThread = new Thread(this, "AsyncLogWriter");
+            this.writerThread.setDaemon(true);
+            this.writerThread.start();
+            Runtime.getRuntime().addShutdownHook(new Thread("AsyncLogWriter-shutdown") {
+                public void run() {
+                    AsyncLogWriter.this.stop(2000L);
+                }
+            });
+        }
+        return this;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the queue capacity
+    **/
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+    *** Gets the number of messages currently queued
+    **/
+    public int getQueuedCount()
+    {
+        long n = this.tail.get() - this.written;
+        return (n > 0L)? (int)n : 0;
+    }
+
+    /**
+    *** Gets the number of messages dropped because the queue was full
+    **/
+    public long getDroppedCount()
+    {
+        return this.dropCount.get();
+    }
+
+    /**
+    *** Returns true if this writer has been stopped
+    **/
+    public boolean isStopped()
+    {
+        return this.stopped;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Queues a log message for deferred formatting
+    *** @param level  The log level
+    *** @param header True to include the "[LEVEL|date|frame]" header
+    *** @param timeMS The message time (0 to omit the date from the header)
+    *** @param frame  The caller stack frame (null to omit from the header)
+    *** @param msg    The message format
+    *** @param args   The message format arguments
+    *** @return True if the message was queued (or dropped by policy), false if this
+    ***         writer has been stopped and the caller should write the message itself.
+    **/
+    public boolean offer(int level, boolean header, long timeMS, String frame, String msg, Object args[])
+    {
+        LogEntry e = new LogEntry();
+        e.level  = level;
+        e.header = header;
+        e.timeMS = timeMS;
+        e.frame  = frame;
+        e.msg    = msg;
+        e.args   = args;
+        return this._offer(e);
+    }
+
+    /**
+    *** Queues an already formatted log message
+    *** @param level  The log level
+    *** @param text   The formatted message text
+    *** @return True if the message was queued (or dropped by policy), false if this
+    ***         writer has been stopped and the caller should write the message itself.
+    **/
+    public boolean offerText(int level, String text)
+    {
+        LogEntry e = new LogEntry();
+        e.level  = level;
+        e.msg    = text;
+        e.raw    = true;
+        return this._offer(e);
+    }
+
+    /**
+    *** Lock-free enqueue (bounded MPSC ring buffer)
+    **/
+    private boolean _offer(LogEntry e)
+    {
+        for (;;) {
+            if (this.stopped) {
+                return false;
+            }
+            long pos = this.tail.get();
+            int  ndx = (int)pos & this.mask;
+            long seq = this.sequence.get(ndx);
+            long dif = seq - pos;
+            if (dif == 0L) {
+                // slot is available
+                if (this.tail.compareAndSet(pos, pos + 1L)) {
+                    this.slots.set(ndx, e);
+                    this.sequence.set(ndx, pos + 1L); // publish
+                    if (this.sleeping) {
+                        LockSupport.unpark(this.writerThread);
+                    }
+                    return true;
+                }
+            } else
+            if (dif < 0L) {
+                // queue is full
+                if (this.dropWhenFull || (Thread.currentThread() == this.writerThread)) {
+                    // (the writer thread must never wait on itself)
+                    this.dropCount.incrementAndGet();
+                    return true;
+                }
+                LockSupport.unpark(this.writerThread);
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            } else {
+                // another producer claimed this position, retry
+            }
+        }
+    }
+
+    /**
+    *** Dequeue (writer thread only)
+    **/
+    private LogEntry _poll()
+    {
+        long pos = this.head;
+        int  ndx = (int)pos & this.mask;
+        long seq = this.sequence.get(ndx);
+        if (seq != (pos + 1L)) {
+            // empty, or not yet published
+            return null;
+        }
+        LogEntry e = this.slots.get(ndx);
+        this.slots.set(ndx, null);
+        this.sequence.set(ndx, pos + this.capacity); // release slot
+        this.head = pos + 1L;
+        return e;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Waits until all messages queued prior to this call have been written
+    *** @param timeoutMS  The maximum time to wait (in milliseconds)
+    *** @return True if all prior messages have been written
+    **/
+    public boolean flush(long timeoutMS)
+    {
+        long target = this.tail.get();
+        long endMS  = System.currentTimeMillis() + timeoutMS;
+        while (this.written < target) {
+            if (System.currentTimeMillis() >= endMS) {
+                return false;
+            }
+            LockSupport.unpark(this.writerThread);
+            LockSupport.parkNanos(1000000L);
+        }
+        return true;
+    }
+
+    /**
+    *** Stops the writer thread after the currently queued messages have been written
+    *** @param timeoutMS  The maximum time to wait (in milliseconds)
+    **/
+    public void stop(long timeoutMS)
+    {
+        this.stopped = true;
+        Thread t = this.writerThread;
+        if ((t != null) && (t != Thread.currentThread())) {
+            LockSupport.unpark(t);
+            try {
+                t.join(timeoutMS);
+            } catch (InterruptedException ie) {
+                // ignore
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Writer thread
+    **/
+    public void run()
+    {
+        // Do not make calls to "Print.logXXXXXX" from within this thread (the queue may be full)
+        StringBuilder sb = new StringBuilder(MAX_BATCH_CHARS + 1024);
+        long reported = 0L;
+        for (;;) {
+
+            /* drain a batch */
+            int count = 0;
+            sb.setLength(0);
+            long drops = this.dropCount.get();
+            if (drops > reported) {
+                Print._appendLogMessage(sb, Print.LOG_WARN, true, this._formatDate(System.currentTimeMillis()), null,
+                    "AsyncLogWriter: queue full, dropped log messages: " + (drops - reported), null);
+                reported = drops;
+            }
+            for (; (count < MAX_BATCH_SIZE) && (sb.length() < MAX_BATCH_CHARS); count++) {
+                LogEntry e = this._poll();
+                if (e == null) {
+                    break;
+                }
+                try {
+                    if (e.raw) {
+                        sb.append(e.msg);
+                    } else {
+                        String date = (e.timeMS > 0L)? this._formatDate(e.timeMS) : null;
+                        Print._appendLogMessage(sb, e.level, e.header, date, e.frame, e.msg, e.args);
+                    }
+                } catch (Throwable th) {
+                    // (argument 'toString()' failure)
+                    sb.append("[AsyncLogWriter] Unable to format message: " + th + "\n");
+                }
+            }
+
+            /* write batch */
+            if (sb.length() > 0) {
+                this._write(StringTools.getBytes(sb.toString()));
+                this.written = this.head;
+                continue;
+            }
+
+            /* idle */
+            if (this.stopped) {
+                break;
+            }
+            this.sleeping = true;
+            if (this.sequence.get((int)this.head & this.mask) != (this.head + 1L)) { // still empty?
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            this.sleeping = false;
+
+        }
+        this._close();
+    }
+
+    /**
+    *** Formats the header date (cached per second)
+    **/
+    private String _formatDate(long timeMS)
+    {
+        long sec = timeMS / 1000L;
+        if (sec != this.lastDateSec) {
+            this.lastDateStr = (new DateTime(sec)).format("MM/dd HH:mm:ss",null);
+            this.lastDateSec = sec;
+        }
+        return this.lastDateStr;
+    }
+
+    /**
+    *** Writes the specified bytes to the current log file (rotating if necessary)
+    **/
+    private void _write(byte b[])
+    {
+
+        /* log file changed? */
+        File file = Print.getLogFile();
+        if ((file == null) || !file.equals(this.logFile)) {
+            this._close();
+            this.logFile = file;
+        }
+
+        /* no log file, write to stderr */
+        if (this.logFile == null) {
+            Print._getSysStderr().write(b, 0, b.length);
+            return;
+        }
+
+        /* write */
+        try {
+            if (this.channel == null) {
+                this.channel  = (new FileOutputStream(this.logFile,true)).getChannel();
+                this.fileSize = this.channel.size();
+            }
+            ByteBuffer bb = ByteBuffer.wrap(b);
+            while (bb.hasRemaining()) {
+                this.channel.write(bb);
+            }
+            this.fileSize += b.length;
+        } catch (IOException ioe) {
+            Print.sysPrintln("ERROR: Unable to write Print log file: " + this.logFile + " [" + ioe + "]");
+            this._close();
+            Print._getSysStderr().write(b, 0, b.length);
+            return;
+        }
+
+        /* rotate */
+        long maxSize = Print.getRotateLogFileSize();
+        if ((maxSize > 0L) && (this.fileSize > maxSize)) {
+            this._close();
+            Print._rotateLogFile(this.logFile); // reopened on next write
+        }
+
+    }
+
+    /**
+    *** Closes the current log file channel
+    **/
+    private void _close()
+    {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException ioe) {
+                Print.sysPrintln("Unable to close log file: " + ioe);
+            }
+            this.channel  = null;
+            this.fileSize = 0L;
+        }
+    }
+
+}
@@ -0,0 +1,786 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Read binary fields from a ByteBuffer (zero-copy counterpart of 'Payload')
+// ----------------------------------------------------------------------------
+package org.opengts.util;
+
+import java.lang.*;
+import java.util.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+*** For reading binary fields from a <code>ByteBuffer</code>.<br>
+*** Unlike <code>Payload</code>, a <code>BufferPayload</code> never copies the source
+*** bytes: wrapping a byte array region, or taking a slice of an existing
+*** <code>BufferPayload</code>, creates a view onto the same backing storage.  Heap and
+*** direct buffers are both supported.<br>
+*** The <code>readXXXX</code> methods follow the same (bounds checked, default value)
+*** semantics as the corresponding <code>Payload</code> methods.  Once a frame length
+*** has been validated with <code>isValidReadLength</code>, the <code>getXXXX</code>
+*** methods may be used to read fields without per-field bounds or debug handling.
+**/
+
+public class BufferPayload
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final boolean    DEFAULT_BIG_ENDIAN = true;
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Wraps the specified byte array region (no copy)
+    *** @param b    The byte array
+    *** @param ofs  The offset of the first payload byte
+    *** @param len  The payload length
+    *** @param bigEndian  True for big-endian byte ordering
+    *** @return The new BufferPayload
+    **/
+    public static BufferPayload wrap(byte b[], int ofs, int len, boolean bigEndian)
+    {
+        if ((b == null) || (ofs < 0) || (ofs >= b.length) || (len <= 0)) {
+            return new BufferPayload(ByteBuffer.wrap(Payload.EMPTY_BYTE_ARRAY), bigEndian);
+        }
+        if (len > (b.length - ofs)) { len = b.length - ofs; }
+        return new BufferPayload(ByteBuffer.wrap(b, ofs, len), bigEndian);
+    }
+
+    /**
+    *** Wraps the specified byte array region (no copy, big-endian)
+    *** @param b    The byte array
+    *** @param ofs  The offset of the first payload byte
+    *** @param len  The payload length
+    *** @return The new BufferPayload
+    **/
+    public static BufferPayload wrap(byte b[], int ofs, int len)
+    {
+        return BufferPayload.wrap(b, ofs, len, DEFAULT_BIG_ENDIAN);
+    }
+
+    /**
+    *** Wraps the specified byte array (no copy, big-endian)
+    *** @param b    The byte array
+    *** @return The new BufferPayload
+    **/
+    public static BufferPayload wrap(byte b[])
+    {
+        return BufferPayload.wrap(b, 0, ((b != null)? b.length : 0), DEFAULT_BIG_ENDIAN);
+    }
+
+    // ------------------------------------------------------------------------
+
+    private ByteBuffer  buffer          = null;
+    private int         size            = 0;
+    private int         indexSnapshot   = -1;
+    private boolean     bigEndian       = DEFAULT_BIG_ENDIAN;
+
+    /**
+    *** Constructor.  The payload is a view of the remaining bytes of the specified
+    *** buffer (between its current position and limit).  The position/limit of the
+    *** specified buffer are not modified.
+    *** @param buf  The source ByteBuffer (heap or direct)
+    **/
+    public BufferPayload(ByteBuffer buf)
+    {
+        this(buf, DEFAULT_BIG_ENDIAN);
+    }
+
+    /**
+    *** Constructor.  The payload is a view of the remaining bytes of the specified
+    *** buffer (between its current position and limit).  The position/limit of the
+    *** specified buffer are not modified.
+    *** @param buf        The source ByteBuffer (heap or direct)
+    *** @param bigEndian  True for big-endian byte ordering
+    **/
+    public BufferPayload(ByteBuffer buf, boolean bigEndian)
+    {
+        this.buffer = (buf != null)? buf.slice() : ByteBuffer.wrap(Payload.EMPTY_BYTE_ARRAY);
+        this.size   = this.buffer.remaining();
+        this.setBigEndian(bigEndian);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Sets the byte ordering of the payload
+    *** @param bigEndFirst True for big-endian, false for little-endian numeric encoding
+    **/
+    public void setBigEndian(boolean bigEndFirst)
+    {
+        this.bigEndian = bigEndFirst;
+        this.buffer.order(bigEndFirst? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+    *** Returns true if the payload is big-endian
+    **/
+    public boolean isBigEndian()
+    {
+        return this.bigEndian;
+    }
+
+    /**
+    *** Gets the underlying ByteBuffer view
+    **/
+    public ByteBuffer getByteBuffer()
+    {
+        return this.buffer;
+    }
+
+    /**
+    *** Gets the total number of bytes in this payload
+    **/
+    public int getSize()
+    {
+        return this.size;
+    }
+
+    /**
+    *** Returns a copy of the bytes in this payload
+    **/
+    public byte[] getBytes()
+    {
+        return this._copyBytes(0, this.size);
+    }
+
+    /**
+    *** Returns a <code>Payload</code> containing a copy of the bytes in this payload
+    **/
+    public Payload toPayload()
+    {
+        Payload p = new Payload(this.getBytes(), this.bigEndian);
+        p.resetIndex(this.getIndex());
+        return p;
+    }
+
+    /**
+    *** Copies the specified bytes out of the buffer
+    **/
+    private byte[] _copyBytes(int ofs, int len)
+    {
+        byte n[] = new byte[len];
+        if (this.buffer.hasArray()) {
+            System.arraycopy(this.buffer.array(), this.buffer.arrayOffset() + ofs, n, 0, len);
+        } else {
+            for (int i = 0; i < len; i++) {
+                n[i] = this.buffer.get(ofs + i);
+            }
+        }
+        return n;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns a view of the specified region of this payload (no copy).
+    *** The read index of this payload is not changed.
+    *** @param ofs  The offset of the region within this payload
+    *** @param len  The length of the region (truncated to the available bytes)
+    *** @return The new BufferPayload view
+    **/
+    public BufferPayload slice(int ofs, int len)
+    {
+        if ((ofs < 0) || (ofs > this.size)) { ofs = this.size; }
+        if ((len < 0) || (len > (this.size - ofs))) { len = this.size - ofs; }
+        ByteBuffer dup = this.buffer.duplicate();
+        dup.limit(ofs + len);
+        dup.position(ofs);
+        return new BufferPayload(dup, this.bigEndian);
+    }
+
+    /**
+    *** Returns a view of the next <code>len</code> bytes of this payload (no copy),
+    *** and advances the read index past the sliced region.
+    *** @param len  The length of the region (truncated to the available bytes)
+    *** @return The new BufferPayload view
+    **/
+    public BufferPayload readSlice(int len)
+    {
+        int maxLen = this.getMaximumReadLength(len);
+        BufferPayload p = this.slice(this.getIndex(), ((maxLen > 0)? maxLen : 0));
+        this._advance(maxLen);
+        return p;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the current read index
+    **/
+    public int getIndex()
+    {
+        return this.buffer.position();
+    }
+
+    /**
+    *** Resets the read index to the start of the payload
+    **/
+    public void resetIndex()
+    {
+        this.resetIndex(0);
+    }
+
+    /**
+    *** Sets the read index to the specified position
+    **/
+    public void resetIndex(int ndx)
+    {
+        this.buffer.position((ndx <= 0)? 0 : (ndx >= this.size)? this.size : ndx);
+    }
+
+    /**
+    *** Saves the current read index
+    **/
+    public boolean saveIndex()
+    {
+        this.indexSnapshot = this.getIndex();
+        return true;
+    }
+
+    /**
+    *** Restores the previously saved read index
+    **/
+    public boolean restoreIndex()
+    {
+        if (this.indexSnapshot < 0) {
+            return false;
+        }
+        this.resetIndex(this.indexSnapshot);
+        this.indexSnapshot = -1;
+        return true;
+    }
+
+    /**
+    *** Advance the read index
+    **/
+    private void _advance(int len)
+    {
+        if (len > 0) {
+            this.buffer.position(this.buffer.position() + len);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Return the maximum allowed read length up to the specific length
+    **/
+    public int getMaximumReadLength(int length)
+    {
+        int avail = this.size - this.getIndex();
+        return (length <= avail)? length : avail;
+    }
+
+    /**
+    *** Gets the number of remaining bytes available to read
+    **/
+    public int getAvailableReadLength()
+    {
+        return this.size - this.getIndex();
+    }
+
+    /**
+    *** Returns true if there are at least <code>length</code> bytes that can be read
+    **/
+    public boolean isValidReadLength(int length)
+    {
+        return (length <= (this.size - this.getIndex()));
+    }
+
+    /**
+    *** Returns true if there are bytes available for reading
+    **/
+    public boolean hasAvailableRead()
+    {
+        return (this.getAvailableReadLength() > 0);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Calculate/Return CCITT CRC for specified offset/length of this payload
+    **/
+    public int calcCrcCCITT(int bOfs, int bLen)
+    {
+        int ofs = this._crcOffset(bOfs);
+        return (ofs >= 0)? Checksum.calcCrcCCITT(this.buffer, ofs, this._crcLength(ofs,bLen)) : 0;
+    }
+
+    /**
+    *** Calculate/Return CRC-16 for specified offset/length of this payload
+    **/
+    public int calcCrc16(int bOfs, int bLen)
+    {
+        int ofs = this._crcOffset(bOfs);
+        return (ofs >= 0)? Checksum.calcCrc16(this.buffer, ofs, this._crcLength(ofs,bLen)) : 0;
+    }
+
+    /**
+    *** Calculate/Return byte Sum8 CRC for specified offset/length of this payload
+    **/
+    public int calcCrcSum8(int bOfs, int bLen)
+    {
+        int ofs = this._crcOffset(bOfs);
+        return (ofs >= 0)? (int)Checksum.calcCrcSum8(this.buffer, ofs, this._crcLength(ofs,bLen)) : 0;
+    }
+
+    /**
+    *** Calculate/Return the Fletcher checksum for specified offset/length of this payload
+    *** (same value as returned by <code>FletcherChecksum.getChecksumAsInt()</code>)
+    **/
+    public int calcFletcher(int bOfs, int bLen)
+    {
+        int ofs = this._crcOffset(bOfs);
+        if (ofs < 0) {
+            return 0;
+        }
+        FletcherChecksum fc = new FletcherChecksum();
+        fc.runningChecksum(this.buffer, ofs, this._crcLength(ofs,bLen));
+        return fc.getChecksumAsInt();
+    }
+
+    private int _crcOffset(int bOfs)
+    {
+        return ((bOfs < 0) || (bOfs > this.size))? -1 : bOfs;
+    }
+
+    private int _crcLength(int ofs, int bLen)
+    {
+        return ((bLen >= 0) && (bLen <= (this.size - ofs)))? bLen : (this.size - ofs);
+    }
+
+    // ------------------------------------------------------------------------
+    // Checked reads (same semantics as 'Payload')
+
+    /**
+    *** Read the next byte without moving the read index
+    *** @return The next byte (-1 if no bytes are available)
+    **/
+    public int peekByte()
+    {
+        int ndx = this.getIndex();
+        return (ndx < this.size)? ((int)this.buffer.get(ndx) & 0xFF) : -1;
+    }
+
+    /**
+    *** Skip a specified number of bytes
+    **/
+    public void readSkip(int length)
+    {
+        int maxLen = this.getMaximumReadLength(length);
+        Payload.checkOverflow(length, maxLen, 1, null);
+        this._advance(maxLen);
+    }
+
+    /**
+    *** Read <code>length</code> bytes from the payload (copied)
+    **/
+    public byte[] readBytes(int length)
+    {
+        int maxLen = (length >= 0)? this.getMaximumReadLength(length) : this.getAvailableReadLength();
+        Payload.checkOverflow(length, maxLen, 1, null);
+        if (maxLen <= 0) {
+            return Payload.EMPTY_BYTE_ARRAY;
+        }
+        byte n[] = new byte[maxLen];
+        this.buffer.get(n);
+        return n;
+    }
+
+    /**
+    *** Decodes a <code>long</code> value at the specified absolute offset
+    **/
+    private long _decodeLong(int ofs, int len, boolean bigEndian, boolean signed)
+    {
+        long n;
+        if (bigEndian) {
+            n = (signed && ((this.buffer.get(ofs) & 0x80) != 0))? -1L : 0L;
+            for (int i = ofs; i < ofs + len; i++) {
+                n = (n << 8) | ((long)this.buffer.get(i) & 0xFF);
+            }
+        } else {
+            n = (signed && ((this.buffer.get(ofs + len - 1) & 0x80) != 0))? -1L : 0L;
+            for (int i = ofs + len - 1; i >= ofs; i--) {
+                n = (n << 8) | ((long)this.buffer.get(i) & 0xFF);
+            }
+        }
+        return n;
+    }
+
+    /**
+    *** Read a signed value from the payload
+    **/
+    private long _readLong(int length, long dft, boolean bigEndian, boolean signed)
+    {
+        int maxLen = this.getMaximumReadLength(length);
+        Payload.checkOverflow(length, maxLen, 2, null);
+        if (maxLen <= 0) {
+            return dft;
+        }
+        int ndx = this.getIndex();
+        long val = this._decodeLong(ndx, maxLen, bigEndian, signed);
+        this._advance(maxLen);
+        return val;
+    }
+
+    /**
+    *** Read a <code>long</code> value from payload (with default)
+    **/
+    public long readLong(int length, long dft, boolean bigEndian)
+    {
+        return this._readLong(length, dft, bigEndian, true);
+    }
+
+    /**
+    *** Read a <code>long</code> value from payload (with default)
+    **/
+    public long readLong(int length, long dft)
+    {
+        return this._readLong(length, dft, this.bigEndian, true);
+    }
+
+    /**
+    *** Read an <code>int</code> value from payload (with default)
+    **/
+    public int readInt(int length, int dft)
+    {
+        return (int)this._readLong(length, (long)dft, this.bigEndian, true);
+    }
+
+    /**
+    *** Read an unsigned <code>long</code> value from payload (with default)
+    **/
+    public long readULong(int length, long dft, boolean bigEndian)
+    {
+        return this._readLong(length, dft, bigEndian, false);
+    }
+
+    /**
+    *** Read an unsigned <code>long</code> value from payload (with default)
+    **/
+    public long readULong(int length, long dft)
+    {
+        return this._readLong(length, dft, this.bigEndian, false);
+    }
+
+    /**
+    *** Read an unsigned <code>int</code> value from payload (with default)
+    **/
+    public int readUInt(int length, int dft, boolean bigEndian)
+    {
+        return (int)this._readLong(length, (long)dft, bigEndian, false);
+    }
+
+    /**
+    *** Read an unsigned <code>int</code> value from payload (with default)
+    **/
+    public int readUInt(int length, int dft)
+    {
+        return (int)this._readLong(length, (long)dft, this.bigEndian, false);
+    }
+
+    /**
+    *** Read a <code>double</code> value from payload (with default), using IEEE 754 format
+    *** @param length  The number of bytes from which the value is decoded (4 or 8)
+    **/
+    public double readDouble(int length, double dft)
+    {
+        int maxLen = this.getMaximumReadLength(length);
+        Payload.checkOverflow(length, maxLen, 1, null);
+        if (maxLen <= 0) {
+            return dft;
+        }
+        int ndx = this.getIndex();
+        double val = dft;
+        if (maxLen >= 8) {
+            val = this.buffer.getDouble(ndx);
+        } else
+        if (maxLen >= 4) {
+            val = (double)this.buffer.getFloat(ndx);
+        }
+        this._advance(maxLen);
+        return val;
+    }
+
+    /**
+    *** Read a String from the payload, terminated by the specified length,
+    *** a null (0x00) byte, or the end of data (whichever comes first).
+    *** @param length    The maximum length to read
+    *** @param varLength If the string can be variable in length (stop on a null)
+    **/
+    public String readString(int length, boolean varLength)
+    {
+        int maxLen = this.getMaximumReadLength(length);
+        if (!varLength) {
+            Payload.checkOverflow(length, maxLen, 1, null);
+        }
+        if (maxLen <= 0) {
+            return "";
+        }
+        int ndx = this.getIndex();
+        int st  = 0;
+        for (st = 0; (st < maxLen) && (this.buffer.get(ndx + st) != 0); st++);
+        String str = "";
+        if (st > 0) {
+            if (this.buffer.hasArray()) {
+                str = StringTools.toStringValue(this.buffer.array(), this.buffer.arrayOffset() + ndx, st);
+            } else {
+                str = StringTools.toStringValue(this._copyBytes(ndx, st));
+            }
+        }
+        if (varLength) {
+            this._advance((st < maxLen)? (st + 1) : st); // skip past null terminator
+        } else {
+            this._advance(maxLen);
+        }
+        return str;
+    }
+
+    /**
+    *** Read a String from the payload (fixed length)
+    **/
+    public String readString(int length)
+    {
+        return this.readString(length, true);
+    }
+
+    /**
+    *** Reads a fixed length hex string from the payload bytes.
+    **/
+    public String readStringHex(int length)
+    {
+        int maxLen = this.getMaximumReadLength(length);
+        if (maxLen <= 0) {
+            return "";
+        }
+        String str = StringTools.toHexString(this._copyBytes(this.getIndex(), maxLen));
+        this._advance(maxLen);
+        return str;
+    }
+
+    // ------------------------------------------------------------------------
+    // Unchecked reads.
+    // The caller is expected to have already validated the frame length (ie. via
+    // "isValidReadLength").  These methods perform no overflow logging, and do not
+    // support default values.  Reading past the end of the payload results in an
+    // IndexOutOfBoundsException.
+
+    /**
+    *** Reads an unsigned 8-bit value
+    **/
+    public int getU8()
+    {
+        return (int)this.buffer.get() & 0xFF;
+    }
+
+    /**
+    *** Reads a signed 8-bit value
+    **/
+    public int getS8()
+    {
+        return (int)this.buffer.get();
+    }
+
+    /**
+    *** Reads an unsigned 16-bit value (payload byte order)
+    **/
+    public int getU16()
+    {
+        return (int)this.buffer.getShort() & 0xFFFF;
+    }
+
+    /**
+    *** Reads a signed 16-bit value (payload byte order)
+    **/
+    public int getS16()
+    {
+        return (int)this.buffer.getShort();
+    }
+
+    /**
+    *** Reads an unsigned 32-bit value (payload byte order)
+    **/
+    public long getU32()
+    {
+        return (long)this.buffer.getInt() & 0xFFFFFFFFL;
+    }
+
+    /**
+    *** Reads a signed 32-bit value (payload byte order)
+    **/
+    public int getS32()
+    {
+        return this.buffer.getInt();
+    }
+
+    /**
+    *** Reads a signed 64-bit value (payload byte order)
+    **/
+    public long getS64()
+    {
+        return this.buffer.getLong();
+    }
+
+    /**
+    *** Reads an arbitrary length (1..8 bytes) value (payload byte order)
+    *** @param length  The number of bytes to read
+    *** @param signed  True if the value is signed
+    **/
+    public long getLong(int length, boolean signed)
+    {
+        int ndx = this.buffer.position();
+        long val = this._decodeLong(ndx, length, this.bigEndian, signed);
+        this.buffer.position(ndx + length);
+        return val;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns a hex string representation of the payload
+    **/
+    public String toString()
+    {
+        return StringTools.toHexString(this._copyBytes(0, this.size));
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final String ARG_COUNT[]  = new String[] { "count" , "n"   };
+    private static final String ARG_DIRECT[] = new String[] { "direct", "d"   };
+
+    /* sample frame: 2-byte length, 6 x (seq:1, lat:4, lon:4, time:4, speed:2, heading:2), CRC:2 */
+    private static final int    BENCH_RECORDS   = 6;
+    private static final int    BENCH_RCD_LEN   = 17;
+
+    /**
+    *** Parses the benchmark frame using <code>Payload</code> (one copy per record)
+    **/
+    private static long _parsePayload(byte frame[])
+    {
+        long sum = 0L;
+        Payload hdr = new Payload(frame, 0, 2);
+        int len = hdr.readUInt(2, 0);
+        for (int r = 0; r < BENCH_RECORDS; r++) {
+            Payload p = new Payload(frame, 2 + (r * BENCH_RCD_LEN), BENCH_RCD_LEN);
+            sum += p.readUInt(1, 0);
+            sum += p.readInt(4, 0);
+            sum += p.readInt(4, 0);
+            sum += p.readULong(4, 0L);
+            sum += p.readUInt(2, 0);
+            sum += p.readUInt(2, 0);
+        }
+        sum += Payload.CalcCrcCCITT(frame, frame.length, 0, len);
+        return sum;
+    }
+
+    /**
+    *** Parses the benchmark frame using <code>BufferPayload</code> (validated, unchecked reads)
+    **/
+    private static long _parseBuffer(BufferPayload bp)
+    {
+        long sum = 0L;
+        bp.resetIndex();
+        int len = bp.getU16();
+        if (!bp.isValidReadLength(BENCH_RECORDS * BENCH_RCD_LEN)) {
+            return 0L;
+        }
+        for (int r = 0; r < BENCH_RECORDS; r++) {
+            sum += bp.getU8();
+            sum += bp.getS32();
+            sum += bp.getS32();
+            sum += bp.getU32();
+            sum += bp.getU16();
+            sum += bp.getU16();
+        }
+        sum += bp.calcCrcCCITT(0, len);
+        return sum;
+    }
+
+    /**
+    *** Compares parsing of a sample binary frame using <code>Payload</code> and
+    *** <code>BufferPayload</code>.<br>
+    *** (a simple timing loop, intended as a rough comparison only)
+    **/
+    private static void _benchmark(int count, boolean direct)
+    {
+
+        /* sample frame */
+        int dataLen = BENCH_RECORDS * BENCH_RCD_LEN;
+        Payload w = new Payload(2 + dataLen + 2);
+        w.writeUInt(2 + dataLen, 2);
+        Random rand = new Random(1L);
+        w.writeRandomBytes(rand, dataLen);
+        w.writeUInt(0, 2);
+        byte frame[] = w.getBytes();
+        ByteBuffer bb;
+        if (direct) {
+            bb = ByteBuffer.allocateDirect(frame.length);
+            bb.put(frame);
+            bb.flip();
+        } else {
+            bb = ByteBuffer.wrap(frame);
+        }
+        BufferPayload bp = new BufferPayload(bb);
+
+        /* verify */
+        long a = BufferPayload._parsePayload(frame);
+        long b = BufferPayload._parseBuffer(bp);
+        if (a != b) {
+            Print.sysPrintln("ERROR: parse mismatch " + a + " != " + b);
+            return;
+        }
+
+        /* timing */
+        long sum = 0L;
+        for (int pass = 1; pass <= 3; pass++) { // first pass(es) are JIT warm-up
+            long payStartNS = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sum += BufferPayload._parsePayload(frame);
+            }
+            long payNS = System.nanoTime() - payStartNS;
+            long bufStartNS = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sum += BufferPayload._parseBuffer(bp);
+            }
+            long bufNS = System.nanoTime() - bufStartNS;
+            Print.sysPrintln("Pass " + pass + ": Payload=" + (payNS / count) + " ns/frame, " +
+                "BufferPayload" + (direct?"(direct)":"") + "=" + (bufNS / count) + " ns/frame");
+        }
+        Print.sysPrintln("(checksum " + sum + ")");
+
+    }
+
+    /**
+    *** Main entry point (parsing benchmark)
+    **/
+    public static void main(String argv[])
+    {
+        RTConfig.setCommandLineArgs(argv);
+        int     count  = RTConfig.getInt(ARG_COUNT, 1000000);
+        boolean direct = RTConfig.getBoolean(ARG_DIRECT, false);
+        BufferPayload._benchmark(count, direct);
+        System.exit(0);
+    }
+
+}
@@ -27,6 +27,8 @@
 // ----------------------------------------------------------------------------
 package org.opengts.util;
 
+import java.nio.ByteBuffer;
+
 /**
 *** Checksum tools
 **/
@@ -106,6 +108,26 @@ public class Checksum
         return W;
     }
 
+    /**
+    *** Calculates the CRC-CCITT over the specified ByteBuffer region (absolute offset,
+    *** buffer position is not changed)
+    **/
+    public static int calcCrcCCITT(ByteBuffer bb, int bOfs, int bLen)
+    {
+        if (bb == null) {
+            return 0xFFFF;
+        } else
+        if (bb.hasArray()) {
+            return calcCrcCCITT(bb.array(), bb.arrayOffset() + bOfs, bLen);
+        }
+        int W = 0xFFFF;
+        if (crc_CCITT_Table == null) { Checksum.initCrcCCITT(); }
+        for (int c = bOfs; c < (bOfs + bLen); c++) {
+            W = (crc_CCITT_Table[(bb.get(c) ^ (W >>> 8)) & 0xFF] ^ (W << 8)) & 0xFFFF;
+        }
+        return W;
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
     // CRC16
@@ -172,6 +194,25 @@ public class Checksum
         return (crc & 0xFFFF);  
     }
 
+    /**
+    *** Calculates the CRC-16 over the specified ByteBuffer region (absolute offset,
+    *** buffer position is not changed)
+    **/
+    public static int calcCrc16(ByteBuffer bb, int bOfs, int bLen)
+    {
+        if (bb == null) {
+            return 0;
+        } else
+        if (bb.hasArray()) {
+            return calcCrc16(bb.array(), bb.arrayOffset() + bOfs, bLen);
+        }
+        int crc = 0x0000;
+        for (int c = bOfs; c < (bOfs + bLen); c++) {
+            crc = (crc >>> 8) ^ CRCtab16[(crc ^ bb.get(c)) & 0xFF];
+        }
+        return (crc & 0xFFFF);
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -337,6 +378,25 @@ public class Checksum
         return (byte)crc;
     }
 
+    /**
+    *** Calculates the Sum-8 over the specified ByteBuffer region (absolute offset,
+    *** buffer position is not changed)
+    **/
+    public static byte calcCrcSum8(ByteBuffer bb, int bOfs, int bLen)
+    {
+        if (bb == null) {
+            return (byte)0;
+        } else
+        if (bb.hasArray()) {
+            return calcCrcSum8(bb.array(), bb.arrayOffset() + bOfs, bLen);
+        }
+        int crc = 0x00;
+        for (int s = bOfs; s < (bOfs + bLen); s++) {
+            crc = (crc + (int)bb.get(s)) & 0xFF;
+        }
+        return (byte)crc;
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
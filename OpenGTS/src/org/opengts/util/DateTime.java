@@ -80,6 +80,7 @@
 package org.opengts.util;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.io.*;
 
 import java.text.FieldPosition;
@@ -3100,6 +3101,14 @@ public class DateTime
         return TimeZoneDSTMap;
     }
 
+    private static final int                            MAX_TIMEZONE_CACHE_SIZE = 2000;
+    private static final TimeZone                       TIMEZONE_NOT_FOUND      = new SimpleTimeZone(0, "?");
+    private static ConcurrentHashMap<String,TimeZone>   TimeZoneCache           = new ConcurrentHashMap<String,TimeZone>();
+
+    /**
+    *** Returns the resolved TimeZone for the specified ID (cached).  The returned
+    *** TimeZone instance may be shared and must not be modified.
+    **/
     private static TimeZone _lookupTimeZone(String tzid, TimeZone dft)
     {
 
@@ -3108,6 +3117,30 @@ public class DateTime
             return dft;
         }
 
+        /* cached? */
+        Map<String,TimeZone> tzCache = TimeZoneCache; // null during static init
+        TimeZone tmz = (tzCache != null)? tzCache.get(tzid) : null;
+        if (tmz == null) {
+            tmz = DateTime._resolveTimeZone(tzid, null);
+            if (tmz == null) {
+                tmz = TIMEZONE_NOT_FOUND;
+            }
+            if ((tzCache != null) && (tzCache.size() < MAX_TIMEZONE_CACHE_SIZE)) {
+                tzCache.put(tzid, tmz);
+            }
+        }
+        return (tmz != TIMEZONE_NOT_FOUND)? tmz : dft;
+
+    }
+
+    private static TimeZone _resolveTimeZone(String tzid, TimeZone dft)
+    {
+
+        /* blank TimeZone ID */
+        if (StringTools.isBlank(tzid)) {
+            return dft;
+        }
+
         /* GMT/UTC/Zulu timezones */
         if (tzid.equalsIgnoreCase(GMT_TIMEZONE) || 
             tzid.equalsIgnoreCase("UTC")        || 
@@ -3185,13 +3218,8 @@ public class DateTime
     {
         if (StringTools.isBlank(tzid)) {
             return dft;
-        } else
-        if (tzid.equalsIgnoreCase(GMT_TIMEZONE) || 
-            tzid.equalsIgnoreCase("UTC")        || 
-            tzid.equalsIgnoreCase("Zulu")         ) {
-            return TimeZone.getTimeZone(tzid); // case sensitive
         } else {
-            return DateTime._lookupTimeZone(tzid,dft);
+            return DateTime._lookupTimeZone(tzid,dft); // handles GMT/UTC/Zulu
         }
     }
 
@@ -3225,13 +3253,11 @@ public class DateTime
     **/
     public static TimeZone getGMTTimeZone()
     {
-        return TimeZone.getTimeZone(GMT_TIMEZONE); // case sensitive
+        return (GMT != null)? GMT : TimeZone.getTimeZone(GMT_TIMEZONE); // case sensitive
     }
 
     // ------------------------------------------------------------------------
 
-    private static SimpleDateFormat simpleFormatter = null;
-
     /**
     *** Returns a String representation of this DateTime instance
     **/
@@ -3245,17 +3271,146 @@ public class DateTime
     **/
     public String toString(TimeZone tmz) 
     {
-        if (simpleFormatter == null) {
-            // eg. "Sun Mar 26 12:38:12 PST 2006"
-            simpleFormatter = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+        // eg. "Sun Mar 26 12:38:12 PST 2006"
+        FormatterCache fc = FormatterCacheLocal.get();
+        return fc.format(this.getTimeMillis(), "EEE MMM dd HH:mm:ss zzz yyyy", this._timeZone(tmz), Locale.US, fc.getBuffer()).toString();
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static final int    MAX_FORMATTER_CACHE_SIZE    = 200;  // per thread
+
+    /**
+    *** Per-thread SimpleDateFormat cache (SimpleDateFormat is not thread-safe)
+    **/
+    private static class FormatterCache
+    {
+        private static class Formatter {
+            public SimpleDateFormat sdf = null;
+            public TimeZone         tmz = null; // last TimeZone set
+            public Formatter(SimpleDateFormat sdf) { this.sdf = sdf; }
         }
-        synchronized (simpleFormatter) {
-            simpleFormatter.setTimeZone(this._timeZone(tmz));
-            return simpleFormatter.format(this.getDate());
+        private Map<Locale,Map<String,Formatter>> fmtMap = new HashMap<Locale,Map<String,Formatter>>();
+        private int             fmtCount = 0;
+        private java.util.Date  date     = new java.util.Date(0L);
+        private FieldPosition   fldPos   = new FieldPosition(0);
+        private StringBuffer    buffer   = new StringBuffer();
+        public SimpleDateFormat getFormatter(String dtFmt, TimeZone tz, Locale loc) {
+            String f = (dtFmt != null)? dtFmt : DEFAULT_DATETIME_FORMAT;
+            Locale l = (loc != null)? loc : Locale.getDefault();
+            Map<String,Formatter> lm = this.fmtMap.get(l);
+            if (lm == null) {
+                lm = new HashMap<String,Formatter>();
+                this.fmtMap.put(l, lm);
+            }
+            Formatter fmt = lm.get(f);
+            if (fmt == null) {
+                if (this.fmtCount >= MAX_FORMATTER_CACHE_SIZE) {
+                    // too many distinct formats, start over
+                    lm.clear();
+                    this.fmtMap.clear();
+                    this.fmtMap.put(l, lm);
+                    this.fmtCount = 0;
+                }
+                SimpleDateFormat sdf = null;
+                try {
+                    sdf = (loc != null)? new SimpleDateFormat(f, loc) : new SimpleDateFormat(f);
+                } catch (IllegalArgumentException iae) {
+                    Print.logError("Invalid date/time format: " + dtFmt + " [" + iae.getMessage() + "]");
+                    sdf = (loc != null)? new SimpleDateFormat(DEFAULT_DATETIME_FORMAT, loc) : new SimpleDateFormat(DEFAULT_DATETIME_FORMAT); // assumed to be valid
+                }
+                fmt = new Formatter(sdf);
+                lm.put(f, fmt);
+                this.fmtCount++;
+            }
+            if (fmt.tmz != tz) {
+                // (TimeZone instances are compared by reference, resolved TimeZones are cached)
+                fmt.sdf.setTimeZone(tz);
+                fmt.tmz = tz;
+            }
+            return fmt.sdf;
+        }
+        public StringBuffer format(long timeMS, String dtFmt, TimeZone tz, Locale loc, StringBuffer sb) {
+            SimpleDateFormat sdf = this.getFormatter(dtFmt, tz, loc);
+            this.date.setTime(timeMS);
+            this.fldPos.setBeginIndex(0);
+            this.fldPos.setEndIndex(0);
+            return sdf.format(this.date, sb, this.fldPos);
+        }
+        public StringBuffer getBuffer() {
+            this.buffer.setLength(0);
+            return this.buffer;
         }
     }
 
-    // ------------------------------------------------------------------------
+    private static ThreadLocal<FormatterCache> FormatterCacheLocal = new ThreadLocal<FormatterCache>() {
+        protected FormatterCache initialValue() {
+            return new FormatterCache();
+        }
+    };
+
+    /**
+    *** Returns a cached SimpleDateFormat for the specified format, TimeZone, and Locale.
+    *** The returned instance is confined to the current thread and must not be
+    *** shared with other threads (or retained).
+    *** @param dtFmt  The Date/Time format (null for the default format)
+    *** @param tz     The TimeZone (null for the default TimeZone)
+    *** @param loc    The Locale (null for the default Locale)
+    *** @return The SimpleDateFormat
+    **/
+    public static SimpleDateFormat getThreadDateFormat(String dtFmt, TimeZone tz, Locale loc)
+    {
+        TimeZone tmz = (tz != null)? tz : DateTime.getDefaultTimeZone();
+        return FormatterCacheLocal.get().getFormatter(dtFmt, tmz, loc);
+    }
+
+    /** 
+    *** Appends the formatted time to the specified StringBuilder (without creating 
+    *** any intermediate formatter or String instances)
+    *** @param sb     The StringBuilder to which the formatted time is appended (may be null)
+    *** @param timeMS The time to format (in milliseconds)
+    *** @param dtFmt  The Date/Time format (null for the default format)
+    *** @param tz     The TimeZone (null for the default TimeZone)
+    *** @param loc    The Locale (null for the default Locale)
+    *** @return The StringBuilder
+    **/
+    public static StringBuilder formatTo(StringBuilder sb, long timeMS, String dtFmt, TimeZone tz, Locale loc)
+    {
+        if (sb == null) { sb = new StringBuilder(); }
+        FormatterCache fc = FormatterCacheLocal.get();
+        TimeZone tmz = (tz != null)? tz : DateTime.getDefaultTimeZone();
+        sb.append(fc.format(timeMS, dtFmt, tmz, loc, fc.getBuffer()));
+        return sb;
+    }
+
+    /** 
+    *** Appends the formatted time to the specified StringBuffer (without creating 
+    *** any intermediate formatter or String instances)
+    *** @param sb     The StringBuffer to which the formatted time is appended (may be null)
+    *** @param timeMS The time to format (in milliseconds)
+    *** @param dtFmt  The Date/Time format (null for the default format)
+    *** @param tz     The TimeZone (null for the default TimeZone)
+    *** @param loc    The Locale (null for the default Locale)
+    *** @return The StringBuffer
+    **/
+    public static StringBuffer formatTo(StringBuffer sb, long timeMS, String dtFmt, TimeZone tz, Locale loc)
+    {
+        if (sb == null) { sb = new StringBuffer(); }
+        TimeZone tmz = (tz != null)? tz : DateTime.getDefaultTimeZone();
+        return FormatterCacheLocal.get().format(timeMS, dtFmt, tmz, loc, sb);
+    }
+
+    /** 
+    *** Appends this formatted DateTime to the specified StringBuilder
+    *** @param sb     The StringBuilder to which the formatted time is appended (may be null)
+    *** @param dtFmt  The Date/Time format (null for the default format)
+    *** @param tz     The overriding TimeZone
+    *** @return The StringBuilder
+    **/
+    public StringBuilder formatTo(StringBuilder sb, String dtFmt, TimeZone tz)
+    {
+        return DateTime.formatTo(sb, this.getTimeMillis(), dtFmt, this._timeZone(tz), null);
+    }
 
     /** 
     *** Formats the specified Date instance.
@@ -3266,18 +3421,9 @@ public class DateTime
     **/
     public static String format(java.util.Date date, TimeZone tz, String dtFmt)
     {
-        StringBuffer sb = new StringBuffer();
-        SimpleDateFormat sdf = null;
-        try {
-            String f = (dtFmt != null)? dtFmt : DEFAULT_DATETIME_FORMAT;
-            sdf = new SimpleDateFormat(f);
-        } catch (IllegalArgumentException iae) {
-            Print.logException("Invalid date/time format: " + dtFmt, iae);
-            sdf = new SimpleDateFormat(DEFAULT_DATETIME_FORMAT); // assumed to be valid
-        }
-        sdf.setTimeZone((tz != null)? tz : DateTime.getDefaultTimeZone()); 
-        sdf.format(date, sb, new FieldPosition(0));
-        return sb.toString();
+        FormatterCache fc = FormatterCacheLocal.get();
+        TimeZone tmz = (tz != null)? tz : DateTime.getDefaultTimeZone();
+        return fc.format(date.getTime(), dtFmt, tmz, null, fc.getBuffer()).toString();
     }
 
     /** 
@@ -3289,17 +3435,9 @@ public class DateTime
     **/
     public String format(String dtFmt, TimeZone tz, StringBuffer sb)
     {
-        if (sb == null) { sb = new StringBuffer(); }
-        SimpleDateFormat sdf = null;
-        try {
-            String f = (dtFmt != null)? dtFmt : DEFAULT_DATETIME_FORMAT;
-            sdf = new SimpleDateFormat(f);
-        } catch (IllegalArgumentException iae) {
-            Print.logError("Invalid date/time format: " + dtFmt + " [" + iae.getMessage() + "]");
-            sdf = new SimpleDateFormat(DEFAULT_DATETIME_FORMAT); // assumed to be valid
-        }
-        sdf.setTimeZone(this._timeZone(tz)); 
-        sdf.format(this.getDate(), sb, new FieldPosition(0));
+        FormatterCache fc = FormatterCacheLocal.get();
+        if (sb == null) { sb = fc.getBuffer(); }
+        fc.format(this.getTimeMillis(), dtFmt, this._timeZone(tz), null, sb);
         return sb.toString();
     }
 
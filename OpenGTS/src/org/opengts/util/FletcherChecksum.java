@@ -26,6 +26,7 @@ package org.opengts.util;
 
 import java.lang.*;
 import java.util.*;
+import java.nio.ByteBuffer;
 
 /**
 *** This class calculates a Fletcher checksum
@@ -137,9 +138,52 @@ public class FletcherChecksum
     public void runningChecksum(byte b[])
     {
         if (b != null) {
-            for (int i = 0; i < b.length; i++) {
-                this.runningChecksum(b[i]);
+            this.runningChecksum(b, 0, b.length);
+        }
+    }
+
+    /**
+    *** Adds the specified byte array region to the current running checksum accumulator.
+    *** @param b    The byte array to add to the current running checksum accumulator.
+    *** @param ofs  The offset of the first byte
+    *** @param len  The number of bytes
+    **/
+    public void runningChecksum(byte b[], int ofs, int len)
+    {
+        if (b != null) {
+            // accumulate in locals (only the low 8 bits of each sum are significant)
+            int c0 = C[0], c1 = C[1];
+            for (int i = ofs; i < (ofs + len); i++) {
+                c0 += ((int)b[i] & 0xFF);
+                c1 += c0;
+            }
+            C[0] = c0;
+            C[1] = c1;
+        }
+    }
+
+    /**
+    *** Adds the specified ByteBuffer region to the current running checksum accumulator.
+    *** (absolute offset, buffer position is not changed)
+    *** @param bb   The ByteBuffer to add to the current running checksum accumulator.
+    *** @param ofs  The offset of the first byte
+    *** @param len  The number of bytes
+    **/
+    public void runningChecksum(ByteBuffer bb, int ofs, int len)
+    {
+        if (bb == null) {
+            return;
+        } else
+        if (bb.hasArray()) {
+            this.runningChecksum(bb.array(), bb.arrayOffset() + ofs, len);
+        } else {
+            int c0 = C[0], c1 = C[1];
+            for (int i = ofs; i < (ofs + len); i++) {
+                c0 += ((int)bb.get(i) & 0xFF);
+                c1 += c0;
             }
+            C[0] = c0;
+            C[1] = c1;
         }
     }
 
@@ -48,6 +48,7 @@
 package org.opengts.util;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.text.*;
 import java.awt.*;
 
@@ -67,7 +68,9 @@ public class I18N
 
     // ------------------------------------------------------------------------
     
-    private static Map<Locale,Map<String,I18N>> localeMap = new HashMap<Locale,Map<String,I18N>>();
+    // -- lock-free lookup: Locale ==> PackageName ==> I18N
+    private static ConcurrentMap<Locale,ConcurrentMap<String,I18N>> localeMap = 
+        new ConcurrentHashMap<Locale,ConcurrentMap<String,I18N>>();
 
     /**
     *** Returns an I18N instance based on the specified package name and Locale
@@ -100,17 +103,20 @@ public class I18N
             loc = I18N.getLocale(loc);
 
             /* get package map for specific Locale */
-            Map<String,I18N> packageMap = localeMap.get(loc);
+            ConcurrentMap<String,I18N> packageMap = localeMap.get(loc);
             if (packageMap == null) {
-                packageMap = new HashMap<String,I18N>();
-                localeMap.put(loc, packageMap);
+                ConcurrentMap<String,I18N> newMap = new ConcurrentHashMap<String,I18N>();
+                packageMap = localeMap.putIfAbsent(loc, newMap);
+                if (packageMap == null) { packageMap = newMap; }
             }
 
             /* get I18N instance for package */
+            // -- concurrent first-use may load the same bundle twice, only one is retained
             I18N i18n = packageMap.get(pkgName);
             if (i18n == null) {
-                i18n = new I18N(pkgName, loc);
-                packageMap.put(pkgName, i18n);
+                I18N newI18N = new I18N(pkgName, loc);
+                i18n = packageMap.putIfAbsent(pkgName, newI18N);
+                if (i18n == null) { i18n = newI18N; }
             }
             return i18n;
 
@@ -195,8 +201,9 @@ public class I18N
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
-    private ResourceBundle resBundle = null;
-    private Locale locale = null;
+    private ResourceBundle      resBundle   = null;
+    private Map<String,String>  strings     = Collections.<String,String>emptyMap();
+    private Locale              locale      = null;
     
     /**
     *** Constructor
@@ -210,6 +217,7 @@ public class I18N
             this.locale = I18N.getLocale(loc);
             bundleName = ((pkgName == null) || pkgName.equals(""))? LOCAL_STRINGS : (pkgName + _LOCAL_STRINGS);
             this.resBundle = ResourceBundle.getBundle(bundleName, this.locale);
+            this.strings   = I18N.loadStrings(this.resBundle);
             //Print.logInfo("Found bundle: " + bundleName);
         } catch (Throwable th) { 
             // MissingResourceException
@@ -218,8 +226,32 @@ public class I18N
                 Print.logInfo("Bundle not found: " + bundleName + " [" + th);
             }
             this.resBundle = null;
+            this.strings   = Collections.<String,String>emptyMap();
         }
     }
+
+    /**
+    *** Flattens the specified ResourceBundle (including its parent fallback chain) into
+    *** an immutable key/value map.  Values are newline-decoded and interned.
+    *** @param rb  The ResourceBundle
+    *** @return The flattened key/value map
+    **/
+    private static Map<String,String> loadStrings(ResourceBundle rb)
+    {
+        Map<String,String> map = new HashMap<String,String>();
+        for (Enumeration<String> e = rb.getKeys(); e.hasMoreElements();) {
+            String key = e.nextElement();
+            try {
+                Object val = rb.getObject(key);
+                if (val instanceof String) {
+                    map.put(key, I18N.decodeNewLine((String)val).intern());
+                }
+            } catch (MissingResourceException mre) {
+                // -- ignore
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
     
     /**
     *** Constructor (the default Locale will be assumed)
@@ -278,18 +310,12 @@ public class I18N
     **/
     public String getString(String key, String dft)
     {
-        if (!StringTools.isBlank(key) && (this.resBundle != null)) {
-            RTProperties cfgProps = RTConfig.getConfigFileProperties();
-            if (!cfgProps.hasProperty(key) || cfgProps.getBoolean(key,true)) {
-                try {
-                    String s = this.resBundle.getString(key);
-                    if (s != null) {
-                        return I18N.decodeNewLine(s);
-                    }
-                } catch (Throwable th) {
-                    //Print.logException("",th);
-                    // MissingResourceException - if no object for the given key can be found 
-                    // ClassCastException - if the object found for the given key is not a string
+        if (!StringTools.isBlank(key)) {
+            String s = this.strings.get(key); // preloaded, already decoded
+            if (s != null) {
+                RTProperties cfgProps = RTConfig.getConfigFileProperties();
+                if (!cfgProps.hasProperty(key) || cfgProps.getBoolean(key,true)) {
+                    return s;
                 }
             }
         }
@@ -397,6 +423,9 @@ public class I18N
     **/
     protected static String decodeNewLine(String s)
     {
+        if ((s == null) || (s.indexOf("\\n") < 0)) {
+            return s; // nothing to decode
+        }
         return StringTools.replace(s, "\\n", "\n");
     }
 
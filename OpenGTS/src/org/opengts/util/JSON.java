@@ -1959,6 +1959,11 @@ public class JSON
                                 }
                                 String hex = v.substring(ndx,ndx+4);
                                 context.incrementIndex(4);
+                                try {
+                                    sb.append((char)Integer.parseInt(hex,16));
+                                } catch (NumberFormatException nfe) {
+                                    throw new JSONParsingException("Invalid unicode escape", context);
+                                }
                                 break;
                             }
                             default  : sb.append(ch); break;
@@ -2113,6 +2118,841 @@ public class JSON
 
     }
 
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // Streaming writer
+
+    /**
+    *** Streaming JSON writer.<br>
+    *** Writes JSON objects/arrays/values directly to the underlying output Writer
+    *** without first building a <code>JSON._Object</code> tree, or an intermediate
+    *** String.  Output is identical to that produced by <code>JSON._Object.toString</code>.
+    **/
+    public static class JSONWriter
+    {
+
+        private static final int    MAX_DEPTH   = 256;
+
+        private java.io.Writer      out         = null;
+        private boolean             indent      = false;
+        private int                 depth       = 0;
+        private boolean             isObject[]  = new boolean[MAX_DEPTH];
+        private int                 count[]     = new int[MAX_DEPTH];
+        private boolean             hasKey      = false;
+
+        /**
+        *** Constructor
+        *** @param out     The output Writer
+        *** @param indent  True to write indented (multi-line) output
+        **/
+        public JSONWriter(java.io.Writer out, boolean indent) {
+            this.out    = out;
+            this.indent = indent;
+        }
+
+        /**
+        *** Constructor
+        *** @param out     The output stream (written in the default character encoding)
+        *** @param indent  True to write indented (multi-line) output
+        **/
+        public JSONWriter(java.io.OutputStream out, boolean indent) 
+            throws IOException {
+            this(new java.io.BufferedWriter(new java.io.OutputStreamWriter(out,StringTools.getCharacterEncoding())), indent);
+        }
+
+        // --------------------------------------
+
+        /**
+        *** Gets the current nesting depth
+        **/
+        public int getDepth() {
+            return this.depth;
+        }
+
+        /**
+        *** Writes the separator/indent preceding the next array element or object key
+        **/
+        private void _beforeValue() throws IOException {
+            if (this.depth <= 0) {
+                return; // top-level value
+            }
+            int lvl = this.depth - 1;
+            if (this.isObject[lvl]) {
+                if (!this.hasKey) {
+                    throw new IOException("JSON object value written without a key");
+                }
+                this.hasKey = false;
+                return; // separator already written by 'key'
+            }
+            if (this.count[lvl] > 0) {
+                this.out.write(',');
+            }
+            if (this.indent) {
+                this.out.write('\n');
+                this.out.write(JSON.indent(this.depth));
+            }
+            this.count[lvl]++;
+        }
+
+        /**
+        *** Begins a container ('{' or '[')
+        **/
+        private JSONWriter _begin(boolean obj) throws IOException {
+            this._beforeValue();
+            if (this.depth >= MAX_DEPTH) {
+                throw new IOException("JSON nesting too deep");
+            }
+            this.isObject[this.depth] = obj;
+            this.count[this.depth]    = 0;
+            this.depth++;
+            this.out.write(obj? '{' : '[');
+            return this;
+        }
+
+        /**
+        *** Ends a container ('}' or ']')
+        **/
+        private JSONWriter _end(boolean obj) throws IOException {
+            if ((this.depth <= 0) || (this.isObject[this.depth - 1] != obj) || this.hasKey) {
+                throw new IOException("JSON '" + (obj?'}':']') + "' does not match current state");
+            }
+            this.depth--;
+            if (this.indent) {
+                this.out.write('\n');
+                this.out.write(JSON.indent(this.depth));
+            }
+            this.out.write(obj? '}' : ']');
+            if (this.indent && (this.depth == 0)) {
+                this.out.write('\n');
+            }
+            return this;
+        }
+
+        /**
+        *** Begins a JSON object
+        **/
+        public JSONWriter beginObject() throws IOException {
+            return this._begin(true);
+        }
+
+        /**
+        *** Ends the current JSON object
+        **/
+        public JSONWriter endObject() throws IOException {
+            return this._end(true);
+        }
+
+        /**
+        *** Begins a JSON array
+        **/
+        public JSONWriter beginArray() throws IOException {
+            return this._begin(false);
+        }
+
+        /**
+        *** Ends the current JSON array
+        **/
+        public JSONWriter endArray() throws IOException {
+            return this._end(false);
+        }
+
+        /**
+        *** Writes an object key.  Must be followed by a value, or a nested object/array
+        **/
+        public JSONWriter key(String key) throws IOException {
+            int lvl = this.depth - 1;
+            if ((lvl < 0) || !this.isObject[lvl] || this.hasKey) {
+                throw new IOException("JSON key '" + key + "' written outside of an object");
+            }
+            if (this.count[lvl] > 0) {
+                this.out.write(',');
+            }
+            if (this.indent) {
+                this.out.write('\n');
+                this.out.write(JSON.indent(this.depth));
+            }
+            this.count[lvl]++;
+            this.out.write('\"');
+            JSONWriter.writeEscaped(this.out, key);
+            this.out.write('\"');
+            this.out.write(':');
+            if (this.indent) {
+                this.out.write(' ');
+            }
+            this.hasKey = true;
+            return this;
+        }
+
+        // --------------------------------------
+
+        /**
+        *** Writes a String value
+        **/
+        public JSONWriter value(String val) throws IOException {
+            if (val == null) {
+                return this.nullValue();
+            }
+            this._beforeValue();
+            this.out.write('\"');
+            JSONWriter.writeEscaped(this.out, val);
+            this.out.write('\"');
+            return this;
+        }
+
+        /**
+        *** Writes a long value
+        **/
+        public JSONWriter value(long val) throws IOException {
+            this._beforeValue();
+            this.out.write(String.valueOf(val));
+            return this;
+        }
+
+        /**
+        *** Writes a double value
+        **/
+        public JSONWriter value(double val) throws IOException {
+            this._beforeValue();
+            this.out.write(String.valueOf(val));
+            return this;
+        }
+
+        /**
+        *** Writes a boolean value
+        **/
+        public JSONWriter value(boolean val) throws IOException {
+            this._beforeValue();
+            this.out.write(val? "true" : "false");
+            return this;
+        }
+
+        /**
+        *** Writes a 'null' value
+        **/
+        public JSONWriter nullValue() throws IOException {
+            this._beforeValue();
+            this.out.write("null");
+            return this;
+        }
+
+        /**
+        *** Writes the contents of the specified JSON._Object
+        **/
+        public JSONWriter value(JSON._Object obj) throws IOException {
+            if (obj == null) {
+                return this.nullValue();
+            }
+            this.beginObject();
+            for (JSON._KeyValue kv : obj) {
+                this.key(kv.getKey());
+                this.value(kv.getValue());
+            }
+            return this.endObject();
+        }
+
+        /**
+        *** Writes the contents of the specified JSON._Array
+        **/
+        public JSONWriter value(JSON._Array array) throws IOException {
+            if (array == null) {
+                return this.nullValue();
+            }
+            this.beginArray();
+            for (JSON._Value v : array) {
+                this.value(v);
+            }
+            return this.endArray();
+        }
+
+        /**
+        *** Writes the specified JSON._Value
+        **/
+        public JSONWriter value(JSON._Value val) throws IOException {
+            Object v = (val != null)? val.getObjectValue() : null;
+            if (v == null) {
+                return this.nullValue();
+            } else
+            if (v instanceof String) {
+                return this.value((String)v);
+            } else
+            if ((v instanceof Number) || (v instanceof Boolean)) {
+                this._beforeValue();
+                this.out.write(v.toString());
+                return this;
+            } else
+            if (v instanceof JSON._Object) {
+                return this.value((JSON._Object)v);
+            } else
+            if (v instanceof JSON._Array) {
+                return this.value((JSON._Array)v);
+            } else {
+                return this.nullValue();
+            }
+        }
+
+        // --------------------------------------
+
+        /**
+        *** Writes a String key/value pair
+        **/
+        public JSONWriter keyValue(String key, String val) throws IOException {
+            return this.key(key).value(val);
+        }
+
+        /**
+        *** Writes a long key/value pair
+        **/
+        public JSONWriter keyValue(String key, long val) throws IOException {
+            return this.key(key).value(val);
+        }
+
+        /**
+        *** Writes a double key/value pair
+        **/
+        public JSONWriter keyValue(String key, double val) throws IOException {
+            return this.key(key).value(val);
+        }
+
+        /**
+        *** Writes a boolean key/value pair
+        **/
+        public JSONWriter keyValue(String key, boolean val) throws IOException {
+            return this.key(key).value(val);
+        }
+
+        /**
+        *** Writes a JSON._Value key/value pair
+        **/
+        public JSONWriter keyValue(String key, JSON._Value val) throws IOException {
+            return this.key(key).value(val);
+        }
+
+        // --------------------------------------
+
+        /**
+        *** Flushes the underlying Writer
+        **/
+        public void flush() throws IOException {
+            this.out.flush();
+        }
+
+        /**
+        *** Writes the specified String to the Writer, escaped per <code>JSON.escapeJSON</code>
+        **/
+        public static void writeEscaped(java.io.Writer out, String s) throws IOException {
+            if (s == null) {
+                return;
+            }
+            int len = s.length(), start = 0;
+            for (int i = 0; i < len; i++) {
+                char ch = s.charAt(i);
+                char esc;
+                switch (ch) {
+                    case ESCAPE_CHAR: esc = ESCAPE_CHAR; break;
+                    case '\n'       : esc = 'n';         break;
+                    case '\r'       : esc = 'r';         break;
+                    case '\t'       : esc = 't';         break;
+                    case '\"'       : esc = '\"';        break;
+                    default         : continue;
+                }
+                if (i > start) {
+                    out.write(s, start, i - start);
+                }
+                out.write(ESCAPE_CHAR);
+                out.write(esc);
+                start = i + 1;
+            }
+            if (len > start) {
+                out.write(s, start, len - start);
+            }
+        }
+
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // Pull parser
+
+    /**
+    *** Streaming (pull) JSON parser.<br>
+    *** Reads JSON tokens directly from a character stream without first reading the
+    *** entire input into a String.  Accepts the same non-standard extensions as the
+    *** String based parser (C-style block comments, extraneous commas).
+    **/
+    public static class JSONPullParser
+    {
+
+        /**
+        *** Token types returned by <code>next()</code>
+        **/
+        public enum Token {
+            START_OBJECT,
+            END_OBJECT,
+            START_ARRAY,
+            END_ARRAY,
+            KEY,
+            STRING,
+            NUMBER,
+            BOOLEAN,
+            NULL,
+            END
+        };
+
+        private static final int    MAX_DEPTH   = 256;
+
+        private java.io.Reader      in          = null;
+        private char                buf[]       = new char[4096];
+        private int                 bufLen      = 0;
+        private int                 bufPos      = 0;
+        private JSONParsingContext  context     = new JSONParsingContext();
+
+        private int                 depth       = 0;
+        private boolean             isObject[]  = new boolean[MAX_DEPTH];
+        private boolean             afterValue  = false;
+        private boolean             afterKey    = false;
+        private boolean             done        = false;
+
+        private Token               token       = null;
+        private String              strValue    = null;
+        private Number              numValue    = null;
+        private boolean             boolValue   = false;
+
+        /**
+        *** Constructor
+        *** @param in  The input Reader
+        **/
+        public JSONPullParser(java.io.Reader in) {
+            this.in = in;
+        }
+
+        /**
+        *** Constructor
+        *** @param json  The JSON String to parse
+        **/
+        public JSONPullParser(String json) {
+            this(new java.io.StringReader(StringTools.trim(json)));
+        }
+
+        /**
+        *** Constructor
+        *** @param input  The input stream (read in the default character encoding)
+        **/
+        public JSONPullParser(InputStream input) 
+            throws IOException {
+            this(new java.io.InputStreamReader(input,StringTools.getCharacterEncoding()));
+        }
+
+        // --------------------------------------
+
+        /**
+        *** Returns the next character without consuming it, or -1 at EOF
+        **/
+        private int _peek() throws IOException {
+            if (this.bufPos >= this.bufLen) {
+                this.bufLen = this.in.read(this.buf, 0, this.buf.length);
+                this.bufPos = 0;
+                if (this.bufLen <= 0) {
+                    this.bufLen = 0;
+                    return -1;
+                }
+            }
+            return this.buf[this.bufPos];
+        }
+
+        /**
+        *** Consumes and returns the next character
+        **/
+        private char _read() throws IOException, JSONParsingException {
+            int ch = this._peek();
+            if (ch < 0) {
+                throw new JSONParsingException("Overflow", this.context);
+            }
+            this.bufPos++;
+            this.context.incrementIndex();
+            if (ch == '\n') { this.context.incrementLine(); }
+            return (char)ch;
+        }
+
+        /**
+        *** Skips whitespace and comments.  Returns the next non-space character, or -1
+        **/
+        private int _skipSpace() throws IOException, JSONParsingException {
+            for (;;) {
+                int ch = this._peek();
+                if (ch < 0) {
+                    return -1;
+                } else
+                if (Character.isWhitespace((char)ch)) {
+                    this._read();
+                } else
+                if (ch == '/') {
+                    this._read();
+                    if (this._read() != '*') {
+                        throw new JSONParsingException("Invalid comment", this.context);
+                    }
+                    char last = 0;
+                    for (;;) {
+                        char c = this._read();
+                        if ((last == '*') && (c == '/')) { break; }
+                        last = c;
+                    }
+                } else {
+                    return ch;
+                }
+            }
+        }
+
+        // --------------------------------------
+
+        /**
+        *** Gets the parsing context (current index/line)
+        **/
+        public JSONParsingContext getContext() {
+            return this.context;
+        }
+
+        /**
+        *** Gets the current nesting depth
+        **/
+        public int getDepth() {
+            return this.depth;
+        }
+
+        /**
+        *** Gets the current token
+        **/
+        public Token getToken() {
+            return this.token;
+        }
+
+        /**
+        *** Gets the String value of the current KEY/STRING token
+        **/
+        public String getString() {
+            return this.strValue;
+        }
+
+        /**
+        *** Gets the Number value of the current NUMBER token (Long or Double)
+        **/
+        public Number getNumber() {
+            return this.numValue;
+        }
+
+        /**
+        *** Gets the boolean value of the current BOOLEAN token
+        **/
+        public boolean getBoolean() {
+            return this.boolValue;
+        }
+
+        // --------------------------------------
+
+        /**
+        *** Advances to, and returns, the next token
+        **/
+        public Token next() 
+            throws JSONParsingException, IOException {
+            this.strValue = null;
+            this.numValue = null;
+
+            /* end of top-level value */
+            if (this.done) {
+                return (this.token = Token.END);
+            }
+
+            /* separator */
+            int ch = this._skipSpace();
+            if (this.afterValue) {
+                if (ch == ',') {
+                    while (ch == ',') { // extraneous commas are ignored
+                        this._read();
+                        ch = this._skipSpace();
+                    }
+                } else
+                if ((ch != '}') && (ch != ']')) {
+                    throw new JSONParsingException("Missing ','", this.context);
+                }
+                this.afterValue = false;
+            } else
+            if ((ch == ',') && (this.depth > 0) && !this.afterKey) {
+                while (ch == ',') { // leading extraneous commas are ignored
+                    this._read();
+                    ch = this._skipSpace();
+                }
+            }
+            if (ch < 0) {
+                if (this.depth > 0) {
+                    throw new JSONParsingException("Overflow", this.context);
+                }
+                this.done = true;
+                return (this.token = Token.END);
+            }
+
+            /* object key */
+            boolean inObject = (this.depth > 0) && this.isObject[this.depth - 1];
+            if (inObject && !this.afterKey) {
+                if (ch == '}') {
+                    this._read();
+                    return (this.token = this._endContainer(Token.END_OBJECT));
+                } else
+                if (ch == '\"') {
+                    this.strValue = this._parseString();
+                    if (this._skipSpace() != ':') {
+                        throw new JSONParsingException("Missing ':'", this.context);
+                    }
+                    this._read();
+                    this.afterKey = true;
+                    return (this.token = Token.KEY);
+                } else {
+                    throw new JSONParsingException("Missing initial Key quote", this.context);
+                }
+            }
+            this.afterKey = false;
+
+            /* value */
+            switch (ch) {
+                case '{':
+                case '[': {
+                    this._read();
+                    if (this.depth >= MAX_DEPTH) {
+                        throw new JSONParsingException("Nesting too deep", this.context);
+                    }
+                    this.isObject[this.depth++] = (ch == '{');
+                    return (this.token = (ch == '{')? Token.START_OBJECT : Token.START_ARRAY);
+                }
+                case ']': {
+                    if (inObject || (this.depth <= 0)) {
+                        throw new JSONParsingException("Unexpected ']'", this.context);
+                    }
+                    this._read();
+                    return (this.token = this._endContainer(Token.END_ARRAY));
+                }
+                case '\"': {
+                    this.strValue = this._parseString();
+                    return (this.token = this._endValue(Token.STRING));
+                }
+                case 't':
+                case 'f':
+                case 'n': {
+                    String word = this._parseWord();
+                    if (word.equals("true") || word.equals("false")) {
+                        this.boolValue = word.equals("true");
+                        return (this.token = this._endValue(Token.BOOLEAN));
+                    } else
+                    if (word.equals("null")) {
+                        return (this.token = this._endValue(Token.NULL));
+                    }
+                    throw new JSONParsingException("Invalid value '" + word + "'", this.context);
+                }
+                default: {
+                    if ((ch == '-') || (ch == '+') || Character.isDigit((char)ch)) {
+                        this.numValue = this._parseNumber();
+                        return (this.token = this._endValue(Token.NUMBER));
+                    }
+                    throw new JSONParsingException("Unexpected character '" + (char)ch + "'", this.context);
+                }
+            }
+
+        }
+
+        /**
+        *** Marks the end of a value
+        **/
+        private Token _endValue(Token t) {
+            if (this.depth > 0) {
+                this.afterValue = true;
+            } else {
+                this.done = true;
+            }
+            return t;
+        }
+
+        /**
+        *** Marks the end of a container
+        **/
+        private Token _endContainer(Token t) {
+            this.depth--;
+            return this._endValue(t);
+        }
+
+        /**
+        *** Parses a quoted String (initial quote not yet consumed)
+        **/
+        private String _parseString() 
+            throws JSONParsingException, IOException {
+            this._read(); // initial quote
+            StringBuilder sb = new StringBuilder();
+            for (;;) {
+                char ch = this._read();
+                if (ch == '\"') {
+                    return sb.toString();
+                } else
+                if (ch != '\\') {
+                    sb.append(ch);
+                    continue;
+                }
+                ch = this._read();
+                switch (ch) {
+                    case 'b' : sb.append('\b'); break;
+                    case 'f' : sb.append('\f'); break;
+                    case 'n' : sb.append('\n'); break;
+                    case 'r' : sb.append('\r'); break;
+                    case 't' : sb.append('\t'); break;
+                    case 'u' : {
+                        int u = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int d = Character.digit(this._read(), 16);
+                            if (d < 0) {
+                                throw new JSONParsingException("Invalid unicode escape", this.context);
+                            }
+                            u = (u << 4) | d;
+                        }
+                        sb.append((char)u);
+                        break;
+                    }
+                    default  : sb.append(ch); break; // '"', '\\', '/'
+                }
+            }
+        }
+
+        /**
+        *** Parses an unquoted word (true/false/null)
+        **/
+        private String _parseWord() 
+            throws JSONParsingException, IOException {
+            StringBuilder sb = new StringBuilder();
+            for (;;) {
+                int ch = this._peek();
+                if ((ch < 0) || !Character.isLetter((char)ch)) {
+                    return sb.toString();
+                }
+                sb.append(this._read());
+            }
+        }
+
+        /**
+        *** Parses a numeric value (Long, or Double if a fraction/exponent is present)
+        **/
+        private Number _parseNumber() 
+            throws JSONParsingException, IOException {
+            StringBuilder num = new StringBuilder();
+            boolean isDouble = false;
+            for (;;) {
+                int ch = this._peek();
+                if ((ch >= '0') && (ch <= '9')) {
+                    // digit
+                } else
+                if ((ch == '.') || (ch == 'e') || (ch == 'E')) {
+                    isDouble = true;
+                } else
+                if ((ch == '-') || (ch == '+')) {
+                    if ((num.length() > 0) && !isDouble) {
+                        throw new JSONParsingException("Invalid numeric value (no 'E')", this.context);
+                    }
+                } else {
+                    break;
+                }
+                num.append(this._read());
+            }
+            String numStr = num.toString();
+            try {
+                if (isDouble) {
+                    return new Double(numStr);
+                } else {
+                    return new Long(numStr.startsWith("+")? numStr.substring(1) : numStr);
+                }
+            } catch (NumberFormatException nfe) {
+                throw new JSONParsingException("Invalid numeric value '" + numStr + "'", this.context);
+            }
+        }
+
+        // --------------------------------------
+
+        /**
+        *** Skips the value at the current token (the entire object/array if the
+        *** current token is START_OBJECT/START_ARRAY)
+        **/
+        public void skipValue() 
+            throws JSONParsingException, IOException {
+            if ((this.token == Token.START_OBJECT) || (this.token == Token.START_ARRAY)) {
+                int d = this.depth - 1;
+                while (this.depth > d) {
+                    if (this.next() == Token.END) {
+                        throw new JSONParsingException("Overflow", this.context);
+                    }
+                }
+            }
+        }
+
+        /**
+        *** Reads the next top-level JSON._Object
+        **/
+        public JSON._Object readObject() 
+            throws JSONParsingException, IOException {
+            if (this.next() != Token.START_OBJECT) {
+                throw new JSONParsingException("Missing initial Object '{'", this.context);
+            }
+            return this._readObject();
+        }
+
+        /**
+        *** Reads the value at the current token into a JSON._Value (the entire 
+        *** object/array if the current token is START_OBJECT/START_ARRAY)
+        **/
+        public JSON._Value readValue() 
+            throws JSONParsingException, IOException {
+            switch (this.token) {
+                case START_OBJECT: return new JSON._Value(this._readObject());
+                case START_ARRAY : return new JSON._Value(this._readArray());
+                case STRING      : return new JSON._Value(this.strValue);
+                case BOOLEAN     : return new JSON._Value(this.boolValue);
+                case NULL        : return new JSON._Value();
+                case NUMBER      : 
+                    if (this.numValue instanceof Double) {
+                        return new JSON._Value((Double)this.numValue);
+                    } else {
+                        return new JSON._Value((Long)this.numValue);
+                    }
+                default          : 
+                    throw new JSONParsingException("Unexpected token " + this.token, this.context);
+            }
+        }
+
+        /**
+        *** Reads an object (START_OBJECT already consumed)
+        **/
+        private JSON._Object _readObject() 
+            throws JSONParsingException, IOException {
+            JSON._Object obj = new JSON._Object();
+            for (;;) {
+                Token t = this.next();
+                if (t == Token.END_OBJECT) {
+                    return obj;
+                }
+                String key = this.strValue; // KEY
+                this.next();
+                obj.addKeyValue(new JSON._KeyValue(key, this.readValue()));
+            }
+        }
+
+        /**
+        *** Reads an array (START_ARRAY already consumed)
+        **/
+        private JSON._Array _readArray() 
+            throws JSONParsingException, IOException {
+            JSON._Array array = new JSON._Array();
+            for (;;) {
+                Token t = this.next();
+                if (t == Token.END_ARRAY) {
+                    return array;
+                }
+                array.addValue(this.readValue());
+            }
+        }
+
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
@@ -2150,8 +2990,16 @@ public class JSON
     public JSON(InputStream input)
         throws JSONParsingException, IOException
     {
-        String json = StringTools.toStringValue(FileTools.readStream(input));
-        this.object = JSON.parse_Object(json);
+        this.object = (new JSONPullParser(input)).readObject();
+    }
+
+    /**
+    *** Constructor 
+    **/
+    public JSON(java.io.Reader input)
+        throws JSONParsingException, IOException
+    {
+        this.object = (new JSONPullParser(input)).readObject();
     }
 
     // ------------------------------------------------------------------------
@@ -2206,6 +3054,19 @@ public class JSON
         }
     }
 
+    /**
+    *** Writes this instance to the specified Writer, without creating an intermediate String
+    **/
+    public void write(java.io.Writer out, boolean inclPrefix)  // JSON
+        throws IOException
+    {
+        if (this.object != null) {
+            JSONWriter jw = new JSONWriter(out, (inclPrefix && this.object.formatIndent));
+            jw.value(this.object);
+            jw.flush();
+        }
+    }
+
     /**
     *** Print object contents (debug purposes only)
     **/
@@ -0,0 +1,470 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Lightweight in-process metrics registry (counters, gauges, latency histograms)
+// ----------------------------------------------------------------------------
+package org.opengts.util;
+
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+*** A lightweight, lock-free, in-process metrics registry.<br>
+*** Metrics are identified by a name and an optional set of label name/value pairs,
+*** and are created on first reference.  The registry contents may be written in a
+*** simple text format (compatible with the Prometheus text exposition format).
+**/
+
+public class Metrics
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final String     PREFIX          = "opengts_";
+
+    // ------------------------------------------------------------------------
+
+    private static volatile Boolean metricsEnabled  = null;
+
+    /**
+    *** Returns true if metrics collection is enabled
+    **/
+    public static boolean isEnabled()
+    {
+        Boolean enabled = Metrics.metricsEnabled;
+        if (enabled == null) {
+            if (!RTConfig.isInitialized()) {
+                return true; // not yet cached, runtime config not yet loaded
+            }
+            enabled = Boolean.valueOf(RTConfig.getBoolean(RTKey.METRICS_ENABLE,true));
+            Metrics.metricsEnabled = enabled;
+        }
+        return enabled.booleanValue();
+    }
+
+    /**
+    *** Sets the metrics collection enabled state (overrides the runtime configuration)
+    **/
+    public static void setEnabled(boolean enable)
+    {
+        Metrics.metricsEnabled = Boolean.valueOf(enable);
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Metric base class
+    **/
+    public static abstract class Metric
+    {
+        private String name   = null;
+        private String labels = null;
+        protected Metric(String name, String labels) {
+            this.name   = name;
+            this.labels = labels;
+        }
+        public String getName() {
+            return this.name;
+        }
+        public String getLabels() {
+            return this.labels; // may be blank
+        }
+        public abstract String getType();
+        public abstract void writeText(StringBuilder sb);
+        protected void writeLine(StringBuilder sb, String suffix, String extraLabel, String value) {
+            sb.append(this.name);
+            if (suffix != null) { sb.append(suffix); }
+            boolean hasLabels = !StringTools.isBlank(this.labels);
+            if (hasLabels || (extraLabel != null)) {
+                sb.append("{");
+                if (hasLabels) { sb.append(this.labels); }
+                if (extraLabel != null) {
+                    if (hasLabels) { sb.append(","); }
+                    sb.append(extraLabel);
+                }
+                sb.append("}");
+            }
+            sb.append(" ").append(value).append("\n");
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Monotonically increasing counter
+    **/
+    public static class Counter
+        extends Metric
+    {
+        private AtomicLong count = new AtomicLong(0L);
+        public Counter(String name, String labels) {
+            super(name, labels);
+        }
+        public String getType() {
+            return "counter";
+        }
+        public void increment() {
+            this.count.incrementAndGet();
+        }
+        public void add(long delta) {
+            this.count.addAndGet(delta);
+        }
+        public long getCount() {
+            return this.count.get();
+        }
+        public void writeText(StringBuilder sb) {
+            this.writeLine(sb, null, null, String.valueOf(this.getCount()));
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gauge value provider
+    **/
+    public interface GaugeValue
+    {
+        public long getValue();
+    }
+
+    /**
+    *** Gauge: either set explicitly, or obtained from a GaugeValue provider
+    **/
+    public static class Gauge
+        extends Metric
+    {
+        private AtomicLong value    = new AtomicLong(0L);
+        private GaugeValue provider = null;
+        public Gauge(String name, String labels, GaugeValue provider) {
+            super(name, labels);
+            this.provider = provider;
+        }
+        public String getType() {
+            return "gauge";
+        }
+        public void setProvider(GaugeValue provider) {
+            this.provider = provider;
+        }
+        public void set(long val) {
+            this.value.set(val);
+        }
+        public void add(long delta) {
+            this.value.addAndGet(delta);
+        }
+        public long getValue() {
+            GaugeValue p = this.provider;
+            return (p != null)? p.getValue() : this.value.get();
+        }
+        public void writeText(StringBuilder sb) {
+            this.writeLine(sb, null, null, String.valueOf(this.getValue()));
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Log-linear latency histogram (nanosecond values).<br>
+    *** Each power-of-two range is divided into <code>2^SUB_BITS</code> linear
+    *** sub-buckets, giving a relative bucket precision of about 12%, over a range of
+    *** 1 nanosecond to about 18 minutes.  Recording is lock-free.
+    **/
+    public static class Histogram
+        extends Metric
+    {
+
+        private static final int    SUB_BITS    = 3;
+        private static final int    SUB_COUNT   = 1 << SUB_BITS;
+        private static final int    MAX_EXP     = 40; // 2^40 ns ~= 18 minutes
+        private static final int    BUCKETS     = (MAX_EXP - SUB_BITS + 1) * SUB_COUNT + SUB_COUNT;
+
+        private static final double QUANTILES[] = { 0.50, 0.90, 0.99, 0.999 };
+
+        private AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private AtomicLong      count   = new AtomicLong(0L);
+        private AtomicLong      sum     = new AtomicLong(0L);
+        private AtomicLong      max     = new AtomicLong(0L);
+
+        public Histogram(String name, String labels) {
+            super(name, labels);
+        }
+
+        public String getType() {
+            return "summary";
+        }
+
+        /* bucket index for the specified value */
+        private static int _bucketIndex(long v) {
+            if (v < SUB_COUNT) {
+                return (v <= 0L)? 0 : (int)v;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(v); // >= SUB_BITS
+            if (exp > MAX_EXP) {
+                return BUCKETS - 1;
+            }
+            int sub = (int)(v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+            return ((exp - SUB_BITS + 1) * SUB_COUNT) + sub;
+        }
+
+        /* upper bound of the specified bucket */
+        private static long _bucketUpperBound(int ndx) {
+            if (ndx < SUB_COUNT) {
+                return ndx;
+            }
+            int exp = (ndx / SUB_COUNT) + SUB_BITS - 1;
+            int sub = ndx % SUB_COUNT;
+            long base = 1L << exp;
+            return base + ((long)(sub + 1) << (exp - SUB_BITS)) - 1L;
+        }
+
+        /**
+        *** Records the specified value (nanoseconds)
+        **/
+        public void record(long valueNS) {
+            if (valueNS < 0L) { valueNS = 0L; }
+            this.buckets.incrementAndGet(_bucketIndex(valueNS));
+            this.count.incrementAndGet();
+            this.sum.addAndGet(valueNS);
+            for (;;) {
+                long m = this.max.get();
+                if ((valueNS <= m) || this.max.compareAndSet(m, valueNS)) {
+                    break;
+                }
+            }
+        }
+
+        /**
+        *** Records the elapsed time since the specified <code>System.nanoTime()</code> value
+        **/
+        public void recordSince(long startNS) {
+            this.record(System.nanoTime() - startNS);
+        }
+
+        public long getCount() {
+            return this.count.get();
+        }
+
+        public long getSum() {
+            return this.sum.get();
+        }
+
+        public long getMax() {
+            return this.max.get();
+        }
+
+        /**
+        *** Gets the approximate value at the specified quantile (0.0 to 1.0)
+        **/
+        public long getQuantile(double q) {
+            long total = 0L;
+            long counts[] = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = this.buckets.get(i);
+                total += counts[i];
+            }
+            if (total <= 0L) {
+                return 0L;
+            }
+            long rank = (long)Math.ceil(q * (double)total);
+            if (rank < 1L) { rank = 1L; }
+            long accum = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                accum += counts[i];
+                if (accum >= rank) {
+                    long ub = _bucketUpperBound(i);
+                    long mx = this.getMax();
+                    return (ub < mx)? ub : mx;
+                }
+            }
+            return this.getMax();
+        }
+
+        public void writeText(StringBuilder sb) {
+            for (double q : QUANTILES) {
+                this.writeLine(sb, null, "quantile=\"" + q + "\"", _seconds(this.getQuantile(q)));
+            }
+            this.writeLine(sb, "_sum"  , null, _seconds(this.getSum()));
+            this.writeLine(sb, "_count", null, String.valueOf(this.getCount()));
+            this.writeLine(sb, "_max"  , null, _seconds(this.getMax()));
+        }
+
+        private static String _seconds(long ns) {
+            return StringTools.format((double)ns / 1000000000.0, "0.000000");
+        }
+
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final ConcurrentHashMap<String,Metric> registry = new ConcurrentHashMap<String,Metric>();
+
+    /**
+    *** Encodes the specified label name/value pairs
+    **/
+    private static String _labels(String labelKV[])
+    {
+        if (ListTools.isEmpty(labelKV)) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; (i + 1) < labelKV.length; i += 2) {
+            if (sb.length() > 0) { sb.append(","); }
+            String v = StringTools.trim(labelKV[i+1]);
+            v = StringTools.replace(v, "\\", "\\\\");
+            v = StringTools.replace(v, "\"", "\\\"");
+            sb.append(labelKV[i]).append("=\"").append(v).append("\"");
+        }
+        return sb.toString();
+    }
+
+    /**
+    *** Returns the registry key for the specified name/labels
+    **/
+    private static String _key(String name, String labels)
+    {
+        return StringTools.isBlank(labels)? name : (name + "{" + labels + "}");
+    }
+
+    /**
+    *** Gets (or creates) the named Counter
+    *** @param name     The metric name (PREFIX is prepended)
+    *** @param labelKV  Label name/value pairs
+    **/
+    public static Counter getCounter(String name, String... labelKV)
+    {
+        String n = PREFIX + name, l = _labels(labelKV), k = _key(n, l);
+        Metric m = registry.get(k);
+        if (m == null) {
+            Metric newM = new Counter(n, l);
+            m = registry.putIfAbsent(k, newM);
+            if (m == null) { m = newM; }
+        }
+        return (m instanceof Counter)? (Counter)m : new Counter(n, l); // unregistered if type mismatch
+    }
+
+    /**
+    *** Gets (or creates) the named Gauge
+    *** @param name     The metric name (PREFIX is prepended)
+    *** @param labelKV  Label name/value pairs
+    **/
+    public static Gauge getGauge(String name, String... labelKV)
+    {
+        String n = PREFIX + name, l = _labels(labelKV), k = _key(n, l);
+        Metric m = registry.get(k);
+        if (m == null) {
+            Metric newM = new Gauge(n, l, null);
+            m = registry.putIfAbsent(k, newM);
+            if (m == null) { m = newM; }
+        }
+        return (m instanceof Gauge)? (Gauge)m : new Gauge(n, l, null);
+    }
+
+    /**
+    *** Registers a Gauge whose value is obtained from the specified provider
+    *** @param name     The metric name (PREFIX is prepended)
+    *** @param provider The gauge value provider
+    *** @param labelKV  Label name/value pairs
+    **/
+    public static Gauge registerGauge(String name, GaugeValue provider, String... labelKV)
+    {
+        Gauge g = Metrics.getGauge(name, labelKV);
+        g.setProvider(provider);
+        return g;
+    }
+
+    /**
+    *** Gets (or creates) the named latency Histogram
+    *** @param name     The metric name (PREFIX is prepended)
+    *** @param labelKV  Label name/value pairs
+    **/
+    public static Histogram getHistogram(String name, String... labelKV)
+    {
+        String n = PREFIX + name, l = _labels(labelKV), k = _key(n, l);
+        Metric m = registry.get(k);
+        if (m == null) {
+            Metric newM = new Histogram(n, l);
+            m = registry.putIfAbsent(k, newM);
+            if (m == null) { m = newM; }
+        }
+        return (m instanceof Histogram)? (Histogram)m : new Histogram(n, l);
+    }
+
+    /**
+    *** Removes the specified metric from the registry
+    **/
+    public static void remove(Metric m)
+    {
+        if (m != null) {
+            registry.remove(_key(m.getName(), m.getLabels()), m);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Writes all registered metrics, in text format, to the specified StringBuilder
+    **/
+    public static StringBuilder writeText(StringBuilder sb)
+    {
+        if (sb == null) { sb = new StringBuilder(); }
+        Map<String,Metric> sorted = new TreeMap<String,Metric>(registry);
+        String lastName = null;
+        for (Metric m : sorted.values()) {
+            if (!m.getName().equals(lastName)) {
+                sb.append("# TYPE ").append(m.getName()).append(" ").append(m.getType()).append("\n");
+                lastName = m.getName();
+            }
+            m.writeText(sb);
+        }
+        return sb;
+    }
+
+    /**
+    *** Returns all registered metrics in text format
+    **/
+    public static String getText()
+    {
+        return Metrics.writeText(null).toString();
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Main entry point (testing/debug purposes only)
+    **/
+    public static void main(String argv[])
+    {
+        RTConfig.setCommandLineArgs(argv);
+        Random r = new Random(1L);
+        Histogram h = Metrics.getHistogram("test_latency_seconds", "stage", "test");
+        for (int i = 0; i < 100000; i++) {
+            h.record((long)(r.nextGaussian() * 200000.0) + 1000000L); // ~1ms
+        }
+        Metrics.getCounter("test_total").add(42L);
+        Metrics.registerGauge("test_gauge", new GaugeValue() {
+            public long getValue() { return 7L; }
+        });
+        Print.sysPrintln(Metrics.getText());
+    }
+
+}
@@ -174,6 +174,7 @@ public class Print
 
     private static int          printLogIncludeFrame    = -1;       // lazy init
     private static int          printLogIncludeDate     = -1;       // lazy init
+    private static int          printLogAsync           = -1;       // lazy init
 
     private static boolean      printLogFile_init       = false;    // volatile?
     private static File         printLogFile            = null;
@@ -191,6 +192,7 @@ public class Print
         Print.printLogHeaderLevel     = LOG_UNDEFINED;
         Print.printLogIncludeFrame    = -1;
         Print.printLogIncludeDate     = -1;
+        Print.printLogAsync           = -1;
         Print.printLogFile_init       = false;
         Print.printLogFile            = null;
         Print.printRotateLogFileSize  = -1L;
@@ -233,6 +235,34 @@ public class Print
         }
         return (printLogIncludeDate > 0);
     }
+
+    /** 
+    *** Sets the asynchronous log file writer state.
+    *** @param asyncState "1"  to write the log file asynchronously, 
+    ***                   "0"  to write the log file synchronously, 
+    ***                   "-1" to set undefined (will be set based on "log.async.enable").
+    **/
+    public static int setAsyncLogging(int asyncState)
+    {
+        int oldAsync = printLogAsync;
+        printLogAsync = asyncState;
+        return oldAsync;
+    }
+
+    /**
+    *** Returns true if the log file is to be written asynchronously
+    *** @return True if the log file is to be written asynchronously
+    **/
+    protected static boolean _isAsyncLogging()
+    {
+        if (printLogAsync < 0) {
+            if (!RTConfig.isInitialized()) {
+                return false; // not yet
+            }
+            printLogAsync = RTConfig.getBoolean(RTKey.LOG_ASYNC_ENABLE,false)? 1 : 0;
+        }
+        return (printLogAsync > 0);
+    }
     
     /**
     *** Returns true if exceptions should be emailed to the recipient on file
@@ -780,7 +810,7 @@ public class Print
     *** Gets the stderr PrintStream
     *** @return The stderr PrintStream (does not return null)
     **/
-    private static PrintStream _getSysStderr()
+    protected static PrintStream _getSysStderr()
     {
         // REDIRECT
         if (Print.allOutputToStdout) {
@@ -991,6 +1021,14 @@ public class Print
 
         /* log stack trace */
         Print._log(level, nextFrame, msg);
+        AsyncLogWriter alw = Print._getAsyncLogWriter();
+        if (alw != null) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            PrintStream bosOut = new PrintStream(bos);
+            _printStackTrace(bosOut, nextFrame, null, t);
+            bosOut.flush();
+            Print._writeLog(level, StringTools.toStringValue(bos.toByteArray()));
+        } else
         try {
             PrintStream out = Print.openPrintStream(); // does not return null
             _printStackTrace(out, nextFrame, null, t);
@@ -1342,6 +1380,96 @@ public class Print
         return Print.printRotateDelAgeSec;
     }
 
+    /**
+    *** Rotates the specified log file if it exceeds the maximum log file size
+    *** (and deletes aged rotated log files).  Must not be called while the log
+    *** file is open for writing.
+    *** @param logFile  The log file
+    *** @return True if the log file was rotated
+    **/
+    protected static boolean _rotateLogFile(File logFile)
+    {
+        // Do not make calls to "logXXXXXX" from within this method (infinite recursion could result)
+
+        /* rotate needed? */
+        long maxSize = Print.getRotateLogFileSize();
+        if ((logFile == null) || (maxSize <= 0L) || !logFile.isFile() || (logFile.length() <= maxSize)) {
+            return false;
+        }
+
+        String rotExtnSep = "."; // must not be empty
+        final long nowMS  = DateTime.getCurrentTimeMillis();
+
+        // backup existing file
+        String absPath = logFile.getAbsolutePath();
+        String rotExtn = Print.formatDate(RTConfig.getString(RTKey.LOG_FILE_ROTATE_EXTN));
+        String bkuName = absPath + rotExtnSep + rotExtn;
+        File bkuFile = new File(bkuName);
+        for (int i = 1; bkuFile.exists(); i++) { 
+            // find a filename that does not exist
+            bkuName = absPath + rotExtnSep + rotExtn + "." + i;
+            bkuFile = new File(bkuName); 
+        }
+        boolean didRename = false;
+        try {
+            didRename = logFile.renameTo(bkuFile);
+            if (didRename) {
+                // update modified time (so this file isn't deleted below)
+                bkuFile.setLastModified(nowMS);
+            }
+        } catch (Throwable th) {
+            // error renaming
+            //Print.sysPrintln("Unable to rename logFile: " + file + " ==> " + bkuFile);
+            //th.printStackTrace(); // to stderr/stdout
+            didRename = false;
+        }
+
+        // delete old rotated files?
+        final long delAgeSec = Print.getRotateDeleteAgeSec();
+        if (delAgeSec > 0L) {
+            final long   delAgeMS = delAgeSec * 1000L;
+            final String logName_ = logFile.getName() + rotExtnSep; // include rotate extension separator
+            File delFiles[] = logFile.getParentFile().listFiles(new FileFilter() {
+                public boolean accept(File f) {
+                    if (!f.getName().startsWith(logName_)) {
+                        // not a rotated file
+                        return false;
+                    } else
+                    if ((nowMS - f.lastModified()) < delAgeMS) {
+                        // too young
+                        return false;
+                    }
+                    // mark for deletion
+                    return true;
+                }
+            });
+            if (!ListTools.isEmpty(delFiles)) {
+                // delete files
+                for (int i = 0; i < delFiles.length; i++) {
+                    boolean didDelete = false;
+                    try {
+                        didDelete = delFiles[i].delete();
+                    } catch (Throwable th) {
+                        // error deleting
+                        //Print.sysPrintln("Unable to delete logFile: " + delFiles[i]);
+                        //th.printStackTrace(); // to stderr/stdout
+                        didDelete = false;
+                    }
+                    if (RTConfig.isDebugMode()) {
+                        if (didDelete) {
+                            Print.sysPrintln("Delete : " + delFiles[i]);
+                        } else {
+                            Print.sysPrintln("Delete Failed: " + delFiles[i]);
+                        }
+                    }
+                }
+            }
+        }
+
+        return didRename;
+
+    }
+
     /**
     *** Opens the output log file
     *** (does not return null)
@@ -1431,78 +1559,7 @@ public class Print
                     }
 
                     /* is file (non directory): check rotate [was "logFile.exists()"] */
-                    long maxSize = Print.getRotateLogFileSize();
-                    if ((maxSize > 0L) && logFile.isFile() && (logFile.length() > maxSize)) {
-                        String rotExtnSep = "."; // must not be empty
-                        final long nowMS  = DateTime.getCurrentTimeMillis();
-
-                        // backup existing file
-                        String absPath = logFile.getAbsolutePath();
-                        String rotExtn = Print.formatDate(RTConfig.getString(RTKey.LOG_FILE_ROTATE_EXTN));
-                        String bkuName = absPath + rotExtnSep + rotExtn;
-                        File bkuFile = new File(bkuName);
-                        for (int i = 1; bkuFile.exists(); i++) { 
-                            // find a filename that does not exist
-                            bkuName = absPath + rotExtnSep + rotExtn + "." + i;
-                            bkuFile = new File(bkuName); 
-                        }
-                        boolean didRename = false;
-                        try {
-                            didRename = logFile.renameTo(bkuFile);
-                            if (didRename) {
-                                // update modified time (so this file isn't deleted below)
-                                bkuFile.setLastModified(nowMS);
-                            }
-                        } catch (Throwable th) {
-                            // error renaming
-                            //Print.sysPrintln("Unable to rename logFile: " + file + " ==> " + bkuFile);
-                            //th.printStackTrace(); // to stderr/stdout
-                            didRename = false;
-                        }
-
-                        // delete old rotated files?
-                        final long delAgeSec = Print.getRotateDeleteAgeSec();
-                        if (delAgeSec > 0L) {
-                            final long   delAgeMS = delAgeSec * 1000L;
-                            final String logName_ = logFile.getName() + rotExtnSep; // include rotate extension separator
-                            File delFiles[] = logFile.getParentFile().listFiles(new FileFilter() {
-                                public boolean accept(File f) {
-                                    if (!f.getName().startsWith(logName_)) {
-                                        // not a rotated file
-                                        return false;
-                                    } else
-                                    if ((nowMS - f.lastModified()) < delAgeMS) {
-                                        // too young
-                                        return false;
-                                    }
-                                    // mark for deletion
-                                    return true;
-                                }
-                            });
-                            if (!ListTools.isEmpty(delFiles)) {
-                                // delete files
-                                for (int i = 0; i < delFiles.length; i++) {
-                                    boolean didDelete = false;
-                                    try {
-                                        didDelete = delFiles[i].delete();
-                                    } catch (Throwable th) {
-                                        // error deleting
-                                        //Print.sysPrintln("Unable to delete logFile: " + delFiles[i]);
-                                        //th.printStackTrace(); // to stderr/stdout
-                                        didDelete = false;
-                                    }
-                                    if (RTConfig.isDebugMode()) {
-                                        if (didDelete) {
-                                            Print.sysPrintln("Delete : " + delFiles[i]);
-                                        } else {
-                                            Print.sysPrintln("Delete Failed: " + delFiles[i]);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-
-                    } // log file rotation
+                    Print._rotateLogFile(logFile);
 
                     /* open PrintStream */
                     try {
@@ -1545,6 +1602,54 @@ public class Print
 
     }
 
+    private static volatile AsyncLogWriter asyncLogWriter = null;
+
+    /**
+    *** Gets the asynchronous log file writer, starting it if necessary
+    *** @return The AsyncLogWriter, or null if the log file is not to be written asynchronously
+    **/
+    protected static AsyncLogWriter _getAsyncLogWriter()
+    {
+
+        /* asynchronous log file enabled? */
+        if (!Print._isAsyncLogging()) {
+            return null;
+        } else
+        if (Print._getLogPrintStream() != null) {
+            return null; // overriding log PrintStream
+        } else
+        if (Print.getLogFile() == null) {
+            return null; // no log file (stderr)
+        }
+
+        /* get/start writer */
+        AsyncLogWriter alw = Print.asyncLogWriter;
+        if (alw == null) {
+            synchronized (Print.logLock) {
+                if (Print.asyncLogWriter == null) { // check again
+                    int     queueSize = RTConfig.getInt(RTKey.LOG_ASYNC_QUEUE_SIZE, AsyncLogWriter.DFT_QUEUE_SIZE);
+                    String  policy    = RTConfig.getString(RTKey.LOG_ASYNC_FULL_POLICY, AsyncLogWriter.POLICY_BLOCK);
+                    boolean dropFull  = AsyncLogWriter.POLICY_DROP.equalsIgnoreCase(StringTools.trim(policy));
+                    Print.asyncLogWriter = (new AsyncLogWriter(queueSize, dropFull)).start();
+                }
+                alw = Print.asyncLogWriter;
+            }
+        }
+        return alw;
+
+    }
+
+    /**
+    *** Waits for all queued asynchronous log messages to be written
+    *** @param timeoutMS  The maximum time to wait (in milliseconds)
+    *** @return True if all queued messages have been written
+    **/
+    public static boolean flushAsyncLog(long timeoutMS)
+    {
+        AsyncLogWriter alw = Print.asyncLogWriter;
+        return (alw != null)? alw.flush(timeoutMS) : true;
+    }
+
     /**
     *** Closes the output PrintStream
     **/
@@ -1820,22 +1925,56 @@ public class Print
             return;
         }
 
-        /* message accumulator */
-        StringBuffer logMsg = new StringBuffer();
+        /* header info */
+        // Print this 'header' info for logged messages with a level < 'headerLevel'
+        // ie. print header for errors/warnings, but not for info/debug
+        boolean header = (level <= Print.getLogHeaderLevel());
+        boolean inclDate  = header && Print._includeDate();
+        String  frameStr  = (header && Print._includeStackFrame() && (nextFrame >= 0))? _getStackFrame(nextFrame) : null;
+
+        /* asynchronous writer (message is formatted by the writer thread) */
+        AsyncLogWriter alw = Print._getAsyncLogWriter();
+        if (alw != null) {
+            long timeMS = inclDate? DateTime.getCurrentTimeMillis() : 0L;
+            if (alw.offer(level, header, timeMS, frameStr, msg, args)) {
+                return;
+            }
+        }
+
+        /* print message */
+        StringBuilder logMsg = new StringBuilder();
+        String dateStr = inclDate? Print.formatDate("MM/dd HH:mm:ss") : null; // "yyyy/MM/dd HH:mm:ss"
+        Print._appendLogMessage(logMsg, level, header, dateStr, frameStr, msg, args);
+        Print._writeLog(level, logMsg.toString());
+
+    }
+
+    /**
+    *** Appends the formatted log message to the specified StringBuilder
+    *** @param logMsg The message accumulator
+    *** @param level  The log level
+    *** @param header True to include the "[LEVEL|date|frame]" header
+    *** @param date   The header date (null to omit)
+    *** @param frame  The header stack frame (null to omit)
+    *** @param msg    The message to log
+    *** @param args   Any arguments referenced by any format specifiers in <code>msg</code>
+    **/
+    protected static void _appendLogMessage(StringBuilder logMsg, 
+        int level, boolean header, String date, String frame, 
+        String msg, Object args[])
+    {
 
-        /* log message */
-        if (level <= Print.getLogHeaderLevel()) {
-            // Print this 'header' info for logged messages with a level < 'headerLevel'
-            // ie. print header for errors/warnings, but not for info/debug
+        /* header */
+        if (header) {
             logMsg.append("[");
             logMsg.append(Print.getLogLevelString(level));
-            if (Print._includeDate()) {
+            if (date != null) {
                 logMsg.append("|");
-                logMsg.append(Print.formatDate("MM/dd HH:mm:ss")); // "yyyy/MM/dd HH:mm:ss"
+                logMsg.append(date);
             }
-            if (Print._includeStackFrame() && (nextFrame >= 0)) {
+            if (frame != null) {
                 logMsg.append("|");
-                logMsg.append(_getStackFrame(nextFrame));
+                logMsg.append(frame);
             }
             logMsg.append("] ");
         }
@@ -1858,9 +1997,6 @@ public class Print
             logMsg.append("\n");
         }
 
-        /* print message */
-        Print._writeLog(level, logMsg.toString());
-
     }
 
     /**
@@ -1871,6 +2007,12 @@ public class Print
     public static void _writeLog(int level, String logMsg)
     {
 
+        /* asynchronous writer */
+        AsyncLogWriter alw = Print._getAsyncLogWriter();
+        if ((alw != null) && alw.offerText(level, logMsg)) {
+            return;
+        }
+
         /* get PrintStream */
         PrintStream out = Print.openPrintStream(); // does not return null
         if (out == null) {
@@ -411,6 +411,93 @@ public class RTConfig
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
+    private static volatile RTConfigSnapshot    CFG_SNAPSHOT            = null;
+    private static long                         CFG_SNAPSHOT_VERSION    = 0L;
+    private static boolean                      CFG_SNAPSHOT_ENABLED    = true;
+    private static Set<RTProperties>            CFG_SNAPSHOT_LISTENING  = 
+        Collections.newSetFromMap(new WeakHashMap<RTProperties,Boolean>());
+
+    /* discards the current snapshot when a global property changes */
+    private static RTProperties.PropertyChangeListener CFG_SNAPSHOT_LISTENER =
+        new RTProperties.PropertyChangeListener() {
+            public void propertyChange(RTProperties.PropertyChangeEvent pce) {
+                RTConfig.invalidateSnapshot();
+            }
+        };
+
+    /**
+    *** Enables/Disables the use of the resolved property snapshot
+    *** @param enable  True to enable, false to disable
+    **/
+    public static void setSnapshotEnabled(boolean enable)
+    {
+        CFG_SNAPSHOT_ENABLED = enable;
+        RTConfig.invalidateSnapshot();
+    }
+
+    /**
+    *** Discards the current resolved property snapshot.  Must be called if the
+    *** backing Map of a global RTProperties instance (or the Java System properties)
+    *** is modified directly.
+    **/
+    public static void invalidateSnapshot()
+    {
+        CFG_SNAPSHOT = null;
+    }
+
+    /**
+    *** Gets the current resolved property snapshot for this thread
+    *** @return The RTConfigSnapshot, or null if the snapshot cannot be used by this thread
+    **/
+    public static RTConfigSnapshot getSnapshot()
+    {
+        return RTConfig._getSnapshot();
+    }
+
+    /**
+    *** Gets the current resolved property snapshot, creating a new version if necessary.
+    *** Returns null if disabled, not yet initialized, or if the current thread has 
+    *** thread-local or temporary properties (which the snapshot does not include).
+    **/
+    protected static RTConfigSnapshot _getSnapshot()
+    {
+
+        /* snapshot available? */
+        if (!CFG_SNAPSHOT_ENABLED || (_didStartupInit != 2)) {
+            return null;
+        } else
+        if (RTConfig.getTemporaryPropertiesStackSize() > 0) {
+            return null; // thread has temporary properties
+        }
+        RTProperties threadProps = CFG_PROPERTIES[THREAD_LOCAL];
+        if ((threadProps != null) && !threadProps.getProperties().isEmpty()) {
+            return null; // thread has thread-local properties
+        }
+
+        /* current snapshot */
+        RTConfigSnapshot snap = CFG_SNAPSHOT;
+        if ((snap != null) && snap.isSameLayers(CFG_PROPERTIES)) {
+            return snap;
+        }
+
+        /* new snapshot */
+        synchronized (CFG_SNAPSHOT_LISTENING) {
+            for (int i = 0; i < CFG_PROPERTIES.length; i++) {
+                RTProperties rtp = CFG_PROPERTIES[i];
+                if ((i != THREAD_LOCAL) && (rtp != null) && !CFG_SNAPSHOT_LISTENING.contains(rtp)) {
+                    rtp.addChangeListener(CFG_SNAPSHOT_LISTENER);
+                    CFG_SNAPSHOT_LISTENING.add(rtp);
+                }
+            }
+            snap = new RTConfigSnapshot(++CFG_SNAPSHOT_VERSION, CFG_PROPERTIES);
+            CFG_SNAPSHOT = snap;
+        }
+        return snap;
+
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Gets the thread local <code>RTProperties</code> instance
     *** @return The thread local <code>RTProperties</code>
@@ -1445,6 +1532,8 @@ public class RTConfig
         }
 
         /* now initialized */
+        RTConfig.invalidateSnapshot();
+        CFG_SNAPSHOT_ENABLED = RTConfig._getBoolean(RTKey.RT_CONFIG_SNAPSHOT, true, true);
         _didStartupInit = 2;
         //Print.logInfo("DebugMode: " + RTConfig.isDebugMode());
 
@@ -2104,6 +2193,10 @@ public class RTConfig
     **/
     public static String getString(String key, String dft, boolean dftOK)
     {
+        RTConfigSnapshot snap = RTConfig._getSnapshot();
+        if (snap != null) {
+            return snap.getString(key, dft, dftOK);
+        }
         RTProperties rtp = getPropertiesForKey(key, dftOK);
         return (rtp != null)? rtp.getString(key, dft) : dft;
     }
@@ -2430,6 +2523,19 @@ public class RTConfig
     *** @return The <code>double</code> value of the property
     **/
     public static double getDouble(String key, double dft, boolean dftOK)
+    {
+        RTConfigSnapshot snap = RTConfig._getSnapshot();
+        return (snap != null)? snap.getDouble(key, dft, dftOK) : RTConfig._getDouble(key, dft, dftOK);
+    }
+
+    /**
+    *** Gets a <code>double</code> property at the specified key (without the snapshot cache)
+    *** @param key The key of the property
+    *** @param dft The default value to return if an entry was not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The <code>double</code> value of the property
+    **/
+    protected static double _getDouble(String key, double dft, boolean dftOK)
     {
         RTProperties rtp = getPropertiesForKey(key, dftOK);
         return (rtp != null)? rtp.getDouble(key, dft) : dft;
@@ -2667,6 +2773,19 @@ public class RTConfig
     *** @return The <code>long</code> value of the property
     **/
     public static long getLong(String key, long dft, boolean dftOK)
+    {
+        RTConfigSnapshot snap = RTConfig._getSnapshot();
+        return (snap != null)? snap.getLong(key, dft, dftOK) : RTConfig._getLong(key, dft, dftOK);
+    }
+
+    /**
+    *** Gets a <code>long</code> property at the specified key (without the snapshot cache)
+    *** @param key The key of the property
+    *** @param dft The default value to return if an entry was not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The <code>long</code> value of the property
+    **/
+    protected static long _getLong(String key, long dft, boolean dftOK)
     {
         RTProperties rtp = getPropertiesForKey(key, dftOK);
         return (rtp != null)? rtp.getLong(key, dft) : dft;
@@ -2746,6 +2865,19 @@ public class RTConfig
     *** @return The <code>int</code> value of the property
     **/
     public static int getInt(String key, int dft, boolean dftOK)
+    {
+        RTConfigSnapshot snap = RTConfig._getSnapshot();
+        return (snap != null)? snap.getInt(key, dft, dftOK) : RTConfig._getInt(key, dft, dftOK);
+    }
+
+    /**
+    *** Gets a <code>int</code> property at the specified key (without the snapshot cache)
+    *** @param key The key of the property
+    *** @param dft The default value to return if an entry was not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The <code>int</code> value of the property
+    **/
+    protected static int _getInt(String key, int dft, boolean dftOK)
     {
         RTProperties rtp = getPropertiesForKey(key, dftOK);
         return (rtp != null)? rtp.getInt(key, dft) : dft;
@@ -3083,6 +3215,19 @@ public class RTConfig
     *** @return The <code>boolean</code> value of the property
     **/
     public static boolean getBoolean(String key, boolean dft, boolean dftOK)
+    {
+        RTConfigSnapshot snap = RTConfig._getSnapshot();
+        return (snap != null)? snap.getBoolean(key, dft, dftOK) : RTConfig._getBoolean(key, dft, dftOK);
+    }
+
+    /**
+    *** Gets a <code>boolean</code> property at the specified key (without the snapshot cache)
+    *** @param key The key of the property
+    *** @param dft The default value to return if an entry was not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The <code>boolean</code> value of the property
+    **/
+    protected static boolean _getBoolean(String key, boolean dft, boolean dftOK)
     {
         RTProperties rtp = getPropertiesForKey(key, dftOK);
         if (rtp == null) {
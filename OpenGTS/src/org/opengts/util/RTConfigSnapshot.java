@@ -0,0 +1,321 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Versioned snapshot of resolved, typed 'RTConfig' values.  A snapshot is
+//  discarded (and a new version created) whenever the global RTConfig
+//  properties change.
+// ----------------------------------------------------------------------------
+package org.opengts.util;
+
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+*** <code>RTConfigSnapshot</code> caches the resolved (key-replaced) and parsed values
+*** of the global <code>RTConfig</code> properties.<br>
+*** Values are resolved on first reference using the standard <code>RTConfig</code>
+*** lookup, and are thereafter returned from a hash lookup without walking the
+*** <code>RTProperties</code> stack, replacing "${...}" keys, or re-parsing the value.
+*** A snapshot is never used while the current thread has thread-local or temporary
+*** properties defined.
+**/
+
+public class RTConfigSnapshot
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final int    TYPE_STRING     = 0;
+    private static final int    TYPE_INT        = 1;
+    private static final int    TYPE_LONG       = 2;
+    private static final int    TYPE_DOUBLE     = 3;
+    private static final int    TYPE_BOOLEAN    = 4;
+    private static final int    TYPE_COUNT      = 5;
+
+    /* cached marker indicating that the caller supplied default is to be returned */
+    private static final Object USE_DEFAULT     = new Object();
+
+    /* cached marker indicating a 'null' String value */
+    private static final Object NULL_STRING     = new Object();
+
+    // ------------------------------------------------------------------------
+
+    private long                                version     = 0L;
+    private RTProperties                        layers[]    = null;
+    private ConcurrentHashMap<String,Object>    cache[]     = null;
+
+    /**
+    *** Constructor
+    *** @param version  The snapshot version
+    *** @param layers   The global RTProperties layers from which this snapshot is resolved
+    **/
+    @SuppressWarnings("unchecked")
+    public RTConfigSnapshot(long version, RTProperties layers[])
+    {
+        this.version = version;
+        this.layers  = (layers != null)? layers.clone() : new RTProperties[0];
+        this.cache   = new ConcurrentHashMap[TYPE_COUNT * 2];
+        for (int i = 0; i < this.cache.length; i++) {
+            this.cache[i] = new ConcurrentHashMap<String,Object>();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the version of this snapshot
+    **/
+    public long getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+    *** Returns true if this snapshot was resolved from the specified RTProperties layers
+    *** @param layers  The current global RTProperties layers
+    **/
+    public boolean isSameLayers(RTProperties layers[])
+    {
+        if ((layers == null) || (layers.length != this.layers.length)) {
+            return false;
+        }
+        for (int i = 0; i < layers.length; i++) {
+            if (layers[i] != this.layers[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+    *** Gets the number of cached values
+    **/
+    public int getCachedCount()
+    {
+        int count = 0;
+        for (int i = 0; i < this.cache.length; i++) {
+            count += this.cache[i].size();
+        }
+        return count;
+    }
+
+    /**
+    *** Gets the cache Map for the specified value type
+    **/
+    private Map<String,Object> _getCache(int type, boolean dftOK)
+    {
+        return this.cache[(type * 2) + (dftOK? 1 : 0)];
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the String value for the specified key
+    *** @param key    The property key
+    *** @param dft    The default value return if the key is not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The String value, or 'dft' if the key is not found
+    **/
+    public String getString(String key, String dft, boolean dftOK)
+    {
+        if (key == null) {
+            return dft;
+        }
+        Map<String,Object> c = this._getCache(TYPE_STRING, dftOK);
+        Object v = c.get(key);
+        if (v == null) {
+            RTProperties rtp = RTConfig.getPropertiesForKey(key, dftOK);
+            if (rtp == null) {
+                v = USE_DEFAULT;
+            } else
+            if (rtp._getProperty(key,null) == null) {
+                // defined with a null value, the (key-replaced) default is returned
+                return rtp.getString(key, dft);
+            } else {
+                String s = rtp.getString(key, null);
+                v = (s != null)? (Object)s : NULL_STRING;
+            }
+            c.put(key, v);
+        }
+        if (v == USE_DEFAULT) {
+            return dft;
+        } else
+        if (v == NULL_STRING) {
+            return null;
+        } else {
+            return (String)v;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // The typed 'RTConfig' lookups return either a value which is independent of
+    // the specified default, or the specified default itself (key not found, or
+    // value not parsable).  The lookup is therefore resolved once with two
+    // different defaults to determine which case applies.
+
+    /**
+    *** Gets the <code>int</code> value for the specified key
+    *** @param key    The property key
+    *** @param dft    The default value return if the key is not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The <code>int</code> value, or 'dft' if the key is not found
+    **/
+    public int getInt(String key, int dft, boolean dftOK)
+    {
+        if (key == null) {
+            return dft;
+        }
+        Map<String,Object> c = this._getCache(TYPE_INT, dftOK);
+        Object v = c.get(key);
+        if (v == null) {
+            int a = RTConfig._getInt(key, 0, dftOK);
+            int b = RTConfig._getInt(key, 1, dftOK);
+            v = (a == b)? (Object)new Integer(a) : USE_DEFAULT;
+            c.put(key, v);
+        }
+        return (v != USE_DEFAULT)? ((Integer)v).intValue() : dft;
+    }
+
+    /**
+    *** Gets the <code>long</code> value for the specified key
+    *** @param key    The property key
+    *** @param dft    The default value return if the key is not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The <code>long</code> value, or 'dft' if the key is not found
+    **/
+    public long getLong(String key, long dft, boolean dftOK)
+    {
+        if (key == null) {
+            return dft;
+        }
+        Map<String,Object> c = this._getCache(TYPE_LONG, dftOK);
+        Object v = c.get(key);
+        if (v == null) {
+            long a = RTConfig._getLong(key, 0L, dftOK);
+            long b = RTConfig._getLong(key, 1L, dftOK);
+            v = (a == b)? (Object)new Long(a) : USE_DEFAULT;
+            c.put(key, v);
+        }
+        return (v != USE_DEFAULT)? ((Long)v).longValue() : dft;
+    }
+
+    /**
+    *** Gets the <code>double</code> value for the specified key
+    *** @param key    The property key
+    *** @param dft    The default value return if the key is not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The <code>double</code> value, or 'dft' if the key is not found
+    **/
+    public double getDouble(String key, double dft, boolean dftOK)
+    {
+        if (key == null) {
+            return dft;
+        }
+        Map<String,Object> c = this._getCache(TYPE_DOUBLE, dftOK);
+        Object v = c.get(key);
+        if (v == null) {
+            double a = RTConfig._getDouble(key, 0.0, dftOK);
+            double b = RTConfig._getDouble(key, 1.0, dftOK);
+            v = (Double.compare(a,b) == 0)? (Object)new Double(a) : USE_DEFAULT;
+            c.put(key, v);
+        }
+        return (v != USE_DEFAULT)? ((Double)v).doubleValue() : dft;
+    }
+
+    /**
+    *** Gets the <code>boolean</code> value for the specified key
+    *** @param key    The property key
+    *** @param dft    The default value return if the key is not found
+    *** @param dftOK  True to check defaults, if not found elsewhere
+    *** @return The <code>boolean</code> value, or 'dft' if the key is not found
+    **/
+    public boolean getBoolean(String key, boolean dft, boolean dftOK)
+    {
+        if (key == null) {
+            return dft;
+        }
+        Map<String,Object> c = this._getCache(TYPE_BOOLEAN, dftOK);
+        Object v = c.get(key);
+        if (v == null) {
+            boolean a = RTConfig._getBoolean(key, false, dftOK);
+            boolean b = RTConfig._getBoolean(key, true , dftOK);
+            v = (a == b)? (Object)Boolean.valueOf(a) : USE_DEFAULT;
+            c.put(key, v);
+        }
+        return (v != USE_DEFAULT)? ((Boolean)v).booleanValue() : dft;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final String ARG_COUNT[] = new String[] { "count" , "n"   };
+    private static final String ARG_KEY[]   = new String[] { "key"   , "k"   };
+
+    /**
+    *** Compares the standard RTConfig lookup against the snapshot lookup.<br>
+    *** (a simple timing loop, intended as a rough comparison only)
+    *** @param count  The number of lookups to perform per pass
+    *** @param key    The integer property key to look up
+    **/
+    private static void _benchmark(int count, String key)
+    {
+        long sum = 0L;
+        for (int pass = 1; pass <= 3; pass++) { // first pass(es) are JIT warm-up
+
+            /* standard lookup */
+            long stdStartNS = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sum += RTConfig._getInt(key, i & 1, true);
+            }
+            long stdNS = System.nanoTime() - stdStartNS;
+
+            /* snapshot lookup */
+            long snpStartNS = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sum += RTConfig.getInt(key, i & 1, true);
+            }
+            long snpNS = System.nanoTime() - snpStartNS;
+
+            Print.sysPrintln("Pass " + pass + ": standard=" + (stdNS / count) + " ns/lookup, " +
+                "snapshot=" + (snpNS / count) + " ns/lookup");
+
+        }
+        Print.sysPrintln("(checksum " + sum + ")");
+    }
+
+    /**
+    *** Main entry point (benchmark)
+    **/
+    public static void main(String argv[])
+    {
+        RTConfig.setCommandLineArgs(argv);
+        int    count = RTConfig.getInt(ARG_COUNT, 1000000);
+        String key   = RTConfig.getString(ARG_KEY, RTKey.SMTP_SERVER_PORT);
+        RTConfigSnapshot snap = RTConfig.getSnapshot();
+        if (snap == null) {
+            Print.sysPrintln("RTConfig snapshot is disabled");
+            System.exit(1);
+        }
+        Print.sysPrintln("Snapshot version " + snap.getVersion() + ", key '" + key + "' = " + RTConfig.getInt(key,0,true));
+        RTConfigSnapshot._benchmark(count, key);
+        System.exit(0);
+    }
+
+}
@@ -86,6 +86,13 @@ public class RTKey
     public static final String WEBAPP_FILE                  = "webappFile";
     public static final String CONFIG_FILE                  = "configFile";
     public static final String COMMAND_LINE_CONF            = "conf";           // alias for CONFIG_FILE for cmdLine use
+    public static final String RT_CONFIG_SNAPSHOT           = "rtconfig.snapshot";
+
+    public static final String METRICS_ENABLE               = "metrics.enable";
+    public static final String METRICS_SERVLET_ENABLE       = "metrics.servlet.enable";
+    public static final String METRICS_SERVLET_ALLOW        = "metrics.servlet.allowAddresses";
+    public static final String METRICS_SERVLET_PROXIED      = "metrics.servlet.behindProxy";
+    public static final String METRICS_SERVLET_TOKEN        = "metrics.servlet.token";
 
     public static final String TEST_MODE                    = "testMode";
     public static final String DEBUG                        = "debug";
@@ -140,6 +147,9 @@ public class RTKey
     public static final String LOG_FILE_ROTATE_DELETE_AGE   = "log.file.rotate.deleteAge";
     public static final String LOG_INCL_DATE                = "log.include.date";
     public static final String LOG_INCL_STACKFRAME          = "log.include.frame";
+    public static final String LOG_ASYNC_ENABLE             = "log.async.enable";
+    public static final String LOG_ASYNC_QUEUE_SIZE         = "log.async.queueSize";
+    public static final String LOG_ASYNC_FULL_POLICY        = "log.async.fullPolicy";
     public static final String LOG_EMAIL_EXCEPTIONS         = "log.email.sendExceptions";
     public static final String LOG_EMAIL_FROM               = "log.email.fromAddr";
     public static final String LOG_EMAIL_TO                 = "log.email.toAddr";
@@ -150,6 +160,12 @@ public class RTKey
     public static final String DB_DATASOURCE_MAX_ACTIVE     = "db.dataSource.maxActive";            // Integer
     public static final String DB_DATASOURCE_MAX_IDLE       = "db.dataSource.maxIdle";              // Integer
     public static final String DB_DATASOURCE_MAX_WAIT       = "db.dataSource.maxWait";              // Long
+    public static final String DB_REPLICA_URI               = "db.replica.uri";                     // String[] (JDBC URIs)
+    public static final String DB_REPLICA_USER              = "db.replica.user";                    // String
+    public static final String DB_REPLICA_PASS              = "db.replica.password";                // String
+    public static final String DB_REPLICA_MAX_LAG           = "db.replica.maxLagSec";               // Integer
+    public static final String DB_REPLICA_CHECK_INTERVAL    = "db.replica.checkIntervalSec";        // Integer
+    public static final String DB_REPLICA_RETRY             = "db.replica.retrySec";                // Integer
     public static final String DB_PROVIDER                  = "db.sql.provider";                    // String
     public static final String DB_NAME                      = "db.sql.dbname";                      // String
     public static final String DB_URL                       = "db.sql.url";                         // String
@@ -161,6 +177,7 @@ public class RTKey
     public static final String DB_UTF8                      = "db.sql.utf8";                        // Boolean
     public static final String DB_TABLE_NAME_PREFIX         = "db.tableNamePrefix";                 // String (not used?)
     public static final String DB_TABLE_LOCKING             = "db.tableLocking";                    // Boolean
+    public static final String DB_READ_LOCK_MODE            = "db.readLockMode";                    // String (auto|lock|none)
     public static final String DB_INCLUDE_LAST_UPDATE_ACCT  = "db.includeLastUpdateAccountr";       // Boolean
     public static final String DB_INCLUDE_LAST_UPDATE_USER  = "db.includeLastUpdateUser";           // Boolean
     public static final String DB_SHOW_SQL                  = "db.showSQL";                         // Boolean
@@ -168,12 +185,14 @@ public class RTKey
     public static final String DB_ALLOW_UPDATE_KEY_FIELDS   = "db.allowUpdateKeyFields";            // Boolean
     public static final String DB_INACTIVE_TIMEOUT          = "db.inactiveTimeout";                 // Long (sec)
     public static final String DB_MYSQL_TBLEXIST_SEL_COUNT  = "db.mysql.tableExistsSelectCount";    // Boolean
+    public static final String DB_PROJECTION_FAIL_FAST      = "db.projectionFailFast";              // Boolean
 
     public static final String DB_TYPESIZE_                 = "db.typeSize.";                       // Integer
     public static final String DB_TYPEINT_                  = "db.typeInt.";                        // String (INT8|UINT8|INT16|UINT16|...)
     public static final String DB_IGNORE_COLUMN_ERROR_      = "db.ignoreColumnError.";              // Boolean 
     
     public static final String _DB_LOG_MISSING_COLUMNS      = ".logMissingColumns";                 // Boolean (Suffix)
+    public static final String _DB_INDEX_                   = ".index.";                            // String (Infix: <Table>.index.<name>=<col>,...[:<col>,...])
 
     public static final String OSTOOLS_MEMORY_CHECK_ENABLE  = "OSTools.memoryCheckEnabled";         // Boolean
     public static final String OSTOOLS_MEMORY_TREND_WEIGHT  = "OSTools.memoryTrendWeight";          // Double (percent 0.0 .. 1.0)
@@ -227,6 +246,14 @@ public class RTKey
         new Entry(CONFIG_FILE_DIR            , "/conf"                          , "Runtime config file directory"),             // APP|WEB
         new Entry(CONFIG_FILE                , "default.conf"                   , "Default runtime config file"),               // APP
         new Entry(WEBAPP_FILE                , "webapp.conf"                    , "Default webapp config file"),                //     WEB
+        new Entry(RT_CONFIG_SNAPSHOT         , true                             , "Cache resolved config values"),              // APP|WEB
+
+        new Entry("Metrics attributes"),
+        new Entry(METRICS_ENABLE             , true                             , "Enable internal metrics collection"),        // APP|WEB
+        new Entry(METRICS_SERVLET_ENABLE     , true                             , "Enable '/metrics' servlet"),                 //     WEB
+        new Entry(METRICS_SERVLET_ALLOW      , "127.0.0.1,0:0:0:0:0:0:0:1"      , "'/metrics' allowed client addresses"),       //     WEB
+        new Entry(METRICS_SERVLET_PROXIED    , false                            , "'/metrics' is behind a reverse proxy"),      //     WEB
+        new Entry(METRICS_SERVLET_TOKEN      , ""                               , "'/metrics' required bearer token"),          //     WEB
 
         new Entry("Web Session context attributes"),
         new Entry(SESSION_NAME               , null                             , "Session context name"),                      // WEB
@@ -276,6 +303,9 @@ public class RTKey
         new Entry(LOG_FILE_ROTATE_DELETE_AGE , "0"                              , "log file rotate delete age (default days)"), // APP|WEB
         new Entry(LOG_INCL_DATE              , false                            , "include date in logs"),                      // APP|WEB
         new Entry(LOG_INCL_STACKFRAME        , false                            , "include stackframe in logs"),                // APP|WEB
+        new Entry(LOG_ASYNC_ENABLE           , false                            , "asynchronous log file writer"),              // APP|WEB
+        new Entry(LOG_ASYNC_QUEUE_SIZE       , 8192                             , "asynchronous log queue size"),               // APP|WEB
+        new Entry(LOG_ASYNC_FULL_POLICY      , "block"                          , "asynchronous log queue full policy (block|drop)"), // APP|WEB
         new Entry(LOG_EMAIL_EXCEPTIONS       , false                            , "EMail exceptions"),                          // APP|WEB
         new Entry(LOG_EMAIL_FROM             , null                             , "Error email sender"),
         new Entry(LOG_EMAIL_TO               , null                             , "Error email recipient"),
@@ -287,6 +317,12 @@ public class RTKey
         new Entry(DB_DATASOURCE_MAX_ACTIVE   , 100                              , "DataSource maxActive"),                      // APP|WEB
         new Entry(DB_DATASOURCE_MAX_IDLE     , 30                               , "DataSource maxIdle"),                        // APP|WEB
         new Entry(DB_DATASOURCE_MAX_WAIT     , 10000L                           , "DataSource maxWait"),                        // APP|WEB
+        new Entry(DB_REPLICA_URI             , ""                               , "Read replica JDBC URIs"),                    // APP|WEB
+        new Entry(DB_REPLICA_USER            , ""                               , "Read replica user"),                         // APP|WEB
+        new Entry(DB_REPLICA_PASS            , ""                               , "Read replica password"),                     // APP|WEB
+        new Entry(DB_REPLICA_MAX_LAG         , 30                               , "Read replica max lag (staleness)"),          // APP|WEB
+        new Entry(DB_REPLICA_CHECK_INTERVAL  , 10                               , "Read replica check interval"),               // APP|WEB
+        new Entry(DB_REPLICA_RETRY           , 60                               , "Read replica retry after failure"),          // APP|WEB
         new Entry(DB_PROVIDER                , "mysql"                          , "Database provider"),                         // APP|WEB
         new Entry(DB_NAME                    , "?"                              , "Database name"),                             // APP|WEB
         new Entry(DB_URL                     , ""                               , "Database JDBC URL"),                         // APP|WEB
@@ -298,6 +334,7 @@ public class RTKey
         new Entry(DB_UTF8                    , false                            , "Enable UTF8"),                               // APP|WEB
         new Entry(DB_TABLE_NAME_PREFIX       , ""                               , "Table name prefix"),                         // APP|WEB
         new Entry(DB_TABLE_LOCKING           , false                            , "Table locking enabled"),                     // APP|WEB
+        new Entry(DB_READ_LOCK_MODE          , "auto"                           , "Read-only query locking (auto|lock|none)"),  // APP|WEB
         new Entry(DB_INCLUDE_LAST_UPDATE_ACCT, false                            , "Include 'lastUpdateAccount'"),               // APP|WEB
         new Entry(DB_INCLUDE_LAST_UPDATE_USER, false                            , "Include 'lastUpdateUser'"),                  // APP|WEB
         new Entry(DB_SHOW_SQL                , false                            , "Show insert/update SQL"),                    // APP|WEB
@@ -305,6 +342,7 @@ public class RTKey
         new Entry(DB_ALLOW_UPDATE_KEY_FIELDS , false                            , "Allow updating key fields"),                 // APP|WEB
         new Entry(DB_INACTIVE_TIMEOUT        , (6L*3600L) /*6hrs*/              , "Inactive connection timeout"),               // APP|WEB
         new Entry(DB_MYSQL_TBLEXIST_SEL_COUNT, true                             , "MySQL tableExist use SELECT COUNT(*)"),      // APP|WEB
+        new Entry(DB_PROJECTION_FAIL_FAST    , false                            , "Fail on unloaded projection field access"),  // APP|WEB
 
         new Entry("OSTools attributes"),
         new Entry(OSTOOLS_MEMORY_CHECK_ENABLE, false                            , "Enable memory checks"),                      // APP|WEB
@@ -360,6 +398,7 @@ public class RTKey
                 }
             }
             defaultProperties = null;
+            RTConfig.invalidateSnapshot();
         }
     }
     
@@ -373,6 +412,7 @@ public class RTKey
             if (rtKey != null) {
                 RTKey.getRuntimeEntryMap().put(rtKey, dftEntry);
                 defaultProperties = null;
+                RTConfig.invalidateSnapshot();
             }
         }
     }
@@ -424,6 +464,7 @@ public class RTKey
         Entry rtKey = RTKey.getRuntimeEntry(key);
         if (rtKey != null) {
             rtKey.setDefault(val);
+            RTConfig.invalidateSnapshot();
         } else {
             RTKey.addRuntimeEntry(new Entry(key,val));
         }
@@ -651,6 +651,37 @@ public class ServerSocketThread
 
     // ------------------------------------------------------------------------
 
+    private volatile Metrics.Counter   metricPackets    = null;
+    private volatile Metrics.Histogram metricParseTime  = null;
+
+    /**
+    *** Records the packet count and parse time metrics for the specified handler
+    *** @param cph      The client packet handler
+    *** @param startNS  The <code>System.nanoTime()</code> at which packet parsing started
+    **/
+    protected void _recordPacketMetrics(ClientPacketHandler cph, long startNS)
+    {
+        if ((cph == null) || !Metrics.isEnabled()) {
+            return;
+        }
+        Metrics.Histogram parseTime = this.metricParseTime;
+        if (parseTime == null) {
+            // -- DCS name is the last package segment of the handler ("org.opengts.servers.astra" ==> "astra")
+            String pkg = cph.getClass().getName();
+            int    p   = pkg.lastIndexOf('.');
+            pkg = (p > 0)? pkg.substring(0,p) : "";
+            String dcs  = pkg.substring(pkg.lastIndexOf('.') + 1);
+            String port = String.valueOf(this.getLocalPort());
+            this.metricPackets = Metrics.getCounter("dcs_packets_total", "dcs", dcs, "port", port);
+            parseTime = Metrics.getHistogram("dcs_parse_seconds", "dcs", dcs, "handler", cph.getClass().getSimpleName());
+            this.metricParseTime = parseTime;
+        }
+        parseTime.recordSince(startNS);
+        this.metricPackets.increment();
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Run a test session from the specified input data array
     *** @param data  The test input data array
@@ -2573,7 +2604,9 @@ public class ServerSocketThread
                         /* handle packet, and get response */
                         if ((line != null) && (clientHandler != null)) {
                             try {
+                                long parseStartNS = System.nanoTime();
                                 byte response[] = clientHandler.getHandlePacket(line);
+                                ServerSocketThread.this._recordPacketMetrics(clientHandler, parseStartNS);
                                 if ((response != null) && (response.length > 0)) {
                                     if (clientSock.isTCP()) {
                                         // -- TCP: Send response over socket connection
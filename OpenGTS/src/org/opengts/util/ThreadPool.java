@@ -116,6 +116,20 @@ public class ThreadPool
         return count;
     }
 
+    /**
+    *** Gets the total number of queued jobs (not yet processed) in all ThreadPools
+    **/
+    public static int GetTotalQueueSize()
+    {
+        int count = 0;
+        synchronized (ThreadPool.threadPoolList) {
+            for (ThreadPool tp : ThreadPool.threadPoolList.keySet()) {
+                count += tp.getQueueSize();
+            }
+        }
+        return count;
+    }
+
     /**
     *** Tell all active threads to stop 
     **/
@@ -276,6 +290,21 @@ public class ThreadPool
         /* add to global manager */
         ThreadPool._AddThreadPool(this);
 
+        /* metrics (weakly referenced, this pool remains eligible for garbage collection) */
+        final java.lang.ref.WeakReference<ThreadPool> poolRef = new java.lang.ref.WeakReference<ThreadPool>(this);
+        Metrics.registerGauge("threadpool_queue_size", new Metrics.GaugeValue() {
+            public long getValue() {
+                ThreadPool tp = poolRef.get();
+                return (tp != null)? (long)tp.getQueueSize() : 0L;
+            }
+        }, "pool", groupName);
+        Metrics.registerGauge("threadpool_active_count", new Metrics.GaugeValue() {
+            public long getValue() {
+                ThreadPool tp = poolRef.get();
+                return (tp != null)? (long)tp.getActiveCount() : 0L;
+            }
+        }, "pool", groupName);
+
     }
 
     // ------------------------------------------------------------------------
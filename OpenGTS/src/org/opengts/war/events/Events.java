@@ -94,6 +94,8 @@ public class Events
     private static final String  PROP_Events_useOldXMLFormat    = "Events.useOldXMLFormat";
     private static final String  PROP_Events_defaultLimit       = "Events.defaultLimit";
     private static final String  PROP_Events_maximumLimit       = "Events.maximumLimit";
+    private static final String  PROP_Events_streamEvents       = "Events.streamEvents";
+    private static final String  PROP_Events_streamChunkSize    = "Events.streamChunkSize";
 
     /* old XML format */
     private static       boolean OLD_XML_FORMAT                 = false;
@@ -102,6 +104,13 @@ public class Events
     public  static       long    DFT_LIMIT                      = 100L;
     public  static       long    MAX_LIMIT                      = 1000L;
 
+    /* streamed output */
+    // When enabled, events are read from the DB in chunks and written to the output
+    // stream as they are read (chunked transfer encoding), rather than loading all
+    // events for all requested devices into memory before formatting.
+    private static       boolean STREAM_EVENTS                  = true;
+    private static       int     STREAM_CHUNK_SIZE              = EventData.DFT_STREAM_CHUNK_SIZE;
+
     // ------------------------------------------------------------------------
     // http://example.com/events/Data.xml?a=account&u=user&p=password&d=device&tz=US/Pacific&rf=YYYY/MM/DD/hh:mm:ss&rt=YYYY/MM/DD/hh:mm:ss&l=200
     // http://example.com/events/Data.csv?a=account&u=user&p=password&d=device
@@ -143,6 +152,8 @@ public class Events
         OLD_XML_FORMAT = RTConfig.getBoolean(PROP_Events_useOldXMLFormat,OLD_XML_FORMAT);
         DFT_LIMIT      = Math.max(RTConfig.getLong(PROP_Events_defaultLimit,DFT_LIMIT),1L);
         MAX_LIMIT      = Math.max(RTConfig.getLong(PROP_Events_maximumLimit,MAX_LIMIT),DFT_LIMIT);
+        STREAM_EVENTS  = RTConfig.getBoolean(PROP_Events_streamEvents,STREAM_EVENTS);
+        STREAM_CHUNK_SIZE = Math.max(RTConfig.getInt(PROP_Events_streamChunkSize,STREAM_CHUNK_SIZE),1);
 
     };
 
@@ -468,9 +479,14 @@ public class Events
             }
         }
 
+        /* streamed event range */
+        // events are read per device, in chunks, while the output is written
+        EventUtil.StreamRange evRange = STREAM_EVENTS?
+            new EventUtil.StreamRange(startTime, endTime, limit, validGPS, STREAM_CHUNK_SIZE) : 
+            null;
+
         /* extract records */
-        // NOT CURRENTLY SCALABLE!
-        // this version assumes that the number of returned records is reasonable and fits in memory
+        // if not streamed, this assumes that the number of returned records is reasonable and fits in memory
         Collection<Device> devList = new Vector<Device>();
         //java.util.List<EventData> evList = new Vector<EventData>();
         try {
@@ -479,7 +495,7 @@ public class Events
             for (String devID : deviceIDSet) {
                 Device dev = Device._getDevice(account, devID);
                 if (dev != null) {
-                    if (limit > 0) {
+                    if ((evRange == null) && (limit > 0)) {
                         EventData ed[] = this.getDeviceRangeEvents(dev, startTime, endTime, limit, validGPS);
                         //ListTools.toList(evList,ed);
                         dev.setSavedRangeEvents(ed);
@@ -514,12 +530,14 @@ public class Events
         /* write formatted events */
         try {
             EventUtil.getInstance().writeEvents(out, 
-                account, devList,
+                account, devList, evRange,
                 outFmt, allTags, dispTmz,
                 privLabel);
         } catch (IOException ioe) {
             Print.logException("Error writing events", ioe);
-            this.errorResponse(response, outFmt, "Internal error (output)");
+            if (!response.isCommitted()) {
+                this.errorResponse(response, outFmt, "Internal error (output)");
+            }
             return;
         }
 
@@ -547,6 +565,7 @@ public class Events
                 CommonServlet.setResponseContentType(response, HTMLTools.MIME_XML());
                 break;
             case EventUtil.FORMAT_JSON:
+            case EventUtil.FORMAT_ROUTE:
                 CommonServlet.setResponseContentType(response, HTMLTools.MIME_JSON());
                 break;
             case EventUtil.FORMAT_JSONX:
@@ -565,16 +584,21 @@ public class Events
     {
         EventData evdata[] = null;
         if (device != null) {
-            if ((startTime <= 0L) && (endTime <= 0L)) {
-                // date range not specified
-                evdata = device.getLatestEvents(limit, validGPS);
-            } else
-            if (startTime <= 0L) {
-                // start date range not specified
-                evdata = device.getRangeEvents(startTime, endTime, validGPS, EventData.LimitType.LAST, limit);
-            } else {
-                // end date range MAY not have been specified
-                evdata = device.getRangeEvents(startTime, endTime, validGPS, EventData.LimitType.FIRST, limit);
+            DBReplica.beginReplicaReads();
+            try {
+                if ((startTime <= 0L) && (endTime <= 0L)) {
+                    // date range not specified
+                    evdata = device.getLatestEvents(limit, validGPS);
+                } else
+                if (startTime <= 0L) {
+                    // start date range not specified
+                    evdata = device.getRangeEvents(startTime, endTime, validGPS, EventData.LimitType.LAST, limit);
+                } else {
+                    // end date range MAY not have been specified
+                    evdata = device.getRangeEvents(startTime, endTime, validGPS, EventData.LimitType.FIRST, limit);
+                }
+            } finally {
+                DBReplica.endReplicaReads();
             }
         }
         return evdata;
@@ -613,6 +637,7 @@ public class Events
                 break;
             case EventUtil.FORMAT_JSON:
             case EventUtil.FORMAT_JSONX:
+            case EventUtil.FORMAT_ROUTE:
                 out.println("{");
                 out.println("  \"Error\": \"" + StringTools.escapeJSON(msg) + "\"");
                 out.println("}");
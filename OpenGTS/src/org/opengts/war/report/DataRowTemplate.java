@@ -41,10 +41,12 @@ public abstract class DataRowTemplate
     // ------------------------------------------------------------------------
 
     private HashMap<String,DataColumnTemplate> lookupTable = null;
+    private HashMap<String,String[]>           reqFields   = null;
     
     public DataRowTemplate() 
     {
         this.lookupTable = new HashMap<String,DataColumnTemplate>();
+        this.reqFields   = new HashMap<String,String[]>();
     }
 
     // ------------------------------------------------------------------------
@@ -141,6 +143,34 @@ public abstract class DataRowTemplate
 
     // ------------------------------------------------------------------------
 
+    /* declare the row record fields read by the specified column (in addition to the primary keys) */
+    protected void setRequiredFields(String key, String... fldNames)
+    {
+        if (!StringTools.isBlank(key)) {
+            this.reqFields.put(this._normalizeKey(key), (fldNames != null)? fldNames : new String[0]);
+        }
+    }
+
+    /* return the row record fields read by the specified columns, or null if any column has not declared its fields */
+    public Set<String> getRequiredFields(ReportColumn cols[])
+    {
+        if (ListTools.isEmpty(cols)) {
+            return null;
+        }
+        Set<String> flds = new HashSet<String>();
+        for (ReportColumn rc : cols) {
+            String fn[] = (rc != null)? this.reqFields.get(this._normalizeKey(rc.getName())) : null;
+            if (fn == null) {
+                // column fields not declared
+                return null;
+            }
+            ListTools.toSet(fn, flds);
+        }
+        return flds;
+    }
+
+    // ------------------------------------------------------------------------
+
     public DBDataRow.RowType getRowType(Object obj)
     {
         return DBDataRow.RowType.DETAIL;
@@ -1064,6 +1064,19 @@ public abstract class ReportData
         return true;
     }
 
+    /**
+    *** Returns the EventData fields which this report reads from each EventData record,
+    *** or null if all fields should be read.  If non-null, EventData records are read 
+    *** from the DB with a projected selection (remaining fields are loaded on demand).
+    *** Reports which override "isEventDataMatch" and read additional fields must
+    *** include those fields, or return null.
+    *** @return The EventData fields read by this report, or null for all fields
+    **/
+    protected Set<String> getEventDataFields()
+    {
+        return null;
+    }
+
     // ------------------------------------------------------------------------
     // read EventData records
 
@@ -1148,8 +1161,20 @@ public abstract class ReportData
             }
         };
 
+        /* projected fields (rule selectors may read any field) */
+        Set<String> selFields = null;
+        if (StringTools.isBlank(ruleSelector)) {
+            Set<String> evFields = this.getEventDataFields();
+            if (evFields != null) {
+                selFields = new HashSet<String>(evFields);
+                selFields.add(EventData.FLD_latitude);  // report distance
+                selFields.add(EventData.FLD_longitude);
+            }
+        }
+
         /* get events */
         EventData ed[] = null;
+        DBReplica.beginReplicaReads();
         try {
             ed = EventData.getRangeEvents(
                 accountID, deviceDB.getDeviceID(),
@@ -1158,9 +1183,12 @@ public abstract class ReportData
                 this.getValidGPSRequired(),
                 this.getSelectionLimitType(), this.getSelectionLimit(), this.getOrderAscending(),
                 this.getWhereSelector(),
-                evRcdHandler);
+                evRcdHandler,
+                selFields);
         } catch (DBException dbe) {
             Print.logException("Unable to obtain EventData records", dbe);
+        } finally {
+            DBReplica.endReplicaReads();
         }
 
         /* return events */
@@ -1244,6 +1272,7 @@ public abstract class ReportData
 
         /* get events */
         long recordCount = 0L;
+        DBReplica.beginReplicaReads();
         try {
             recordCount = EventData.countRangeEvents(
                 accountID, deviceDB.getDeviceID(),
@@ -1254,6 +1283,8 @@ public abstract class ReportData
                 this.getWhereSelector());
         } catch (DBException dbe) {
             Print.logException("Unable to obtain EventData record count", dbe);
+        } finally {
+            DBReplica.endReplicaReads();
         }
         
         /* return events */
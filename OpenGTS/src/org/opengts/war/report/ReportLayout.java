@@ -516,7 +516,13 @@ public abstract class ReportLayout
     {
         ReportPresentation rp = this.getReportPresentation();
         if (rp != null) {
-            return rp.writeReport(format, rd, out, indentLevel);
+            long startNS = System.nanoTime();
+            int  count   = rp.writeReport(format, rd, out, indentLevel);
+            if (Metrics.isEnabled()) {
+                String fmt = !StringTools.isBlank(format)? format.toLowerCase() : "html";
+                Metrics.getHistogram("report_render_seconds", "format", fmt).recordSince(startNS);
+            }
+            return count;
         } else {
             return 0;
         }
@@ -449,6 +449,26 @@ public class EventDataLayout
         public EventDataRow() {
             super();
 
+            // EventData fields read by columns (used for projected EventData selection)
+            this.setRequiredFields(DATA_INDEX);
+            this.setRequiredFields(DATA_DEVICE_ID);
+            this.setRequiredFields(DATA_DEVICE_DESC);
+            this.setRequiredFields(DATA_DATE);
+            this.setRequiredFields(DATA_TIME);
+            this.setRequiredFields(DATA_DATETIME);
+            this.setRequiredFields(DATA_TIMESTAMP);
+            this.setRequiredFields(DATA_STATUS_CODE);
+            this.setRequiredFields(DATA_STATUS_DESC);
+            this.setRequiredFields(DATA_LATITUDE      , EventData.FLD_latitude, EventData.FLD_longitude, EventData.FLD_gpsAge);
+            this.setRequiredFields(DATA_LONGITUDE     , EventData.FLD_latitude, EventData.FLD_longitude, EventData.FLD_gpsAge);
+            this.setRequiredFields(DATA_GEOPOINT      , EventData.FLD_latitude, EventData.FLD_longitude, EventData.FLD_gpsAge);
+            this.setRequiredFields(DATA_ALTITUDE      , EventData.FLD_altitude);
+            this.setRequiredFields(DATA_SPEED         , EventData.FLD_speedKPH);
+            this.setRequiredFields(DATA_SPEED_HEADING , EventData.FLD_speedKPH, EventData.FLD_heading);
+            this.setRequiredFields(DATA_SPEED_UNITS   , EventData.FLD_speedKPH, EventData.FLD_heading);
+            this.setRequiredFields(DATA_HEADING       , EventData.FLD_speedKPH, EventData.FLD_heading);
+            this.setRequiredFields(DATA_ADDRESS       , EventData.FLD_address);
+
             // Index
             this.addColumnTemplate(new DataColumnTemplate(DATA_INDEX) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
@@ -136,6 +136,16 @@ public class EventDetailReport
     {
         return super.getEventDataIterator();
     }
+
+    /**
+    *** Returns the EventData fields read by the columns of this report, or null if 
+    *** any column has not declared the fields it reads.
+    *** @return The EventData fields read by this report, or null for all fields
+    **/
+    protected Set<String> getEventDataFields()
+    {
+        return this.getDataRowTemplate().getRequiredFields(this.getReportColumns());
+    }
  
     /**
     *** Creates and returns an iterator for the row data displayed in the total rows of this report.
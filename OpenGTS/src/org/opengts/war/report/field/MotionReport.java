@@ -100,6 +100,7 @@ public class MotionReport
     private static final String PROP_minimumSpeedKPH        = "minimumSpeedKPH";
     private static final String PROP_stopOnIgnitionOff      = "stopOnIgnitionOff";
     private static final String PROP_tabulateByWorkHours    = "tabulateByWorkHours";
+    private static final String PROP_useMotionSegments      = "useMotionSegments";
     private static final String PROP_WorkHours_             = "WorkHours.";
 
     // ------------------------------------------------------------------------
@@ -260,6 +261,7 @@ public class MotionReport
     private long                        minStoppedTimeSec   = MIN_STOPPED_TIME_SEC; // TRIP_ON_SPEED only
     private boolean                     stopOnIgnitionOff   = STOP_ON_IGNITION_OFF;
     private boolean                     tabulateByWorkHours = TABULATE_BY_WORK_HOURS;
+    private boolean                     useMotionSegments   = false;
     
     private TimeZone                    timeZone            = null;
     private WorkHours                   workHours           = null;
@@ -354,6 +356,7 @@ public class MotionReport
         this.minSpeedKPH         = rtp.getDouble( PROP_minimumSpeedKPH     , MIN_SPEED_KPH);
         this.minStoppedTimeSec   = rtp.getLong(   PROP_minimumStoppedTime  , MIN_STOPPED_TIME_SEC);
         this.stopOnIgnitionOff   = rtp.getBoolean(PROP_stopOnIgnitionOff   , STOP_ON_IGNITION_OFF);
+        this.useMotionSegments   = rtp.getBoolean(PROP_useMotionSegments   , false); // requires backfilled MotionSegment table
 
         /* fieldSortByField ascending/descending */
         String _fleetSortByField = rtp.getString( PROP_fleetSortByField    , "");
@@ -706,7 +709,15 @@ public class MotionReport
                 // get events
                 // this.lastValidOdometerKM = 0.0; <-- already reset above
                 this.deviceEventIndex = 0L; // provide an index to all events read
-                this.getEventData(device, this); // <== callback to 'handleDBRecord'
+                if (this.useMotionSegments && 
+                    ((this.tripStartType == TRIP_ON_SPEED) || (this.tripStartType == TRIP_ON_START)) &&
+                    (this.ignitionCodes == null) && // idle time is not tracked by MotionSegment
+                    MotionSegment.IsMotionSegmentEnabled()) {
+                    // -- read materialized trip/stop segments (start/stop state remains reset)
+                    this._addMotionSegmentRecords(accountID, devID, device);
+                } else {
+                    this.getEventData(device, this); // <== callback to 'handleDBRecord'
+                }
                 //Print.logInfo("Total Accumulated Idle Time: " + this.totalIdleSec + " seconds");
 
                 // handle final record here
@@ -1024,6 +1035,97 @@ public class MotionReport
 
     }
 
+    /**
+    *** Adds the body records from the materialized MotionSegment trip/stop records.<br>
+    *** For TRIP_ON_SPEED the report thresholds are applied to the materialized segments:
+    *** trips with an average speed below "minimumSpeedKPH" are treated as part of the 
+    *** surrounding stop, and trips separated by a stop shorter than "minimumStoppedTime"
+    *** are combined into a single trip.
+    *** @param acctID  The Account ID
+    *** @param devID   The Device ID
+    *** @param device  The Device
+    **/
+    private void _addMotionSegmentRecords(String acctID, String devID, Device device)
+        throws DBException
+    {
+        long timeStart = this.getTimeStart();
+        long timeEnd   = this.getTimeEnd();
+        long limit     = this.getReportLimit();
+        MotionSegment ms[] = MotionSegment.getMotionSegments(acctID, devID, timeStart, timeEnd, limit, true);
+        if (ListTools.isEmpty(ms)) {
+            return;
+        }
+        boolean onSpeed = (this.tripStartType == TRIP_ON_SPEED);
+
+        /* trips at/above the minimum speed */
+        java.util.List<MotionSegment> trips = new Vector<MotionSegment>();
+        for (int i = 0; i < ms.length; i++) {
+            MotionSegment seg = ms[i];
+            long driveTime = seg.getDrivingElapsed();
+            if (onSpeed && (this.minSpeedKPH > 0.0) && !seg.isOpen() && (driveTime > 0L)) {
+                double avgKPH = seg.getDrivingDistanceKM() / ((double)driveTime / 3600.0);
+                if (avgKPH < this.minSpeedKPH) {
+                    // -- below minimum speed, part of the stop
+                    continue;
+                }
+            }
+            trips.add(seg);
+        }
+
+        /* combine trips separated by less than the minimum stopped time: [0]=start, [1]=stop */
+        java.util.List<MotionSegment[]> grps = new Vector<MotionSegment[]>();
+        for (MotionSegment seg : trips) {
+            MotionSegment last[] = !grps.isEmpty()? grps.get(grps.size() - 1) : null;
+            if (onSpeed && (last != null) && !last[1].isOpen() &&
+                ((seg.getStartTime() - last[1].getStopTime()) < this.minStoppedTimeSec)) {
+                last[1] = seg;
+            } else {
+                grps.add(new MotionSegment[] { seg, seg });
+            }
+        }
+
+        /* add records */
+        MotionSegment lastSeg = ms[ms.length - 1];
+        for (int g = 0; g < grps.size(); g++) {
+            MotionSegment start = grps.get(g)[0];
+            MotionSegment stop  = grps.get(g)[1];
+            long stopTime = stop.getStopTime();
+            if ((stopTime <= 0L) || ((timeEnd > 0L) && (stopTime > timeEnd))) {
+                // -- we haven't stopped during the range of this report
+                this._addRecord(acctID, devID, device,
+                    start.getStartTime(), start.getStartGeoPoint(), start.getStartAddress(), start.getStartOdometerKM(), start.getStartOdomOfsKM(), start.getStartFuelTotal(),
+                    -1L                 , null                    , ""                     , -1.0                       , 0.0                       , -1.0                      ,
+                    -1L, -1.0, -1.0, -1.0, Device.FuelEconomyType.UNKNOWN,
+                    -1L, -1L, -1.0);
+            } else {
+                long   driveTime = stopTime - start.getStartTime();
+                double driveDist = stop.getStopOdometerKM()  - start.getStartOdometerKM(); // kilometers
+                double fuelTrip  = stop.getStopFuelTotal()   - start.getStartFuelTotal();  // liters
+                double driveEcon = (fuelTrip > 0.0)? (driveDist / fuelTrip) : 0.0; // kilometers per liter
+                long   stopElaps;
+                if ((g + 1) < grps.size()) {
+                    // -- stopped until the start of the next trip
+                    stopElaps = grps.get(g + 1)[0].getStartTime() - stopTime;
+                } else
+                if (!lastSeg.isOpen() && (lastSeg.getStopElapsed() > 0L)) {
+                    // -- stopped until the start of the trip following the last segment
+                    stopElaps = (lastSeg.getStopTime() + lastSeg.getStopElapsed()) - stopTime;
+                } else {
+                    stopElaps = -1L;
+                }
+                if ((stopElaps <= 0L) || ((timeEnd > 0L) && ((stopTime + stopElaps) > timeEnd))) {
+                    // -- still stopped at the end of this report
+                    stopElaps = -1L;
+                }
+                this._addRecord(acctID, devID, device,
+                    start.getStartTime(), start.getStartGeoPoint(), start.getStartAddress(), start.getStartOdometerKM(), start.getStartOdomOfsKM(), start.getStartFuelTotal(),
+                    stopTime            , stop.getStopGeoPoint()  , stop.getStopAddress()  , stop.getStopOdometerKM()   , stop.getStopOdomOfsKM()   , stop.getStopFuelTotal()   ,
+                    driveTime, driveDist, fuelTrip, driveEcon, Device.FuelEconomyType.FUEL_CONSUMED,
+                    stopElaps, -1L/*no ignition, no idle*/, -1.0);
+            }
+        }
+    }
+
     /**
     *** Custom DBRecord callback handler class
     *** @param rcd  The EventData record
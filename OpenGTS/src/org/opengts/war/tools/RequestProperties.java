@@ -1483,6 +1483,18 @@ public class RequestProperties
     /* return array of events based on requested parameters */
     public EventData[] getMapEvents(int statusCodes[], long perDevLimit)
         throws DBException
+    {
+        DBReplica.beginReplicaReads(); // map data may be read from a replica
+        try {
+            return this._getMapEvents(statusCodes, perDevLimit);
+        } finally {
+            DBReplica.endReplicaReads();
+        }
+    }
+
+    /* return array of events based on requested parameters */
+    private EventData[] _getMapEvents(int statusCodes[], long perDevLimit)
+        throws DBException
     {
         PrivateLabel privLabel = this.getPrivateLabel();
         final boolean enableUniversalGroups = privLabel.getBooleanProperty(PrivateLabel.PROP_TrackMap_enableUniversalGroups,false);
@@ -1723,6 +1735,18 @@ public class RequestProperties
     /* return array of events based on requested parameters */
     public Collection<Device> getMapEventsByDevice(int statusCodes[], long perDevLimit)
         throws DBException
+    {
+        DBReplica.beginReplicaReads(); // map data may be read from a replica
+        try {
+            return this._getMapEventsByDevice(statusCodes, perDevLimit);
+        } finally {
+            DBReplica.endReplicaReads();
+        }
+    }
+
+    /* return array of events based on requested parameters */
+    private Collection<Device> _getMapEventsByDevice(int statusCodes[], long perDevLimit)
+        throws DBException
     {
         PrivateLabel privLabel = this.getPrivateLabel();
         // this assumes that the number of returned records is reasonable and fits in memory
@@ -0,0 +1,161 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2014, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Exposes the internal 'Metrics' registry in plain-text format
+// ----------------------------------------------------------------------------
+package org.opengts.war.track;
+
+import java.util.*;
+import java.io.*;
+import java.security.MessageDigest;
+
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+import org.opengts.util.*;
+
+import org.opengts.db.*;
+
+import org.opengts.war.tools.*;
+
+/**
+*** Returns the contents of the internal <code>Metrics</code> registry as plain text.<br>
+*** Access is limited to the client addresses listed in the runtime config property
+*** "metrics.servlet.allowAddresses" (default is localhost only, "*" allows all).<br>
+*** Behind a reverse proxy the client address is the proxy address, so the address list is
+*** not used for requests which were forwarded (ie. "X-Forwarded-For"), or when
+*** "metrics.servlet.behindProxy" is true.  Such requests are refused unless a token is
+*** configured in "metrics.servlet.token", and presented in an "Authorization: Bearer"
+*** header.  When a token is configured, it is required for all requests.<br>
+*** "/metrics?trace=true" returns the slowest-event ingestion journal instead.
+**/
+
+public class MetricsServlet
+    extends HttpServlet
+{
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if the specified client address is allowed access
+    *** @param ipAddr  The client IP address
+    **/
+    private static boolean isAllowedAddress(String ipAddr)
+    {
+        String allow[] = RTConfig.getStringArray(RTKey.METRICS_SERVLET_ALLOW, null);
+        if (ListTools.isEmpty(allow)) {
+            return false;
+        }
+        for (String a : allow) {
+            String A = StringTools.trim(a);
+            if (A.equals("*") || A.equals(ipAddr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+    *** Returns true if the specified request was forwarded by a proxy
+    **/
+    private static boolean isForwardedRequest(HttpServletRequest request)
+    {
+        if (RTConfig.getBoolean(RTKey.METRICS_SERVLET_PROXIED,false)) {
+            return true;
+        }
+        return (request.getHeader("X-Forwarded-For") != null) ||
+               (request.getHeader("Forwarded"      ) != null) ||
+               (request.getHeader("X-Real-IP"      ) != null);
+    }
+
+    /**
+    *** Returns true if the request contains the specified bearer token
+    **/
+    private static boolean hasToken(HttpServletRequest request, String token)
+    {
+        String auth = StringTools.trim(request.getHeader("Authorization"));
+        if (!StringTools.startsWithIgnoreCase(auth,"Bearer ")) {
+            return false;
+        }
+        String reqToken = auth.substring("Bearer ".length()).trim();
+        return MessageDigest.isEqual(StringTools.getBytes(reqToken), StringTools.getBytes(token)); // constant time
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** GET request handler
+    **/
+    public void doGet(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException
+    {
+
+        /* enabled? */
+        if (!RTConfig.getBoolean(RTKey.METRICS_SERVLET_ENABLE,true)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        /* token required? */
+        String  ipAddr    = request.getRemoteAddr();
+        String  token     = RTConfig.getString(RTKey.METRICS_SERVLET_TOKEN,"");
+        boolean forwarded = MetricsServlet.isForwardedRequest(request);
+        if (!StringTools.isBlank(token)) {
+            if (!MetricsServlet.hasToken(request, token)) {
+                Print.logWarn("Metrics request refused (invalid/missing token): " + ipAddr);
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+        } else
+        if (forwarded) {
+            // -- the client address is the proxy address, which cannot be trusted
+            Print.logWarn("Metrics request refused (proxied request requires '" + RTKey.METRICS_SERVLET_TOKEN + "'): " + ipAddr);
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        /* allowed client address? (not applicable to proxied requests) */
+        if (!forwarded && !MetricsServlet.isAllowedAddress(ipAddr)) {
+            Print.logWarn("Metrics request refused: " + ipAddr);
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        /* write metrics (or slowest-event journal) */
+        CommonServlet.setResponseContentType(response, HTMLTools.MIME_PLAIN());
+        PrintWriter out = response.getWriter();
+        if (StringTools.parseBoolean(request.getParameter("trace"),false)) {
+            out.write(EventTrace.getJournalText());
+        } else {
+            out.write(Metrics.getText());
+        }
+        out.flush();
+
+    }
+
+    /**
+    *** POST request handler
+    **/
+    public void doPost(HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException
+    {
+        this.doGet(request, response);
+    }
+
+}
@@ -295,10 +295,10 @@ public class HtmlWrapper
             // parse request
             JSON jsonReq = null;
             try {
-                byte jsonBytes[] = FileTools.readStream(request.getInputStream());
-                String jsonStr = StringTools.toStringValue(jsonBytes).trim();
-                Print.logInfo("JSON request:\n" + jsonStr);
-                jsonReq = new JSON(jsonStr);
+                jsonReq = new JSON(request.getInputStream()); // pull-parsed from the request stream
+                if (Print.isDebugLoggingLevel()) {
+                    Print.logDebug("JSON request:\n" + jsonReq);
+                }
             } catch (Throwable th) { // JSON.JSONParseException, etc
                 Print.logException("JSON request exception", th);
             }
@@ -309,9 +309,11 @@ public class HtmlWrapper
                 //CommonServlet.setResponseContentType(response, HTMLTools.MIME_JSON());
                 CommonServlet.setResponseContentType(response, HTMLTools.MIME_PLAIN());
                 PrintWriter out = response.getWriter();
-                String jsonRespStr = (jsonResp != null)? jsonResp.toString() : "";
-                Print.logInfo("JSON response:\n" + jsonRespStr);
-                out.println(jsonRespStr);
+                if (Print.isDebugLoggingLevel()) {
+                    Print.logDebug("JSON response:\n" + jsonResp);
+                }
+                jsonResp.write(out, true); // streamed, no intermediate String
+                out.println();
                 out.close();
             } else {
                 // we assume that the JSON request handler had other intentions
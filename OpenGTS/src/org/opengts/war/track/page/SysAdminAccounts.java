@@ -94,6 +94,7 @@ public class SysAdminAccounts
     // parameters
     public  static final String PARM_NEW_NAME                   = "s_newname";
     public  static final String PARM_ACCOUNT_SELECT             = "s_account";
+    public  static final String PARM_ACCOUNT_AFTER              = "s_after";
     
     public  static final String PARM_ACCT_ID                    = "a_id";
     public  static final String PARM_ACCT_CREATED               = "a_created";
@@ -277,6 +278,50 @@ public class SysAdminAccounts
 
     // ------------------------------------------------------------------------
 
+    /* return the list of authorized accounts (contains at least the current account) */
+    private static Collection<String> getAuthorizedAccounts(Account currAcct)
+    {
+        Collection<String> accountList = null;
+        try {
+            accountList = Account.getAuthorizedAccounts(currAcct);
+        } catch (DBException dbe) {
+            Print.logError("Error reading authorized Accounts");
+        }
+        if (ListTools.isEmpty(accountList)) {
+            accountList = new Vector<String>();
+            accountList.add(currAcct.getAccountID());
+        }
+        return accountList;
+    }
+
+    /* return the first authorized account (reads a single account id) */
+    private static String getFirstAuthorizedAccount(Account currAcct)
+    {
+        Collection<String> list = null;
+        try {
+            list = Account.getAuthorizedAccounts(currAcct, null, 1L);
+        } catch (DBException dbe) {
+            Print.logError("Error reading authorized Accounts");
+        }
+        return !ListTools.isEmpty(list)? ListTools.itemAt(list, 0, "") : currAcct.getAccountID();
+    }
+
+    /* return true if the current account is authorized to access the specified account */
+    private static boolean isAuthorizedAccount(Account currAcct, String acctID)
+    {
+        if (acctID.equals(currAcct.getAccountID())) {
+            return true;
+        }
+        try {
+            return Account.isAuthorizedAccount(currAcct, acctID);
+        } catch (DBException dbe) {
+            Print.logError("Error checking authorized Account: " + acctID);
+            return false;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
     public void writePage(
         final RequestProperties reqState,
         String pageMsg)
@@ -323,27 +368,34 @@ public class SysAdminAccounts
             // access will be restricted below
         }
 
-        /* list of authorized accounts */
+        /* paged account list? (keyset pagination, following the last account of the previous page) */
+        // -- when paged, only the displayed page of authorized accounts is read
+        final long pageSize = privLabel.getLongProperty(PrivateLabel.PROP_SysAdminAccounts_pageSize,0L);
+
+        /* list of authorized accounts (not paged) */
         Collection<String> accountList = null;
-        try {
-            accountList = Account.getAuthorizedAccounts(currAcct);
-        } catch (DBException dbe) {
-            Print.logError("Error reading authorized Accounts");
-        }
-        if (ListTools.isEmpty(accountList)) {
-            accountList = new Vector<String>();
-            accountList.add(currAcctID);
+        if (pageSize <= 0L) {
+            accountList = SysAdminAccounts.getAuthorizedAccounts(currAcct);
         }
-        // 'accountList' has at least one element in it.
 
         /* selected account-id */
         String selAccountID = AttributeTools.getRequestString(reqState.getHttpServletRequest(), PARM_ACCOUNT_SELECT, "");
-        if (StringTools.isBlank(selAccountID)) {
-            selAccountID = ListTools.itemAt(accountList, 0, "");
-        }
-        if (!ListTools.contains(accountList,selAccountID)) {
-            // Authorized account list does not contain the selected account
-            selAccountID = currAcctID;
+        if (accountList != null) {
+            if (StringTools.isBlank(selAccountID)) {
+                selAccountID = ListTools.itemAt(accountList, 0, "");
+            }
+            if (!ListTools.contains(accountList,selAccountID)) {
+                // Authorized account list does not contain the selected account
+                selAccountID = currAcctID;
+            }
+        } else {
+            if (StringTools.isBlank(selAccountID)) {
+                selAccountID = SysAdminAccounts.getFirstAuthorizedAccount(currAcct);
+            }
+            if (!SysAdminAccounts.isAuthorizedAccount(currAcct,selAccountID)) {
+                // Current account is not authorized to access the selected account
+                selAccountID = currAcctID;
+            }
         }
         final boolean isCurrentAccountSelected = selAccountID.equals(currAcctID);
 
@@ -525,8 +577,12 @@ public class SysAdminAccounts
                     Account.Key accountKey = (Account.Key)selAccount.getRecordKey();
                     Print.logWarn("Deleting Account: " + accountKey);
                     accountKey.delete(true); // will also delete dependencies
-                    accountList = Account.getAuthorizedAccounts(currAcct);
-                    selAccountID = ListTools.itemAt(accountList, 0, "");
+                    if (accountList != null) {
+                        accountList  = SysAdminAccounts.getAuthorizedAccounts(currAcct);
+                        selAccountID = ListTools.itemAt(accountList, 0, "");
+                    } else {
+                        selAccountID = SysAdminAccounts.getFirstAuthorizedAccount(currAcct);
+                    }
                     try {
                         selAccount = !selAccountID.equals("")? Account.getAccount(selAccountID) : null; // may still be null
                     } catch (DBException dbe) {
@@ -559,7 +615,9 @@ public class SysAdminAccounts
                 try {
                     String newPasswd = null;
                     Account account  = Account.createNewAccount(currAcct, newAccountID, newPasswd); // saved
-                    accountList      = Account.getAuthorizedAccounts(currAcct);
+                    if (accountList != null) {
+                        accountList  = SysAdminAccounts.getAuthorizedAccounts(currAcct);
+                    }
                     selAccount       = account;
                     selAccountID     = account.getAccountID();
                     m = i18n.getString("SysAdminAccounts.createdAccount","New Account has been created"); // UserErrMsg
@@ -870,8 +928,39 @@ public class SysAdminAccounts
             }
         };
 
+        /* displayed page of accounts */
+        Collection<String> pageList = accountList;
+        String pageAfterID = null; // last account on this page, if there are more
+        String afterID     = "";   // last account on the previous page
+        if (pageSize > 0L) {
+            afterID = AttributeTools.getRequestString(reqState.getHttpServletRequest(), PARM_ACCOUNT_AFTER, "");
+            Collection<String> list = null;
+            try {
+                list = Account.getAuthorizedAccounts(currAcct, afterID, pageSize + 1L);
+            } catch (DBException dbe) {
+                Print.logError("Error reading authorized Account page");
+            }
+            if (ListTools.isEmpty(list) && StringTools.isBlank(afterID)) {
+                list = new Vector<String>();
+                list.add(currAcctID);
+            }
+            pageList = new Vector<String>();
+            if (list != null) {
+                for (String id : list) {
+                    if (pageList.size() >= pageSize) {
+                        pageAfterID = ListTools.itemAt(pageList, (int)pageSize - 1, "");
+                        break;
+                    }
+                    pageList.add(id);
+                }
+            }
+        }
+
         /* Content */
-        final Collection<String> _accountList = accountList;
+        final Collection<String> _accountList = pageList;
+        final boolean _isPaged       = (pageSize > 0L);
+        final String  _pageAfterID   = pageAfterID;
+        final String  _pageStartID   = afterID;
         final String  _selAccountID  = selAccountID;
         final Account _selAccount    = selAccount;
         final boolean _allowEdit     = allowEdit;
@@ -910,6 +999,9 @@ public class SysAdminAccounts
                     out.write("<div style='margin-left:25px;'>\n");
                     out.write("<form name='"+FORM_ACCOUNT_SELECT+"' method='post' action='"+selectURL+"' target='_self'>"); // target='_top'
                     out.write("<input type='hidden' name='"+PARM_COMMAND+"' value='"+COMMAND_INFO_SELECT+"'/>");
+                    if (_isPaged && !StringTools.isBlank(_pageStartID)) {
+                        out.write("<input type='hidden' name='"+PARM_ACCOUNT_AFTER+"' value='"+filter(_pageStartID)+"'/>");
+                    }
                     out.write("<table class='"+CommonServlet.CSS_ADMIN_SELECT_TABLE+"' cellspacing=0 cellpadding=0 border=0>\n");
                     out.write(" <thead>\n");
                     out.write("  <tr class='"+CommonServlet.CSS_ADMIN_TABLE_HEADER_ROW+"'>\n");
@@ -1035,6 +1127,17 @@ public class SysAdminAccounts
                     }
                     out.write(" </tbody>\n");
                     out.write("</table>\n");
+                    if (_isPaged) {
+                        // first/next page links
+                        out.write("<div style='margin-top:5px; margin-left:5px;'>");
+                        out.write("<a href='"+selectURL+"'>"+filter(i18n.getString("SysAdminAccounts.firstPage","First Page"))+"</a>");
+                        if (_pageAfterID != null) {
+                            URIArg nextURL = new URIArg(selectURL);
+                            nextURL.addArg(PARM_ACCOUNT_AFTER, _pageAfterID);
+                            out.write(" &nbsp; <a href='"+nextURL+"'>"+filter(i18n.getString("SysAdminAccounts.nextPage","Next Page"))+"</a>");
+                        }
+                        out.write("</div>\n");
+                    }
                     out.write("<table cellpadding='0' cellspacing='0' border='0' style='width:95%; margin-top:5px; margin-left:5px; margin-bottom:5px;'>\n");
                     out.write("<tr>\n");
                     if (_allowView) { 